@@ -1,16 +1,20 @@
 package datakiosk;
 
 import com.fasterxml.jackson.jr.ob.JSON;
+import com.fasterxml.jackson.jr.ob.ValueIterator;
 import software.amazon.spapi.api.datakiosk.v2023_11_15.QueriesApi;
 import software.amazon.spapi.models.datakiosk.v2023_11_15.CreateQueryResponse;
 import software.amazon.spapi.models.datakiosk.v2023_11_15.CreateQuerySpecification;
 import software.amazon.spapi.models.datakiosk.v2023_11_15.GetDocumentResponse;
+import util.DocumentDownloader;
 import util.Recipe;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
 
@@ -137,7 +141,8 @@ public class DataKioskQueryRecipe extends Recipe {
     }
 
     /**
-     * Step 4: Download and parse document from pre-signed URL
+     * Step 4: Download and parse document from pre-signed URL.
+     * The document is parsed while it downloads, one record at a time, so documents larger than memory can be processed.
      */
     private void downloadAndParseDocument(GetDocumentResponse documentMetadata) {
         try {
@@ -148,13 +153,10 @@ public class DataKioskQueryRecipe extends Recipe {
 
             System.out.println("[Step 4] Downloading document from: " + url);
 
-            byte[] data = downloadDocument(url);
-
-            // System.out.println("Detected compressionAlgorithm=GZIP. Decompressing...");
-            // data = decompressGzip(data);
-
-            String content = new String(data, "UTF-8");
-            parseDocument(content);
+            try (InputStream inputStream = openDocument(url)) {
+                long recordCount = parseDocument(inputStream);
+                System.out.println("Parsed " + recordCount + " record(s).");
+            }
 
         } catch (Exception e) {
             System.err.println("Error downloading/parsing document: " + e.getMessage());
@@ -162,43 +164,40 @@ public class DataKioskQueryRecipe extends Recipe {
         }
     }
 
-    private byte[] downloadDocument(String url) throws IOException {
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        connection.setRequestMethod("GET");
-        
-        try (InputStream inputStream = connection.getInputStream()) {
-            return inputStream.readAllBytes();
-        }
-    }
-
-    private byte[] decompressGzip(byte[] data) throws IOException {
-        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new java.io.ByteArrayInputStream(data))) {
-            return gzipInputStream.readAllBytes();
+    private InputStream openDocument(String url) throws IOException, InterruptedException {
+        // Download to a temporary file, which is deleted once the document has been parsed
+        Path documentFile = Files.createTempFile("datakiosk-document", null);
+        long size = new DocumentDownloader().download(url, documentFile);
+        System.out.println("Document downloaded (" + size + " bytes)");
+
+        // Gzip-compressed documents start with the gzip magic bytes, decompress them while reading
+        BufferedInputStream inputStream = new BufferedInputStream(
+                Files.newInputStream(documentFile, StandardOpenOption.DELETE_ON_CLOSE));
+        inputStream.mark(2);
+        int first = inputStream.read();
+        int second = inputStream.read();
+        inputStream.reset();
+        if (first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            System.out.println("Detected GZIP document. Decompressing while reading...");
+            return new GZIPInputStream(inputStream);
         }
+        return inputStream;
     }
 
-    private void parseDocument(String content) {
-        try {
-            String trimmed = content.trim();
-
-            if (trimmed.contains("\n")) {
-                System.out.println("Detected JSONL document. Parsing lines...");
-                String[] lines = trimmed.split("\n");
-                for (String line : lines) {
-                    if (!line.trim().isEmpty()) {
-                        Object jsonLine = JSON.std.anyFrom(line);
-                        System.out.println("JSONL line: " + jsonLine);
-                    }
-                }
-            } else {
-                System.out.println("Detected JSON document. Parsing...");
-                Object json = JSON.std.anyFrom(trimmed);
-                System.out.println("JSON content: " + json);
+    /**
+     * Parses a JSON document or a JSONL document (one JSON record per line) as a sequence of records,
+     * reusing one parser for the whole document.
+     */
+    private long parseDocument(InputStream inputStream) throws IOException {
+        long recordCount = 0;
+        try (ValueIterator<Object> records = JSON.std.anySequenceFrom(inputStream)) {
+            while (records.hasNext()) {
+                Object record = records.next();
+                System.out.println("Record: " + record);
+                recordCount++;
             }
-        } catch (Exception e) {
-            System.err.println("Error parsing document: " + e.getMessage());
-            System.out.println("Raw content (first 500 chars): " + content.substring(0, Math.min(500, content.length())));
         }
+        return recordCount;
     }
 
     @SuppressWarnings("unchecked")
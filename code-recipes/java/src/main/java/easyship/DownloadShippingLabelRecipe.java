@@ -6,17 +6,15 @@ import software.amazon.spapi.api.reports.v2021_06_30.ReportsApi;
 import software.amazon.spapi.models.reports.v2021_06_30.Report;
 import software.amazon.spapi.models.reports.v2021_06_30.ReportDocument;
 import util.Constants;
+import util.DocumentDownloader;
 import util.Recipe;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.zip.GZIPInputStream;
 
-import static java.net.URI.create;
-
 /**
  * Code Recipe to download shipping label from Report API and store to S3
  * Steps:
@@ -36,8 +34,14 @@ public class DownloadShippingLabelRecipe extends Recipe {
         initializeReportsApi();
         String reportDocumentId = getReportDocumentId();
         String documentUrl = getReportDocumentUrl(reportDocumentId);
-        byte[] labelData = downloadAndDecompressDocument(documentUrl);
-        System.out.println("Shipping label downloaded successfully (" + labelData.length + " bytes)");
+        Path labelFile = downloadAndDecompressDocument(documentUrl);
+        try {
+            System.out.println("Shipping label downloaded successfully (" + Files.size(labelFile) + " bytes)");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read shipping label", e);
+        } finally {
+            deleteTempFile(labelFile);
+        }
     }
 
     private void initializeParameters() {
@@ -75,40 +79,41 @@ public class DownloadShippingLabelRecipe extends Recipe {
         }
     }
 
-    private byte[] downloadAndDecompressDocument(String url) {
+    private Path downloadAndDecompressDocument(String url) {
         try {
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(create(url))
-                    .GET()
-                    .build();
-
-            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                throw new RuntimeException("Download failed: " + response.statusCode());
+            Path compressedFile = Files.createTempFile("shipping-label", ".gz");
+            try {
+                long size = new DocumentDownloader().download(url, compressedFile);
+                System.out.println("Document downloaded (" + size + " bytes), decompressing...");
+                return decompressGzip(compressedFile);
+            } finally {
+                Files.deleteIfExists(compressedFile);
             }
-
-            byte[] compressedData = response.body();
-            System.out.println("Document downloaded, decompressing...");
-            return decompressGzip(compressedData);
         } catch (Exception e) {
             throw new RuntimeException("Failed to download document", e);
         }
     }
 
-    private byte[] decompressGzip(byte[] compressedData) {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(compressedData);
-             GZIPInputStream gzipIn = new GZIPInputStream(bais);
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = gzipIn.read(buffer)) != -1) {
-                baos.write(buffer, 0, bytesRead);
-            }
-            return baos.toByteArray();
+    private Path decompressGzip(Path compressedFile) {
+        Path labelFile = null;
+        try (GZIPInputStream gzipIn = new GZIPInputStream(Files.newInputStream(compressedFile))) {
+            labelFile = Files.createTempFile("shipping-label", null);
+            Files.copy(gzipIn, labelFile, StandardCopyOption.REPLACE_EXISTING);
+            return labelFile;
         } catch (Exception e) {
+            deleteTempFile(labelFile);
             throw new RuntimeException("Failed to decompress document", e);
         }
     }
+
+    private void deleteTempFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("Failed to delete temporary file " + file + ": " + e.getMessage());
+        }
+    }
 }
@@ -8,16 +8,14 @@ import software.amazon.spapi.api.feeds.v2021_06_30.FeedsApi;
 import software.amazon.spapi.models.feeds.v2021_06_30.Feed;
 import software.amazon.spapi.models.feeds.v2021_06_30.FeedDocument;
 import util.Constants;
+import util.DocumentDownloader;
 import util.Recipe;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.ByteArrayInputStream;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-
-import static java.net.URI.create;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Code Recipe to get feed document and extract document report reference ID
@@ -38,8 +36,8 @@ public class GetFeedDocumentRecipe extends Recipe {
         initializeFeedsApi();
         String resultFeedDocumentId = getFeedStatus();
         String documentUrl = getFeedDocumentUrl(resultFeedDocumentId);
-        String xmlContent = downloadFeedDocument(documentUrl);
-        String DocumentReportReferenceID = extractDocumentReportReferenceID(xmlContent);
+        Path documentFile = downloadFeedDocument(documentUrl);
+        String DocumentReportReferenceID = extractDocumentReportReferenceID(documentFile);
         System.out.println(
                 "✅ Document Report Reference Id [Used to Retrieve the Shipping Label through the Reports API]: "
                         + DocumentReportReferenceID);
@@ -105,27 +103,18 @@ public class GetFeedDocumentRecipe extends Recipe {
         }
     }
 
-    private String downloadFeedDocument(String url) {
+    private Path downloadFeedDocument(String url) {
         try {
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(create(url))
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            System.out.println(response.body());
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                throw new RuntimeException("Download failed: " + response.statusCode());
-            }
-            System.out.println("Feed document downloaded successfully");
-            return response.body();
+            Path documentFile = Files.createTempFile("feed-document", ".xml");
+            long size = new DocumentDownloader().download(url, documentFile);
+            System.out.println("Feed document downloaded successfully (" + size + " bytes)");
+            return documentFile;
         } catch (Exception e) {
             throw new RuntimeException("Failed to download feed document", e);
         }
     }
 
-    private String extractDocumentReportReferenceID(String xmlContent) {
+    private String extractDocumentReportReferenceID(Path documentFile) {
         try {
             DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
             factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
@@ -134,7 +123,7 @@ public class GetFeedDocumentRecipe extends Recipe {
             factory.setExpandEntityReferences(false);
             factory.setXIncludeAware(false);
             DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(new ByteArrayInputStream(xmlContent.getBytes()));
+            Document doc = builder.parse(documentFile.toFile());
 
             NodeList nodes = doc.getElementsByTagName("DocumentReportReferenceID");
             if (nodes.getLength() == 0) {
@@ -145,6 +134,12 @@ public class GetFeedDocumentRecipe extends Recipe {
             throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to parse XML document", e);
+        } finally {
+            try {
+                Files.deleteIfExists(documentFile);
+            } catch (IOException ignored) {
+                // Temporary file, removed by the OS eventually
+            }
         }
     }
 }
@@ -2,12 +2,15 @@ package pricing;
 
 import util.Recipe;
 
-import java.math.BigDecimal;
+import java.util.Currency;
 
 /**
  * Pricing API Recipe: Calculate New Price
  * ========================================
- * 
+ *
+ * Prices are handled as integer minor units of the currency (e.g. cents for USD),
+ * so no floating point rounding error leaks into the submitted price.
+ *
  * Steps:
  * 1. Calculate SKU landed price
  * 2. Compare buy box price against minimum threshold
@@ -16,47 +19,70 @@ import java.math.BigDecimal;
  */
 public class CalculateNewPriceRecipe extends Recipe {
 
+    private static final long BASIS_POINTS_PER_UNIT = 10_000L;
+
     @Override
     protected void start() {
-        BigDecimal listingPrice = new BigDecimal("29.99");
-        BigDecimal shippingPrice = new BigDecimal("0.00");
-        BigDecimal buyBoxPrice = new BigDecimal("27.99");
-        BigDecimal minThreshold = new BigDecimal("20.00");
+        String currencyCode = "USD";
+        long listingPrice = 2999;
+        long shippingPrice = 0;
+        long buyBoxPrice = 2799;
+        long minThreshold = 2000;
         String priceChangeRule = "PERCENTAGE";
-        BigDecimal priceChangeValue = new BigDecimal("5.0");
-        
+        long priceChangeValue = 500; // 5.00% in basis points, or 5.00 USD in cents for the FIXED rule
+
         System.out.println("[Step 1] Calculating landed price");
-        BigDecimal landedPrice = listingPrice.add(shippingPrice);
-        
-        if (buyBoxPrice.compareTo(minThreshold) < 0) {
+        long landedPrice = listingPrice + shippingPrice;
+
+        if (buyBoxPrice < minThreshold) {
             System.out.println("[Step 2] Buy Box Price is less than threshold, skipping");
             return;
         }
-        
-        if (buyBoxPrice.compareTo(landedPrice) > 0) {
+
+        if (buyBoxPrice > landedPrice) {
             System.out.println("[Step 2] Landed Price is already less than Buy Box Price, skipping");
             return;
         }
-        
+
         System.out.println("[Step 3] Calculating new price using " + priceChangeRule + " rule");
-        BigDecimal buyBoxPriceExcludingShipping = buyBoxPrice.subtract(shippingPrice);
-        BigDecimal newItemPrice;
-        
+        long buyBoxPriceExcludingShipping = buyBoxPrice - shippingPrice;
+        long newItemPrice;
+
         if ("PERCENTAGE".equals(priceChangeRule)) {
-            BigDecimal percentage = priceChangeValue.divide(new BigDecimal("100"));
-            newItemPrice = buyBoxPriceExcludingShipping.subtract(buyBoxPriceExcludingShipping.multiply(percentage));
+            newItemPrice = buyBoxPriceExcludingShipping - percentageOf(buyBoxPriceExcludingShipping, priceChangeValue);
         } else if ("FIXED".equals(priceChangeRule)) {
-            newItemPrice = buyBoxPriceExcludingShipping.subtract(priceChangeValue);
+            newItemPrice = buyBoxPriceExcludingShipping - priceChangeValue;
         } else {
             System.out.println("Invalid price change rule");
             return;
         }
-        
-        if (newItemPrice.compareTo(minThreshold) < 0) {
+
+        if (newItemPrice < minThreshold) {
             System.out.println("[Step 4] New price is less than threshold, skipping");
             return;
         }
-        
-        System.out.println("[Step 4] New listing price: " + newItemPrice);
+
+        System.out.println("[Step 4] New listing price: " + format(newItemPrice, currencyCode));
+    }
+
+    /**
+     * Percentage of a price in minor units, rounded half up to the smallest unit of the currency.
+     */
+    private long percentageOf(long minorUnits, long basisPoints) {
+        long product = minorUnits * basisPoints;
+        long percentage = product / BASIS_POINTS_PER_UNIT;
+        if (Math.abs(product % BASIS_POINTS_PER_UNIT) * 2 >= BASIS_POINTS_PER_UNIT) {
+            percentage += Long.signum(product);
+        }
+        return percentage;
+    }
+
+    private String format(long minorUnits, String currencyCode) {
+        int fractionDigits = Currency.getInstance(currencyCode).getDefaultFractionDigits();
+        long unit = (long) Math.pow(10, fractionDigits);
+        if (fractionDigits == 0) {
+            return minorUnits + " " + currencyCode;
+        }
+        return String.format("%d.%0" + fractionDigits + "d %s", minorUnits / unit, Math.abs(minorUnits % unit), currencyCode);
     }
 }
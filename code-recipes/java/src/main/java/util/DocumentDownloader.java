@@ -0,0 +1,207 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloads documents from pre-signed URLs (reports, feeds, Data Kiosk) to a file instead of the heap.
+ *
+ * The first segment is requested with an HTTP Range header. When the server answers with 206 Partial Content,
+ * the remaining segments are downloaded in parallel and written at their offset of a pre-sized file with
+ * positional FileChannel writes. When the server ignores the Range header (200 OK), the response is streamed
+ * to the file instead. The size of the file is verified against the size reported by the server.
+ *
+ * Pre-signed S3 URLs are signed for GET only, so the first segment is downloaded instead of issuing a HEAD request.
+ */
+public class DocumentDownloader {
+
+    private static final int DEFAULT_PARALLELISM = 8;
+    private static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+    private static final int MAX_SEGMENT_ATTEMPTS = 3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    private final int parallelism;
+    private final long segmentSize;
+
+    public DocumentDownloader() {
+        this(DEFAULT_PARALLELISM, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public DocumentDownloader(int parallelism, long segmentSize) {
+        if (parallelism < 1 || segmentSize < 1) {
+            throw new IllegalArgumentException("Parallelism and segment size must be positive");
+        }
+        this.parallelism = parallelism;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Downloads the document at the given URL into the target file, replacing its content.
+     *
+     * @return The size of the document in bytes
+     */
+    public long download(String url, Path target) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = send(url, 0, segmentSize - 1);
+
+        try (FileChannel channel = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            if (response.statusCode() == 416) {
+                // Range not satisfiable: the document is empty
+                response.body().close();
+                return 0;
+            }
+
+            if (response.statusCode() == 200) {
+                // The server does not support ranges, stream the whole document
+                long size = write(response.body(), channel, 0);
+                long expectedSize = response.headers().firstValueAsLong("Content-Length").orElse(size);
+                verifySize(expectedSize, size, channel);
+                return size;
+            }
+
+            if (response.statusCode() != 206) {
+                response.body().close();
+                throw new IOException("Download failed: " + response.statusCode());
+            }
+
+            long[] range = parseContentRange(response);
+            long totalSize = range[2];
+            // Pre-size the file so that segments can be written in any order
+            channel.write(ByteBuffer.allocate(1), totalSize - 1);
+
+            writeSegment(response, channel, range[0], range[1]);
+
+            List<long[]> segments = new ArrayList<>();
+            for (long start = range[1] + 1; start < totalSize; start += segmentSize) {
+                segments.add(new long[]{start, Math.min(start + segmentSize, totalSize) - 1});
+            }
+            downloadSegments(url, channel, segments);
+
+            verifySize(totalSize, channel.size(), channel);
+            return totalSize;
+        }
+    }
+
+    private void downloadSegments(String url, FileChannel channel, List<long[]> segments)
+            throws IOException, InterruptedException {
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, segments.size()));
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (long[] segment : segments) {
+                futures.add(executor.submit(() -> {
+                    downloadSegment(url, channel, segment[0], segment[1]);
+                    return null;
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IOException("Segment download failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void downloadSegment(String url, FileChannel channel, long start, long end)
+            throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                HttpResponse<InputStream> response = send(url, start, end);
+                if (response.statusCode() != 206) {
+                    response.body().close();
+                    throw new IOException(String.format("Range %d-%d failed: %d", start, end, response.statusCode()));
+                }
+
+                long[] range = parseContentRange(response);
+                if (range[0] != start || range[1] != end) {
+                    response.body().close();
+                    throw new IOException(String.format("Requested range %d-%d but received %d-%d", start, end, range[0], range[1]));
+                }
+
+                writeSegment(response, channel, start, end);
+                return;
+            } catch (IOException e) {
+                if (attempt == MAX_SEGMENT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private HttpResponse<InputStream> send(String url, long start, long end) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Range", "bytes=" + start + "-" + end)
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private static void writeSegment(HttpResponse<InputStream> response, FileChannel channel, long start, long end)
+            throws IOException {
+        long written = write(response.body(), channel, start);
+        if (written != end - start + 1) {
+            throw new IOException(String.format("Range %d-%d returned %d bytes", start, end, written));
+        }
+    }
+
+    //Copies the stream into the channel from the given position, without moving the channel position
+    private static long write(InputStream inputStream, FileChannel channel, long position) throws IOException {
+        long written = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream body = inputStream) {
+            int count;
+            while ((count = body.read(buffer)) != -1) {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, count);
+                while (byteBuffer.hasRemaining()) {
+                    written += channel.write(byteBuffer, position + written);
+                }
+            }
+        }
+        return written;
+    }
+
+    private static long[] parseContentRange(HttpResponse<?> response) throws IOException {
+        String contentRange = response.headers().firstValue("Content-Range").orElse("");
+        Matcher matcher = CONTENT_RANGE.matcher(contentRange);
+        if (!matcher.matches()) {
+            throw new IOException("Unexpected Content-Range: " + contentRange);
+        }
+        return new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3))};
+    }
+
+    private static void verifySize(long expectedSize, long actualSize, FileChannel channel) throws IOException {
+        if (expectedSize != actualSize || channel.size() != expectedSize) {
+            throw new IOException(String.format("Downloaded %d bytes, expected %d", channel.size(), expectedSize));
+        }
+    }
+}
@@ -200,6 +200,18 @@ export class SpApiAppCdkStack extends cdk.Stack {
 		  },
 		],
 	  },
+	  // Parts of document uploads that were neither completed nor aborted, e.g. when the Lambda timed out
+	  lifecycleConfiguration: {
+		rules: [
+		  {
+			id: 'AbortIncompleteMultipartUploads',
+			status: 'Enabled',
+			abortIncompleteMultipartUpload: {
+			  daysAfterInitiation: 1,
+			},
+		  },
+		],
+	  },
 	});
 
 	const spapiNotificationsDeadLetterQueue = new sqs.CfnQueue(this, 'SPAPINotificationsDeadLetterQueue', {
@@ -241,6 +253,30 @@ export class SpApiAppCdkStack extends cdk.Stack {
 	  },
 	});
 
+	// Index from the content hash of stored documents to the S3 object storing that content
+	const spapiDocumentContentTable = new dynamodb.CfnTable(this, 'SPAPIDocumentContentTable', {
+	  tableName: [
+		'SPAPIDocumentContentTable',
+		props.randomSuffix!,
+	  ].join('-'),
+	  attributeDefinitions: [
+		{
+		  attributeName: 'ContentHash',
+		  attributeType: 'S',
+		},
+	  ],
+	  keySchema: [
+		{
+		  attributeName: 'ContentHash',
+		  keyType: 'HASH',
+		},
+	  ],
+	  billingMode: 'PAY_PER_REQUEST',
+	  pointInTimeRecoverySpecification: {
+		pointInTimeRecoveryEnabled: true,
+	  },
+	});
+
 	const spapiScheduledQueriesTable = new dynamodb.CfnTable(this, 'SPAPIScheduledQueriesTable', {
 	  tableName: [
 		'SPAPIScheduledQueriesTable',
@@ -470,6 +506,22 @@ export class SpApiAppCdkStack extends cdk.Stack {
 			],
 		  },
 		},
+		{
+		  policyName: 'DynamoDBDocumentContentPolicy',
+		  policyDocument: {
+			Version: '2012-10-17',
+			Statement: [
+			  {
+				Effect: 'Allow',
+				Action: [
+				  'dynamodb:GetItem',
+				  'dynamodb:PutItem',
+				],
+				Resource: spapiDocumentContentTable.attrArn,
+			  },
+			],
+		  },
+		},
 		{
 		  policyName: 'S3Policy',
 		  policyDocument: {
@@ -479,6 +531,8 @@ export class SpApiAppCdkStack extends cdk.Stack {
 				Effect: 'Allow',
 				Action: [
 				  's3:PutObject',
+				  's3:AbortMultipartUpload',
+				  's3:DeleteObject',
 				],
 				Resource: spapiDataKioskDocumentsS3Bucket.attrArn + '/*',
 			  },
@@ -602,6 +656,7 @@ export class SpApiAppCdkStack extends cdk.Stack {
 		variables: {
 		  'QUERY_ITEMS_TABLE_NAME': spapiQueryItemsTable.ref,
 		  'DATAKIOSK_DOCUMENTS_S3_BUCKET_NAME': spapiDataKioskDocumentsS3Bucket.ref,
+		  'DOCUMENT_CONTENT_TABLE_NAME': spapiDocumentContentTable.ref,
 		},
 	  },
 	});
@@ -813,6 +868,37 @@ export class SpApiAppCdkStack extends cdk.Stack {
 			],
 		  },
 		},
+		{
+		  policyName: 'SecretsReaderPolicy',
+		  policyDocument: {
+			Version: '2012-10-17',
+			Statement: [
+			  {
+				Effect: 'Allow',
+				Action: 'secretsmanager:GetSecretValue',
+				Resource: [
+				  spapiAppCredentials.ref,
+				],
+			  },
+			],
+		  },
+		},
+		{
+		  policyName: 'DynamoDBQuerySchedulerPolicy',
+		  policyDocument: {
+			Version: '2012-10-17',
+			Statement: [
+			  {
+				Effect: 'Allow',
+				Action: [
+				  'dynamodb:Query',
+				  'dynamodb:UpdateItem',
+				],
+				Resource: spapiQueryItemsTable.attrArn,
+			  },
+			],
+		  },
+		},
 	  ],
 	});
 
@@ -834,15 +920,214 @@ export class SpApiAppCdkStack extends cdk.Stack {
 	  environment: {
 		variables: {
 		  'STATE_MACHINE_ARN': spapiStateMachine.ref,
+		  'REFRESH_TOKEN': refreshToken.valueAsString!,
+		  'REGION_CODE': regionCode.valueAsString!,
+		  'SP_API_APP_CREDENTIALS_SECRET_ARN': spapiAppCredentials.ref,
+		  'QUERY_ITEMS_TABLE_NAME': spapiQueryItemsTable.ref,
 		},
 	  },
 	});
 
+	// The Java handler processes SQS batches and reports failed messages individually (ReportBatchItemFailures)
+	const isJavaRuntime = new cdk.CfnCondition(this, 'IsJavaRuntimeCondition', {
+	  expression: cdk.Fn.conditionNot(cdk.Fn.conditionEquals(cdk.Fn.select(0, cdk.Fn.split('python', programmingLanguage.valueAsString)), '')),
+	});
+
 	const spapiNotificationsEventSourceMapping = new lambda.CfnEventSourceMapping(this, 'SPAPINotificationsEventSourceMapping', {
-	  batchSize: 1,
+	  batchSize: cdk.Token.asNumber(cdk.Fn.conditionIf(isJavaRuntime.logicalId, 10, 1)),
+	  functionResponseTypes: cdk.Token.asList(cdk.Fn.conditionIf(isJavaRuntime.logicalId, ['ReportBatchItemFailures'], cdk.Aws.NO_VALUE)),
 	  enabled: true,
 	  eventSourceArn: spapiNotificationsQueue.attrArn,
 	  functionName: spapiProcessNotificationLambdaFunction.attrArn,
 	});
+
+	// The query scheduler is available in the Java runtime only
+	const spapiScheduleQueriesLambdaExecutionRole = new iam.CfnRole(this, 'SPAPIScheduleQueriesLambdaExecutionRole', {
+	  roleName: [
+		'SPAPIScheduleQueriesLambdaExecutionRole',
+		props.randomSuffix!,
+	  ].join('-'),
+	  assumeRolePolicyDocument: {
+		Version: '2012-10-17',
+		Statement: [
+		  {
+			Effect: 'Allow',
+			Principal: {
+			  Service: [
+				'lambda.amazonaws.com',
+			  ],
+			},
+			Action: [
+			  'sts:AssumeRole',
+			],
+		  },
+		],
+	  },
+	  managedPolicyArns: [
+		`arn:${this.partition}:iam::aws:policy/service-role/AWSLambdaBasicExecutionRole`,
+	  ],
+	  policies: [
+		{
+		  policyName: 'SecretsReaderPolicy',
+		  policyDocument: {
+			Version: '2012-10-17',
+			Statement: [
+			  {
+				Effect: 'Allow',
+				Action: 'secretsmanager:GetSecretValue',
+				Resource: [
+				  spapiAppCredentials.ref,
+				],
+			  },
+			],
+		  },
+		},
+		{
+		  policyName: 'DynamoDBQuerySchedulerPolicy',
+		  policyDocument: {
+			Version: '2012-10-17',
+			Statement: [
+			  {
+				Effect: 'Allow',
+				Action: [
+				  'dynamodb:Query',
+				  'dynamodb:PutItem',
+				  'dynamodb:UpdateItem',
+				],
+				Resource: spapiQueryItemsTable.attrArn,
+			  },
+			],
+		  },
+		},
+	  ],
+	});
+	spapiScheduleQueriesLambdaExecutionRole.cfnOptions.condition = isJavaRuntime;
+
+	const spapiScheduleQueriesLambdaFunction = new lambda.CfnFunction(this, 'SPAPIScheduleQueriesLambdaFunction', {
+	  functionName: [
+		'SPAPIScheduleQueriesLambdaFunction',
+		props.randomSuffix!,
+	  ].join('-'),
+	  description: 'Schedule GraphQL Queries within the in-flight quota Lambda Function',
+	  code: {
+		s3Bucket: artifactsS3BucketName.valueAsString!,
+		s3Key: lambdaFunctionsCodeS3Key.valueAsString!,
+	  },
+	  handler: 'lambda.ScheduleQueriesHandler',
+	  role: spapiScheduleQueriesLambdaExecutionRole.attrArn,
+	  runtime: programmingLanguage.valueAsString!,
+	  memorySize: 512,
+	  timeout: 300,
+	  environment: {
+		variables: {
+		  'REFRESH_TOKEN': refreshToken.valueAsString!,
+		  'REGION_CODE': regionCode.valueAsString!,
+		  'SP_API_APP_CREDENTIALS_SECRET_ARN': spapiAppCredentials.ref,
+		  'QUERY_ITEMS_TABLE_NAME': spapiQueryItemsTable.ref,
+		},
+	  },
+	});
+	spapiScheduleQueriesLambdaFunction.cfnOptions.condition = isJavaRuntime;
+
+	// The document compaction job is available in the Java runtime only
+	const spapiCompactDocumentsLambdaExecutionRole = new iam.CfnRole(this, 'SPAPICompactDocumentsLambdaExecutionRole', {
+	  roleName: [
+		'SPAPICompactDocumentsLambdaExecutionRole',
+		props.randomSuffix!,
+	  ].join('-'),
+	  assumeRolePolicyDocument: {
+		Version: '2012-10-17',
+		Statement: [
+		  {
+			Effect: 'Allow',
+			Principal: {
+			  Service: [
+				'lambda.amazonaws.com',
+			  ],
+			},
+			Action: [
+			  'sts:AssumeRole',
+			],
+		  },
+		],
+	  },
+	  managedPolicyArns: [
+		`arn:${this.partition}:iam::aws:policy/service-role/AWSLambdaBasicExecutionRole`,
+	  ],
+	  policies: [
+		{
+		  policyName: 'DynamoDBCompactionPolicy',
+		  policyDocument: {
+			Version: '2012-10-17',
+			Statement: [
+			  {
+				Effect: 'Allow',
+				Action: [
+				  'dynamodb:Scan',
+				  'dynamodb:UpdateItem',
+				],
+				Resource: spapiQueryItemsTable.attrArn,
+			  },
+			  {
+				Effect: 'Allow',
+				Action: [
+				  'dynamodb:Scan',
+				  'dynamodb:GetItem',
+				  'dynamodb:PutItem',
+				],
+				Resource: spapiDocumentContentTable.attrArn,
+			  },
+			],
+		  },
+		},
+		{
+		  policyName: 'S3Policy',
+		  policyDocument: {
+			Version: '2012-10-17',
+			Statement: [
+			  {
+				Effect: 'Allow',
+				Action: 's3:ListBucket',
+				Resource: spapiDataKioskDocumentsS3Bucket.attrArn,
+			  },
+			  {
+				Effect: 'Allow',
+				Action: [
+				  's3:GetObject',
+				  's3:DeleteObject',
+				],
+				Resource: spapiDataKioskDocumentsS3Bucket.attrArn + '/*',
+			  },
+			],
+		  },
+		},
+	  ],
+	});
+	spapiCompactDocumentsLambdaExecutionRole.cfnOptions.condition = isJavaRuntime;
+
+	const spapiCompactDocumentsLambdaFunction = new lambda.CfnFunction(this, 'SPAPICompactDocumentsLambdaFunction', {
+	  functionName: [
+		'SPAPICompactDocumentsLambdaFunction',
+		props.randomSuffix!,
+	  ].join('-'),
+	  description: 'Remove duplicate stored Documents Lambda Function',
+	  code: {
+		s3Bucket: artifactsS3BucketName.valueAsString!,
+		s3Key: lambdaFunctionsCodeS3Key.valueAsString!,
+	  },
+	  handler: 'lambda.CompactDocumentsHandler',
+	  role: spapiCompactDocumentsLambdaExecutionRole.attrArn,
+	  runtime: programmingLanguage.valueAsString!,
+	  memorySize: 512,
+	  timeout: 900,
+	  environment: {
+		variables: {
+		  'QUERY_ITEMS_TABLE_NAME': spapiQueryItemsTable.ref,
+		  'DATAKIOSK_DOCUMENTS_S3_BUCKET_NAME': spapiDataKioskDocumentsS3Bucket.ref,
+		  'DOCUMENT_CONTENT_TABLE_NAME': spapiDocumentContentTable.ref,
+		},
+	  },
+	});
+	spapiCompactDocumentsLambdaFunction.cfnOptions.condition = isJavaRuntime;
   }
 }
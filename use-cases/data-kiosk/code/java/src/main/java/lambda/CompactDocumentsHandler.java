@@ -0,0 +1,190 @@
+package lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.google.gson.Gson;
+import lambda.utils.DocumentContentIndex;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static lambda.utils.Constants.DATAKIOSK_DOCUMENTS_S3_BUCKET_NAME_ENV_VARIABLE;
+import static lambda.utils.Constants.DOCUMENT_COMPACTION_MIN_AGE_SECONDS;
+import static lambda.utils.Constants.DOCUMENT_CONTENT_TABLE_NAME_ENV_VARIABLE;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_ACCOUNT_ID;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_CONTENT_HASH;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_DOCUMENT_S3;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_NAME_ENV_VARIABLE;
+
+public class CompactDocumentsHandler implements RequestHandler<Map<String, String>, String> {
+
+    //Time kept to finish the current object and report before the Lambda times out
+    private static final long TIME_BUFFER_MILLIS = 60000;
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private static final S3Client S3_CLIENT = S3Client.builder().build();
+    private static final DynamoDbClient DYNAMO_DB_CLIENT = DynamoDbClient.builder().build();
+
+    // Removes duplicate documents from the documents bucket, e.g. copies stored before deduplication was enabled
+    // Every object that is not the canonical copy of its content is hashed. Objects with new content become
+    // canonical, and duplicates are deleted after the query items referencing them are linked to the canonical copy.
+    // The job stops before the Lambda times out, and can be invoked again (or on a schedule) to continue.
+
+    public String handleRequest(Map<String, String> input, Context context) {
+        LambdaLogger logger = context.getLogger();
+        logger.log("CompactDocuments Lambda input: " + new Gson().toJson(input));
+
+        String s3BucketName = System.getenv(DATAKIOSK_DOCUMENTS_S3_BUCKET_NAME_ENV_VARIABLE);
+        DocumentContentIndex contentIndex = new DocumentContentIndex(DYNAMO_DB_CLIENT,
+                System.getenv(DOCUMENT_CONTENT_TABLE_NAME_ENV_VARIABLE));
+
+        try {
+            Map<String, String> canonicalObjects = contentIndex.getCanonicalObjects();
+            Map<String, List<Map<String, AttributeValue>>> references = getDocumentReferences();
+            Instant minLastModified = Instant.now().minusSeconds(DOCUMENT_COMPACTION_MIN_AGE_SECONDS);
+
+            int registered = 0;
+            int deleted = 0;
+            boolean complete = true;
+            ListObjectsV2Request listRequest = ListObjectsV2Request.builder().bucket(s3BucketName).build();
+            for (S3Object s3Object : S3_CLIENT.listObjectsV2Paginator(listRequest).contents()) {
+                if (context.getRemainingTimeInMillis() < TIME_BUFFER_MILLIS) {
+                    complete = false;
+                    break;
+                }
+
+                String s3Uri = String.format("s3://%s/%s", s3BucketName, s3Object.key());
+                // Recent objects may belong to a document that is still being stored
+                if (canonicalObjects.containsKey(s3Uri) || s3Object.lastModified().isAfter(minLastModified)) {
+                    continue;
+                }
+
+                String contentHash = hashObject(s3BucketName, s3Object.key());
+                String canonicalS3Uri = contentIndex.register(contentHash, s3Uri);
+                List<Map<String, AttributeValue>> objectReferences =
+                        references.getOrDefault(s3Uri, Collections.<Map<String, AttributeValue>>emptyList());
+
+                for (Map<String, AttributeValue> key : objectReferences) {
+                    linkDocument(key, s3Uri, canonicalS3Uri, contentHash);
+                }
+
+                if (canonicalS3Uri.equals(s3Uri)) {
+                    canonicalObjects.put(s3Uri, contentHash);
+                    registered++;
+                } else {
+                    S3_CLIENT.deleteObject(DeleteObjectRequest.builder().bucket(s3BucketName).key(s3Object.key()).build());
+                    logger.log(String.format("Deleted %s, duplicate of %s (%d references linked)",
+                            s3Uri, canonicalS3Uri, objectReferences.size()));
+                    deleted++;
+                }
+            }
+
+            String result = String.format("Registered %d documents, deleted %d duplicates%s",
+                    registered, deleted, complete ? "" : ", stopped before timeout: invoke again to continue");
+            logger.log(result);
+            return result;
+        } catch (Exception e) {
+            throw new InternalError("Compact documents failed", e);
+        }
+    }
+
+    //Returns the keys of the query items, grouped by the S3 URI of their document
+    private Map<String, List<Map<String, AttributeValue>>> getDocumentReferences() {
+        Map<String, String> names = new HashMap<>();
+        names.put("#accountId", QUERY_ITEMS_TABLE_ATTRIBUTE_ACCOUNT_ID);
+        names.put("#queryId", QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID);
+        names.put("#documentS3", QUERY_ITEMS_TABLE_ATTRIBUTE_DOCUMENT_S3);
+
+        Map<String, List<Map<String, AttributeValue>>> references = new HashMap<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+            ScanResponse response = DYNAMO_DB_CLIENT.scan(ScanRequest.builder()
+                    .tableName(System.getenv(QUERY_ITEMS_TABLE_NAME_ENV_VARIABLE))
+                    .projectionExpression("#accountId, #queryId, #documentS3")
+                    .filterExpression("attribute_exists(#documentS3)")
+                    .expressionAttributeNames(names)
+                    .exclusiveStartKey(exclusiveStartKey)
+                    .build());
+
+            for (Map<String, AttributeValue> item : response.items()) {
+                Map<String, AttributeValue> key = new HashMap<>();
+                key.put(QUERY_ITEMS_TABLE_ATTRIBUTE_ACCOUNT_ID, item.get(QUERY_ITEMS_TABLE_ATTRIBUTE_ACCOUNT_ID));
+                key.put(QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID, item.get(QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID));
+
+                String s3Uri = item.get(QUERY_ITEMS_TABLE_ATTRIBUTE_DOCUMENT_S3).s();
+                if (!references.containsKey(s3Uri)) {
+                    references.put(s3Uri, new ArrayList<Map<String, AttributeValue>>());
+                }
+                references.get(s3Uri).add(key);
+            }
+            exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null);
+
+        return references;
+    }
+
+    //Points the query item to the canonical copy, unless the item was changed since the scan
+    private void linkDocument(Map<String, AttributeValue> key, String s3Uri, String canonicalS3Uri, String contentHash) {
+        Map<String, String> names = new HashMap<>();
+        names.put("#documentS3", QUERY_ITEMS_TABLE_ATTRIBUTE_DOCUMENT_S3);
+        names.put("#contentHash", QUERY_ITEMS_TABLE_ATTRIBUTE_CONTENT_HASH);
+
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":s3Uri", AttributeValue.fromS(s3Uri));
+        values.put(":canonicalS3Uri", AttributeValue.fromS(canonicalS3Uri));
+        values.put(":contentHash", AttributeValue.fromS(contentHash));
+
+        try {
+            DYNAMO_DB_CLIENT.updateItem(UpdateItemRequest.builder()
+                    .tableName(System.getenv(QUERY_ITEMS_TABLE_NAME_ENV_VARIABLE))
+                    .key(key)
+                    .updateExpression("SET #documentS3 = :canonicalS3Uri, #contentHash = :contentHash")
+                    .conditionExpression("#documentS3 = :s3Uri")
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values)
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            // Already linked
+        }
+    }
+
+    //Hashes the uncompressed content, as StoreDocumentHandler does
+    private String hashObject(String s3BucketName, String objectKey) throws IOException {
+        MessageDigest digest = DocumentContentIndex.newDigest();
+        try (ResponseInputStream<GetObjectResponse> objectStream = S3_CLIENT.getObject(
+                GetObjectRequest.builder().bucket(s3BucketName).key(objectKey).build());
+             InputStream inputStream = "gzip".equals(objectStream.response().contentEncoding())
+                     ? new GZIPInputStream(objectStream, HASH_BUFFER_SIZE)
+                     : objectStream) {
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        return DocumentContentIndex.toHex(digest.digest());
+    }
+}
@@ -3,68 +3,86 @@ package lambda;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import lambda.utils.Document;
 import lambda.utils.NotificationPayload;
+import lambda.utils.QueryScheduler;
 import lambda.utils.SPAPINotification;
 import lambda.utils.StateMachineInput;
 import lambda.utils.StateMachineNotStartedException;
-import software.amazon.awssdk.services.sfn.SfnClient;
+import lambda.utils.StepFunctionsDispatcher;
 import software.amazon.awssdk.services.sfn.model.StartExecutionRequest;
-import software.amazon.awssdk.services.sfn.model.StartExecutionResponse;
 
 import java.io.IOException;
 import java.util.UUID;
 
 import static lambda.utils.Constants.DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_FATAL;
 import static lambda.utils.Constants.NOTIFICATION_TYPE_DATA_KIOSK_PROCESSING_FINISHED;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_NAME_ENV_VARIABLE;
 import static lambda.utils.Constants.STATE_MACHINE_ARN_ENV_VARIABLE;
 
-public class ProcessNotificationHandler implements RequestHandler<SQSEvent, String> {
+public class ProcessNotificationHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
 
-    public String handleRequest(SQSEvent input, Context context) {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public SQSBatchResponse handleRequest(SQSEvent input, Context context) {
         LambdaLogger logger = context.getLogger();
         logger.log("ProcessNotification Lambda input: " + new Gson().toJson(input));
 
-        // Iterate over SQS messages
         // Start a Step Functions workflow execution for every Data Kiosk Processing Finished notifications
-        for (SQSEvent.SQSMessage message : input.getRecords()) {
+        // Executions of the batch are started concurrently and failures are reported per message
+        return StepFunctionsDispatcher.dispatch(input, message -> {
             logger.log(String.format("Notification body: %s", message.getBody()));
 
+            SPAPINotification notification = mapNotification(message.getBody());
+
+            // Only process the notification if it is of type 'DATA_KIOSK_QUERY_PROCESSING_FINISHED'
+            if (!NOTIFICATION_TYPE_DATA_KIOSK_PROCESSING_FINISHED.equals(notification.getNotificationType())) {
+                logger.log(String.format("Notification type %s skipped", notification.getNotificationType()));
+                return null;
+            }
+
+            releaseScheduledQuery(notification.getPayload(), logger);
+
+            // Start a Step Functions workflow execution to retrieve query results from Data Kiosk
             try {
-                SPAPINotification notification = mapNotification(message.getBody());
-
-                // Only process the notification if it is of type 'DATA_KIOSK_QUERY_PROCESSING_FINISHED'
-                if (!NOTIFICATION_TYPE_DATA_KIOSK_PROCESSING_FINISHED.equals(notification.getNotificationType())) {
-                    logger.log(String.format("Notification type %s skipped", notification.getNotificationType()));
-                    continue;
-                }
-
-                // Start a Step Functions workflow execution to retrieve query results from Data Kiosk
-                logger.log("Starting state machine execution");
-                String executionArn = startStepFunctionsExecution(notification.getPayload(), logger);
-                logger.log(String.format("State machine successfully started. Execution arn: %s", executionArn));
+                return buildExecutionRequest(notification.getPayload(), logger);
             } catch (StateMachineNotStartedException e) {
                 logger.log(String.format("State machine not started. %s", e.getMessage()));
-            } catch (Exception e) {
-                throw new InternalError("ProcessNotification Lambda failed", e);
+                return null;
             }
+        }, logger);
+    }
+
+    // Release the slot of the query if it was submitted by the query scheduler, and submit the next pending windows
+    // Failures are logged only, so that the document of the query is still retrieved
+    private void releaseScheduledQuery(NotificationPayload dataKioskNotification, LambdaLogger logger) {
+        if (System.getenv(QUERY_ITEMS_TABLE_NAME_ENV_VARIABLE) == null) {
+            return;
         }
 
-        return "Finished processing incoming notifications";
+        try {
+            if (QueryScheduler.onQueryFinished(dataKioskNotification.getAccountId(),
+                    dataKioskNotification.getQueryId(),
+                    dataKioskNotification.getProcessingStatus(),
+                    logger)) {
+                QueryScheduler.dispatch(dataKioskNotification.getAccountId(), logger);
+            }
+        } catch (Exception e) {
+            logger.log(String.format("Query scheduler update failed for query %s: %s",
+                    dataKioskNotification.getQueryId(), e.getMessage()));
+        }
     }
 
     private SPAPINotification mapNotification(String notificationBody) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        SPAPINotification notification = mapper.readValue(notificationBody, SPAPINotification.class);
-
-        return notification;
+        return MAPPER.readValue(notificationBody, SPAPINotification.class);
     }
 
-    private String startStepFunctionsExecution(NotificationPayload dataKioskNotification, LambdaLogger logger)
+    private StartExecutionRequest buildExecutionRequest(NotificationPayload dataKioskNotification, LambdaLogger logger)
             throws JsonProcessingException, StateMachineNotStartedException {
 
         String documentId = "";
@@ -84,11 +102,10 @@ public class ProcessNotificationHandler implements RequestHandler<SQSEvent, Stri
             documentId = dataKioskNotification.getDataDocumentId();
         }
 
-        ObjectMapper mapper = new ObjectMapper();
         StateMachineInput input = getStateMachineInput(dataKioskNotification, documentId);
-        String inputStr = mapper.writeValueAsString(input);
+        String inputStr = MAPPER.writeValueAsString(input);
 
-        StartExecutionRequest request = StartExecutionRequest.builder()
+        return StartExecutionRequest.builder()
                 .stateMachineArn(System.getenv(STATE_MACHINE_ARN_ENV_VARIABLE))
                 .name(String.format("%s-%s-%s",
                         dataKioskNotification.getAccountId(),
@@ -96,11 +113,6 @@ public class ProcessNotificationHandler implements RequestHandler<SQSEvent, Stri
                         UUID.randomUUID()))
                 .input(inputStr)
                 .build();
-
-        SfnClient stepFunctions = SfnClient.builder().build();
-        StartExecutionResponse result = stepFunctions.startExecution(request);
-
-        return result.executionArn();
     }
 
     private StateMachineInput getStateMachineInput(NotificationPayload dataKioskNotification, String documentId) {
@@ -0,0 +1,65 @@
+package lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.google.gson.Gson;
+import lambda.utils.QueryScheduler;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static lambda.utils.Constants.ACCOUNT_ID_KEY_NAME;
+import static lambda.utils.Constants.END_DATE_KEY_NAME;
+import static lambda.utils.Constants.QUERY_CODE_KEY_NAME;
+import static lambda.utils.Constants.QUERY_SCHEDULER_DEFAULT_WINDOW_DAYS;
+import static lambda.utils.Constants.START_DATE_KEY_NAME;
+import static lambda.utils.Constants.WINDOW_DAYS_KEY_NAME;
+
+public class ScheduleQueriesHandler implements RequestHandler<Map<String, String>, String> {
+
+    // Sample event input:
+    // {
+    //  "AccountId": "amzn1.merchant.o.XXXXXXXXXXXXXX",
+    //  "Query": "query MyQuery{analytics_salesAndTraffic_2023_11_15{salesAndTrafficByDate(startDate:\"{startDate}\" endDate:\"{endDate}\"...",
+    //  "StartDate": "2023-01-01",
+    //  "EndDate": "2023-12-31",
+    //  "WindowDays": "30"
+    // }
+    // The query is submitted once per window of the date range, with the {startDate} and {endDate} placeholders
+    // replaced by the dates of the window. An input with the AccountId only submits the pending windows.
+
+    public String handleRequest(Map<String, String> input, Context context) {
+        LambdaLogger logger = context.getLogger();
+        logger.log("ScheduleQueries Lambda input: " + new Gson().toJson(input));
+
+        String accountId = input.get(ACCOUNT_ID_KEY_NAME);
+        if (accountId == null || accountId.isEmpty()) {
+            throw new IllegalArgumentException(String.format("%s is required", ACCOUNT_ID_KEY_NAME));
+        }
+
+        try {
+            int scheduledWindows = 0;
+            String queryTemplate = input.get(QUERY_CODE_KEY_NAME);
+            if (queryTemplate != null) {
+                String windowDays = input.get(WINDOW_DAYS_KEY_NAME);
+                scheduledWindows = QueryScheduler.schedule(accountId,
+                        queryTemplate,
+                        LocalDate.parse(input.get(START_DATE_KEY_NAME)),
+                        LocalDate.parse(input.get(END_DATE_KEY_NAME)),
+                        windowDays != null ? Integer.parseInt(windowDays) : QUERY_SCHEDULER_DEFAULT_WINDOW_DAYS);
+            }
+
+            // Submit as many windows as the account has free slots, the rest is submitted as queries finish
+            int submittedQueries = QueryScheduler.dispatch(accountId, logger);
+
+            String result = String.format("Scheduled %d windows, submitted %d queries", scheduledWindows, submittedQueries);
+            logger.log(result);
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InternalError("Schedule queries failed", e);
+        }
+    }
+}
@@ -8,23 +8,34 @@ import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.Request;
 import com.squareup.okhttp.Response;
 import com.squareup.okhttp.ResponseBody;
+import lambda.utils.Document;
+import lambda.utils.DocumentContentIndex;
+import lambda.utils.S3MultipartOutputStream;
 import lambda.utils.StateMachineInput;
-import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
+import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
 
 import static lambda.utils.Constants.DATAKIOSK_DOCUMENTS_S3_BUCKET_NAME_ENV_VARIABLE;
+import static lambda.utils.Constants.DATAKIOSK_DOCUMENT_DEFAULT_MAX_IN_FLIGHT_PARTS;
+import static lambda.utils.Constants.DATAKIOSK_DOCUMENT_DEFAULT_PART_SIZE_MB;
+import static lambda.utils.Constants.DATAKIOSK_DOCUMENT_GZIP_ENV_VARIABLE;
+import static lambda.utils.Constants.DATAKIOSK_DOCUMENT_MAX_IN_FLIGHT_PARTS_ENV_VARIABLE;
+import static lambda.utils.Constants.DATAKIOSK_DOCUMENT_PART_SIZE_MB_ENV_VARIABLE;
+import static lambda.utils.Constants.DOCUMENT_CONTENT_TABLE_NAME_ENV_VARIABLE;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_CONTENT_HASH;
 import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_ACCOUNT_ID;
 import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_DOCUMENT_ID;
 import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_DOCUMENT_S3;
@@ -35,6 +46,26 @@ import static lambda.utils.Constants.QUERY_ITEMS_TABLE_NAME_ENV_VARIABLE;
 
 public class StoreDocumentHandler implements RequestHandler<StateMachineInput, StateMachineInput> {
 
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int PART_SIZE = getIntEnv(DATAKIOSK_DOCUMENT_PART_SIZE_MB_ENV_VARIABLE,
+            DATAKIOSK_DOCUMENT_DEFAULT_PART_SIZE_MB) * 1024 * 1024;
+    private static final int MAX_IN_FLIGHT_PARTS = getIntEnv(DATAKIOSK_DOCUMENT_MAX_IN_FLIGHT_PARTS_ENV_VARIABLE,
+            DATAKIOSK_DOCUMENT_DEFAULT_MAX_IN_FLIGHT_PARTS);
+    private static final boolean GZIP_DOCUMENTS = Boolean.parseBoolean(System.getenv(DATAKIOSK_DOCUMENT_GZIP_ENV_VARIABLE));
+
+    //Container-lifetime clients and upload threads, reused across invocations
+    private static final OkHttpClient HTTP_CLIENT = new OkHttpClient();
+    private static final S3Client S3_CLIENT = S3Client.builder().build();
+    private static final ExecutorService UPLOAD_EXECUTOR = Executors.newFixedThreadPool(MAX_IN_FLIGHT_PARTS, runnable -> {
+        Thread thread = new Thread(runnable, "document-upload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //Deduplication of identical documents is enabled when the content table is configured
+    private static final DocumentContentIndex CONTENT_INDEX = System.getenv(DOCUMENT_CONTENT_TABLE_NAME_ENV_VARIABLE) == null
+            ? null
+            : new DocumentContentIndex(DynamoDbClient.builder().build(), System.getenv(DOCUMENT_CONTENT_TABLE_NAME_ENV_VARIABLE));
+
     public StateMachineInput  handleRequest(StateMachineInput input, Context context) {
         LambdaLogger logger = context.getLogger();
         logger.log("StoreDocument Lambda input: " + new Gson().toJson(input));
@@ -61,39 +92,36 @@ public class StoreDocumentHandler implements RequestHandler<StateMachineInput, S
         String objectKey = String.format("%s+%s.json", input.getAccountId(), input.getQueryId());
 
         try {
-            String documentContent = readDocumentFromPresignedUrl(input.getDocument().getDocumentUrl());
-
-            PutObjectRequest request = PutObjectRequest.builder()
-                    .bucket(s3BucketName)
-                    .key(objectKey)
-                    .contentType("application/json")
-                    .build();
-
-            RequestBody body = RequestBody.fromString(documentContent, StandardCharsets.UTF_8);
-
-            S3Client s3 = S3Client.builder().build();
-            s3.putObject(request, body);
-
-            return String.format("s3://%s/%s", s3BucketName, objectKey);
+            return transferDocumentToS3(input.getDocument(), s3BucketName, objectKey);
         } catch (Exception e) {
             throw new InternalError("Document storage failed", e);
         }
     }
 
-    private String readDocumentFromPresignedUrl(String presignedUrl) throws IOException {
-        OkHttpClient httpclient = new OkHttpClient();
-        Request request = new Request.Builder().url(presignedUrl).get().build();
-
-        Response response = httpclient.newCall(request).execute();
+    /**
+     * Streams the document from the presigned URL into S3 without holding it in memory.
+     * The downloaded bytes are copied as they arrive into a multipart upload of DATAKIOSK_DOCUMENT_PART_SIZE_MB parts,
+     * with at most DATAKIOSK_DOCUMENT_MAX_IN_FLIGHT_PARTS parts uploading at once, so memory use does not depend on the
+     * document size. When DATAKIOSK_DOCUMENT_GZIP is true, the document is compressed before upload and stored with
+     * a gzip Content-Encoding.
+     * The SHA-256 hash of the document content is computed while copying. If the same content is already stored,
+     * the upload is discarded before it completes (single-part documents are never sent) and the existing object
+     * is linked instead.
+     *
+     * @return The S3 URI of the object storing the document content
+     */
+    private String transferDocumentToS3(Document document, String s3BucketName, String objectKey) throws IOException {
+        Request request = new Request.Builder().url(document.getDocumentUrl()).get().build();
+
+        Response response = HTTP_CLIENT.newCall(request).execute();
         if (!response.isSuccessful()) {
+            response.body().close();
             throw new InternalError(String.format("Call to download content was unsuccessful with response code: %d and message: %s%n",
                     response.code(), response.message()));
         }
 
-        StringBuilder content = new StringBuilder();
         try (
                 ResponseBody responseBody = response.body();
-                InputStream inputStream = responseBody.byteStream();
                 // Note: If the Data Kiosk document is compressed, the 'Content-Encoding' header will indicate the compression algorithm
                 // Most HTTP clients are capable of automatically decompressing downloaded files based on the 'Content-Encoding' header
                 // More Information: https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Accept-Encoding
@@ -102,16 +130,55 @@ public class StoreDocumentHandler implements RequestHandler<StateMachineInput, S
                 // "Content-Encoding" header, so it is not required to unzip the stream
                 // For clients which do not automatically decompress, wrapping the stream in a GZIP stream may be required, for example:
                 // InputStream unzippedInputStream = new GZIPInputStream(inputStream);
-                InputStreamReader inputStreamReader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
-                BufferedReader reader = new BufferedReader(inputStreamReader)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Process line by line.
-                content.append(line);
+                InputStream inputStream = responseBody.byteStream()) {
+            S3MultipartOutputStream s3OutputStream = new S3MultipartOutputStream(S3_CLIENT, s3BucketName, objectKey,
+                    "application/json", GZIP_DOCUMENTS ? "gzip" : null, PART_SIZE, MAX_IN_FLIGHT_PARTS, UPLOAD_EXECUTOR);
+            GZIPOutputStream gzipOutputStream = GZIP_DOCUMENTS
+                    ? new GZIPOutputStream(s3OutputStream, COPY_BUFFER_SIZE)
+                    : null;
+            OutputStream outputStream = gzipOutputStream != null ? gzipOutputStream : s3OutputStream;
+            String s3Uri = String.format("s3://%s/%s", s3BucketName, objectKey);
+
+            try {
+                // Copy the raw bytes, which keeps the line breaks of JSONL documents
+                // The hash covers the uncompressed content, so it does not depend on DATAKIOSK_DOCUMENT_GZIP
+                MessageDigest digest = DocumentContentIndex.newDigest();
+                byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+                int count;
+                while ((count = inputStream.read(copyBuffer)) != -1) {
+                    digest.update(copyBuffer, 0, count);
+                    outputStream.write(copyBuffer, 0, count);
+                }
+                if (gzipOutputStream != null) {
+                    gzipOutputStream.finish();
+                }
+
+                String contentHash = DocumentContentIndex.toHex(digest.digest());
+                document.setContentHash(contentHash);
+
+                if (CONTENT_INDEX == null) {
+                    s3OutputStream.close();
+                    return s3Uri;
+                }
+
+                String existingS3Uri = CONTENT_INDEX.find(contentHash);
+                if (existingS3Uri != null) {
+                    s3OutputStream.abort();
+                    return existingS3Uri;
+                }
+
+                s3OutputStream.close();
+                String canonicalS3Uri = CONTENT_INDEX.register(contentHash, s3Uri);
+                if (!canonicalS3Uri.equals(s3Uri)) {
+                    // The same content was stored concurrently, keep the registered copy only
+                    S3_CLIENT.deleteObject(DeleteObjectRequest.builder().bucket(s3BucketName).key(objectKey).build());
+                }
+                return canonicalS3Uri;
+            } catch (IOException | RuntimeException e) {
+                s3OutputStream.abort();
+                throw e;
             }
         }
-
-        return content.toString();
     }
 
     private void storeDocumentDetailsInDynamoDb(StateMachineInput input) {
@@ -123,6 +190,9 @@ public class StoreDocumentHandler implements RequestHandler<StateMachineInput, S
             item.put(QUERY_ITEMS_TABLE_ATTRIBUTE_DOCUMENT_ID, AttributeValue.fromS(input.getDocument().getDocumentId()));
             item.put(QUERY_ITEMS_TABLE_ATTRIBUTE_DOCUMENT_S3, AttributeValue.fromS(input.getDocument().getS3Uri()));
             item.put(QUERY_ITEMS_TABLE_ATTRIBUTE_PROCESSING_STATUS, AttributeValue.fromS(input.getProcessingStatus()));
+            if (input.getDocument().getContentHash() != null) {
+                item.put(QUERY_ITEMS_TABLE_ATTRIBUTE_CONTENT_HASH, AttributeValue.fromS(input.getDocument().getContentHash()));
+            }
 
             PutItemRequest putItemRequest = PutItemRequest.builder()
                     .tableName(System.getenv(QUERY_ITEMS_TABLE_NAME_ENV_VARIABLE))
@@ -135,4 +205,9 @@ public class StoreDocumentHandler implements RequestHandler<StateMachineInput, S
             throw new InternalError("Document metadata storage failed", e);
         }
     }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
 }
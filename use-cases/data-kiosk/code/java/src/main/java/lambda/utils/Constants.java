@@ -22,10 +22,18 @@ public class Constants {
     //Data Kiosk Variables
     public static final String QUERY_CODE_KEY_NAME = "Query";
     public static final String QUERY_ID_KEY_NAME = "QueryId";
+    public static final String ACCOUNT_ID_KEY_NAME = "AccountId";
+    public static final String START_DATE_KEY_NAME = "StartDate";
+    public static final String END_DATE_KEY_NAME = "EndDate";
+    public static final String WINDOW_DAYS_KEY_NAME = "WindowDays";
+    public static final String QUERY_START_DATE_PLACEHOLDER = "{startDate}";
+    public static final String QUERY_END_DATE_PLACEHOLDER = "{endDate}";
 
     //Notifications Configuration
     public static final String NOTIFICATION_TYPE_DATA_KIOSK_PROCESSING_FINISHED = "DATA_KIOSK_QUERY_PROCESSING_FINISHED";
     public static final String DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_FATAL = "Fatal";
+    public static final String DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_DONE = "Done";
+    public static final String DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_CANCELLED = "Cancelled";
 
     //Lambda Environment Variables
     public static final String SP_API_APP_CREDENTIALS_SECRET_ARN_ENV_VARIABLE = "SP_API_APP_CREDENTIALS_SECRET_ARN";
@@ -34,6 +42,11 @@ public class Constants {
     public static final String REGION_CODE_ARN_ENV_VARIABLE = "REGION_CODE";
     public static final String REFRESH_TOKEN_ARN_ENV_VARIABLE = "REFRESH_TOKEN";
     public static final String DATAKIOSK_DOCUMENTS_S3_BUCKET_NAME_ENV_VARIABLE = "DATAKIOSK_DOCUMENTS_S3_BUCKET_NAME";
+    public static final String SFN_MAX_CONCURRENT_EXECUTIONS_ENV_VARIABLE = "SFN_MAX_CONCURRENT_EXECUTIONS";
+    public static final String DATAKIOSK_DOCUMENT_PART_SIZE_MB_ENV_VARIABLE = "DATAKIOSK_DOCUMENT_PART_SIZE_MB";
+    public static final String DATAKIOSK_DOCUMENT_MAX_IN_FLIGHT_PARTS_ENV_VARIABLE = "DATAKIOSK_DOCUMENT_MAX_IN_FLIGHT_PARTS";
+    public static final String DATAKIOSK_DOCUMENT_GZIP_ENV_VARIABLE = "DATAKIOSK_DOCUMENT_GZIP";
+    public static final String DATAKIOSK_MAX_QUERIES_IN_FLIGHT_ENV_VARIABLE = "DATAKIOSK_MAX_QUERIES_IN_FLIGHT";
 
     //Generic Lambda Input Parameters
     public static final String REGION_CODE_KEY_NAME = "RegionCode";
@@ -42,6 +55,20 @@ public class Constants {
 
     //Lambda Utils
     public static final String LWA_NOTIFICATIONS_SCOPE = "sellingpartnerapi::notifications";
+    public static final int SFN_DEFAULT_MAX_CONCURRENT_EXECUTIONS = 10;
+    public static final int DATAKIOSK_DOCUMENT_DEFAULT_PART_SIZE_MB = 8;
+    public static final int DATAKIOSK_DOCUMENT_DEFAULT_MAX_IN_FLIGHT_PARTS = 4;
+
+    //Query Scheduler
+    public static final int QUERY_SCHEDULER_DEFAULT_MAX_QUERIES_IN_FLIGHT = 10;
+    public static final int QUERY_SCHEDULER_DEFAULT_WINDOW_DAYS = 30;
+    public static final int QUERY_SCHEDULER_MAX_ATTEMPTS = 3;
+    public static final long QUERY_SCHEDULER_BASE_BACKOFF_SECONDS = 300;
+    public static final long QUERY_SCHEDULER_MAX_BACKOFF_SECONDS = 3600;
+    //Submitted queries without a notification after this time are reconciled with their Data Kiosk status
+    public static final long QUERY_SCHEDULER_SUBMITTED_TIMEOUT_SECONDS = 86400;
+    //Submitted items not linked to a Data Kiosk query after this time are returned to PENDING
+    public static final long QUERY_SCHEDULER_SUBMISSION_TIMEOUT_SECONDS = 300;
 
     //DynamoDB Utils
     public static final String QUERY_ITEMS_TABLE_NAME_ENV_VARIABLE = "QUERY_ITEMS_TABLE_NAME";
@@ -51,6 +78,19 @@ public class Constants {
     public static final String QUERY_ITEMS_TABLE_ATTRIBUTE_DOCUMENT_ID = "DocumentId";
     public static final String QUERY_ITEMS_TABLE_ATTRIBUTE_DOCUMENT_S3 = "DocumentS3";
     public static final String QUERY_ITEMS_TABLE_ATTRIBUTE_PROCESSING_STATUS = "ProcessingStatus";
+    public static final String QUERY_ITEMS_TABLE_ATTRIBUTE_DATA_KIOSK_QUERY_ID = "DataKioskQueryId";
+    public static final String QUERY_ITEMS_TABLE_ATTRIBUTE_ATTEMPTS = "Attempts";
+    public static final String QUERY_ITEMS_TABLE_ATTRIBUTE_NEXT_ATTEMPT_AT = "NextAttemptAt";
+    public static final String QUERY_ITEMS_TABLE_ATTRIBUTE_SUBMITTED_AT = "SubmittedAt";
+    public static final String QUERY_ITEMS_TABLE_ATTRIBUTE_CONTENT_HASH = "ContentHash";
+    public static final String QUERY_ITEMS_TABLE_SCHEDULED_QUERY_ID_PREFIX = "SCHEDULED#";
+    public static final String DOCUMENT_CONTENT_TABLE_NAME_ENV_VARIABLE = "DOCUMENT_CONTENT_TABLE_NAME";
+    public static final String DOCUMENT_CONTENT_TABLE_ATTRIBUTE_CONTENT_HASH = "ContentHash";
+    public static final String DOCUMENT_CONTENT_TABLE_ATTRIBUTE_DOCUMENT_S3 = "DocumentS3";
+
+    //Document Compaction
+    //Objects younger than this may belong to a store in progress and are not compacted
+    public static final long DOCUMENT_COMPACTION_MIN_AGE_SECONDS = 3600;
 
     //Login With Amazon Configuration
     public static final String LWA_ENDPOINT = "https://api.amazon.com/auth/o2/token";
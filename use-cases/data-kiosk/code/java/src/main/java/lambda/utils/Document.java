@@ -25,4 +25,7 @@ public class Document {
 
     @JsonProperty("s3Uri")
     public String s3Uri;
+
+    @JsonProperty("contentHash")
+    public String contentHash;
 }
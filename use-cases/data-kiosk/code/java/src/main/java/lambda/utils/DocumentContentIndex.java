@@ -0,0 +1,108 @@
+package lambda.utils;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static lambda.utils.Constants.DOCUMENT_CONTENT_TABLE_ATTRIBUTE_CONTENT_HASH;
+import static lambda.utils.Constants.DOCUMENT_CONTENT_TABLE_ATTRIBUTE_DOCUMENT_S3;
+
+/**
+ * Index from the SHA-256 hash of a document content to the S3 URI of the object that stores it.
+ * The first object stored with a given content is the canonical one, and later documents with the same content
+ * link to it instead of storing a copy.
+ */
+public class DocumentContentIndex {
+
+    private final DynamoDbClient dynamoDb;
+    private final String tableName;
+
+    public DocumentContentIndex(DynamoDbClient dynamoDb, String tableName) {
+        this.dynamoDb = dynamoDb;
+        this.tableName = tableName;
+    }
+
+    /**
+     * Returns the S3 URI of the object storing the given content, or null if the content was never stored.
+     */
+    public String find(String contentHash) {
+        Map<String, AttributeValue> item = dynamoDb.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Collections.singletonMap(DOCUMENT_CONTENT_TABLE_ATTRIBUTE_CONTENT_HASH, AttributeValue.fromS(contentHash)))
+                .consistentRead(true)
+                .build()).item();
+
+        return item == null || item.isEmpty() ? null : item.get(DOCUMENT_CONTENT_TABLE_ATTRIBUTE_DOCUMENT_S3).s();
+    }
+
+    /**
+     * Registers the object as the canonical copy of the content, unless another object was registered first.
+     *
+     * @return The S3 URI of the canonical object, which is s3Uri if the registration succeeded
+     */
+    public String register(String contentHash, String s3Uri) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(DOCUMENT_CONTENT_TABLE_ATTRIBUTE_CONTENT_HASH, AttributeValue.fromS(contentHash));
+        item.put(DOCUMENT_CONTENT_TABLE_ATTRIBUTE_DOCUMENT_S3, AttributeValue.fromS(s3Uri));
+
+        try {
+            dynamoDb.putItem(PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(item)
+                    .conditionExpression("attribute_not_exists(#contentHash)")
+                    .expressionAttributeNames(Collections.singletonMap("#contentHash", DOCUMENT_CONTENT_TABLE_ATTRIBUTE_CONTENT_HASH))
+                    .build());
+            return s3Uri;
+        } catch (ConditionalCheckFailedException e) {
+            // A concurrent store of the same content won
+            return find(contentHash);
+        }
+    }
+
+    /**
+     * Returns all canonical objects, keyed by S3 URI, with their content hash.
+     */
+    public Map<String, String> getCanonicalObjects() {
+        Map<String, String> canonicalObjects = new HashMap<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+            ScanResponse response = dynamoDb.scan(ScanRequest.builder()
+                    .tableName(tableName)
+                    .exclusiveStartKey(exclusiveStartKey)
+                    .build());
+            for (Map<String, AttributeValue> item : response.items()) {
+                canonicalObjects.put(item.get(DOCUMENT_CONTENT_TABLE_ATTRIBUTE_DOCUMENT_S3).s(),
+                        item.get(DOCUMENT_CONTENT_TABLE_ATTRIBUTE_CONTENT_HASH).s());
+            }
+            exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null);
+
+        return canonicalObjects;
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String toHex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
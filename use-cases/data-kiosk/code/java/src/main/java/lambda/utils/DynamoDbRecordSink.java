@@ -0,0 +1,80 @@
+package lambda.utils;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes records to a DynamoDB table with BatchWriteItem, 25 items per request.
+ * Unprocessed items returned by DynamoDB are retried with exponential backoff.
+ */
+public class DynamoDbRecordSink<T> implements RecordSink<T> {
+
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_MILLIS = 50;
+
+    private final DynamoDbClient dynamoDb;
+    private final String tableName;
+    private final Function<T, Map<String, AttributeValue>> itemMapper;
+
+    public DynamoDbRecordSink(DynamoDbClient dynamoDb, String tableName, Function<T, Map<String, AttributeValue>> itemMapper) {
+        this.dynamoDb = dynamoDb;
+        this.tableName = tableName;
+        this.itemMapper = itemMapper;
+    }
+
+    @Override
+    public void write(List<T> batch) throws IOException {
+        for (int start = 0; start < batch.size(); start += MAX_BATCH_WRITE_ITEMS) {
+            List<WriteRequest> writeRequests = new ArrayList<>();
+            for (T record : batch.subList(start, Math.min(start + MAX_BATCH_WRITE_ITEMS, batch.size()))) {
+                writeRequests.add(WriteRequest.builder()
+                        .putRequest(PutRequest.builder().item(itemMapper.apply(record)).build())
+                        .build());
+            }
+
+            batchWrite(writeRequests);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void batchWrite(List<WriteRequest> writeRequests) throws IOException {
+        Map<String, List<WriteRequest>> requestItems = Collections.singletonMap(tableName, writeRequests);
+
+        for (int attempt = 1; ; attempt++) {
+            Map<String, List<WriteRequest>> unprocessedItems = dynamoDb.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(requestItems)
+                    .build()).unprocessedItems();
+            if (unprocessedItems == null || unprocessedItems.isEmpty()) {
+                return;
+            }
+
+            if (attempt == MAX_ATTEMPTS) {
+                throw new IOException(String.format("%d items were not written to %s after %d attempts",
+                        unprocessedItems.get(tableName).size(), tableName, MAX_ATTEMPTS));
+            }
+
+            try {
+                Thread.sleep(BASE_BACKOFF_MILLIS << attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while retrying unprocessed items");
+            }
+            requestItems = unprocessedItems;
+        }
+    }
+}
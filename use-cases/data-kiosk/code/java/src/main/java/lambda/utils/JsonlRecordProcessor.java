@@ -0,0 +1,98 @@
+package lambda.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the records of a Data Kiosk JSONL document as a stream and emits them to a {@link RecordSink} in batches.
+ * Memory use is bounded by one batch of records, so documents larger than the heap can be processed:
+ * - Gzip-compressed documents are detected by their magic bytes and decompressed on the fly.
+ * - A single JsonReader reads the whole document, one record at a time, without building a tree of the record.
+ * - Records are bound directly to the given projection type. Only the fields declared by the type are kept,
+ *   other fields are skipped by the reader.
+ *
+ * Usage, loading a sales and traffic document into local JSONL files:
+ * <pre>
+ * try (RecordSink&lt;SalesAndTrafficByDateRecord&gt; sink = new LocalFileRecordSink&lt;&gt;(path)) {
+ *     new JsonlRecordProcessor&lt;&gt;(SalesAndTrafficByDateRecord.class, sink, 500).process(inputStream);
+ * }
+ * </pre>
+ */
+public class JsonlRecordProcessor<T> {
+
+    private static final Gson GSON = new Gson();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TypeAdapter<T> adapter;
+    private final RecordSink<T> sink;
+    private final int batchSize;
+
+    public JsonlRecordProcessor(Class<T> recordType, RecordSink<T> sink, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+
+        this.adapter = GSON.getAdapter(recordType);
+        this.sink = sink;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reads all records of the document and writes them to the sink. The sink is not closed.
+     *
+     * @param inputStream The document content, plain or gzip-compressed
+     * @return The number of records written to the sink
+     */
+    public long process(InputStream inputStream) throws IOException {
+        BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        InputStream documentStream = isGzip(bufferedInputStream)
+                ? new GZIPInputStream(bufferedInputStream, BUFFER_SIZE)
+                : bufferedInputStream;
+
+        long recordCount = 0;
+        List<T> batch = new ArrayList<>(batchSize);
+        try (JsonReader reader = new JsonReader(new InputStreamReader(documentStream, StandardCharsets.UTF_8))) {
+            // JSONL documents contain one top-level value per line, which requires the lenient mode
+            reader.setLenient(true);
+
+            while (reader.peek() != JsonToken.END_DOCUMENT) {
+                T record = adapter.read(reader);
+                if (record == null) {
+                    continue;
+                }
+
+                batch.add(record);
+                recordCount++;
+                if (batch.size() == batchSize) {
+                    sink.write(batch);
+                    batch.clear();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            sink.write(batch);
+        }
+
+        return recordCount;
+    }
+
+    private static boolean isGzip(BufferedInputStream inputStream) throws IOException {
+        inputStream.mark(2);
+        int first = inputStream.read();
+        int second = inputStream.read();
+        inputStream.reset();
+        return first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+}
@@ -0,0 +1,40 @@
+package lambda.utils;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends records as JSONL to a local file, e.g. under /tmp for a later bulk load. The file is created if it does not
+ * exist, and existing records are kept.
+ */
+public class LocalFileRecordSink<T> implements RecordSink<T> {
+
+    private static final Gson GSON = new Gson();
+
+    private final BufferedWriter writer;
+
+    public LocalFileRecordSink(Path path) throws IOException {
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void write(List<T> batch) throws IOException {
+        for (T record : batch) {
+            GSON.toJson(record, writer);
+            writer.write('\n');
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
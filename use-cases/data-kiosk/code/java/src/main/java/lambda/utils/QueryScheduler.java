@@ -0,0 +1,444 @@
+package lambda.utils;
+
+import com.amazon.SellingPartnerAPIAA.LWAException;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import io.swagger.client.ApiException;
+import io.swagger.client.api.QueriesApi;
+import io.swagger.client.model.datakiosk.CreateQuerySpecification;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static lambda.utils.Constants.DATAKIOSK_MAX_QUERIES_IN_FLIGHT_ENV_VARIABLE;
+import static lambda.utils.Constants.DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_CANCELLED;
+import static lambda.utils.Constants.DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_DONE;
+import static lambda.utils.Constants.DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_FATAL;
+import static lambda.utils.Constants.QUERY_END_DATE_PLACEHOLDER;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_ACCOUNT_ID;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_ATTEMPTS;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_DATA_KIOSK_QUERY_ID;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_NEXT_ATTEMPT_AT;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_PROCESSING_STATUS;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_ATTRIBUTE_SUBMITTED_AT;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_NAME_ENV_VARIABLE;
+import static lambda.utils.Constants.QUERY_ITEMS_TABLE_SCHEDULED_QUERY_ID_PREFIX;
+import static lambda.utils.Constants.QUERY_SCHEDULER_BASE_BACKOFF_SECONDS;
+import static lambda.utils.Constants.QUERY_SCHEDULER_DEFAULT_MAX_QUERIES_IN_FLIGHT;
+import static lambda.utils.Constants.QUERY_SCHEDULER_MAX_ATTEMPTS;
+import static lambda.utils.Constants.QUERY_SCHEDULER_MAX_BACKOFF_SECONDS;
+import static lambda.utils.Constants.QUERY_SCHEDULER_SUBMISSION_TIMEOUT_SECONDS;
+import static lambda.utils.Constants.QUERY_SCHEDULER_SUBMITTED_TIMEOUT_SECONDS;
+import static lambda.utils.Constants.QUERY_START_DATE_PLACEHOLDER;
+import static lambda.utils.Constants.REFRESH_TOKEN_ARN_ENV_VARIABLE;
+import static lambda.utils.Constants.REGION_CODE_ARN_ENV_VARIABLE;
+
+/**
+ * Schedules Data Kiosk queries of an account so that the account always has as many queries in flight as its quota
+ * allows (DATAKIOSK_MAX_QUERIES_IN_FLIGHT), and no more.
+ * The state of the scheduled queries is kept in the QUERY_ITEMS table, in the partition of the account, with a
+ * QueryId of SCHEDULED#{startDate}#{endDate}#{query hash}:
+ * - schedule splits a date range into windows and stores one PENDING item per window.
+ * - dispatch submits PENDING windows with createQuery while slots are free, and marks them SUBMITTED.
+ * - onQueryFinished releases the slot of a query when its DATA_KIOSK_QUERY_PROCESSING_FINISHED notification
+ *   arrives. FATAL queries are resubmitted with exponential backoff up to QUERY_SCHEDULER_MAX_ATTEMPTS attempts.
+ * - dispatch also reconciles SUBMITTED items whose notification was never matched, e.g. because it arrived before
+ *   the item was linked to its Data Kiosk query: items linked to a query are released according to getQuery after
+ *   QUERY_SCHEDULER_SUBMITTED_TIMEOUT_SECONDS, and items never linked (the submission failed midway) are returned
+ *   to PENDING after QUERY_SCHEDULER_SUBMISSION_TIMEOUT_SECONDS.
+ * Items are claimed with conditional writes, so concurrent dispatchers never submit the same window twice. They may
+ * briefly exceed the quota, in which case createQuery is throttled and the window is returned to PENDING.
+ */
+public class QueryScheduler {
+
+    private static final String STATUS_PENDING = "PENDING";
+    private static final String STATUS_SUBMITTED = "SUBMITTED";
+    private static final String STATUS_DONE = "DONE";
+    private static final String STATUS_FAILED = "FAILED";
+    private static final String STATUS_CANCELLED = "CANCELLED";
+
+    private static final DynamoDbClient DYNAMO_DB_CLIENT = DynamoDbClient.builder().build();
+    private static final int MAX_QUERIES_IN_FLIGHT = getMaxQueriesInFlight();
+
+    private QueryScheduler() {
+    }
+
+    /**
+     * Splits the date range into windows of windowDays days and stores a PENDING item per window. The query must
+     * contain the {startDate} and {endDate} placeholders, which are replaced by the dates of each window.
+     * Windows that were already scheduled for the same query are left unchanged.
+     *
+     * @return The number of newly scheduled windows
+     */
+    public static int schedule(String accountId, String queryTemplate, LocalDate startDate, LocalDate endDate, int windowDays) {
+        if (!queryTemplate.contains(QUERY_START_DATE_PLACEHOLDER) || !queryTemplate.contains(QUERY_END_DATE_PLACEHOLDER)) {
+            throw new IllegalArgumentException(String.format("Query must contain the %s and %s placeholders",
+                    QUERY_START_DATE_PLACEHOLDER, QUERY_END_DATE_PLACEHOLDER));
+        }
+        if (windowDays < 1 || endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("Invalid date range or window size");
+        }
+
+        String queryHash = hash(queryTemplate);
+        int scheduledWindows = 0;
+        for (LocalDate windowStart = startDate; !windowStart.isAfter(endDate); windowStart = windowStart.plusDays(windowDays)) {
+            LocalDate windowEnd = windowStart.plusDays(windowDays - 1L);
+            if (windowEnd.isAfter(endDate)) {
+                windowEnd = endDate;
+            }
+
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put(QUERY_ITEMS_TABLE_ATTRIBUTE_ACCOUNT_ID, AttributeValue.fromS(accountId));
+            item.put(QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID, AttributeValue.fromS(String.format("%s%s#%s#%s",
+                    QUERY_ITEMS_TABLE_SCHEDULED_QUERY_ID_PREFIX, windowStart, windowEnd, queryHash)));
+            item.put(QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY, AttributeValue.fromS(queryTemplate
+                    .replace(QUERY_START_DATE_PLACEHOLDER, windowStart.toString())
+                    .replace(QUERY_END_DATE_PLACEHOLDER, windowEnd.toString())));
+            item.put(QUERY_ITEMS_TABLE_ATTRIBUTE_PROCESSING_STATUS, AttributeValue.fromS(STATUS_PENDING));
+            item.put(QUERY_ITEMS_TABLE_ATTRIBUTE_ATTEMPTS, AttributeValue.fromN("0"));
+            item.put(QUERY_ITEMS_TABLE_ATTRIBUTE_NEXT_ATTEMPT_AT, AttributeValue.fromN("0"));
+
+            try {
+                DYNAMO_DB_CLIENT.putItem(PutItemRequest.builder()
+                        .tableName(getTableName())
+                        .item(item)
+                        .conditionExpression("attribute_not_exists(#queryId)")
+                        .expressionAttributeNames(singletonNames("#queryId", QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID))
+                        .build());
+                scheduledWindows++;
+            } catch (ConditionalCheckFailedException e) {
+                // Already scheduled
+            }
+        }
+
+        return scheduledWindows;
+    }
+
+    /**
+     * Submits the due PENDING windows of the account, oldest first, while the account has free slots.
+     *
+     * @return The number of submitted queries
+     */
+    public static int dispatch(String accountId, LambdaLogger logger) throws Exception {
+        long now = Instant.now().getEpochSecond();
+        List<Map<String, AttributeValue>> items = getScheduledItems(accountId, null);
+
+        int inFlight = 0;
+        List<Map<String, AttributeValue>> dueItems = new ArrayList<>();
+        List<Map<String, AttributeValue>> timedOutItems = new ArrayList<>();
+        for (Map<String, AttributeValue> item : items) {
+            String status = item.get(QUERY_ITEMS_TABLE_ATTRIBUTE_PROCESSING_STATUS).s();
+            if (STATUS_SUBMITTED.equals(status)) {
+                long timeoutSeconds = item.containsKey(QUERY_ITEMS_TABLE_ATTRIBUTE_DATA_KIOSK_QUERY_ID)
+                        ? QUERY_SCHEDULER_SUBMITTED_TIMEOUT_SECONDS
+                        : QUERY_SCHEDULER_SUBMISSION_TIMEOUT_SECONDS;
+                if (getLong(item, QUERY_ITEMS_TABLE_ATTRIBUTE_SUBMITTED_AT) > now - timeoutSeconds) {
+                    inFlight++;
+                } else {
+                    timedOutItems.add(item);
+                }
+            } else if (STATUS_PENDING.equals(status) && getLong(item, QUERY_ITEMS_TABLE_ATTRIBUTE_NEXT_ATTEMPT_AT) <= now) {
+                dueItems.add(item);
+            }
+        }
+
+        QueriesApi dataKioskApi = ApiUtils.getDataKioskApi(
+                System.getenv(REGION_CODE_ARN_ENV_VARIABLE), System.getenv(REFRESH_TOKEN_ARN_ENV_VARIABLE));
+
+        for (Map<String, AttributeValue> item : timedOutItems) {
+            if (!reconcile(accountId, item, dataKioskApi, now, logger)) {
+                inFlight++;
+            }
+        }
+
+        int freeSlots = MAX_QUERIES_IN_FLIGHT - inFlight;
+        logger.log(String.format("Account %s: %d queries in flight, %d due, %d free slots",
+                accountId, inFlight, dueItems.size(), Math.max(freeSlots, 0)));
+        if (freeSlots <= 0 || dueItems.isEmpty()) {
+            return 0;
+        }
+
+        // Windows are submitted in date order
+        dueItems.sort(Comparator.comparing(item -> item.get(QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID).s()));
+
+        int submitted = 0;
+        for (Map<String, AttributeValue> item : dueItems) {
+            if (submitted == freeSlots) {
+                break;
+            }
+
+            String scheduledQueryId = item.get(QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID).s();
+            int attempts = (int) getLong(item, QUERY_ITEMS_TABLE_ATTRIBUTE_ATTEMPTS) + 1;
+            if (!claim(accountId, scheduledQueryId, attempts, now)) {
+                continue;
+            }
+
+            try {
+                CreateQuerySpecification request = new CreateQuerySpecification();
+                request.setQuery(item.get(QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY).s());
+                String dataKioskQueryId = dataKioskApi.createQuery(request).getQueryId();
+
+                setDataKioskQueryId(accountId, scheduledQueryId, dataKioskQueryId);
+                logger.log(String.format("Submitted %s as query %s", scheduledQueryId, dataKioskQueryId));
+                submitted++;
+            } catch (ApiException e) {
+                logger.log(String.format("Submission of %s failed with code %d: %s", scheduledQueryId, e.getCode(), e.getMessage()));
+                if (e.getCode() == 429) {
+                    // The quota is used by other queries, try again later without counting the attempt
+                    release(accountId, scheduledQueryId, STATUS_PENDING, attempts - 1, now + getBackoffSeconds(1));
+                    break;
+                }
+                retryOrFail(accountId, scheduledQueryId, attempts, now);
+            }
+        }
+
+        return submitted;
+    }
+
+    /**
+     * Releases the slot of a scheduled query whose processing finished. FATAL queries are scheduled for another
+     * attempt with exponential backoff, until QUERY_SCHEDULER_MAX_ATTEMPTS attempts were made.
+     *
+     * @return False if the query was not submitted by the scheduler
+     */
+    public static boolean onQueryFinished(String accountId, String dataKioskQueryId, String processingStatus, LambdaLogger logger) {
+        List<Map<String, AttributeValue>> items = getScheduledItems(accountId, dataKioskQueryId);
+        if (items.isEmpty()) {
+            return false;
+        }
+
+        Map<String, AttributeValue> item = items.get(0);
+        String scheduledQueryId = item.get(QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID).s();
+        int attempts = (int) getLong(item, QUERY_ITEMS_TABLE_ATTRIBUTE_ATTEMPTS);
+
+        finish(accountId, scheduledQueryId, processingStatus, attempts, Instant.now().getEpochSecond());
+        logger.log(String.format("Scheduled query %s finished with status %s after %d attempt(s)",
+                scheduledQueryId, processingStatus, attempts));
+        return true;
+    }
+
+    //Releases the slot of a timed out SUBMITTED item according to the status of its Data Kiosk query
+    //Returns false if the query is still in flight, or its status could not be retrieved
+    private static boolean reconcile(String accountId, Map<String, AttributeValue> item, QueriesApi dataKioskApi,
+                                     long now, LambdaLogger logger) throws LWAException {
+        String scheduledQueryId = item.get(QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID).s();
+        int attempts = (int) getLong(item, QUERY_ITEMS_TABLE_ATTRIBUTE_ATTEMPTS);
+        AttributeValue dataKioskQueryId = item.get(QUERY_ITEMS_TABLE_ATTRIBUTE_DATA_KIOSK_QUERY_ID);
+
+        if (dataKioskQueryId == null) {
+            // The submission stopped before the query ID was stored, so whether the query was created is unknown
+            logger.log(String.format("Scheduled query %s was never linked to a query, submitting it again", scheduledQueryId));
+            retryOrFail(accountId, scheduledQueryId, attempts, now);
+            return true;
+        }
+
+        String processingStatus;
+        try {
+            processingStatus = dataKioskApi.getQuery(dataKioskQueryId.s()).getProcessingStatus().getValue();
+        } catch (ApiException e) {
+            if (e.getCode() != 404) {
+                logger.log(String.format("Status of query %s could not be retrieved, code %d: %s",
+                        dataKioskQueryId.s(), e.getCode(), e.getMessage()));
+                return false;
+            }
+            processingStatus = DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_FATAL;
+        }
+
+        if (!isFinished(processingStatus)) {
+            return false;
+        }
+
+        finish(accountId, scheduledQueryId, processingStatus, attempts, now);
+        logger.log(String.format("Scheduled query %s reconciled with status %s after %d attempt(s)",
+                scheduledQueryId, processingStatus, attempts));
+        return true;
+    }
+
+    private static boolean isFinished(String processingStatus) {
+        return DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_DONE.equalsIgnoreCase(processingStatus)
+                || DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_CANCELLED.equalsIgnoreCase(processingStatus)
+                || DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_FATAL.equalsIgnoreCase(processingStatus);
+    }
+
+    private static void finish(String accountId, String scheduledQueryId, String processingStatus, int attempts, long now) {
+        if (DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_DONE.equalsIgnoreCase(processingStatus)) {
+            release(accountId, scheduledQueryId, STATUS_DONE, attempts, 0);
+        } else if (DATA_KIOSK_NOTIFICATION_PROCESSING_STATUS_CANCELLED.equalsIgnoreCase(processingStatus)) {
+            release(accountId, scheduledQueryId, STATUS_CANCELLED, attempts, 0);
+        } else {
+            retryOrFail(accountId, scheduledQueryId, attempts, now);
+        }
+    }
+
+    private static void retryOrFail(String accountId, String scheduledQueryId, int attempts, long now) {
+        if (attempts >= QUERY_SCHEDULER_MAX_ATTEMPTS) {
+            release(accountId, scheduledQueryId, STATUS_FAILED, attempts, 0);
+        } else {
+            release(accountId, scheduledQueryId, STATUS_PENDING, attempts, now + getBackoffSeconds(attempts));
+        }
+    }
+
+    //Moves a PENDING item to SUBMITTED, unless another dispatcher claimed it first
+    private static boolean claim(String accountId, String scheduledQueryId, int attempts, long now) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":pending", AttributeValue.fromS(STATUS_PENDING));
+        values.put(":submitted", AttributeValue.fromS(STATUS_SUBMITTED));
+        values.put(":attempts", AttributeValue.fromN(String.valueOf(attempts)));
+        values.put(":now", AttributeValue.fromN(String.valueOf(now)));
+
+        try {
+            DYNAMO_DB_CLIENT.updateItem(UpdateItemRequest.builder()
+                    .tableName(getTableName())
+                    .key(getKey(accountId, scheduledQueryId))
+                    .updateExpression("SET #status = :submitted, #attempts = :attempts, #submittedAt = :now REMOVE #dataKioskQueryId")
+                    .conditionExpression("#status = :pending")
+                    .expressionAttributeNames(getAttributeNames())
+                    .expressionAttributeValues(values)
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private static void setDataKioskQueryId(String accountId, String scheduledQueryId, String dataKioskQueryId) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":dataKioskQueryId", AttributeValue.fromS(dataKioskQueryId));
+
+        DYNAMO_DB_CLIENT.updateItem(UpdateItemRequest.builder()
+                .tableName(getTableName())
+                .key(getKey(accountId, scheduledQueryId))
+                .updateExpression("SET #dataKioskQueryId = :dataKioskQueryId")
+                .expressionAttributeNames(singletonNames("#dataKioskQueryId", QUERY_ITEMS_TABLE_ATTRIBUTE_DATA_KIOSK_QUERY_ID))
+                .expressionAttributeValues(values)
+                .build());
+    }
+
+    //Moves a SUBMITTED item to the given status, ignoring redelivered notifications of already released queries
+    private static void release(String accountId, String scheduledQueryId, String status, int attempts, long nextAttemptAt) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":submitted", AttributeValue.fromS(STATUS_SUBMITTED));
+        values.put(":status", AttributeValue.fromS(status));
+        values.put(":attempts", AttributeValue.fromN(String.valueOf(attempts)));
+        values.put(":nextAttemptAt", AttributeValue.fromN(String.valueOf(nextAttemptAt)));
+
+        try {
+            DYNAMO_DB_CLIENT.updateItem(UpdateItemRequest.builder()
+                    .tableName(getTableName())
+                    .key(getKey(accountId, scheduledQueryId))
+                    .updateExpression("SET #status = :status, #attempts = :attempts, #nextAttemptAt = :nextAttemptAt")
+                    .conditionExpression("#status = :submitted")
+                    .expressionAttributeNames(getAttributeNames())
+                    .expressionAttributeValues(values)
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            // Already released
+        }
+    }
+
+    //Returns the scheduled items of the account, optionally only the one submitted as the given Data Kiosk query
+    private static List<Map<String, AttributeValue>> getScheduledItems(String accountId, String dataKioskQueryId) {
+        Map<String, String> names = new HashMap<>();
+        names.put("#accountId", QUERY_ITEMS_TABLE_ATTRIBUTE_ACCOUNT_ID);
+        names.put("#queryId", QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID);
+
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":accountId", AttributeValue.fromS(accountId));
+        values.put(":prefix", AttributeValue.fromS(QUERY_ITEMS_TABLE_SCHEDULED_QUERY_ID_PREFIX));
+
+        QueryRequest.Builder request = QueryRequest.builder()
+                .tableName(getTableName())
+                .keyConditionExpression("#accountId = :accountId AND begins_with(#queryId, :prefix)")
+                .consistentRead(true);
+        if (dataKioskQueryId != null) {
+            names.put("#dataKioskQueryId", QUERY_ITEMS_TABLE_ATTRIBUTE_DATA_KIOSK_QUERY_ID);
+            values.put(":dataKioskQueryId", AttributeValue.fromS(dataKioskQueryId));
+            request.filterExpression("#dataKioskQueryId = :dataKioskQueryId");
+        }
+        request.expressionAttributeNames(names).expressionAttributeValues(values);
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+            QueryResponse response = DYNAMO_DB_CLIENT.query(request.exclusiveStartKey(exclusiveStartKey).build());
+            items.addAll(response.items());
+            exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null);
+
+        return items;
+    }
+
+    private static Map<String, AttributeValue> getKey(String accountId, String scheduledQueryId) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put(QUERY_ITEMS_TABLE_ATTRIBUTE_ACCOUNT_ID, AttributeValue.fromS(accountId));
+        key.put(QUERY_ITEMS_TABLE_ATTRIBUTE_QUERY_ID, AttributeValue.fromS(scheduledQueryId));
+        return key;
+    }
+
+    private static Map<String, String> getAttributeNames() {
+        Map<String, String> names = new HashMap<>();
+        names.put("#status", QUERY_ITEMS_TABLE_ATTRIBUTE_PROCESSING_STATUS);
+        names.put("#attempts", QUERY_ITEMS_TABLE_ATTRIBUTE_ATTEMPTS);
+        names.put("#submittedAt", QUERY_ITEMS_TABLE_ATTRIBUTE_SUBMITTED_AT);
+        names.put("#nextAttemptAt", QUERY_ITEMS_TABLE_ATTRIBUTE_NEXT_ATTEMPT_AT);
+        names.put("#dataKioskQueryId", QUERY_ITEMS_TABLE_ATTRIBUTE_DATA_KIOSK_QUERY_ID);
+        return names;
+    }
+
+    private static Map<String, String> singletonNames(String placeholder, String name) {
+        Map<String, String> names = new HashMap<>();
+        names.put(placeholder, name);
+        return names;
+    }
+
+    private static long getLong(Map<String, AttributeValue> item, String attribute) {
+        AttributeValue value = item.get(attribute);
+        return value == null || value.n() == null ? 0 : Long.parseLong(value.n());
+    }
+
+    //Exponential backoff with jitter, so that retries of a batch of failed windows are spread out
+    private static long getBackoffSeconds(int attempts) {
+        long backoff = Math.min(QUERY_SCHEDULER_MAX_BACKOFF_SECONDS,
+                QUERY_SCHEDULER_BASE_BACKOFF_SECONDS << Math.min(attempts - 1, 10));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getTableName() {
+        return System.getenv(QUERY_ITEMS_TABLE_NAME_ENV_VARIABLE);
+    }
+
+    private static int getMaxQueriesInFlight() {
+        String value = System.getenv(DATAKIOSK_MAX_QUERIES_IN_FLIGHT_ENV_VARIABLE);
+        return value == null || value.isEmpty() ? QUERY_SCHEDULER_DEFAULT_MAX_QUERIES_IN_FLIGHT : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,15 @@
+package lambda.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the records emitted by {@link JsonlRecordProcessor}, one batch at a time.
+ * The batch list is reused by the processor once write returns, so sinks must not keep a reference to it.
+ * Closing the sink flushes and releases its resources.
+ */
+public interface RecordSink<T> extends Closeable {
+
+    void write(List<T> batch) throws IOException;
+}
@@ -0,0 +1,273 @@
+package lambda.utils;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes an S3 object of unknown length as a multipart upload, using constant memory.
+ * Bytes are buffered into fixed-size parts, and every full part is uploaded on the given executor while writing
+ * continues. At most maxInFlightParts parts are uploaded at once; writers block until a part buffer is free, so
+ * memory use is bounded by (maxInFlightParts + 1) * partSize regardless of the object size.
+ * Objects smaller than one part are stored with a single PutObject call instead.
+ * Closing the stream completes the upload. If writing fails, call abort() instead so that the uploaded parts
+ * are discarded and no partial object is stored. If completing the upload fails, close() aborts it itself.
+ */
+public class S3MultipartOutputStream extends OutputStream {
+
+    //S3 requires every part except the last one to be at least 5 MiB
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String key;
+    private final String contentType;
+    private final String contentEncoding;
+    private final int partSize;
+    private final int maxBuffers;
+    private final Executor executor;
+
+    private final BlockingQueue<byte[]> freeBuffers;
+    private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+    private int allocatedBuffers;
+
+    private String uploadId;
+    private byte[] buffer;
+    private int position;
+    private long size;
+    private boolean closed;
+
+    public S3MultipartOutputStream(S3Client s3, String bucket, String key, String contentType, String contentEncoding,
+                                   int partSize, int maxInFlightParts, Executor executor) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException(String.format("Part size must be at least %d bytes", MIN_PART_SIZE));
+        }
+        if (maxInFlightParts < 1) {
+            throw new IllegalArgumentException("At least one part must be allowed in flight");
+        }
+
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.key = key;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.partSize = partSize;
+        this.maxBuffers = maxInFlightParts + 1;
+        this.executor = executor;
+        this.freeBuffers = new ArrayBlockingQueue<>(maxBuffers);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureBuffer();
+        buffer[position++] = (byte) b;
+        size++;
+        if (position == partSize) {
+            uploadPart();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensureBuffer();
+            int count = Math.min(length, partSize - position);
+            System.arraycopy(bytes, offset, buffer, position, count);
+            position += count;
+            size += count;
+            offset += count;
+            length -= count;
+            if (position == partSize) {
+                uploadPart();
+            }
+        }
+    }
+
+    /**
+     * Uploads the remaining bytes and completes the upload. If the upload cannot be completed, it is aborted before
+     * the error is thrown, so that the uploaded parts are not kept.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (uploadId == null) {
+            // The whole object fits in one part
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(contentType)
+                    .contentEncoding(contentEncoding)
+                    .build();
+            s3.putObject(request, toRequestBody(buffer, position));
+            buffer = null;
+            return;
+        }
+
+        try {
+            if (position > 0) {
+                uploadPart();
+            }
+
+            List<CompletedPart> completedParts = new ArrayList<>();
+            try {
+                for (CompletableFuture<CompletedPart> part : parts) {
+                    completedParts.add(part.join());
+                }
+            } catch (CompletionException e) {
+                throw new IOException("Part upload failed for " + key, e.getCause());
+            }
+
+            s3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            buffer = null;
+            try {
+                discardUpload();
+            } catch (RuntimeException abortException) {
+                // The lifecycle rule of the bucket removes the parts later
+                e.addSuppressed(abortException);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Discards the upload: waits for the parts in flight and aborts the multipart upload, if one was started.
+     * The stream cannot be used afterwards.
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer = null;
+        discardUpload();
+    }
+
+    //Total number of bytes written so far
+    public long getSize() {
+        return size;
+    }
+
+    private void ensureBuffer() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (buffer != null) {
+            return;
+        }
+
+        byte[] free = freeBuffers.poll();
+        if (free == null && allocatedBuffers < maxBuffers) {
+            allocatedBuffers++;
+            free = new byte[partSize];
+        }
+        if (free == null) {
+            // All buffers are in flight, wait for an upload to finish
+            try {
+                free = freeBuffers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a part upload");
+            }
+        }
+
+        buffer = free;
+        position = 0;
+    }
+
+    private void uploadPart() throws IOException {
+        if (uploadId == null) {
+            uploadId = s3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(contentType)
+                    .contentEncoding(contentEncoding)
+                    .build()).uploadId();
+        }
+
+        // Stop early instead of uploading the rest of the object when a part failed
+        for (CompletableFuture<CompletedPart> part : parts) {
+            if (part.isCompletedExceptionally()) {
+                throw new IOException("Part upload failed for " + key);
+            }
+        }
+
+        final byte[] partBuffer = buffer;
+        final int partLength = position;
+        final int partNumber = parts.size() + 1;
+        buffer = null;
+        position = 0;
+
+        parts.add(CompletableFuture.supplyAsync(() -> {
+            try {
+                String eTag = s3.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) partLength)
+                        .build(), toRequestBody(partBuffer, partLength)).eTag();
+                return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+            } finally {
+                freeBuffers.offer(partBuffer);
+            }
+        }, executor));
+    }
+
+    //Waits for the parts in flight, so that none is stored after the abort, and aborts the multipart upload
+    private void discardUpload() {
+        for (CompletableFuture<CompletedPart> part : parts) {
+            try {
+                part.join();
+            } catch (CompletionException ignored) {
+                // The upload is aborted anyway
+            }
+        }
+        abortUpload();
+    }
+
+    private void abortUpload() {
+        if (uploadId != null) {
+            s3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        }
+    }
+
+    private static RequestBody toRequestBody(byte[] bytes, int length) {
+        if (bytes == null) {
+            return RequestBody.empty();
+        }
+        // Streams the buffer instead of copying it, the buffer is not reused before the request completes
+        return RequestBody.fromInputStream(new ByteArrayInputStream(bytes, 0, length), length);
+    }
+}
@@ -0,0 +1,74 @@
+package lambda.utils;
+
+import com.google.gson.Gson;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes records as JSONL objects partitioned by a key of the record, e.g. the start date of a sales and traffic
+ * record. Every batch produces one object per partition, named {prefix}/{partition}/part-{runId}-{sequence}.jsonl,
+ * which is the layout expected by partitioned warehouse tables (e.g. with a partition such as "startDate=2024-01-01").
+ * The run ID, e.g. the query ID or document ID, keeps the objects of different documents written to the same
+ * partition apart. Loading the same document again with the same run ID and batch size replaces its objects.
+ */
+public class S3PartitionedRecordSink<T> implements RecordSink<T> {
+
+    private static final Gson GSON = new Gson();
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String prefix;
+    private final String runId;
+    private final Function<T, String> partitioner;
+    private int sequence;
+
+    public S3PartitionedRecordSink(S3Client s3, String bucket, String prefix, String runId, Function<T, String> partitioner) {
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.runId = runId;
+        this.partitioner = partitioner;
+    }
+
+    @Override
+    public void write(List<T> batch) throws IOException {
+        Map<String, List<T>> partitions = new LinkedHashMap<>();
+        for (T record : batch) {
+            partitions.computeIfAbsent(partitioner.apply(record), partition -> new ArrayList<>()).add(record);
+        }
+
+        sequence++;
+        for (Map.Entry<String, List<T>> partition : partitions.entrySet()) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            try (Writer writer = new OutputStreamWriter(content, StandardCharsets.UTF_8)) {
+                for (T record : partition.getValue()) {
+                    GSON.toJson(record, writer);
+                    writer.write('\n');
+                }
+            }
+
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(String.format("%s/%s/part-%s-%05d.jsonl", prefix, partition.getKey(), runId, sequence))
+                    .contentType("application/x-ndjson")
+                    .build();
+            s3.putObject(request, RequestBody.fromBytes(content.toByteArray()));
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
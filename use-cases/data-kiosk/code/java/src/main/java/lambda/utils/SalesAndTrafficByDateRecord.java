@@ -0,0 +1,48 @@
+package lambda.utils;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Projection of a record of a Data Kiosk salesAndTrafficByDate document.
+ * Only the fields declared here are read by {@link JsonlRecordProcessor}; add fields as the warehouse needs them.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class SalesAndTrafficByDateRecord {
+
+    public String startDate;
+    public String endDate;
+    public String marketplaceId;
+    public Sales sales;
+    public Traffic traffic;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class Sales {
+        public Amount orderedProductSales;
+        public Long unitsOrdered;
+        public Long totalOrderItems;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class Traffic {
+        public Long pageViews;
+        public Long sessions;
+        public Double buyBoxPercentage;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class Amount {
+        // Read as a string to keep the decimal amount exactly as sent
+        public String amount;
+        public String currencyCode;
+    }
+}
@@ -0,0 +1,206 @@
+package lambda.utils;
+
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+import com.sun.net.httpserver.HttpServer;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local throughput benchmark of the Data Kiosk document transfer.
+ * A JDK HTTP server streams a generated JSONL document, which is transferred to an in-process S3 stand-in that
+ * drains and counts the uploaded bytes. Compares the previous approach (reading lines into a String, then PutObject)
+ * with the streaming multipart upload, reporting throughput, peak heap use and stored bytes.
+ *
+ * Usage: mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=lambda.utils.DocumentTransferBenchmark
+ * -Dexec.args="[documentSizeMb] [partSizeMb] [maxInFlightParts]"
+ */
+public class DocumentTransferBenchmark {
+
+    private static final byte[] LINE = ("{\"startDate\":\"2024-01-01\",\"endDate\":\"2024-01-01\",\"marketplaceId\":\"ATVPDKIKX0DER\","
+            + "\"sales\":{\"orderedProductSales\":{\"amount\":1234.56,\"currencyCode\":\"USD\"},\"unitsOrdered\":42},"
+            + "\"traffic\":{\"pageViews\":1000,\"sessions\":800,\"buyBoxPercentage\":95.5}}\n").getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        long documentSize = (args.length > 0 ? Long.parseLong(args[0]) : 256) * 1024 * 1024;
+        int partSize = (args.length > 1 ? Integer.parseInt(args[1]) : 8) * 1024 * 1024;
+        int maxInFlightParts = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/document", exchange -> {
+            exchange.sendResponseHeaders(200, documentSize);
+            try (OutputStream body = exchange.getResponseBody()) {
+                for (long written = 0; written < documentSize; ) {
+                    int count = (int) Math.min(LINE.length, documentSize - written);
+                    body.write(LINE, 0, count);
+                    written += count;
+                }
+            }
+        });
+        server.start();
+
+        String url = String.format("http://127.0.0.1:%d/document", server.getAddress().getPort());
+        OkHttpClient httpClient = new OkHttpClient();
+        CountingS3Client s3 = new CountingS3Client();
+        ExecutorService executor = Executors.newFixedThreadPool(maxInFlightParts, runnable -> {
+            Thread thread = new Thread(runnable, "document-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            System.out.println(String.format("Document: %d MB, part size: %d MB, parts in flight: %d",
+                    documentSize >> 20, partSize >> 20, maxInFlightParts));
+
+            run("Read lines into a String, PutObject", s3, () -> {
+                StringBuilder content = new StringBuilder();
+                try (ResponseBody responseBody = download(httpClient, url);
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(responseBody.byteStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        content.append(line);
+                    }
+                }
+                s3.putObject(PutObjectRequest.builder().bucket("bucket").key("document.json").build(),
+                        RequestBody.fromString(content.toString(), StandardCharsets.UTF_8));
+            });
+
+            run("Streaming multipart upload", s3, () -> {
+                try (ResponseBody responseBody = download(httpClient, url);
+                     InputStream inputStream = responseBody.byteStream()) {
+                    S3MultipartOutputStream outputStream = new S3MultipartOutputStream(s3, "bucket", "document.json",
+                            "application/json", null, partSize, maxInFlightParts, executor);
+                    byte[] copyBuffer = new byte[64 * 1024];
+                    int count;
+                    while ((count = inputStream.read(copyBuffer)) != -1) {
+                        outputStream.write(copyBuffer, 0, count);
+                    }
+                    outputStream.close();
+                }
+            });
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private interface Transfer {
+        void run() throws Exception;
+    }
+
+    private static void run(String name, CountingS3Client s3, Transfer transfer) throws Exception {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        s3.storedBytes.set(0);
+
+        long start = System.nanoTime();
+        try {
+            transfer.run();
+        } catch (OutOfMemoryError e) {
+            System.out.println(String.format("%-40s out of memory", name));
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        long storedBytes = s3.storedBytes.get();
+        System.out.println(String.format("%-40s %8.1f MB/s, peak heap %6d MB, stored %d bytes",
+                name, storedBytes / 1048576.0 / (elapsedNanos / 1e9), peakHeap >> 20, storedBytes));
+    }
+
+    private static ResponseBody download(OkHttpClient httpClient, String url) throws IOException {
+        Response response = httpClient.newCall(new Request.Builder().url(url).get().build()).execute();
+        if (!response.isSuccessful()) {
+            throw new IOException("Download failed with response code " + response.code());
+        }
+        return response.body();
+    }
+
+    //S3 stand-in that reads and discards uploaded content
+    private static class CountingS3Client implements S3Client {
+
+        private final AtomicLong storedBytes = new AtomicLong();
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            drain(body);
+            return PutObjectResponse.builder().eTag(UUID.randomUUID().toString()).build();
+        }
+
+        @Override
+        public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+            return CreateMultipartUploadResponse.builder().uploadId(UUID.randomUUID().toString()).build();
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+            drain(body);
+            return UploadPartResponse.builder().eTag(UUID.randomUUID().toString()).build();
+        }
+
+        @Override
+        public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            return CompleteMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+            return AbortMultipartUploadResponse.builder().build();
+        }
+
+        private void drain(RequestBody body) {
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream inputStream = body.contentStreamProvider().newStream()) {
+                int count;
+                while ((count = inputStream.read(buffer)) != -1) {
+                    storedBytes.addAndGet(count);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -911,7 +911,8 @@ export class SpApiAppCdkStack extends cdk.Stack {
     });
 
     new lambda.CfnEventSourceMapping(this, 'SPAPINotificationsEventSourceMapping', {
-      batchSize: 1,
+      batchSize: 10,
+      functionResponseTypes: ['ReportBatchItemFailures'],
       enabled: true,
       eventSourceArn: spapiNotificationsQueue.attrArn,
       functionName: spapiProcessNotificationLambdaFunction.attrArn,
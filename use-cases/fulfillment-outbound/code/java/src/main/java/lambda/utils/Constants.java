@@ -42,6 +42,8 @@ public class Constants {
 
     public static final String SQS_QUEUE_ARN_ENV_VARIABLE = "SQS_QUEUE_ARN";
 
+    public static final String SFN_MAX_CONCURRENT_EXECUTIONS_ENV_VARIABLE = "SFN_MAX_CONCURRENT_EXECUTIONS";
+
     //Generic Lambda Input Parameters
     public static final String REGION_CODE_KEY_NAME = "RegionCode";
 
@@ -51,4 +53,6 @@ public class Constants {
 
     //Lambda Utils
     public static final String LWA_NOTIFICATIONS_SCOPE = "sellingpartnerapi::notifications";
+
+    public static final int SFN_DEFAULT_MAX_CONCURRENT_EXECUTIONS = 10;
 }
@@ -125,6 +125,15 @@ export class SpApiAppCdkStack extends Stack {
 			removalPolicy: cdk.RemovalPolicy.DESTROY,
 		});
 
+		// DynamoDB to store idempotency records of processed order changes, expired through TTL
+		const spapiOrderChangeIdempotencyTable = new dynamodb.Table(this, 'SPAPIOrderChangeIdempotencyTable', {
+			tableName: `SPAPIOrderChangeIdempotencyTable-${props.randomSuffix}`,
+			partitionKey: { name: 'IdempotencyKey', type: dynamodb.AttributeType.STRING },
+			billingMode: dynamodb.BillingMode.PAY_PER_REQUEST,
+			timeToLiveAttribute: 'ExpiresAt',
+			removalPolicy: cdk.RemovalPolicy.DESTROY,
+		});
+
 		// Lambda Subscriber role
 		const spapiSubscribeLambdaExecutionRole = new iam.Role(this, 'spapiSubscribeLambdaExecutionRole', {
 			assumedBy: new iam.ServicePrincipal('lambda.amazonaws.com'),
@@ -155,6 +164,12 @@ export class SpApiAppCdkStack extends Stack {
 			'SPAPIProcessNotificationsLambdaExecutionRole'
 		);
 
+		// DynamoDB idempotency record policy
+		spapiProcessNotificationsLambdaExecutionRole.addToPolicy(new iam.PolicyStatement({
+			actions: ['dynamodb:PutItem', 'dynamodb:UpdateItem', 'dynamodb:DeleteItem'],
+			resources: [spapiOrderChangeIdempotencyTable.tableArn],
+		}));
+
 		// Lambda code
 		const lambdaCode = lambda.Code.fromBucket(
 			s3.Bucket.fromBucketName(this, 'ArtifactsBucket', artifactsS3BucketName.valueAsString),
@@ -220,6 +235,7 @@ export class SpApiAppCdkStack extends Stack {
 					props.randomSuffix!,
 					artifactsS3BucketName,
 					spapiNotificationSubscriptionTable,
+					spapiOrderChangeIdempotencyTable,
 					useSQS ? undefined : eventBus,
 					eventBusArn
 				);
@@ -284,11 +300,16 @@ export class SpApiAppCdkStack extends Stack {
 		randomSuffix: string,
 		artifactsS3BucketName: cdk.CfnParameter,
 		spapiNotificationSubscriptionTable: dynamodb.Table,
+		spapiOrderChangeIdempotencyTable: dynamodb.Table,
 		eventBus?: events.IEventBus,
 		eventBusArn?: string
 	): NotificationResourceInfo {
 		// Define env value based on app-config
 		const environment = this.buildEnvironment(webHook, crossPlatform, internal, spapiNotificationSubscriptionTable.tableName, notificationType);
+		// Internal handlers skip duplicate order changes through idempotency records
+		if (!webHook && !crossPlatform) {
+			environment.ORDER_CHANGE_IDEMPOTENCY_TABLE_NAME = spapiOrderChangeIdempotencyTable.tableName;
+		}
 		// Define handler based on app-config
 		const resolvedHandler = this.resolveHandler(webHook, crossPlatform, internal, handler);
 		// Define DLQ handler based on app-config
@@ -334,6 +355,7 @@ export class SpApiAppCdkStack extends Stack {
 			// Add policy to consume DLQ
 			reprocessLambda.addToRolePolicy(new iam.PolicyStatement({
 				actions: [
+					'sqs:ChangeMessageVisibility',
 					'sqs:DeleteMessage',
 					'sqs:GetQueueAttributes',
 					'sqs:ReceiveMessage'
@@ -391,6 +413,7 @@ export class SpApiAppCdkStack extends Stack {
 			// Add policy to consume DLQ
 			reprocessLambda.addToRolePolicy(new iam.PolicyStatement({
 				actions: [
+					'sqs:ChangeMessageVisibility',
 					'sqs:DeleteMessage',
 					'sqs:GetQueueAttributes',
 					'sqs:ReceiveMessage'
@@ -642,10 +665,10 @@ export class SpApiAppCdkStack extends Stack {
 			],
 		}));
 
-		// DynamoDB Read policy
+		// DynamoDB Read policy (Scan is used to warm the subscription cache when SUBSCRIPTION_CACHE_WARM_ON_INIT is set)
 		role.addToPolicy(new iam.PolicyStatement({
 			effect: iam.Effect.ALLOW,
-			actions: ['dynamodb:GetItem'],
+			actions: ['dynamodb:GetItem', 'dynamodb:Scan'],
 			resources: [tableArn],
 		}));
 
@@ -49,6 +49,33 @@ public class Constants {
     public static final String GCP_SPAPI_PUBSUB_KEY_ARN_ENV_VARIABLE = "GCP_SPAPI_PUBSUB_KEY_ARN";
     public static final String DLQ_SQS_URL_ENV_VARIABLE = "DLQ_SQS_URL";
     public static final String STATE_MACHINE_ARN_ORDERNOTIFICATION_ENV_VARIABLE = "STATE_MACHINE_ARN_ORDERNOTIFICATION";
+    public static final String SECRET_CACHE_TTL_SECONDS_ENV_VARIABLE = "SECRET_CACHE_TTL_SECONDS";
+    public static final String SECRET_CACHE_REFRESH_AHEAD_SECONDS_ENV_VARIABLE = "SECRET_CACHE_REFRESH_AHEAD_SECONDS";
+    public static final String SUBSCRIPTION_CACHE_TTL_SECONDS_ENV_VARIABLE = "SUBSCRIPTION_CACHE_TTL_SECONDS";
+    public static final String SUBSCRIPTION_CACHE_NEGATIVE_TTL_SECONDS_ENV_VARIABLE = "SUBSCRIPTION_CACHE_NEGATIVE_TTL_SECONDS";
+    public static final String SUBSCRIPTION_CACHE_MAX_SIZE_ENV_VARIABLE = "SUBSCRIPTION_CACHE_MAX_SIZE";
+    public static final String SUBSCRIPTION_CACHE_WARM_ON_INIT_ENV_VARIABLE = "SUBSCRIPTION_CACHE_WARM_ON_INIT";
+    public static final String GCP_TOKEN_REFRESH_AHEAD_SECONDS_ENV_VARIABLE = "GCP_TOKEN_REFRESH_AHEAD_SECONDS";
+    public static final String DLQ_REPROCESS_RECEIVE_CONCURRENCY_ENV_VARIABLE = "DLQ_REPROCESS_RECEIVE_CONCURRENCY";
+    public static final String DLQ_REPROCESS_WORKER_CONCURRENCY_ENV_VARIABLE = "DLQ_REPROCESS_WORKER_CONCURRENCY";
+    public static final String DLQ_REPROCESS_VISIBILITY_TIMEOUT_SECONDS_ENV_VARIABLE = "DLQ_REPROCESS_VISIBILITY_TIMEOUT_SECONDS";
+    public static final String DLQ_REPROCESS_TIME_BUFFER_SECONDS_ENV_VARIABLE = "DLQ_REPROCESS_TIME_BUFFER_SECONDS";
+    public static final String WEB_HOOK_MAX_ATTEMPTS_ENV_VARIABLE = "WEB_HOOK_MAX_ATTEMPTS";
+    public static final String WEB_HOOK_MAX_CONCURRENCY_ENV_VARIABLE = "WEB_HOOK_MAX_CONCURRENCY";
+    public static final String WEB_HOOK_REQUEST_TIMEOUT_SECONDS_ENV_VARIABLE = "WEB_HOOK_REQUEST_TIMEOUT_SECONDS";
+    public static final String WEB_HOOK_GZIP_ENABLED_ENV_VARIABLE = "WEB_HOOK_GZIP_ENABLED";
+    public static final String SQS_BATCH_PROCESSOR_CONCURRENCY_ENV_VARIABLE = "SQS_BATCH_PROCESSOR_CONCURRENCY";
+    public static final String ORDER_CACHE_TTL_SECONDS_ENV_VARIABLE = "ORDER_CACHE_TTL_SECONDS";
+    public static final String ORDER_CACHE_MAX_SIZE_ENV_VARIABLE = "ORDER_CACHE_MAX_SIZE";
+    public static final String LAMBDA_LOG_LEVEL_ENV_VARIABLE = "AWS_LAMBDA_LOG_LEVEL";
+    public static final String ORDER_CHANGE_FILTER_ORDER_STATUSES_ENV_VARIABLE = "ORDER_CHANGE_FILTER_ORDER_STATUSES";
+    public static final String ORDER_CHANGE_FILTER_MARKETPLACE_IDS_ENV_VARIABLE = "ORDER_CHANGE_FILTER_MARKETPLACE_IDS";
+    public static final String ORDER_CHANGE_FILTER_FULFILLMENT_TYPES_ENV_VARIABLE = "ORDER_CHANGE_FILTER_FULFILLMENT_TYPES";
+    public static final String ORDER_CHANGE_RECENTLY_SEEN_MAX_SIZE_ENV_VARIABLE = "ORDER_CHANGE_RECENTLY_SEEN_MAX_SIZE";
+    public static final String ORDER_CHANGE_IDEMPOTENCY_TABLE_NAME_ENV_VARIABLE = "ORDER_CHANGE_IDEMPOTENCY_TABLE_NAME";
+    public static final String ORDER_CHANGE_IDEMPOTENCY_TTL_SECONDS_ENV_VARIABLE = "ORDER_CHANGE_IDEMPOTENCY_TTL_SECONDS";
+    public static final String ORDER_CHANGE_IDEMPOTENCY_LEASE_SECONDS_ENV_VARIABLE = "ORDER_CHANGE_IDEMPOTENCY_LEASE_SECONDS";
+    public static final String SUBSCRIBE_CONCURRENCY_ENV_VARIABLE = "SUBSCRIBE_CONCURRENCY";
 
     //Generic Lambda Input Parameters
     public static final String NOTIFICATION_TYPE_KEY_NAME = "NotificationTypes";
@@ -57,6 +84,51 @@ public class Constants {
     //Lambda Utils
     public static final String LWA_NOTIFICATIONS_SCOPE = "sellingpartnerapi::notifications";
     public static final int BATCH_SIZE = 10;
+    public static final long SECRET_CACHE_DEFAULT_TTL_SECONDS = 300;
+    public static final long SECRET_CACHE_DEFAULT_REFRESH_AHEAD_SECONDS = 60;
+    public static final long SUBSCRIPTION_CACHE_DEFAULT_TTL_SECONDS = 900;
+    public static final long SUBSCRIPTION_CACHE_DEFAULT_NEGATIVE_TTL_SECONDS = 60;
+    public static final long SUBSCRIPTION_CACHE_DEFAULT_MAX_SIZE = 10000;
+    public static final int SUBSCRIPTION_CACHE_WARM_THREAD_COUNT = 4;
+    public static final int SUBSCRIPTION_SCAN_PAGE_SIZE = 1000;
+    public static final int SUBSCRIPTION_SCAN_MAX_IN_OPERANDS = 100;
+    public static final int SUBSCRIPTION_DELETE_CONCURRENCY = 4;
+    public static final int SUBSCRIPTION_DELETE_QUEUE_CAPACITY = 100;
+    public static final int SUBSCRIBE_DEFAULT_CONCURRENCY = 16;
+    public static final int SUBSCRIBE_CHECKPOINT_SCAN_SEGMENTS = 4;
+    public static final long SUBSCRIBE_TIME_BUFFER_MILLIS = 10000;
+    public static final int SP_API_MAX_ATTEMPTS = 5;
+    public static final long SP_API_BASE_BACKOFF_MILLIS = 1000;
+    public static final long SP_API_MAX_BACKOFF_MILLIS = 30000;
+    public static final int SQS_SEND_BATCH_MAX_ENTRIES = 10;
+    public static final long SQS_SEND_BATCH_MAX_BYTES = 262144;
+    public static final int EVENT_BRIDGE_PUT_EVENTS_MAX_ENTRIES = 10;
+    public static final long EVENT_BRIDGE_PUT_EVENTS_MAX_BYTES = 256000;
+    public static final int GCP_PUBSUB_PUBLISH_MAX_MESSAGES = 1000;
+    public static final long GCP_TOKEN_DEFAULT_REFRESH_AHEAD_SECONDS = 300;
+    public static final long GCP_TOKEN_MIN_VALIDITY_SECONDS = 60;
+    public static final long GCP_HTTP_CONNECT_TIMEOUT_SECONDS = 5;
+    public static final int DLQ_REPROCESS_DEFAULT_RECEIVE_CONCURRENCY = 2;
+    public static final int DLQ_REPROCESS_DEFAULT_WORKER_CONCURRENCY = 8;
+    public static final int DLQ_REPROCESS_DEFAULT_VISIBILITY_TIMEOUT_SECONDS = 60;
+    public static final long DLQ_REPROCESS_DEFAULT_TIME_BUFFER_SECONDS = 30;
+    public static final int DLQ_REPROCESS_WAIT_TIME_SECONDS = 5;
+    public static final int WEB_HOOK_DEFAULT_MAX_ATTEMPTS = 3;
+    public static final int WEB_HOOK_DEFAULT_MAX_CONCURRENCY = 8;
+    public static final long WEB_HOOK_DEFAULT_REQUEST_TIMEOUT_SECONDS = 10;
+    public static final long WEB_HOOK_CONNECT_TIMEOUT_SECONDS = 5;
+    public static final long WEB_HOOK_BASE_BACKOFF_MILLIS = 200;
+    public static final long WEB_HOOK_MAX_BACKOFF_MILLIS = 5000;
+    public static final long WEB_HOOK_MAX_RETRY_AFTER_MILLIS = 10000;
+    public static final int SQS_BATCH_PROCESSOR_DEFAULT_CONCURRENCY = 4;
+    public static final long ORDER_CACHE_DEFAULT_TTL_SECONDS = 0;
+    public static final long ORDER_CACHE_DEFAULT_MAX_SIZE = 1000;
+    public static final long ORDER_CHANGE_RECENTLY_SEEN_DEFAULT_MAX_SIZE = 10000;
+    public static final long ORDER_CHANGE_IDEMPOTENCY_DEFAULT_TTL_SECONDS = 86400;
+    public static final long ORDER_CHANGE_IDEMPOTENCY_DEFAULT_LEASE_SECONDS = 60;
+
+    //SP-API response header returning the rate limit of the called operation
+    public static final String SP_API_RATE_LIMIT_HEADER = "x-amzn-RateLimit-Limit";
 
     //Login With Amazon Configuration
     public static final String LWA_ENDPOINT = "https://api.amazon.com/auth/o2/token";
@@ -73,6 +145,13 @@ public class Constants {
     public static final String TIMESTAMP = "Timestamp";
     public static final String NOTIFICATION_TYPE = "NotificationType";
     public static final String SELLER_SECRETS_ARN = "SellerSecretsArn";
+    public static final String IDEMPOTENCY_KEY = "IdempotencyKey";
+    public static final String EXPIRES_AT = "ExpiresAt";
+    public static final String IDEMPOTENCY_STATUS = "Status";
+
+    //Idempotency record statuses
+    public static final String IDEMPOTENCY_STATUS_IN_PROGRESS = "IN_PROGRESS";
+    public static final String IDEMPOTENCY_STATUS_COMPLETED = "COMPLETED";
 
     //Combined order information Json Keys
     public static final String COMBINED_ORDER_JSON_KEY_ORDER = "orderResponse";
@@ -0,0 +1,15 @@
+package lambda.common;
+
+public class EnvironmentUtils {
+
+    /**
+     * Returns the numeric value of an optional Lambda environment variable.
+     *
+     * @param name         The environment variable name
+     * @param defaultValue The value used when the variable is not set or empty
+     */
+    public static long getLongEnv(String name, long defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,45 @@
+package lambda.common;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Routing fields of an SP-API notification, read without building a JSON tree.
+ *
+ * <p>When the notification is wrapped in an EventBridge event, {@code detailStart} and {@code detailEnd} are the
+ * character offsets of the {@code detail} object within {@code source}, and the routing fields are read from it.</p>
+ */
+@Getter
+@Setter
+public class NotificationEnvelope {
+
+    //The JSON document the offsets refer to, i.e. the message body after decoding a double-encoded body
+    private String source;
+
+    private String notificationType;
+
+    private String subscriptionId;
+
+    private String amazonOrderId;
+
+    private String notificationLevel;
+
+    private String orderStatus;
+
+    private String timeOfOrderChange;
+
+    private int detailStart = -1;
+
+    private int detailEnd = -1;
+
+    public boolean isEventBridge() {
+        return detailStart >= 0;
+    }
+
+    /**
+     * Returns the SP-API notification, i.e. the {@code detail} span of an EventBridge event or the whole source.
+     */
+    public String getNotificationBody() {
+        return isEventBridge() ? source.substring(detailStart, detailEnd) : source;
+    }
+}
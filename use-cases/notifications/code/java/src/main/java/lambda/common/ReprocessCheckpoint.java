@@ -0,0 +1,24 @@
+package lambda.common;
+
+import com.google.gson.annotations.SerializedName;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ReprocessCheckpoint {
+    @SerializedName("successCount")
+    private long successCount;
+
+    @SerializedName("failureCount")
+    private long failureCount;
+
+    @SerializedName("skippedCount")
+    private long skippedCount;
+
+    @SerializedName("invocationCount")
+    private int invocationCount;
+
+    @SerializedName("complete")
+    private boolean complete;
+}
@@ -0,0 +1,17 @@
+package lambda.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SubscriptionRecord {
+
+    private final String subscriptionId;
+
+    private final String sellerId;
+
+    private final String destinationId;
+
+    private final String sellerSecretsArn;
+}
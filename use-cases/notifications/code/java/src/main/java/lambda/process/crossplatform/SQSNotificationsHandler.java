@@ -12,7 +12,10 @@ import lambda.utils.CrossPlatformUtils;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static lambda.common.Constants.*;
 
@@ -24,7 +27,7 @@ import static lambda.common.Constants.*;
  * - Forward the raw message payload to the specified destination using CrossPlatformUtils
  * Behavior:
  * - Reads the destination type from the CROSS_PLATFORM_DESTINATION_TYPE environment variable
- * - Logs and forwards each incoming SQS message payload
+ * - Logs and forwards the incoming SQS message payloads as one batch, reporting failed messages individually
  * Required environment variable:
  * - CROSS_PLATFORM_DESTINATION_TYPE: The target destination type ("AWS_SQS", "AWS_EVENTBRIDGE", "GCP_PUBSUB", etc.)
  * This sample is useful as a plug-and-play handler in cross-platform event forwarding scenarios.
@@ -49,18 +52,23 @@ public class SQSNotificationsHandler implements RequestHandler<SQSEvent, SQSBatc
             throw new RuntimeException("Invalid CROSS_PLATFORM_DESTINATION_TYPE environment variable: " + destinationEnv, e);
         }
 
+        Map<String, String> messages = new LinkedHashMap<>();
         for (SQSEvent.SQSMessage message : input.getRecords()) {
-            try {
-                String body = message.getBody();
-                logger.log("Notification: " + body);
+            logger.log("Notification: " + message.getBody());
+            messages.put(message.getMessageId(), message.getBody());
+        }
 
-                CrossPlatformUtils.publishCrossPlatform(logger, destinationType, body);
+        Set<String> failedMessageIds;
+        try {
+            failedMessageIds = CrossPlatformUtils.publishCrossPlatformBatch(logger, destinationType, messages);
+        } catch (Exception e) {
+            logger.log("Failed to forward message batch. Error: " + e.getMessage());
+            failedMessageIds = messages.keySet();
+        }
 
-                logger.log("Cross Platform message sent successfully. MessageId: " + message.getMessageId());
-            } catch (Exception e) {
-                logger.log("Failed to forward message ID: " + message.getMessageId() + ". Error: " + e.getMessage());
-                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
-            }
+        for (String messageId : failedMessageIds) {
+            logger.log("Failed to forward message ID: " + messageId);
+            batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(messageId));
         }
 
         logger.log("ProcessNotification Lambda completed successfully. Total messages: " +
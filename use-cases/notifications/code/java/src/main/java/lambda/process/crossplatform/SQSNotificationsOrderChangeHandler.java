@@ -11,8 +11,6 @@ import lambda.utils.*;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
 
 import static lambda.common.Constants.*;
 
@@ -33,9 +31,9 @@ public class SQSNotificationsOrderChangeHandler implements RequestHandler<SQSEve
 
     public SQSBatchResponse handleRequest(SQSEvent input, Context context) {
         LambdaLogger logger = context.getLogger();
+        SubscriptionCache.warmOnce(logger);
 
         String destinationEnv = System.getenv(CROSS_PLATFORM_DESTINATION_TYPE_ENV_VARIABLE);
-        List<SQSBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
 
         logger.log("ProcessNotification OrderChange　Lambda initiated: " +
                 ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
@@ -48,30 +46,24 @@ public class SQSNotificationsOrderChangeHandler implements RequestHandler<SQSEve
             throw new RuntimeException("Invalid CROSS_PLATFORM_DESTINATION_TYPE environment variable: " + destinationEnv, e);
         }
 
-        for (SQSEvent.SQSMessage message : input.getRecords()) {
-            try {
-                logger.log("Notification: " + message.getBody());
+        // Records of different orders are processed concurrently, records of the same order in sequence
+        SQSBatchResponse batchResponse = SqsBatchProcessor.process(input, OrderProcessUtils::getAmazonOrderId, message -> {
+            logger.log("Notification: " + message.getBody());
 
-                String combinedJson = OrderProcessUtils.prepareNotificationPayload(message, logger);
-                if (combinedJson == null) {
-                    logger.log("Combined JSON is null. Marking message ID as failed: " + message.getMessageId());
-                    batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
-                    continue;
-                }
-                logger.log("Sending combined Notification Payload: " + combinedJson);
+            String combinedJson = OrderProcessUtils.prepareNotificationPayload(message, logger);
+            if (combinedJson == null) {
+                throw new IllegalStateException("Combined JSON is null");
+            }
+            logger.log("Sending combined Notification Payload: " + combinedJson);
 
-                CrossPlatformUtils.publishCrossPlatform(logger, destinationType, combinedJson);
+            CrossPlatformUtils.publishCrossPlatform(logger, destinationType, combinedJson);
 
-                logger.log("Cross Platform message sent successfully. MessageId: " + message.getMessageId());
-            } catch (Exception e) {
-                logger.log("Failed to forward message ID: " + message.getMessageId() + ". Error: " + e.getMessage());
-                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
-            }
-        }
+            logger.log("Cross Platform message sent successfully. MessageId: " + message.getMessageId());
+        }, logger);
 
         logger.log("ProcessNotification Lambda completed successfully. Total messages: " +
-                input.getRecords().size() + ", Failures: " + batchItemFailures.size());
+                input.getRecords().size() + ", Failures: " + batchResponse.getBatchItemFailures().size());
 
-        return new SQSBatchResponse(batchItemFailures);
+        return batchResponse;
     }
 }
\ No newline at end of file
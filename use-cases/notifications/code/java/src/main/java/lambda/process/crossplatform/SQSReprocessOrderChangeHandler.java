@@ -5,16 +5,13 @@ import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import lambda.common.NotificationDestinationType;
 import lambda.utils.CrossPlatformUtils;
+import lambda.utils.DlqReprocessor;
 import lambda.utils.OrderProcessUtils;
+import lambda.utils.SubscriptionCache;
 import lambda.utils.WebHookUtils;
-import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
-import software.amazon.awssdk.services.sqs.model.Message;
-import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 import static lambda.common.Constants.*;
 import static lambda.utils.SqsMessageAdapter.extractDetailIfEventBridge;
@@ -25,10 +22,9 @@ import static lambda.utils.SqsMessageAdapter.toLambdaSQSMessage;
  */
 public class SQSReprocessOrderChangeHandler implements RequestHandler<Object, String> {
 
-    private static final SqsClient sqsClient = SqsClient.create();
-
     public String handleRequest(Object input, Context context) {
         LambdaLogger logger = context.getLogger();
+        SubscriptionCache.warmOnce(logger);
 
         String destinationEnv = System.getenv(CROSS_PLATFORM_DESTINATION_TYPE_ENV_VARIABLE);
         String queueUrl = System.getenv(DLQ_SQS_URL_ENV_VARIABLE);
@@ -44,53 +40,18 @@ public class SQSReprocessOrderChangeHandler implements RequestHandler<Object, St
             return "Invalid destination type: " + destinationEnv;
         }
 
-        int successCount = 0;
-        int failureCount = 0;
-
-        while (true) {
-            ReceiveMessageRequest receiveRequest = ReceiveMessageRequest.builder()
-                    .queueUrl(queueUrl)
-                    .maxNumberOfMessages(BATCH_SIZE)
-                    .waitTimeSeconds(2)
-                    .build();
-
-            List<Message> messages = sqsClient.receiveMessage(receiveRequest).messages();
-            if (messages.isEmpty()) {
-                logger.log("No more messages found. Exiting reprocessing loop.");
-                break;
+        return DlqReprocessor.reprocess(queueUrl, input, context, message -> {
+            String combinedJson = OrderProcessUtils.prepareNotificationPayload(toLambdaSQSMessage(message), logger);
+            if (combinedJson == null) {
+                return false;
             }
 
-            for (Message message : messages) {
-                try {
-                    logger.log("Reprocessing MessageId: " + message.messageId());
-
-                    String combinedJson = OrderProcessUtils.prepareNotificationPayload(toLambdaSQSMessage(message), logger);
-                    if (combinedJson == null) {
-                        continue;
-                    }
-
-                    logger.log("Sending combined Notification Payload: " + combinedJson);
+            logger.log("Sending combined Notification Payload: " + combinedJson);
 
-                    CrossPlatformUtils.publishCrossPlatform(logger, destinationType, combinedJson);
-
-                    DeleteMessageRequest deleteRequest = DeleteMessageRequest.builder()
-                            .queueUrl(queueUrl)
-                            .receiptHandle(message.receiptHandle())
-                            .build();
-                    sqsClient.deleteMessage(deleteRequest);
-
-                    logger.log("Cross Platform publisher reprocessing successful for MessageId: " + message.messageId());
-                    successCount++;
-                } catch (Exception e) {
-                    logger.log("Webhook reprocessing failed for MessageId: " + message.messageId() +
-                            " Error: " + e.getMessage());
-                    failureCount++;
-                }
-            }
-        }
+            CrossPlatformUtils.publishCrossPlatform(logger, destinationType, combinedJson);
 
-        String resultSummary = String.format("Reprocessing complete. Success: %d, Failure: %d", successCount, failureCount);
-        logger.log(resultSummary);
-        return resultSummary;
+            logger.log("Cross Platform publisher reprocessing successful for MessageId: " + message.messageId());
+            return true;
+        });
     }
 }
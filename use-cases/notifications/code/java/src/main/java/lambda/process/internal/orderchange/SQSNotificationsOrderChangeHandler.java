@@ -12,7 +12,9 @@ import com.amazonaws.services.stepfunctions.model.StartExecutionResult;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import lambda.utils.OrderChangeFilter;
 import lambda.utils.OrderProcessUtils;
+import lambda.utils.SqsBatchProcessor;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -30,7 +32,7 @@ public class SQSNotificationsOrderChangeHandler implements RequestHandler<SQSEve
     /**
      * A sample AWS Lambda function that processes SQS messages containing SP-API ORDER_CHANGE notifications.
      * <p>
-     * For each message in the batch:
+     * For each message in the batch, concurrently across orders and in sequence within an order:
      * - Parses and validates the message body
      * - Applies filtering logic (e.g., skip if order status is not actionable)
      * - If valid, triggers an AWS Step Functions state machine execution
@@ -42,32 +44,33 @@ public class SQSNotificationsOrderChangeHandler implements RequestHandler<SQSEve
      */
     public SQSBatchResponse handleRequest(SQSEvent input, Context context) {
         LambdaLogger logger = context.getLogger();
-        List<SQSBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
 
         logger.log("ProcessNotification OrderChange Lambda initiated: " +
                 ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
 
         String stateMachineArn = System.getenv(STATE_MACHINE_ARN_ORDERNOTIFICATION_ENV_VARIABLE);
 
-        for (SQSEvent.SQSMessage message : input.getRecords()) {
-            try {
-                logger.log("Notification received: " + message.getBody());
+        // Records of different orders are processed concurrently, records of the same order in sequence
+        SQSBatchResponse batchResponse = SqsBatchProcessor.process(input, OrderProcessUtils::getAmazonOrderId, message -> {
+            logger.log("Notification received: " + message.getBody());
 
-                JsonObject body = OrderProcessUtils.parseSqsMessageBody(message);
+            JsonObject body = OrderProcessUtils.parseSqsMessageBody(message);
 
-                // Check the condition of ORDER_CHANGE notification
-                if (!OrderProcessUtils.shouldProcessOrderNotification(body, logger)) {
-                    logger.log("Processing skipped due to order status. Marking message ID as skipped: " + message.getMessageId());
-                    continue;
-                }
+            // Check the condition of ORDER_CHANGE notification
+            if (!OrderProcessUtils.shouldProcessOrderNotification(body, logger)) {
+                logger.log("Processing skipped due to order status. Marking message ID as skipped: " + message.getMessageId());
+                return;
+            }
 
-                // Determine whether this message should trigger further processing.
-                // Includes checks for duplication, order status, or other business-specific criteria.
-                if (!OrderProcessUtils.shouldTriggerProcessing(body, logger)) {
-                    logger.log("Message did not meet processing criteria. Skipping. MessageId: " + message.getMessageId());
-                    continue;
-                }
+            // Determine whether this message should trigger further processing.
+            // Includes checks for duplication, order status, or other business-specific criteria.
+            if (!OrderProcessUtils.shouldTriggerProcessing(body, logger)) {
+                logger.log("Message did not meet processing criteria. Skipping. MessageId: " + message.getMessageId());
+                return;
+            }
 
+            StartExecutionResult result;
+            try {
                 Map<String, Object> inputForStepFunction = buildInputForStepFunction(body);
 
                 // Execute stepFunctions
@@ -76,19 +79,26 @@ public class SQSNotificationsOrderChangeHandler implements RequestHandler<SQSEve
                         .withInput(gson.toJson(inputForStepFunction))
                         .withName("execution-" + UUID.randomUUID());
 
-                StartExecutionResult result = stepFunctionsClient.startExecution(request);
-                logger.log("Step Function started. Execution ARN: " + result.getExecutionArn());
+                result = stepFunctionsClient.startExecution(request);
+            } catch (RuntimeException e) {
+                // Let the retry of this message pass the duplicate check
+                OrderChangeFilter.release(body);
+                throw e;
+            }
+            logger.log("Step Function started. Execution ARN: " + result.getExecutionArn());
 
-            } catch (Exception e) {
-                logger.log("Failed to prepare custom message for MessageId: " + message.getMessageId() +
-                        ". Error: " + e.getMessage());
-                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+            try {
+                OrderChangeFilter.complete(body);
+            } catch (RuntimeException e) {
+                // The execution is started, so the message succeeds; the record is claimable again after its lease
+                logger.log("Failed to complete the idempotency record of the order change: " + e.getMessage());
             }
-        }
+        }, logger);
 
         logger.log("ProcessNotification OrderChange Lambda completed. Total: " +
-                input.getRecords().size() + ", Failures: " + batchItemFailures.size());
+                input.getRecords().size() + ", Failures: " + batchResponse.getBatchItemFailures().size() +
+                ", Skipped notifications since container start: " + OrderChangeFilter.getSkipCounts());
 
-        return new SQSBatchResponse(batchItemFailures);
+        return batchResponse;
     }
 }
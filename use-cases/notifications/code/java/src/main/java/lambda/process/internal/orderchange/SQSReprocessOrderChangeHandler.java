@@ -9,15 +9,12 @@ import com.amazonaws.services.stepfunctions.model.StartExecutionRequest;
 import com.amazonaws.services.stepfunctions.model.StartExecutionResult;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import lambda.utils.DlqReprocessor;
+import lambda.utils.OrderChangeFilter;
 import lambda.utils.OrderProcessUtils;
-import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
-import software.amazon.awssdk.services.sqs.model.Message;
-import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -27,7 +24,6 @@ import static lambda.utils.SqsMessageAdapter.toLambdaSQSMessage;
 
 public class SQSReprocessOrderChangeHandler implements RequestHandler<Object, String> {
 
-    private static final SqsClient sqsClient = SqsClient.create();
     private static final AWSStepFunctions stepFunctionsClient = AWSStepFunctionsClientBuilder.defaultClient();
     private static final Gson gson = new Gson();
 
@@ -54,69 +50,47 @@ public class SQSReprocessOrderChangeHandler implements RequestHandler<Object, St
         logger.log("ReprocessLambda initiated: " +
                 ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
 
-        int successCount = 0;
-        int failureCount = 0;
+        return DlqReprocessor.reprocess(queueUrl, input, context, message -> {
+            JsonObject body = OrderProcessUtils.parseSqsMessageBody(toLambdaSQSMessage(message));
 
-        while (true) {
-            ReceiveMessageRequest receiveRequest = ReceiveMessageRequest.builder()
-                    .queueUrl(queueUrl)
-                    .maxNumberOfMessages(BATCH_SIZE)
-                    .waitTimeSeconds(2)
-                    .build();
-
-            List<Message> messages = sqsClient.receiveMessage(receiveRequest).messages();
-            if (messages.isEmpty()) {
-                logger.log("No more messages found. Exiting reprocessing loop.");
-                break;
+            // Check the condition of ORDER_CHANGE notification
+            if (!OrderProcessUtils.shouldProcessOrderNotification(body, logger)) {
+                logger.log("Processing skipped due to order status. Marking message ID as skipped: " + message.messageId());
+                return false;
             }
 
-            for (Message message : messages) {
-                try {
-                    logger.log("Reprocessing MessageId: " + message.messageId());
-
-                    JsonObject body = OrderProcessUtils.parseSqsMessageBody(toLambdaSQSMessage(message));
-
-                    // Check the condition of ORDER_CHANGE notification
-                    if (!OrderProcessUtils.shouldProcessOrderNotification(body, logger)) {
-                        logger.log("Processing skipped due to order status. Marking message ID as skipped: " + message.messageId());
-                        continue;
-                    }
-
-                    // Determine whether this message should trigger further processing.
-                    // Includes checks for duplication, order status, or other business-specific criteria.
-                    if (!OrderProcessUtils.shouldTriggerProcessing(body, logger)) {
-                        logger.log("Message did not meet processing criteria. Skipping. MessageId: " + message.messageId());
-                        continue;
-                    }
-
-                    Map<String, Object> inputForStepFunction = buildInputForStepFunction(body);
-
-                    // Execute stepFunctions
-                    StartExecutionRequest request = new StartExecutionRequest()
-                            .withStateMachineArn(stateMachineArn)
-                            .withInput(gson.toJson(inputForStepFunction))
-                            .withName("execution-" + UUID.randomUUID());
-
-                    StartExecutionResult result = stepFunctionsClient.startExecution(request);
-                    logger.log("Step Function started. Execution ARN: " + result.getExecutionArn());
-
-                    DeleteMessageRequest deleteRequest = DeleteMessageRequest.builder()
-                            .queueUrl(queueUrl)
-                            .receiptHandle(message.receiptHandle())
-                            .build();
-                    sqsClient.deleteMessage(deleteRequest);
+            // Determine whether this message should trigger further processing.
+            // Includes checks for duplication, order status, or other business-specific criteria.
+            if (!OrderProcessUtils.shouldTriggerProcessing(body, logger)) {
+                logger.log("Message did not meet processing criteria. Skipping. MessageId: " + message.messageId());
+                return false;
+            }
 
-                    successCount++;
-                } catch (Exception e) {
-                    logger.log("Logging DLQ message failed for MessageId: " + message.messageId() +
-                            " Error: " + e.getMessage());
-                    failureCount++;
-                }
+            StartExecutionResult result;
+            try {
+                Map<String, Object> inputForStepFunction = buildInputForStepFunction(body);
+
+                // Execute stepFunctions
+                StartExecutionRequest request = new StartExecutionRequest()
+                        .withStateMachineArn(stateMachineArn)
+                        .withInput(gson.toJson(inputForStepFunction))
+                        .withName("execution-" + UUID.randomUUID());
+
+                result = stepFunctionsClient.startExecution(request);
+            } catch (RuntimeException e) {
+                // Let the retry of this message pass the duplicate check
+                OrderChangeFilter.release(body);
+                throw e;
             }
-        }
+            logger.log("Step Function started. Execution ARN: " + result.getExecutionArn());
 
-        String resultSummary = String.format("Logging DLQ message complete. Success: %d, Failure: %d", successCount, failureCount);
-        logger.log(resultSummary);
-        return resultSummary;
+            try {
+                OrderChangeFilter.complete(body);
+            } catch (RuntimeException e) {
+                // The execution is started, so the message succeeds; the record is claimable again after its lease
+                logger.log("Failed to complete the idempotency record of the order change: " + e.getMessage());
+            }
+            return true;
+        });
     }
 }
@@ -1,5 +1,6 @@
 package lambda.process.internal.orderchange.stepfunctions;
 
+import com.amazon.SellingPartnerAPIAA.LWAException;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
@@ -8,6 +9,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import lambda.common.ClientCredentials;
 import lambda.utils.OrderProcessUtils;
+import lambda.utils.SubscriptionCache;
 import software.amazon.spapi.models.orders.v0.GetOrderItemsResponse;
 import software.amazon.spapi.models.orders.v0.GetOrderResponse;
 import software.amazon.spapi.models.orders.v0.OrderItem;
@@ -42,8 +44,12 @@ public class RetrieveOrderHandler implements RequestHandler<Map<String, Object>,
         String amazonOrderId = (String)input.get("AmazonOrderId");
         String subscriptionId = (String)input.get("SubscriptionId");
 
+        SubscriptionCache.warmOnce(logger);
+
         try {
-            String combinedJson = OrderProcessUtils.buildPayloadWithCredentialsAndOrder(subscriptionId, amazonOrderId, logger);
+            // Resolve the credentials once and reuse them for the order lookup and the next state
+            ClientCredentials credentials = getClientCredentialsFromDynamoDB(subscriptionId);
+            String combinedJson = OrderProcessUtils.buildPayloadWithCredentialsAndOrder(credentials, amazonOrderId, logger);
 
             if (combinedJson == null) {
                 throw new RuntimeException("Failed to retrieve order information via API. AmazonOrderId: " + amazonOrderId);
@@ -52,7 +58,10 @@ public class RetrieveOrderHandler implements RequestHandler<Map<String, Object>,
             // Generate message and set to next parameter
             enrichInputWithMessageContents(combinedJson, input, logger);
             // Set Credentials
-            setCredentialsToParameter(subscriptionId, input);
+            setCredentialsToParameter(subscriptionId, credentials, input);
+        } catch (LWAException e) {
+            OrderProcessUtils.invalidateRejectedCredentials(subscriptionId, e, logger);
+            throw new RuntimeException("Failed to prepare combined JSON: " + e.getMessage(), e);
         } catch (Exception e) {
             throw new RuntimeException("Failed to prepare combined JSON: " + e.getMessage(), e);
         }
@@ -60,15 +69,15 @@ public class RetrieveOrderHandler implements RequestHandler<Map<String, Object>,
     }
 
     /**
-     * Retrieves the client credentials associated with the given subscriptionId from DynamoDB,
-     * and inserts them into the Step Functions input map under a predefined key.
+     * Inserts the client credentials associated with the given subscriptionId into the Step Functions input map
+     * under a predefined key.
      *
-     * @param subscriptionId The subscription ID used to retrieve credentials from DynamoDB.
+     * @param subscriptionId The subscription ID the credentials were retrieved for.
+     * @param credentials The client credentials resolved for the subscription.
      * @param input The Step Functions input map to which the retrieved credentials will be added.
      * @throws RuntimeException if the credentials could not be retrieved (i.e., null result).
      */
-    private void setCredentialsToParameter(String subscriptionId, Map<String, Object> input) {
-        ClientCredentials credentials = getClientCredentialsFromDynamoDB(subscriptionId);
+    private void setCredentialsToParameter(String subscriptionId, ClientCredentials credentials, Map<String, Object> input) {
         if (credentials == null) {
             throw new RuntimeException("Failed to retrieve client credentials for subscriptionId: " + subscriptionId);
         }
@@ -6,12 +6,12 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.google.gson.Gson;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import lambda.utils.OrderProcessUtils;
+import lambda.utils.SqsBatchProcessor;
 import lambda.utils.WebHookUtils;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
 
 import static lambda.common.Constants.*;
 
@@ -36,27 +36,22 @@ public class SQSNotificationsHandler implements RequestHandler<SQSEvent, SQSBatc
 
     public SQSBatchResponse handleRequest(SQSEvent input, Context context) {
         LambdaLogger logger = context.getLogger();
-        List<SQSBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
 
         logger.log("ProcessNotification Lambda initiated: " +
                 ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
 
-        for (SQSEvent.SQSMessage message : input.getRecords()) {
-            try {
-                logger.log("Notification: " + message.getBody());
+        // Records are forwarded concurrently, ORDER_CHANGE records of the same order in sequence
+        SQSBatchResponse batchResponse = SqsBatchProcessor.process(input, OrderProcessUtils::getAmazonOrderId, message -> {
+            logger.log("Notification: " + message.getBody());
 
-                WebHookUtils.sendWebhookRequest(message.getBody());
+            WebHookUtils.sendWebhookRequest(message.getBody());
 
-                logger.log("Webhook sent successfully. MessageId: " + message.getMessageId());
-            } catch (Exception e) {
-                logger.log("Failed to send webhook: " + e.getMessage());
-                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
-            }
-        }
+            logger.log("Webhook sent successfully. MessageId: " + message.getMessageId());
+        }, logger);
 
         logger.log("ProcessNotification Lambda completed successfully. Total messages: " +
-                input.getRecords().size() + ", Failures: " + batchItemFailures.size());
+                input.getRecords().size() + ", Failures: " + batchResponse.getBatchItemFailures().size());
 
-        return new SQSBatchResponse(batchItemFailures);
+        return batchResponse;
     }
 }
\ No newline at end of file
@@ -6,12 +6,12 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
 import lambda.utils.OrderProcessUtils;
+import lambda.utils.SqsBatchProcessor;
+import lambda.utils.SubscriptionCache;
 import lambda.utils.WebHookUtils;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
 
 
 /**
@@ -29,37 +29,31 @@ public class SQSNotificationsOrderChangeHandler implements RequestHandler<SQSEve
 
     public SQSBatchResponse handleRequest(SQSEvent input, Context context) {
         LambdaLogger logger = context.getLogger();
-        List<SQSBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
+        SubscriptionCache.warmOnce(logger);
 
         logger.log("ProcessNotification OrderChange　Lambda initiated: " +
                 ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
 
-        for (SQSEvent.SQSMessage message : input.getRecords()) {
-            try {
-                logger.log("Notification: " + message.getBody());
-                // Customize logic for ORDER_CHANGE
-                String combinedJson = OrderProcessUtils.prepareNotificationPayload(message, logger);
-                if (combinedJson == null) {
-                    logger.log("Combined JSON is null. Marking message ID as failed: " + message.getMessageId());
-                    batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
-                    continue;
-                }
+        // Records of different orders are processed concurrently, records of the same order in sequence
+        SQSBatchResponse batchResponse = SqsBatchProcessor.process(input, OrderProcessUtils::getAmazonOrderId, message -> {
+            logger.log("Notification: " + message.getBody());
+            // Customize logic for ORDER_CHANGE
+            String combinedJson = OrderProcessUtils.prepareNotificationPayload(message, logger);
+            if (combinedJson == null) {
+                throw new IllegalStateException("Combined JSON is null");
+            }
 
-                logger.log("Sending combined Notification Payload: " + combinedJson);
+            logger.log("Sending combined Notification Payload: " + combinedJson);
 
-                // Send to Web Hook
-                WebHookUtils.sendWebhookRequest(combinedJson);
+            // Send to Web Hook
+            WebHookUtils.sendWebhookRequest(combinedJson);
 
-                logger.log("Webhook sent successfully. MessageId: " + message.getMessageId());
-            } catch (Exception e) {
-                logger.log("Failed to send webhook: " + e.getMessage());
-                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
-            }
-        }
+            logger.log("Webhook sent successfully. MessageId: " + message.getMessageId());
+        }, logger);
 
         logger.log("ProcessNotification Lambda completed successfully. Total messages: " +
-                input.getRecords().size() + ", Failures: " + batchItemFailures.size());
+                input.getRecords().size() + ", Failures: " + batchResponse.getBatchItemFailures().size());
 
-        return new SQSBatchResponse(batchItemFailures);
+        return batchResponse;
     }
 }
\ No newline at end of file
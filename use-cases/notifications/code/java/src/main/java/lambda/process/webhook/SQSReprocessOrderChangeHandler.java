@@ -3,16 +3,13 @@ package lambda.process.webhook;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import lambda.utils.DlqReprocessor;
 import lambda.utils.OrderProcessUtils;
+import lambda.utils.SubscriptionCache;
 import lambda.utils.WebHookUtils;
-import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
-import software.amazon.awssdk.services.sqs.model.Message;
-import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 import static lambda.common.Constants.*;
 import static lambda.utils.SqsMessageAdapter.toLambdaSQSMessage;
@@ -22,63 +19,27 @@ import static lambda.utils.SqsMessageAdapter.toLambdaSQSMessage;
  */
 public class SQSReprocessOrderChangeHandler implements RequestHandler<Object, String> {
 
-    private static final SqsClient sqsClient = SqsClient.create();
-
     public String handleRequest(Object input, Context context) {
         LambdaLogger logger = context.getLogger();
+        SubscriptionCache.warmOnce(logger);
 
         String queueUrl = System.getenv(DLQ_SQS_URL_ENV_VARIABLE);
 
         logger.log("ReprocessLambda initiated: " +
                 ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
 
-        int successCount = 0;
-        int failureCount = 0;
-
-        while (true) {
-            ReceiveMessageRequest receiveRequest = ReceiveMessageRequest.builder()
-                    .queueUrl(queueUrl)
-                    .maxNumberOfMessages(BATCH_SIZE)
-                    .waitTimeSeconds(2)
-                    .build();
-
-            List<Message> messages = sqsClient.receiveMessage(receiveRequest).messages();
-            if (messages.isEmpty()) {
-                logger.log("No more messages found. Exiting reprocessing loop.");
-                break;
+        return DlqReprocessor.reprocess(queueUrl, input, context, message -> {
+            String combinedJson = OrderProcessUtils.prepareNotificationPayload(toLambdaSQSMessage(message), logger);
+            if (combinedJson == null) {
+                return false;
             }
 
-            for (Message message : messages) {
-                try {
-                    logger.log("Reprocessing MessageId: " + message.messageId());
-
-                    String combinedJson = OrderProcessUtils.prepareNotificationPayload(toLambdaSQSMessage(message), logger);
-                    if (combinedJson == null) {
-                        continue;
-                    }
+            logger.log("Sending combined Notification Payload: " + combinedJson);
 
-                    logger.log("Sending combined Notification Payload: " + combinedJson);
-
-                    WebHookUtils.sendWebhookRequest(combinedJson);
-
-                    DeleteMessageRequest deleteRequest = DeleteMessageRequest.builder()
-                            .queueUrl(queueUrl)
-                            .receiptHandle(message.receiptHandle())
-                            .build();
-                    sqsClient.deleteMessage(deleteRequest);
-
-                    logger.log("Webhook reprocessing successful for MessageId: " + message.messageId());
-                    successCount++;
-                } catch (Exception e) {
-                    logger.log("Webhook reprocessing failed for MessageId: " + message.messageId() +
-                            " Error: " + e.getMessage());
-                    failureCount++;
-                }
-            }
-        }
+            WebHookUtils.sendWebhookRequest(combinedJson);
 
-        String resultSummary = String.format("Reprocessing complete. Success: %d, Failure: %d", successCount, failureCount);
-        logger.log(resultSummary);
-        return resultSummary;
+            logger.log("Webhook reprocessing successful for MessageId: " + message.messageId());
+            return true;
+        });
     }
 }
@@ -1,7 +1,6 @@
 package lambda.subscription;
 
 import com.amazon.SellingPartnerAPIAA.LWAException;
-import com.google.common.util.concurrent.RateLimiter;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -10,6 +9,7 @@ import lambda.common.ClientCredentials;
 import lambda.utils.*;
 
 import static lambda.common.Constants.*;
+import static lambda.common.EnvironmentUtils.getLongEnv;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
@@ -24,9 +24,12 @@ import software.amazon.spapi.models.notifications.v1.*;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Sample Lambda handler for automating the setup of SP-API notification subscriptions
@@ -36,7 +39,8 @@ import java.util.concurrent.TimeUnit;
  * - Creating or reusing SP-API destinations (SQS or EventBridge)
  * - Subscribing each seller to the specified notification types
  * - Storing the resulting subscription metadata (destinationId, subscriptionId, etc.) in DynamoDB
- * - Applying rate limits and retry strategies for SP-API calls
+ * - Applying per-seller rate limits and retry strategies for SP-API calls
+ * - Resuming an interrupted onboarding from the subscription records already stored in DynamoDB
  * Input Format (Map<String, List<String>>):
  * - "notificationType": List of notification type strings (e.g. "ORDER_CHANGE")
  * - "sellerId": List of seller IDs to register
@@ -53,15 +57,7 @@ public class SubscribeNotificationsHandler implements RequestHandler<Map<String,
     private final ObjectMapper objectMapper = new ObjectMapper();
     private static final Gson gson = new Gson();
 
-    // Static rate limiters for API control
-    @SuppressWarnings("UnstableApiUsage")
-    private static final RateLimiter createDestinationRateLimiter = RateLimiter.create(1.0);   // 1 req/sec
-    @SuppressWarnings("UnstableApiUsage")
-    private static final RateLimiter createSubscriptionRateLimiter = RateLimiter.create(1.0);
-    @SuppressWarnings("UnstableApiUsage")
-    private static final RateLimiter getDestinationRateLimiter = RateLimiter.create(5.0);   // 5 req/sec
-    @SuppressWarnings("UnstableApiUsage")
-    private static final RateLimiter getSubscriptionRateLimiter = RateLimiter.create(5.0);
+    private static final int CONCURRENCY = (int) getLongEnv(SUBSCRIBE_CONCURRENCY_ENV_VARIABLE, SUBSCRIBE_DEFAULT_CONCURRENCY);
 
     @Override
     public String handleRequest(Map<String, List<String>> input, Context context) {
@@ -84,7 +80,7 @@ public class SubscribeNotificationsHandler implements RequestHandler<Map<String,
                     = SecretManagerUtils.fetchCredentialsForSellers(sellerIds, combinedSecretsMap, logger);
 
             // Step 3: Process each notification type for each credential
-            return processNotificationTypes(notificationTypes, credentialsSet, combinedSecretsMap, logger);
+            return processNotificationTypes(notificationTypes, credentialsSet, combinedSecretsMap, context, logger);
 
         } catch (Exception e) {
             logger.log("Error occurred: " + e.getMessage() + "\n");
@@ -96,8 +92,9 @@ public class SubscribeNotificationsHandler implements RequestHandler<Map<String,
      * Processes each notification type for all provided seller credentials by creating or reusing
      * SP-API destinations and subscriptions, and storing the resulting subscription metadata into DynamoDB.
      *
-     * <p>This method executes the processing logic in parallel using a fixed-size thread pool
-     * to improve performance when handling a large number of sellers and notification types.</p>
+     * <p>Sellers are processed concurrently on up to {@code SUBSCRIBE_CONCURRENCY} (default 16) threads. Since SP-API
+     * rate limits apply per seller and application, every seller's calls are limited by its own token buckets
+     * through {@link SpApiRateLimiter}, and sellers do not wait for each other.</p>
      *
      * <p>For each (notificationType, seller) combination, the method performs the following steps:
      * <ol>
@@ -107,36 +104,61 @@ public class SubscribeNotificationsHandler implements RequestHandler<Map<String,
      * </ol>
      *
      * <p>EventBridge destinations are assumed to be pre-created and shared across sellers.
-     * SQS destinations are created or reused per seller if necessary.</p>
+     * SQS destinations are created or reused once per application, region and queue, and shared by all sellers
+     * of the run.</p>
+     *
+     * <p>The DynamoDB subscription table serves as the checkpoint of the onboarding: combinations that already have
+     * a subscription record are skipped, and combinations not started before the Lambda timeout approaches are
+     * left pending. Invoking the handler again with the same input resumes where the previous invocation stopped.</p>
      *
      * @param notificationTypes The list of SP-API notification types to subscribe to
      * @param credentialsSet A set of {@link ClientCredentials} containing credentials for each seller
      * @param combinedSecretsMap A mapping of sellerId to its corresponding secret ARN (used for logging or auditing)
+     * @param context The Lambda context, used to stop before the timeout
      * @param logger The Lambda logger instance used for logging internal messages
-     * @return A formatted string containing the result of all successful subscription operations
+     * @return A summary of subscribed, already subscribed, failed and pending combinations
      * @throws IOException If the destination configuration cannot be parsed
-     * @throws ApiException If any SP-API operation fails (destination or subscription creation)
-     * @throws LWAException If Login With Amazon (LWA) token retrieval fails
      */
     private String processNotificationTypes(
             List<String> notificationTypes,
             Set<ClientCredentials> credentialsSet,
             Map<String, String> combinedSecretsMap,
-            LambdaLogger logger) throws IOException, LWAException, ApiException {
+            Context context,
+            LambdaLogger logger) throws IOException {
 
         String destinationsRaw = System.getenv(NOTIFICATION_DESTINATION_ENV_VARIABLE);
         Map<String, String> destinationMap = objectMapper.readValue(destinationsRaw, new TypeReference<>() {});
         List<String> eventBridgeRequiredList = getEventBridgeRequiredList();
 
-        int threadCount = Math.min(credentialsSet.size() * notificationTypes.size(), 4);
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
-        List<CompletableFuture<String>> futures = new ArrayList<>();
+        // Combinations recorded by a previous invocation are already subscribed
+        List<String> sellerIds = credentialsSet.stream().map(ClientCredentials::getSellerId).collect(Collectors.toList());
+        Set<String> subscribed = ConcurrentHashMap.newKeySet();
+        DBUtils.scanSubscriptions(notificationTypes, sellerIds, SUBSCRIBE_CHECKPOINT_SCAN_SEGMENTS,
+                record -> subscribed.add(record.get(SELLER_ID) + "#" + record.get(NOTIFICATION_TYPE)), logger);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        Map<String, CompletableFuture<String>> destinations = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        AtomicLong subscribedCount = new AtomicLong();
+        AtomicLong failedCount = new AtomicLong();
+        AtomicLong pendingCount = new AtomicLong();
+        long alreadySubscribedCount = 0;
 
         for (String notificationType : notificationTypes) {
             String destinationValue = destinationMap.get(notificationType);
 
             for (ClientCredentials credentials : credentialsSet) {
-                futures.add(CompletableFuture.supplyAsync(() -> {
+                if (subscribed.contains(credentials.getSellerId() + "#" + notificationType)) {
+                    alreadySubscribedCount++;
+                    continue;
+                }
+
+                futures.add(CompletableFuture.runAsync(() -> {
+                    if (context.getRemainingTimeInMillis() < SUBSCRIBE_TIME_BUFFER_MILLIS) {
+                        pendingCount.incrementAndGet();
+                        return;
+                    }
+
                     try {
                         AppCredentials appCredentials = new AppCredentials(credentials.getClientId(), credentials.getClientSecret());
                         NotificationsApi destApi = ApiUtils.buildNotificationsApi(null, credentials.getRegionCode(), appCredentials, true);
@@ -148,12 +170,12 @@ public class SubscribeNotificationsHandler implements RequestHandler<Map<String,
                         if (eventBridgeRequiredList.contains(notificationType)) {
                             destinationId = System.getenv(EVENT_BUS_DESTINATION_ID_ENV_VARIABLE);
                         } else {
-                            destinationId = getOrCreateSqsDestination(destApi, destinationValue);
+                            destinationId = getOrCreateSqsDestination(destinations, credentials, destApi, destinationValue);
                         }
 
                         logger.log("Destination ID obtained: " + destinationId + "\n");
 
-                        String subscriptionId = getOrCreateSubscription(subApi, destinationId, notificationType);
+                        String subscriptionId = getOrCreateSubscription(subApi, credentials, destinationId, notificationType);
                         logger.log("Subscription ID obtained: " + subscriptionId + "\n");
 
                         DBUtils.saveSubscriptionToDynamoDB(
@@ -164,78 +186,100 @@ public class SubscribeNotificationsHandler implements RequestHandler<Map<String,
                                 notificationType,
                                 combinedSecretsMap.get(credentials.getSellerId()));
 
-                        return String.format("NotificationType: %s\nDestination Id: %s\nSubscription Id: %s\n",
-                                notificationType, destinationId, subscriptionId);
+                        logger.log(String.format("NotificationType: %s\nDestination Id: %s\nSubscription Id: %s\n",
+                                notificationType, destinationId, subscriptionId));
+                        subscribedCount.incrementAndGet();
 
                     } catch (Exception e) {
                         logger.log("Failed to process subscription for sellerId=" + credentials.getSellerId()
                                 + ", notificationType=" + notificationType + ": " + e.getMessage());
-                        return null;
+                        failedCount.incrementAndGet();
                     }
                 }, executor));
             }
         }
 
-        StringBuilder combinedResult = new StringBuilder();
-        futures.stream()
-                .map(CompletableFuture::join)
-                .filter(Objects::nonNull)
-                .forEach(combinedResult::append);
-
+        futures.forEach(CompletableFuture::join);
         executor.shutdown();
-        return combinedResult.toString();
+
+        String summary = String.format("Subscribed: %d, Already subscribed: %d, Failed: %d, Pending: %d",
+                subscribedCount.get(), alreadySubscribedCount, failedCount.get(), pendingCount.get());
+        if (pendingCount.get() > 0 || failedCount.get() > 0) {
+            summary += ". Invoke again with the same input to resume.";
+        }
+
+        logger.log(summary + "\n");
+        return summary;
     }
 
 
+    /**
+     * Returns the ID of the SQS destination for the given queue, creating or looking it up at most once per
+     * application, region and queue across the concurrent tasks of the run.
+     *
+     * @param destinations The destinations resolved by this run, keyed by application, region and queue
+     * @param credentials The seller credentials, providing the application and region
+     * @param api The grantless {@link NotificationsApi} client
+     * @param sqsArn The ARN of the SQS queue to register as a destination
+     * @return The destination ID for the newly created or existing SQS destination
+     * @throws Exception If the destination cannot be created or found
+     */
+    private String getOrCreateSqsDestination(Map<String, CompletableFuture<String>> destinations,
+                                             ClientCredentials credentials, NotificationsApi api, String sqsArn) throws Exception {
+        String grantlessScope = getGrantlessScope(credentials);
+        CompletableFuture<String> destination = new CompletableFuture<>();
+        CompletableFuture<String> existing = destinations.putIfAbsent(grantlessScope + "#" + sqsArn, destination);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw new RuntimeException("Destination creation failed in a concurrent task", e.getCause());
+            }
+        }
+
+        try {
+            destination.complete(createOrFindSqsDestination(api, grantlessScope, sqsArn));
+            return destination.join();
+        } catch (Exception e) {
+            // Let later tasks try again
+            destinations.remove(grantlessScope + "#" + sqsArn, destination);
+            destination.completeExceptionally(e);
+            throw e;
+        }
+    }
+
     /**
      * Creates a new SQS destination using the given ARN, or returns an existing destination ID
      * if one already exists for the same SQS resource.
      *
-     * <p>This method enforces a rate limit (1 request/sec) using a {@link RateLimiter}, and retries
-     * up to 3 times if the SP-API responds with a temporary error (HTTP 429 or 5xx). If a conflict
-     * (HTTP 409) occurs, it attempts to retrieve the existing destination using
-     * {@link #findExistingDestination(NotificationsApi, String, String, String)}.</p>
-     *
-     * <p>If the rate limiter cannot acquire a permit within 5 seconds, the request is skipped to prevent overloading.</p>
+     * <p>The call is limited by the grantless rate limit of the application and region, and {@code 429} and
+     * {@code 5xx} responses are retried by {@link SpApiRateLimiter}. If a conflict (HTTP 409) occurs, it retrieves
+     * the existing destination using {@link #findExistingDestination(NotificationsApi, String, String, String, String)}.</p>
      *
      * @param api The {@link NotificationsApi} client used to call SP-API
+     * @param grantlessScope The rate limit scope of grantless calls of the application and region
      * @param sqsArn The ARN of the SQS queue to register as a destination
      * @return The destination ID for the newly created or existing SQS destination
      * @throws ApiException If destination creation fails after retries or returns an unrecoverable error
      * @throws LWAException If authentication via Login With Amazon (LWA) fails
-     * @throws RuntimeException If rate limiting or retries are exhausted
+     * @throws InterruptedException If the thread is interrupted while waiting for the rate limit
      */
-    private String getOrCreateSqsDestination(NotificationsApi api, String sqsArn) throws ApiException, LWAException {
-        final int maxRetries = 3;
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            try {
-                if (!createDestinationRateLimiter.tryAcquire(5, TimeUnit.SECONDS)) {
-                    throw new RuntimeException("RateLimiter timeout: createDestination");
-                }
-
-                CreateDestinationRequest request = new CreateDestinationRequest()
-                        .name(UUID.randomUUID().toString())
-                        .resourceSpecification(new DestinationResourceSpecification()
-                                .sqs(new SqsResource().arn(sqsArn)));
-
-                return api.createDestination(request).getPayload().getDestinationId();
+    private String createOrFindSqsDestination(NotificationsApi api, String grantlessScope, String sqsArn)
+            throws ApiException, LWAException, InterruptedException {
+        CreateDestinationRequest request = new CreateDestinationRequest()
+                .name(UUID.randomUUID().toString())
+                .resourceSpecification(new DestinationResourceSpecification()
+                        .sqs(new SqsResource().arn(sqsArn)));
 
-            } catch (ApiException e) {
-                if (e.getCode() == 409) {
-                    return findExistingDestination(api, sqsArn, null, null);
-                } else if (attempt < maxRetries && (e.getCode() == 429 || e.getCode() >= 500)) {
-                    try {
-                        Thread.sleep(1000L * attempt); // simple exponential backoff
-                    } catch (InterruptedException ignored) {}
-                    continue; // retry
-                }
-                throw new RuntimeException("Failed to create destination after attempt " + attempt + ": " + e.getMessage(), e);
-            } catch (LWAException e) {
-                throw new RuntimeException("LWA failed during destination creation", e);
+        try {
+            return SpApiRateLimiter.call(grantlessScope, "createDestination",
+                    () -> api.createDestinationWithHttpInfo(request)).getPayload().getDestinationId();
+        } catch (ApiException e) {
+            if (e.getCode() == 409) {
+                return findExistingDestination(api, grantlessScope, sqsArn, null, null);
             }
+            throw e;
         }
-
-        throw new RuntimeException("Exceeded max retries for createDestination");
     }
 
 
@@ -244,19 +288,21 @@ public class SubscribeNotificationsHandler implements RequestHandler<Map<String,
      * or EventBridge parameters (accountId and region).
      *
      * @param api        The SP-API NotificationsApi instance used to retrieve destinations
+     * @param grantlessScope The rate limit scope of grantless calls of the application and region
      * @param sqsArn     The ARN of the SQS queue to match
      * @param accountId  The AWS Account ID used for EventBridge destination matching
      * @param region     The AWS region used for EventBridge destination matching
      * @return           The matching destinationId if found
      * @throws ApiException    If the SP-API call fails
      * @throws LWAException    If the Login With Amazon (LWA) token fails
+     * @throws InterruptedException If the thread is interrupted while waiting for the rate limit
      * @throws RuntimeException If no matching destination is found
      */
-    private String findExistingDestination(NotificationsApi api, String sqsArn, String accountId, String region)
-            throws ApiException, LWAException {
+    private String findExistingDestination(NotificationsApi api, String grantlessScope, String sqsArn, String accountId, String region)
+            throws ApiException, LWAException, InterruptedException {
         // Rate limited Get destination
-        getDestinationRateLimiter.acquire();
-        List<Destination> destinations = api.getDestinations().getPayload();
+        List<Destination> destinations = SpApiRateLimiter.call(grantlessScope, "getDestinations",
+                api::getDestinationsWithHttpInfo).getPayload();
 
         for (Destination destination : destinations) {
             if (destination.getResource() != null) {
@@ -286,61 +332,44 @@ public class SubscribeNotificationsHandler implements RequestHandler<Map<String,
      * or returns an existing subscription ID if one already exists.
      *
      * <p>The method builds a {@link CreateSubscriptionRequest} using the provided destination ID and
-     * applies an {@link EventFilter} if required. It enforces rate limiting using a
-     * {@link RateLimiter} (1 request/sec), and includes retry logic for transient errors (HTTP 429 or 5xx),
-     * retrying up to 3 times with incremental backoff.</p>
+     * applies an {@link EventFilter} if required. The call is limited by the seller's own rate limit, and
+     * {@code 429} and {@code 5xx} responses are retried by {@link SpApiRateLimiter}.</p>
      *
      * <p>If the subscription already exists (HTTP 409), it retrieves the existing subscription via
-     * {@link #getExistingSubscription(NotificationsApi, String)}. If the rate limiter cannot acquire
-     * a permit within 5 seconds, the request is skipped.</p>
+     * {@link #getExistingSubscription(NotificationsApi, String, String)}.</p>
      *
      * @param api The {@link NotificationsApi} client used to make subscription requests
+     * @param credentials The seller credentials, providing the rate limit scope
      * @param destinationId The destination ID to which the subscription should be associated
      * @param notificationType The SP-API notification type (e.g., "ORDER_CHANGE")
      * @return The subscription ID of the newly created or existing subscription
      * @throws ApiException If subscription creation fails after retries or returns an unrecoverable error
      * @throws LWAException If Login With Amazon (LWA) authentication fails
-     * @throws RuntimeException If rate limiting or retries are exhausted
+     * @throws InterruptedException If the thread is interrupted while waiting for the rate limit
      */
-    private String getOrCreateSubscription(NotificationsApi api, String destinationId, String notificationType)
-            throws ApiException, LWAException {
-
-        final int maxRetries = 3;
-
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            try {
-                if (!createSubscriptionRateLimiter.tryAcquire(5, TimeUnit.SECONDS)) {
-                    throw new RuntimeException("RateLimiter timeout: createSubscription");
-                }
-
-                CreateSubscriptionRequest request = new CreateSubscriptionRequest()
-                        .destinationId(destinationId)
-                        .payloadVersion("1.0");
-
-                if (EVENT_FILTER_REQUIRED_NOTIFICATION_TYPE.containsKey(notificationType)) {
-                    request.setProcessingDirective(
-                            new ProcessingDirective().eventFilter(
-                                    new EventFilter().eventFilterType(EVENT_FILTER_REQUIRED_NOTIFICATION_TYPE.get(notificationType))));
-                }
-
-                return api.createSubscription(request, notificationType).getPayload().getSubscriptionId();
+    private String getOrCreateSubscription(NotificationsApi api, ClientCredentials credentials, String destinationId, String notificationType)
+            throws ApiException, LWAException, InterruptedException {
+
+        String sellerScope = getSellerScope(credentials);
+        CreateSubscriptionRequest request = new CreateSubscriptionRequest()
+                .destinationId(destinationId)
+                .payloadVersion("1.0");
+
+        if (EVENT_FILTER_REQUIRED_NOTIFICATION_TYPE.containsKey(notificationType)) {
+            request.setProcessingDirective(
+                    new ProcessingDirective().eventFilter(
+                            new EventFilter().eventFilterType(EVENT_FILTER_REQUIRED_NOTIFICATION_TYPE.get(notificationType))));
+        }
 
-            } catch (ApiException e) {
-                if (e.getCode() == 409) {
-                    return getExistingSubscription(api, notificationType);
-                } else if (attempt < maxRetries && (e.getCode() == 429 || e.getCode() >= 500)) {
-                    try {
-                        Thread.sleep(1000L * attempt);
-                    } catch (InterruptedException ignored) {}
-                    continue;
-                }
-                throw new RuntimeException("Failed to create subscription after attempt " + attempt + ": " + e.getMessage(), e);
-            } catch (LWAException e) {
-                throw new RuntimeException("LWA failed during subscription", e);
+        try {
+            return SpApiRateLimiter.call(sellerScope, "createSubscription",
+                    () -> api.createSubscriptionWithHttpInfo(request, notificationType)).getPayload().getSubscriptionId();
+        } catch (ApiException e) {
+            if (e.getCode() == 409) {
+                return getExistingSubscription(api, sellerScope, notificationType);
             }
+            throw e;
         }
-
-        throw new RuntimeException("Exceeded max retries for createSubscription");
     }
 
 
@@ -351,15 +380,28 @@ public class SubscribeNotificationsHandler implements RequestHandler<Map<String,
      * due to an existing subscription (i.e., a conflict error with HTTP status 409).</p>
      *
      * @param api The {@link NotificationsApi} client used to retrieve the subscription
+     * @param sellerScope The rate limit scope of the seller
      * @param notificationType The SP-API notification type whose subscription is to be fetched
      * @return The existing subscription ID
      * @throws ApiException if the subscription cannot be retrieved
      * @throws LWAException if LWA (Login With Amazon) authentication fails
+     * @throws InterruptedException If the thread is interrupted while waiting for the rate limit
      */
-    private String getExistingSubscription(NotificationsApi api, String notificationType) throws ApiException, LWAException {
+    private String getExistingSubscription(NotificationsApi api, String sellerScope, String notificationType)
+            throws ApiException, LWAException, InterruptedException {
         // Rate limited getSubscription
-        getSubscriptionRateLimiter.acquire();
-        return api.getSubscription(notificationType, null).getPayload().getSubscriptionId();
+        return SpApiRateLimiter.call(sellerScope, "getSubscription",
+                () -> api.getSubscriptionWithHttpInfo(notificationType, null)).getPayload().getSubscriptionId();
+    }
+
+    //SP-API rate limits apply per selling partner and application
+    private static String getSellerScope(ClientCredentials credentials) {
+        return credentials.getClientId() + "#" + credentials.getSellerId();
+    }
+
+    //Grantless rate limits apply per application and region
+    private static String getGrantlessScope(ClientCredentials credentials) {
+        return credentials.getClientId() + "#" + credentials.getRegionCode();
     }
 
     /**
@@ -3,7 +3,6 @@ package lambda.subscription;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.google.common.util.concurrent.RateLimiter;
 import com.google.gson.Gson;
 import lambda.common.AppCredentials;
 import lambda.common.ClientCredentials;
@@ -11,13 +10,17 @@ import lambda.common.UnsubscribeRequest;
 import lambda.utils.ApiUtils;
 import lambda.utils.DBUtils;
 import lambda.utils.SecretManagerUtils;
+import lambda.utils.SpApiRateLimiter;
 import software.amazon.spapi.api.notifications.v1.NotificationsApi;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 import static lambda.common.Constants.*;
 import static lambda.common.Constants.SELLER_SECRETS_ARN;
@@ -60,9 +63,6 @@ public class UnsubscribeNotificationsHandler implements RequestHandler<Map<Strin
 
     private static final Gson gson = new Gson();
 
-    @SuppressWarnings("UnstableApiUsage")
-    private static final RateLimiter deleteSubscriptionRateLimiter = RateLimiter.create(1.0);
-
     @Override
     public String handleRequest(Map<String, Object> input, Context context) {
         LambdaLogger logger = context.getLogger();
@@ -107,8 +107,7 @@ public class UnsubscribeNotificationsHandler implements RequestHandler<Map<Strin
     private String deleteAllSubscriptions(LambdaLogger logger) throws Exception {
         logger.log("Deleting all subscriptions and destinations...\n");
 
-        List<Map<String, String>> allRecords = DBUtils.parallelScanAllSubscriptions(8, logger);
-        return deleteRecords(allRecords, logger);
+        return deleteRecords(consumer -> DBUtils.scanAllSubscriptions(8, consumer, logger), logger);
     }
 
     /**
@@ -118,13 +117,13 @@ public class UnsubscribeNotificationsHandler implements RequestHandler<Map<Strin
     private String deleteByNotificationTypeOnly(UnsubscribeRequest request, LambdaLogger logger) throws Exception {
         logger.log("Deleting by NotificationTypes only...\n");
 
-        List<Map<String, String>> matched = DBUtils.parallelScanWithNotificationTypeFilter(
+        return deleteRecords(consumer -> DBUtils.scanSubscriptions(
                 request.getNotificationTypes(),
                 List.of(),
                 8,
+                consumer,
                 logger
-        );
-        return deleteRecords(matched, logger, request.getDeleteDestination());
+        ), logger, request.getDeleteDestination());
     }
 
     /**
@@ -134,39 +133,49 @@ public class UnsubscribeNotificationsHandler implements RequestHandler<Map<Strin
     private String deleteByNotificationTypeAndSeller(UnsubscribeRequest request, LambdaLogger logger) throws Exception {
         logger.log("Deleting by NotificationTypes + SellerIds...\n  DeleteDestination parameter will be ignored with this operation.");
 
-        List<Map<String, String>> matched = DBUtils.parallelScanWithNotificationTypeFilter(
+        return deleteRecords(consumer -> DBUtils.scanSubscriptions(
                 request.getNotificationTypes(),
                 request.getSellerIds(),
                 8,
+                consumer,
                 logger
-        );
-        return deleteRecords(matched, logger, false);
+        ), logger, false);
     }
 
     /**
      * Deletes subscription records from SP-API and DynamoDB with default: deleteDestination = true.
      */
-    private String deleteRecords(List<Map<String, String>> records, LambdaLogger logger) throws Exception {
-        return deleteRecords(records, logger, true);
+    private String deleteRecords(ToLongFunction<Consumer<Map<String, String>>> scan, LambdaLogger logger) throws Exception {
+        return deleteRecords(scan, logger, true);
     }
 
     /**
      * Deletes subscriptions from SP-API and removes records from DynamoDB.
      * Also deletes destinations if specified.
+     * <p>
+     * Records are deleted while the scan is still running. The deletion queue is bounded, and once it is full the
+     * scan threads delete records themselves, which keeps memory use constant regardless of the table size.
      *
-     * @param records List of subscription records from DB
+     * @param scan Streams the subscription records to delete to the given consumer
      * @param logger Lambda logger
      * @param deleteDestination Whether to delete the destination as well
      */
-    private String deleteRecords(List<Map<String, String>> records, LambdaLogger logger, boolean deleteDestination) throws Exception {
-        ExecutorService executor = Executors.newFixedThreadPool(Math.min(records.size(), 4));
-        List<CompletableFuture<String>> futures = new ArrayList<>();
-
+    private String deleteRecords(ToLongFunction<Consumer<Map<String, String>>> scan, LambdaLogger logger, boolean deleteDestination) throws Exception {
+        ExecutorService executor = new ThreadPoolExecutor(
+                SUBSCRIPTION_DELETE_CONCURRENCY,
+                SUBSCRIPTION_DELETE_CONCURRENCY,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(SUBSCRIPTION_DELETE_QUEUE_CAPACITY),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        AtomicLong deletedCount = new AtomicLong();
+        AtomicLong failedCount = new AtomicLong();
         Set<String> destinationsToDelete = new HashSet<>();
         Map<String, ClientCredentials> destinationOwnerMap = new HashMap<>();
 
-        for (Map<String, String> record : records) {
-            futures.add(CompletableFuture.supplyAsync(() -> {
+        long matchedCount;
+        try {
+            matchedCount = scan.applyAsLong(record -> executor.execute(() -> {
                 String subscriptionId = record.get(SUBSCRIPTION_ID);
                 String destinationId = record.get(DESTINATION_ID);
                 String notificationType = record.get(NOTIFICATION_TYPE);
@@ -177,8 +186,9 @@ public class UnsubscribeNotificationsHandler implements RequestHandler<Map<Strin
                     AppCredentials appCredentials = new AppCredentials(credentials.getClientId(), credentials.getClientSecret());
                     NotificationsApi api = ApiUtils.buildNotificationsApi(credentials.getRefreshToken(), credentials.getRegionCode(), appCredentials, false);
 
-                    deleteSubscriptionRateLimiter.acquire();
-                    api.deleteSubscriptionById(subscriptionId, notificationType);
+                    // Rate limited per seller and application
+                    SpApiRateLimiter.call(credentials.getClientId() + "#" + credentials.getSellerId(), "deleteSubscriptionById",
+                            () -> api.deleteSubscriptionByIdWithHttpInfo(subscriptionId, notificationType));
                     logger.log("Deleted Subscription: " + subscriptionId);
 
                     DBUtils.deleteSubscriptionRecord(subscriptionId);
@@ -191,22 +201,17 @@ public class UnsubscribeNotificationsHandler implements RequestHandler<Map<Strin
                         }
                     }
 
-                    return "Deleted: " + subscriptionId;
+                    deletedCount.incrementAndGet();
 
                 } catch (Exception e) {
                     logger.log("Failed for subscriptionId=" + subscriptionId + ": " + e.getMessage());
-                    return null;
+                    failedCount.incrementAndGet();
                 }
-            }, executor));
-        }
-
-        StringBuilder result = new StringBuilder();
-        for (CompletableFuture<String> future : futures) {
-            String res = future.join();
-            if (res != null) result.append(res).append("\n");
+            }));
+        } finally {
+            executor.shutdown();
         }
 
-        executor.shutdown();
         boolean finished = executor.awaitTermination(2, TimeUnit.MINUTES);
         if (!finished) {
             logger.log("ExecutorService did not complete in 2 minutes.\n");
@@ -237,6 +242,6 @@ public class UnsubscribeNotificationsHandler implements RequestHandler<Map<Strin
         }
 
 
-        return result.toString();
+        return String.format("Matched: %d, Deleted: %d, Failed: %d", matchedCount, deletedCount.get(), failedCount.get());
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package lambda.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry delays shared by the SP-API and webhook clients.
+ */
+public class Backoff {
+
+    private Backoff() {
+    }
+
+    /**
+     * Full jitter: a random delay between 0 and the exponential backoff of the attempt, capped at {@code maxMillis}.
+     *
+     * @param attempt    The attempt that failed, starting at 1
+     * @param baseMillis The backoff of the first attempt
+     * @param maxMillis  The maximum backoff
+     * @return The delay before the next attempt, in milliseconds
+     */
+    public static long fullJitterMillis(int attempt, long baseMillis, long maxMillis) {
+        long backoff = Math.min(maxMillis, baseMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+}
@@ -3,6 +3,10 @@ package lambda.utils;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import lambda.common.NotificationDestinationType;
+import lambda.utils.publishers.Publishers;
+
+import java.util.Map;
+import java.util.Set;
 
 public class CrossPlatformUtils {
 
@@ -10,8 +14,8 @@ public class CrossPlatformUtils {
      * Publishes a message to the specified cross-platform destination, such as AWS SQS, EventBridge,
      * GCP Pub/Sub, or Azure messaging services, based on the provided {@code destinationType}.
      *
-     * This method acts as a unified dispatcher that routes the message to the appropriate
-     * cloud-specific publishing utility depending on the destination type.
+     * This method acts as a unified dispatcher that routes the message to the container-scoped
+     * {@link lambda.utils.publishers.Publisher} of the destination type.
      *
      * Supported destinations:
      * - {@code AWS_SQS}: Sends the message to Amazon SQS.
@@ -20,34 +24,30 @@ public class CrossPlatformUtils {
      * - {@code AZURE_STORAGE_QUEUE}: Sends the message to Azure Storage Queue.
      * - {@code AZURE_SERVICE_BUS}: Sends the message to Azure Service Bus.
      *
-     * If the destination type is not supported, the method logs a warning.
-     *
      * @param logger The Lambda logger for logging messages and errors
      * @param destinationType The destination type enum indicating where the message should be published
      * @param message The message body to publish (typically a JSON string)
-     * @throws Exception If any of the publishing methods throw an exception
+     * @throws Exception If the message could not be published
      */
     public static void publishCrossPlatform(LambdaLogger logger, NotificationDestinationType destinationType, String message) throws Exception {
-        switch (destinationType) {
-            case AWS_SQS:
-                AwsPublisherUtils.sendToSQS(message, logger);
-                break;
-            case AWS_EVENTBRIDGE:
-                AwsPublisherUtils.sendToEventBridge(message, logger);
-                break;
-            case GCP_PUBSUB:
-                GcpPublisherUtils.publishToGCPPubSub(message, logger);
-                break;
-            case AZURE_STORAGE_QUEUE:
-                AzurePublisherUtils.sendToAzureStorageQueue(message, logger);
-                break;
-            case AZURE_SERVICE_BUS:
-                AzurePublisherUtils.sendToAzureServiceBus(message, logger);
-                break;
-            default:
-                logger.log("Unsupported destination type.");
-        }
+        Publishers.get(destinationType).publish(message, logger);
 
         logger.log("Message forwarded successfully.");
     }
+
+    /**
+     * Publishes a batch of messages to the specified cross-platform destination using the batch API
+     * of the destination (e.g. SQS {@code SendMessageBatch}, EventBridge {@code PutEvents}).
+     *
+     * @param logger The Lambda logger for logging messages and errors
+     * @param destinationType The destination type enum indicating where the messages should be published
+     * @param messages The message bodies to publish, keyed by a unique identifier (e.g. the SQS message ID)
+     * @return The identifiers of the messages that could not be published
+     */
+    public static Set<String> publishCrossPlatformBatch(LambdaLogger logger, NotificationDestinationType destinationType, Map<String, String> messages) {
+        Set<String> failedIds = Publishers.get(destinationType).publishBatch(messages, logger);
+
+        logger.log((messages.size() - failedIds.size()) + " of " + messages.size() + " messages forwarded successfully.");
+        return failedIds;
+    }
 }
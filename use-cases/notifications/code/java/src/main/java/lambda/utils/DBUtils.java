@@ -2,17 +2,20 @@ package lambda.utils;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import lambda.common.ClientCredentials;
+import lambda.common.SubscriptionRecord;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import static lambda.common.Constants.*;
 
@@ -21,6 +24,12 @@ public class DBUtils {
 
     private static final DynamoDbClient dynamoDbClient = DynamoDbClient.create();
 
+    private static final ExecutorService scanExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "subscription-scan");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Saves subscription metadata to a DynamoDB table.
      *
@@ -61,16 +70,17 @@ public class DBUtils {
                 .build();
 
         dynamoDbClient.putItem(putItemRequest);
+        SubscriptionCache.invalidate(subscriptionId);
     }
 
     /**
      * Retrieves SP-API client credentials associated with a given subscription ID
-     * by querying a DynamoDB table and resolving the corresponding Secrets Manager ARN.
+     * by resolving the subscription record and the corresponding Secrets Manager ARN.
      *
      * <p>This method performs the following steps:
      * <ol>
-     *     <li>Looks up the record in DynamoDB using the provided subscription ID as the key.</li>
-     *     <li>Extracts the ARN of the secret stored in AWS Secrets Manager from the result.</li>
+     *     <li>Looks up the subscription record through {@link SubscriptionCache}, which reads DynamoDB on a miss.</li>
+     *     <li>Extracts the ARN of the secret stored in AWS Secrets Manager from the record.</li>
      *     <li>Fetches and deserializes the secret value into a {@link ClientCredentials} object.</li>
      * </ol>
      *
@@ -79,6 +89,34 @@ public class DBUtils {
      * @throws RuntimeException if the DynamoDB item or secret cannot be retrieved.
      */
     public static ClientCredentials getClientCredentialsFromDynamoDB(String subscriptionId) {
+        SubscriptionRecord subscription = SubscriptionCache.getSubscription(subscriptionId);
+        if (subscription == null) {
+            throw new RuntimeException("No subscription record found for subscriptionId: " + subscriptionId);
+        }
+
+        return SecretManagerUtils.getSecretCredentials(subscription.getSellerSecretsArn());
+    }
+
+    /**
+     * Drops the cached client credentials of a subscription, so that the next
+     * {@link #getClientCredentialsFromDynamoDB(String)} reads the secret from AWS Secrets Manager again.
+     *
+     * @param subscriptionId The unique subscription ID the credentials belong to.
+     */
+    public static void invalidateClientCredentials(String subscriptionId) {
+        SubscriptionRecord subscription = SubscriptionCache.getSubscription(subscriptionId);
+        if (subscription != null) {
+            SecretManagerUtils.invalidateSecret(subscription.getSellerSecretsArn());
+        }
+    }
+
+    /**
+     * Reads a single subscription record from the DynamoDB subscription table, bypassing the cache.
+     *
+     * @param subscriptionId The unique subscription ID used as the table key.
+     * @return The {@link SubscriptionRecord}, or {@code null} if no item exists for the given ID.
+     */
+    public static SubscriptionRecord getSubscriptionRecord(String subscriptionId) {
         Map<String, AttributeValue> key = Map.of(
                 SUBSCRIPTION_ID, AttributeValue.fromS(subscriptionId)
         );
@@ -89,167 +127,232 @@ public class DBUtils {
                 .build();
 
         GetItemResponse getItemResult = dynamoDbClient.getItem(getItemRequest);
-        Map<String, AttributeValue> item = getItemResult.item();
+        if (!getItemResult.hasItem() || getItemResult.item().isEmpty()) {
+            return null;
+        }
 
-        String sellerSecretArn = item.get(SELLER_SECRETS_ARN).s();
-        return SecretManagerUtils.getSecretCredentials(sellerSecretArn);
+        return toSubscriptionRecord(convertAttributes(getItemResult.item()));
     }
 
     /**
-     * Performs a parallel scan on the DynamoDB subscription table using multiple threads,
-     * aggregating all subscription records across segments.
-     * <p>
-     * This method utilizes DynamoDB's segmented scan feature to divide the workload among
-     * the specified number of threads (segments), enabling faster retrieval of large datasets.
-     * Each thread scans a unique segment and gathers subscription records independently.
-     *
-     * @param threadCount Number of parallel threads (segments) to use for the scan.
-     *                    Should typically match the read throughput capacity or number of vCPUs.
-     * @param logger      AWS Lambda logger to output progress and diagnostic information.
-     * @return A combined list of all subscription records retrieved from the table.
-     *
-     * @throws RuntimeException If the DynamoDB scan operation fails in any thread.
+     * Claims an idempotency record, unless an unexpired record with the same key already exists.
      *
-     * Environment Variable Required:
-     * - {@code CLIENT_TABLE_NAME_ENV_VARIABLE} — Name of the DynamoDB table to scan.
+     * <p>The record is written with the status {@code IN_PROGRESS} and expires at {@code leaseExpiresAtSeconds}, so
+     * that the item can be claimed again if its processing never completes, e.g. when the Lambda function times out.
+     * The record expires through the DynamoDB TTL attribute {@code ExpiresAt}. Since TTL deletion is not immediate,
+     * an existing record whose {@code ExpiresAt} has passed is overwritten.</p>
      *
-     * Note: The result is a list of maps where each map represents a subscription record with
-     * stringified key-value pairs.
+     * @param tableName             The name of the idempotency table.
+     * @param idempotencyKey        The key identifying the processed item.
+     * @param leaseExpiresAtSeconds The expiry of the claim, in epoch seconds.
+     * @return {@code null} if the record was claimed; otherwise the status of the unexpired record,
+     * {@code IN_PROGRESS} or {@code COMPLETED}.
      */
-    public static List<Map<String, String>> parallelScanAllSubscriptions(int threadCount, LambdaLogger logger) {
-        String tableName = System.getenv(CLIENT_TABLE_NAME_ENV_VARIABLE);
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
-        List<CompletableFuture<List<Map<String, String>>>> futures = new ArrayList<>();
-
-        for (int segment = 0; segment < threadCount; segment++) {
-            int finalSegment = segment;
-            futures.add(CompletableFuture.supplyAsync(() -> {
-                List<Map<String, String>> result = new ArrayList<>();
-                Map<String, AttributeValue> lastEvaluatedKey = null;
-
-                do {
-                    ScanRequest.Builder requestBuilder = ScanRequest.builder()
-                            .tableName(tableName)
-                            .totalSegments(threadCount)
-                            .segment(finalSegment)
-                            .limit(100);
-
-                    if (lastEvaluatedKey != null) {
-                        requestBuilder.exclusiveStartKey(lastEvaluatedKey);
-                    }
+    public static String claimIdempotencyRecord(String tableName, String idempotencyKey, long leaseExpiresAtSeconds) {
+        PutItemRequest putItemRequest = PutItemRequest.builder()
+                .tableName(tableName)
+                .item(Map.of(
+                        IDEMPOTENCY_KEY, AttributeValue.fromS(idempotencyKey),
+                        IDEMPOTENCY_STATUS, AttributeValue.fromS(IDEMPOTENCY_STATUS_IN_PROGRESS),
+                        EXPIRES_AT, AttributeValue.fromN(String.valueOf(leaseExpiresAtSeconds))))
+                .conditionExpression("attribute_not_exists(#key) OR #expiresAt < :now")
+                .expressionAttributeNames(Map.of("#key", IDEMPOTENCY_KEY, "#expiresAt", EXPIRES_AT))
+                .expressionAttributeValues(Map.of(
+                        ":now", AttributeValue.fromN(String.valueOf(java.time.Instant.now().getEpochSecond()))))
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
 
-                    ScanResponse response = dynamoDbClient.scan(requestBuilder.build());
-                    response.items().stream()
-                            .map(DBUtils::convertAttributes)
-                            .forEach(result::add);
+        try {
+            dynamoDbClient.putItem(putItemRequest);
+            return null;
+        } catch (ConditionalCheckFailedException e) {
+            // Records written without a status are completed ones
+            Map<String, AttributeValue> existingItem = e.item();
+            return existingItem != null && existingItem.containsKey(IDEMPOTENCY_STATUS)
+                    ? existingItem.get(IDEMPOTENCY_STATUS).s()
+                    : IDEMPOTENCY_STATUS_COMPLETED;
+        }
+    }
 
-                    lastEvaluatedKey = response.lastEvaluatedKey();
+    /**
+     * Marks a claimed idempotency record as completed, once the processing it guards succeeded.
+     *
+     * @param tableName        The name of the idempotency table.
+     * @param idempotencyKey   The key identifying the processed item.
+     * @param expiresAtSeconds The expiry of the record, in epoch seconds.
+     */
+    public static void completeIdempotencyRecord(String tableName, String idempotencyKey, long expiresAtSeconds) {
+        UpdateItemRequest updateItemRequest = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(IDEMPOTENCY_KEY, AttributeValue.fromS(idempotencyKey)))
+                .updateExpression("SET #status = :completed, #expiresAt = :expiresAt")
+                .expressionAttributeNames(Map.of("#status", IDEMPOTENCY_STATUS, "#expiresAt", EXPIRES_AT))
+                .expressionAttributeValues(Map.of(
+                        ":completed", AttributeValue.fromS(IDEMPOTENCY_STATUS_COMPLETED),
+                        ":expiresAt", AttributeValue.fromN(String.valueOf(expiresAtSeconds))))
+                .build();
 
-                } while (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty());
+        dynamoDbClient.updateItem(updateItemRequest);
+    }
 
-                logger.log("Segment " + finalSegment + " scanned " + result.size() + " items.\n");
-                return result;
+    /**
+     * Deletes an idempotency record, e.g. when the processing it guards failed and must be retried.
+     *
+     * @param tableName      The name of the idempotency table.
+     * @param idempotencyKey The key identifying the processed item.
+     */
+    public static void deleteIdempotencyRecord(String tableName, String idempotencyKey) {
+        DeleteItemRequest deleteItemRequest = DeleteItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(IDEMPOTENCY_KEY, AttributeValue.fromS(idempotencyKey)))
+                .build();
 
-            }, executor));
-        }
+        dynamoDbClient.deleteItem(deleteItemRequest);
+    }
 
-        List<Map<String, String>> combined = futures.stream()
-                .map(CompletableFuture::join)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
+    /**
+     * Maps a subscription table item, as returned by the scan methods of this class, to a {@link SubscriptionRecord}.
+     *
+     * @param item A subscription record with stringified attribute values.
+     * @return The corresponding {@link SubscriptionRecord}.
+     */
+    public static SubscriptionRecord toSubscriptionRecord(Map<String, String> item) {
+        return new SubscriptionRecord(
+                item.get(SUBSCRIPTION_ID),
+                item.get(SELLER_ID),
+                item.get(DESTINATION_ID),
+                item.get(SELLER_SECRETS_ARN));
+    }
 
-        executor.shutdown();
-        return combined;
+    /**
+     * Streams every record of the DynamoDB subscription table to the consumer, using a parallel scan.
+     *
+     * @param segmentCount Number of parallel scan segments.
+     * @param consumer     Receives each subscription record; called concurrently from the segment threads.
+     * @param logger       AWS Lambda logger to output progress and diagnostic information.
+     * @return The number of records passed to the consumer.
+     * @throws RuntimeException If the DynamoDB scan operation fails in any segment.
+     */
+    public static long scanAllSubscriptions(int segmentCount, Consumer<Map<String, String>> consumer, LambdaLogger logger) {
+        return scanSubscriptions(List.of(), List.of(), segmentCount, consumer, logger);
     }
 
     /**
-     * Performs a parallel segmented scan on the DynamoDB subscription table,
-     * filtering by provided NotificationTypes and optionally SellerIds.
+     * Streams the records of the DynamoDB subscription table matching the given NotificationTypes and SellerIds
+     * to the consumer, using a parallel segmented scan.
      * <p>
-     * The scan is distributed across multiple threads using DynamoDB's parallel scan mechanism.
-     * Each segment is processed concurrently, applying the same filter condition on NotificationType.
-     * If {@code sellerIds} is provided, additional filtering is applied after retrieval.
+     * Memory use is independent of the table size:
+     * <ul>
+     *   <li>Each segment holds a single page of up to {@code SUBSCRIPTION_SCAN_PAGE_SIZE} items at a time, and the
+     *       consumer is called on the segment thread. A slow consumer therefore slows down the scan instead of
+     *       letting records pile up.</li>
+     *   <li>Both filters are applied by DynamoDB through the {@code FilterExpression}, so non-matching records are
+     *       never returned. SellerId lists longer than the {@code IN} operand limit are filtered in memory.</li>
+     *   <li>Segments run on an executor shared by all scans of the container.</li>
+     * </ul>
      *
-     * @param notificationTypes List of NotificationType values to filter on (required).
-     * @param sellerIds         List of SellerIds to filter on (optional; if empty, all sellers are included).
-     * @param threadCount       Number of parallel scan segments/threads to use.
+     * @param notificationTypes NotificationType values to filter on (if empty, all notification types are included).
+     * @param sellerIds         SellerIds to filter on (if empty, all sellers are included).
+     * @param segmentCount      Number of parallel scan segments.
+     * @param consumer          Receives each matching record, represented as a {@code Map<String, String>} converted
+     *                          from raw attribute values; called concurrently from the segment threads.
      * @param logger            AWS Lambda logger to record progress and debug info.
-     * @return A combined list of subscription records matching the given filters.
+     * @return The number of records passed to the consumer.
      *
-     * @throws RuntimeException If the DynamoDB scan operation fails in any thread.
+     * @throws RuntimeException If the DynamoDB scan operation fails in any segment.
      *
      * Environment Variable Required:
      * - {@code CLIENT_TABLE_NAME_ENV_VARIABLE} — Name of the DynamoDB table to scan.
-     *
-     * Note:
-     * - The filter on SellerId is performed in-memory after the DynamoDB scan.
-     * - Each result item is represented as a {@code Map<String, String>} converted from raw attribute values.
      */
-    public static List<Map<String, String>> parallelScanWithNotificationTypeFilter(
+    public static long scanSubscriptions(
             List<String> notificationTypes,
             List<String> sellerIds,
-            int threadCount,
+            int segmentCount,
+            Consumer<Map<String, String>> consumer,
             LambdaLogger logger
     ) {
         String tableName = System.getenv(CLIENT_TABLE_NAME_ENV_VARIABLE);
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
-        List<CompletableFuture<List<Map<String, String>>>> futures = new ArrayList<>();
 
-        // FilterExpression: NotificationType = :nt0 OR :nt1 OR ...
-        String filterExpression = notificationTypes.stream()
-                .map(t -> NOTIFICATION_TYPE + " = :" + t)
-                .collect(Collectors.joining(" OR "));
+        // FilterExpression: NotificationType IN (:nt0, :nt1, ...) AND SellerId IN (:sid0, :sid1, ...)
+        List<String> conditions = new ArrayList<>();
+        Map<String, String> expressionNames = new HashMap<>();
+        Map<String, AttributeValue> expressionValues = new HashMap<>();
+        if (!notificationTypes.isEmpty()) {
+            conditions.add(inCondition(NOTIFICATION_TYPE, "nt", notificationTypes, expressionNames, expressionValues));
+        }
+
+        Set<String> sellerIdFilter = Set.of();
+        if (sellerIds.size() > SUBSCRIPTION_SCAN_MAX_IN_OPERANDS) {
+            sellerIdFilter = new HashSet<>(sellerIds);
+        } else if (!sellerIds.isEmpty()) {
+            conditions.add(inCondition(SELLER_ID, "sid", sellerIds, expressionNames, expressionValues));
+        }
 
-        Map<String, AttributeValue> expressionValues = notificationTypes.stream()
-                .collect(Collectors.toMap(
-                        t -> ":" + t,
-                        AttributeValue::fromS
-                ));
+        String filterExpression = conditions.isEmpty() ? null : String.join(" AND ", conditions);
+        Set<String> finalSellerIdFilter = sellerIdFilter;
 
-        for (int segment = 0; segment < threadCount; segment++) {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int segment = 0; segment < segmentCount; segment++) {
             int finalSegment = segment;
 
             futures.add(CompletableFuture.supplyAsync(() -> {
-                List<Map<String, String>> result = new ArrayList<>();
+                long count = 0;
                 Map<String, AttributeValue> lastEvaluatedKey = null;
 
                 do {
                     ScanRequest.Builder scanBuilder = ScanRequest.builder()
                             .tableName(tableName)
                             .segment(finalSegment)
-                            .totalSegments(threadCount)
-                            .limit(100)
-                            .filterExpression(filterExpression)
-                            .expressionAttributeValues(expressionValues);
+                            .totalSegments(segmentCount)
+                            .limit(SUBSCRIPTION_SCAN_PAGE_SIZE);
+
+                    if (filterExpression != null) {
+                        scanBuilder.filterExpression(filterExpression)
+                                .expressionAttributeNames(expressionNames)
+                                .expressionAttributeValues(expressionValues);
+                    }
 
                     if (lastEvaluatedKey != null) {
                         scanBuilder.exclusiveStartKey(lastEvaluatedKey);
                     }
 
                     ScanResponse response = dynamoDbClient.scan(scanBuilder.build());
-
-                    response.items().stream()
-                            .map(DBUtils::convertAttributes)
-                            .filter(record -> sellerIds.isEmpty() || sellerIds.contains(record.get(SELLER_ID)))
-                            .forEach(result::add);
+                    for (Map<String, AttributeValue> item : response.items()) {
+                        Map<String, String> record = convertAttributes(item);
+                        if (finalSellerIdFilter.isEmpty() || finalSellerIdFilter.contains(record.get(SELLER_ID))) {
+                            consumer.accept(record);
+                            count++;
+                        }
+                    }
 
                     lastEvaluatedKey = response.lastEvaluatedKey();
 
                 } while (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty());
 
-                logger.log(String.format("Segment %d processed %d matching items\n", finalSegment, result.size()));
-                return result;
+                logger.log(String.format("Segment %d processed %d matching items\n", finalSegment, count));
+                return count;
 
-            }, executor));
+            }, scanExecutor));
         }
 
-        List<Map<String, String>> combined = futures.stream()
-                .map(CompletableFuture::join)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
+        return futures.stream()
+                .mapToLong(CompletableFuture::join)
+                .sum();
+    }
+
+    //Builds "#name IN (:prefix0, :prefix1, ...)" and registers its placeholders
+    private static String inCondition(String attributeName, String prefix, List<String> values,
+                                      Map<String, String> expressionNames, Map<String, AttributeValue> expressionValues) {
+        expressionNames.put("#" + prefix, attributeName);
+
+        List<String> placeholders = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            String placeholder = ":" + prefix + i;
+            placeholders.add(placeholder);
+            expressionValues.put(placeholder, AttributeValue.fromS(values.get(i)));
+        }
 
-        executor.shutdown();
-        return combined;
+        return "#" + prefix + " IN (" + String.join(", ", placeholders) + ")";
     }
 
 
@@ -278,6 +381,7 @@ public class DBUtils {
                 .build();
 
         dynamoDbClient.deleteItem(request);
+        SubscriptionCache.invalidate(subscriptionId);
     }
 
     /**
@@ -0,0 +1,337 @@
+package lambda.utils;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.google.common.collect.Iterables;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lambda.common.ReprocessCheckpoint;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static lambda.common.Constants.*;
+import static lambda.common.EnvironmentUtils.getLongEnv;
+
+/**
+ * Drains a DLQ SQS queue by handing every message to a {@link MessageProcessor}, as used by the SQS reprocess handlers.
+ *
+ * <p>The reprocessor is built for draining large backlogs within a single Lambda invocation:</p>
+ * <ul>
+ *   <li><b>Concurrent receive loops</b>: {@code DLQ_REPROCESS_RECEIVE_CONCURRENCY} loops (default 2) long-poll the
+ *       queue in parallel, each until it receives an empty response.</li>
+ *   <li><b>Bounded worker parallelism</b>: received messages are processed by a pool of
+ *       {@code DLQ_REPROCESS_WORKER_CONCURRENCY} threads (default 8).</li>
+ *   <li><b>Batch delete</b>: processed messages of a receive are deleted with a single {@code DeleteMessageBatch}.</li>
+ *   <li><b>Visibility extension</b>: messages are received with {@code DLQ_REPROCESS_VISIBILITY_TIMEOUT_SECONDS}
+ *       (default 60), and the visibility of messages still being processed is extended every half timeout, so slow
+ *       targets do not cause duplicate deliveries.</li>
+ *   <li><b>Time budget</b>: no message is received or started once the remaining Lambda time drops below
+ *       {@code DLQ_REPROCESS_TIME_BUFFER_SECONDS} (default 30). Received messages that were not started are made
+ *       visible again immediately.</li>
+ *   <li><b>Checkpoint</b>: the result is a JSON {@link ReprocessCheckpoint}. When the time budget ran out,
+ *       {@code complete} is {@code false}, and invoking the handler again with the checkpoint as input continues
+ *       the run, accumulating its counters, instead of starting a new one.</li>
+ * </ul>
+ */
+public class DlqReprocessor {
+
+    private static final SqsClient sqsClient = SqsClient.create();
+    private static final Gson gson = new Gson();
+
+    private static final int RECEIVE_CONCURRENCY = (int) getLongEnv(
+            DLQ_REPROCESS_RECEIVE_CONCURRENCY_ENV_VARIABLE, DLQ_REPROCESS_DEFAULT_RECEIVE_CONCURRENCY);
+    private static final int WORKER_CONCURRENCY = (int) getLongEnv(
+            DLQ_REPROCESS_WORKER_CONCURRENCY_ENV_VARIABLE, DLQ_REPROCESS_DEFAULT_WORKER_CONCURRENCY);
+    private static final int VISIBILITY_TIMEOUT_SECONDS = (int) getLongEnv(
+            DLQ_REPROCESS_VISIBILITY_TIMEOUT_SECONDS_ENV_VARIABLE, DLQ_REPROCESS_DEFAULT_VISIBILITY_TIMEOUT_SECONDS);
+    private static final long TIME_BUFFER_MILLIS = TimeUnit.SECONDS.toMillis(getLongEnv(
+            DLQ_REPROCESS_TIME_BUFFER_SECONDS_ENV_VARIABLE, DLQ_REPROCESS_DEFAULT_TIME_BUFFER_SECONDS));
+
+    /**
+     * Processes a single DLQ message.
+     */
+    @FunctionalInterface
+    public interface MessageProcessor {
+
+        /**
+         * @param message The SQS message received from the DLQ
+         * @return {@code true} if the message was processed and must be deleted, {@code false} if it was skipped and
+         * must be left in the queue
+         * @throws Exception If processing failed; the message is left in the queue
+         */
+        boolean process(Message message) throws Exception;
+    }
+
+    private enum Outcome {
+        PROCESSED, SKIPPED, FAILED, RELEASED
+    }
+
+    private final String queueUrl;
+    private final Context context;
+    private final LambdaLogger logger;
+    private final MessageProcessor processor;
+
+    private final Map<String, String> inFlightReceiptHandles = new ConcurrentHashMap<>();
+    private final AtomicBoolean outOfTime = new AtomicBoolean(false);
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    private ExecutorService workers;
+
+    private DlqReprocessor(String queueUrl, Context context, MessageProcessor processor) {
+        this.queueUrl = queueUrl;
+        this.context = context;
+        this.logger = context.getLogger();
+        this.processor = processor;
+    }
+
+    /**
+     * Reprocesses the messages of a DLQ until it is empty or the time budget of the invocation is exhausted.
+     *
+     * @param queueUrl  The URL of the DLQ
+     * @param input     The handler input; a checkpoint returned by a previous, incomplete invocation continues that run
+     * @param context   The Lambda context, used for logging and the remaining execution time
+     * @param processor The processor invoked for every message, possibly from several threads concurrently
+     * @return The JSON representation of the resulting {@link ReprocessCheckpoint}
+     */
+    public static String reprocess(String queueUrl, Object input, Context context, MessageProcessor processor) {
+        ReprocessCheckpoint checkpoint = readCheckpoint(input);
+        checkpoint.setInvocationCount(checkpoint.getInvocationCount() + 1);
+
+        DlqReprocessor reprocessor = new DlqReprocessor(queueUrl, context, processor);
+        boolean complete = reprocessor.run();
+
+        checkpoint.setSuccessCount(checkpoint.getSuccessCount() + reprocessor.successCount.get());
+        checkpoint.setFailureCount(checkpoint.getFailureCount() + reprocessor.failureCount.get());
+        checkpoint.setSkippedCount(checkpoint.getSkippedCount() + reprocessor.skippedCount.get());
+        checkpoint.setComplete(complete);
+
+        context.getLogger().log(String.format("Reprocessing %s. Success: %d, Failure: %d, Skipped: %d, Invocations: %d",
+                complete ? "complete" : "paused, invoke again with the returned checkpoint to continue",
+                checkpoint.getSuccessCount(), checkpoint.getFailureCount(), checkpoint.getSkippedCount(),
+                checkpoint.getInvocationCount()));
+
+        return gson.toJson(checkpoint);
+    }
+
+    private boolean run() {
+        ExecutorService receivers = Executors.newFixedThreadPool(RECEIVE_CONCURRENCY, daemonThreadFactory("dlq-receive"));
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("dlq-heartbeat"));
+        workers = Executors.newFixedThreadPool(WORKER_CONCURRENCY, daemonThreadFactory("dlq-worker"));
+
+        long heartbeatPeriodSeconds = Math.max(VISIBILITY_TIMEOUT_SECONDS / 2, 1);
+        heartbeat.scheduleAtFixedRate(this::extendVisibility, heartbeatPeriodSeconds, heartbeatPeriodSeconds, TimeUnit.SECONDS);
+
+        boolean receiveFailed = false;
+        try {
+            List<Callable<Void>> receiveLoops = new ArrayList<>();
+            for (int i = 0; i < RECEIVE_CONCURRENCY; i++) {
+                receiveLoops.add(() -> {
+                    receiveLoop();
+                    return null;
+                });
+            }
+
+            for (Future<Void> receiveLoop : receivers.invokeAll(receiveLoops)) {
+                try {
+                    receiveLoop.get();
+                } catch (ExecutionException e) {
+                    logger.log("Receive loop failed. Error: " + e.getCause().getMessage());
+                    receiveFailed = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            receiveFailed = true;
+        } finally {
+            heartbeat.shutdownNow();
+            receivers.shutdownNow();
+            workers.shutdownNow();
+        }
+
+        return !outOfTime.get() && !receiveFailed;
+    }
+
+    private void receiveLoop() throws InterruptedException {
+        while (hasTime(TimeUnit.SECONDS.toMillis(DLQ_REPROCESS_WAIT_TIME_SECONDS))) {
+            List<Message> messages = sqsClient.receiveMessage(ReceiveMessageRequest.builder()
+                    .queueUrl(queueUrl)
+                    .maxNumberOfMessages(BATCH_SIZE)
+                    .waitTimeSeconds(DLQ_REPROCESS_WAIT_TIME_SECONDS)
+                    .visibilityTimeout(VISIBILITY_TIMEOUT_SECONDS)
+                    .build()).messages();
+
+            if (messages.isEmpty()) {
+                logger.log("No more messages found. Exiting reprocessing loop.");
+                return;
+            }
+
+            List<Future<Outcome>> outcomes = new ArrayList<>();
+            for (Message message : messages) {
+                inFlightReceiptHandles.put(message.messageId(), message.receiptHandle());
+                outcomes.add(workers.submit(() -> processMessage(message)));
+            }
+
+            List<Message> processedMessages = new ArrayList<>();
+            List<Message> releasedMessages = new ArrayList<>();
+            for (int i = 0; i < messages.size(); i++) {
+                Outcome outcome;
+                try {
+                    outcome = outcomes.get(i).get();
+                } catch (ExecutionException e) {
+                    outcome = Outcome.FAILED;
+                }
+
+                if (outcome == Outcome.PROCESSED) {
+                    processedMessages.add(messages.get(i));
+                } else if (outcome == Outcome.RELEASED) {
+                    releasedMessages.add(messages.get(i));
+                }
+            }
+
+            deleteMessages(processedMessages);
+            changeVisibility(releasedMessages, 0);
+            messages.forEach(message -> inFlightReceiptHandles.remove(message.messageId()));
+        }
+
+        outOfTime.set(true);
+    }
+
+    private Outcome processMessage(Message message) {
+        if (!hasTime(0)) {
+            outOfTime.set(true);
+            return Outcome.RELEASED;
+        }
+
+        try {
+            logger.log("Reprocessing MessageId: " + message.messageId());
+            if (processor.process(message)) {
+                successCount.incrementAndGet();
+                return Outcome.PROCESSED;
+            }
+
+            skippedCount.incrementAndGet();
+            return Outcome.SKIPPED;
+        } catch (Exception e) {
+            logger.log("Reprocessing failed for MessageId: " + message.messageId() + " Error: " + e.getMessage());
+            failureCount.incrementAndGet();
+            return Outcome.FAILED;
+        }
+    }
+
+    private void deleteMessages(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(DeleteMessageBatchRequestEntry.builder()
+                    .id(String.valueOf(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .build());
+        }
+
+        try {
+            DeleteMessageBatchResponse response = sqsClient.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(entries)
+                    .build());
+
+            for (BatchResultErrorEntry error : response.failed()) {
+                logger.log("Failed to delete MessageId: " + messages.get(Integer.parseInt(error.id())).messageId() +
+                        " Error: " + error.message());
+            }
+        } catch (Exception e) {
+            logger.log("Failed to delete message batch. Error: " + e.getMessage());
+        }
+    }
+
+    //Extend the visibility timeout of the messages that are still being processed
+    private void extendVisibility() {
+        List<Message> inFlightMessages = new ArrayList<>();
+        inFlightReceiptHandles.forEach((messageId, receiptHandle) -> inFlightMessages.add(Message.builder()
+                .messageId(messageId)
+                .receiptHandle(receiptHandle)
+                .build()));
+
+        for (List<Message> chunk : Iterables.partition(inFlightMessages, BATCH_SIZE)) {
+            changeVisibility(chunk, VISIBILITY_TIMEOUT_SECONDS);
+        }
+    }
+
+    private void changeVisibility(List<Message> messages, int visibilityTimeoutSeconds) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(String.valueOf(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .visibilityTimeout(visibilityTimeoutSeconds)
+                    .build());
+        }
+
+        try {
+            sqsClient.changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(entries)
+                    .build());
+        } catch (Exception e) {
+            logger.log("Failed to change message visibility. Error: " + e.getMessage());
+        }
+    }
+
+    private boolean hasTime(long requiredMillis) {
+        return context.getRemainingTimeInMillis() > TIME_BUFFER_MILLIS + requiredMillis;
+    }
+
+    private static ReprocessCheckpoint readCheckpoint(Object input) {
+        ReprocessCheckpoint checkpoint = null;
+        try {
+            if (input instanceof String) {
+                checkpoint = gson.fromJson((String) input, ReprocessCheckpoint.class);
+            } else if (input instanceof Map) {
+                checkpoint = gson.fromJson(gson.toJsonTree(input), ReprocessCheckpoint.class);
+            }
+        } catch (JsonParseException e) {
+            // Not a checkpoint, e.g. a manual invocation with an arbitrary payload
+        }
+
+        // A completed run is not continued, the next invocation starts a new one
+        return checkpoint == null || checkpoint.isComplete() ? new ReprocessCheckpoint() : checkpoint;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package lambda.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lambda.common.NotificationEnvelope;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Reads the routing fields of an SP-API notification in a single streaming pass.
+ *
+ * <p>Handlers only need a handful of fields to route a notification ({@code NotificationType}, {@code SubscriptionId},
+ * and for ORDER_CHANGE the {@code AmazonOrderId}, {@code NotificationLevel}, {@code OrderStatus} and
+ * {@code TimeOfOrderChange}). Instead of parsing the body into a tree, the reader walks the tokens with a Jackson
+ * {@link JsonParser}:</p>
+ * <ul>
+ *   <li>Only the objects on the path to a routing field are descended into; other objects and arrays are skipped
+ *       without being materialized.</li>
+ *   <li>An EventBridge {@code detail} object is located by its character offsets, so it can be forwarded as a
+ *       substring of the body instead of being parsed and re-serialized.</li>
+ *   <li>Double-encoded bodies (a JSON string containing the notification) are decoded once.</li>
+ * </ul>
+ */
+public class NotificationEnvelopeReader {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static final String EVENT_BRIDGE_DETAIL = "detail";
+
+    //Objects containing routing fields, relative to the notification
+    private static final Set<String> ROUTING_PATHS = Set.of(
+            "NotificationMetadata",
+            "Payload",
+            "Payload.OrderChangeNotification",
+            "Payload.OrderChangeNotification.OrderChangeTrigger",
+            "Payload.OrderChangeNotification.Summary");
+
+    /**
+     * Reads the routing fields of the notification contained in the message body.
+     *
+     * @param body The raw message body: a notification, an EventBridge event or a double-encoded string of either
+     * @return The envelope; fields that are not present are {@code null}
+     * @throws IOException If the body is not a JSON object
+     */
+    public static NotificationEnvelope read(String body) throws IOException {
+        NotificationEnvelope envelope = new NotificationEnvelope();
+        String source = body;
+
+        try (JsonParser parser = jsonFactory.createParser(source)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_STRING) {
+                // Double-encoded body, the offsets refer to the decoded string
+                source = parser.getText();
+            } else {
+                envelope.setSource(source);
+                readObject(parser, token, "", true, envelope);
+                return envelope;
+            }
+        }
+
+        try (JsonParser parser = jsonFactory.createParser(source)) {
+            envelope.setSource(source);
+            readObject(parser, parser.nextToken(), "", true, envelope);
+            return envelope;
+        }
+    }
+
+    private static void readObject(JsonParser parser, JsonToken token, String path, boolean root,
+                                   NotificationEnvelope envelope) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object but found " + token);
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            String fieldPath = path.isEmpty() ? name : path + "." + name;
+            JsonToken value = parser.nextToken();
+
+            if (value == JsonToken.START_OBJECT) {
+                if (root && EVENT_BRIDGE_DETAIL.equals(name)) {
+                    envelope.setDetailStart((int) parser.getTokenLocation().getCharOffset());
+                    readObject(parser, value, "", false, envelope);
+                    envelope.setDetailEnd((int) parser.getCurrentLocation().getCharOffset());
+                } else if (ROUTING_PATHS.contains(fieldPath)) {
+                    readObject(parser, value, fieldPath, false, envelope);
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (value == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            } else if (value == JsonToken.VALUE_STRING) {
+                readField(fieldPath, parser.getText(), envelope);
+            }
+        }
+    }
+
+    private static void readField(String fieldPath, String value, NotificationEnvelope envelope) {
+        switch (fieldPath) {
+            case "NotificationType":
+                envelope.setNotificationType(value);
+                break;
+            case "NotificationMetadata.SubscriptionId":
+                envelope.setSubscriptionId(value);
+                break;
+            case "Payload.OrderChangeNotification.AmazonOrderId":
+                envelope.setAmazonOrderId(value);
+                break;
+            case "Payload.OrderChangeNotification.NotificationLevel":
+                envelope.setNotificationLevel(value);
+                break;
+            case "Payload.OrderChangeNotification.Summary.OrderStatus":
+                envelope.setOrderStatus(value);
+                break;
+            case "Payload.OrderChangeNotification.OrderChangeTrigger.TimeOfOrderChange":
+                envelope.setTimeOfOrderChange(value);
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package lambda.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static lambda.common.Constants.*;
+import static lambda.common.EnvironmentUtils.getLongEnv;
+
+/**
+ * Short-lived, per-container cache of enriched order payloads (order and order items), keyed by order and change.
+ *
+ * <p>The same ORDER_CHANGE notification is often delivered more than once within a short burst (redeliveries and
+ * retries). This cache lets the deliveries of one order change, identified by its {@code TimeOfOrderChange}, share a
+ * single {@code getOrder} + {@code getOrderItems} fetch, which matters because {@code getOrderItems} is tightly
+ * throttled. A later change of the order is always fetched again, so it never gets a stale payload:</p>
+ * <ul>
+ *   <li>The cache is disabled unless {@code ORDER_CACHE_TTL_SECONDS} is set to a positive value.</li>
+ *   <li>Concurrent lookups of the same key share one in-flight fetch; failed fetches are not cached.</li>
+ *   <li>The cache holds at most {@code ORDER_CACHE_MAX_SIZE} entries (default 1000) and evicts the least recently
+ *       used one.</li>
+ * </ul>
+ */
+public class OrderCache {
+
+    private static final long TTL_MILLIS = getLongEnv(
+            ORDER_CACHE_TTL_SECONDS_ENV_VARIABLE, ORDER_CACHE_DEFAULT_TTL_SECONDS) * 1000;
+    private static final int MAX_SIZE = (int) getLongEnv(
+            ORDER_CACHE_MAX_SIZE_ENV_VARIABLE, ORDER_CACHE_DEFAULT_MAX_SIZE);
+
+    // Access-ordered map, the eldest entry is the least recently used order
+    private static final Map<String, CachedOrder> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedOrder> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    /**
+     * Returns the cached payload for the given key, loading it with the loader on a miss.
+     *
+     * @param key    The cache key identifying the order and its change, or {@code null} to bypass the cache
+     * @param loader Function that fetches the payload
+     * @return The payload
+     * @throws Exception If the loader fails
+     */
+    public static String get(String key, Callable<String> loader) throws Exception {
+        if (key == null || TTL_MILLIS <= 0) {
+            return loader.call();
+        }
+
+        CompletableFuture<String> future;
+        boolean owner = false;
+        synchronized (cache) {
+            CachedOrder cached = cache.get(key);
+            if (cached == null || System.currentTimeMillis() >= cached.expiresAt) {
+                cached = new CachedOrder(new CompletableFuture<>(), System.currentTimeMillis() + TTL_MILLIS);
+                cache.put(key, cached);
+                owner = true;
+            }
+            future = cached.payload;
+        }
+
+        if (owner) {
+            try {
+                future.complete(loader.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                invalidate(key);
+            }
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the given key from the cache.
+     *
+     * @param key The cache key to invalidate
+     */
+    public static void invalidate(String key) {
+        synchronized (cache) {
+            cache.remove(key);
+        }
+    }
+
+    private static final class CachedOrder {
+        private final CompletableFuture<String> payload;
+        private final long expiresAt;
+
+        private CachedOrder(CompletableFuture<String> payload, long expiresAt) {
+            this.payload = payload;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
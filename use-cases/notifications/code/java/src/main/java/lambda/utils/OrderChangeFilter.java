@@ -0,0 +1,269 @@
+package lambda.utils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static lambda.common.Constants.*;
+import static lambda.common.EnvironmentUtils.getLongEnv;
+
+/**
+ * Decides whether an ORDER_CHANGE notification triggers further processing, before any SP-API or Step Functions work.
+ *
+ * <p>The filter applies, in order:</p>
+ * <ul>
+ *   <li><b>Allowlists</b>: a table of rules matching a field of the notification against a comma-separated allowlist
+ *       ({@code ORDER_CHANGE_FILTER_ORDER_STATUSES}, {@code ORDER_CHANGE_FILTER_MARKETPLACE_IDS} and
+ *       {@code ORDER_CHANGE_FILTER_FULFILLMENT_TYPES}). A rule is disabled when its variable is not set.</li>
+ *   <li><b>Recently seen</b>: a bounded, per-container set of the latest {@code ORDER_CHANGE_RECENTLY_SEEN_MAX_SIZE}
+ *       (default 10000) order changes, which drops redeliveries without a DynamoDB call.</li>
+ *   <li><b>Idempotency record</b>: when {@code ORDER_CHANGE_IDEMPOTENCY_TABLE_NAME} is set, a conditional write of an
+ *       {@code IN_PROGRESS} record leased for {@code ORDER_CHANGE_IDEMPOTENCY_LEASE_SECONDS} (default 60, the Lambda
+ *       timeout). Callers {@link #complete(JsonObject) complete} the record once the order change is processed, which
+ *       keeps it for {@code ORDER_CHANGE_IDEMPOTENCY_TTL_SECONDS} (default 1 day) and drops duplicates processed by
+ *       other containers. A record that is never completed, e.g. because the Lambda timed out, can be claimed again
+ *       once its lease expires, so the order change is not lost.</li>
+ * </ul>
+ *
+ * <p>An order change is identified by its {@code AmazonOrderId}, the {@code TimeOfOrderChange} and
+ * {@code ChangeReason} of its {@code OrderChangeTrigger}, and its {@code OrderStatus}, so that successive changes
+ * of an order that keep the same status (e.g. a buyer-requested cancellation or an item update) are all processed.
+ * Callers must {@link #release(JsonObject) release} an order change whose processing fails, so that its retry does
+ * not wait for the lease to expire. Skipped notifications are counted per {@link SkipReason} for the lifetime of the
+ * container.</p>
+ */
+public class OrderChangeFilter {
+
+    public enum SkipReason {
+        NOTIFICATION_TYPE,
+        NOTIFICATION_LEVEL,
+        PENDING_STATUS,
+        MISSING_FIELDS,
+        ORDER_STATUS,
+        MARKETPLACE,
+        FULFILLMENT_TYPE,
+        RECENTLY_SEEN,
+        IDEMPOTENCY_RECORD
+    }
+
+    private static final List<Rule> RULES = buildRules();
+
+    private static final String IDEMPOTENCY_TABLE_NAME = System.getenv(ORDER_CHANGE_IDEMPOTENCY_TABLE_NAME_ENV_VARIABLE);
+    private static final long IDEMPOTENCY_TTL_SECONDS = getLongEnv(
+            ORDER_CHANGE_IDEMPOTENCY_TTL_SECONDS_ENV_VARIABLE, ORDER_CHANGE_IDEMPOTENCY_DEFAULT_TTL_SECONDS);
+    private static final long IDEMPOTENCY_LEASE_SECONDS = getLongEnv(
+            ORDER_CHANGE_IDEMPOTENCY_LEASE_SECONDS_ENV_VARIABLE, ORDER_CHANGE_IDEMPOTENCY_DEFAULT_LEASE_SECONDS);
+    private static final int RECENTLY_SEEN_MAX_SIZE = (int) getLongEnv(
+            ORDER_CHANGE_RECENTLY_SEEN_MAX_SIZE_ENV_VARIABLE, ORDER_CHANGE_RECENTLY_SEEN_DEFAULT_MAX_SIZE);
+
+    // Access-ordered map used as a set, the eldest entry is the least recently seen order change
+    private static final Map<String, Boolean> recentlySeen = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > RECENTLY_SEEN_MAX_SIZE;
+        }
+    };
+
+    private static final Map<SkipReason, AtomicLong> skipCounts = new EnumMap<>(SkipReason.class);
+
+    static {
+        for (SkipReason reason : SkipReason.values()) {
+            skipCounts.put(reason, new AtomicLong());
+        }
+    }
+
+    /**
+     * Evaluates the filter for the given notification. Unless the notification is skipped, its order change is
+     * marked as seen.
+     *
+     * @param body The parsed ORDER_CHANGE notification
+     * @return The reason the notification is skipped, or {@code null} if it should be processed
+     * @throws software.amazon.awssdk.core.exception.SdkException If the idempotency record cannot be written
+     * @throws IllegalStateException If the order change is being processed by another invocation, so that the
+     *                               notification is retried once the lease of that invocation expires
+     */
+    public static SkipReason evaluate(JsonObject body) {
+        JsonObject orderChange = getObject(body, "Payload", "OrderChangeNotification");
+
+        for (Rule rule : RULES) {
+            String value = getString(orderChange, rule.path);
+            if (value == null || !rule.allowedValues.contains(value)) {
+                return recordSkip(rule.reason);
+            }
+        }
+
+        String idempotencyKey = getIdempotencyKey(orderChange);
+        if (idempotencyKey == null) {
+            return recordSkip(SkipReason.MISSING_FIELDS);
+        }
+
+        synchronized (recentlySeen) {
+            if (recentlySeen.put(idempotencyKey, Boolean.TRUE) != null) {
+                return recordSkip(SkipReason.RECENTLY_SEEN);
+            }
+        }
+
+        if (IDEMPOTENCY_TABLE_NAME != null && !IDEMPOTENCY_TABLE_NAME.isEmpty()) {
+            String existingStatus;
+            try {
+                existingStatus = DBUtils.claimIdempotencyRecord(IDEMPOTENCY_TABLE_NAME, idempotencyKey,
+                        Instant.now().getEpochSecond() + IDEMPOTENCY_LEASE_SECONDS);
+            } catch (RuntimeException e) {
+                forget(idempotencyKey);
+                throw e;
+            }
+
+            if (IDEMPOTENCY_STATUS_COMPLETED.equals(existingStatus)) {
+                return recordSkip(SkipReason.IDEMPOTENCY_RECORD);
+            }
+            if (existingStatus != null) {
+                // The other invocation may still fail, so the notification must not be dropped
+                forget(idempotencyKey);
+                throw new IllegalStateException("Order change " + idempotencyKey + " is already being processed");
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Completes the order change of a notification that passed the filter and was processed, so that its
+     * duplicates are skipped for {@code ORDER_CHANGE_IDEMPOTENCY_TTL_SECONDS}.
+     *
+     * @param body The parsed ORDER_CHANGE notification
+     */
+    public static void complete(JsonObject body) {
+        String idempotencyKey = getIdempotencyKey(getObject(body, "Payload", "OrderChangeNotification"));
+        if (idempotencyKey == null) {
+            return;
+        }
+
+        if (IDEMPOTENCY_TABLE_NAME != null && !IDEMPOTENCY_TABLE_NAME.isEmpty()) {
+            DBUtils.completeIdempotencyRecord(IDEMPOTENCY_TABLE_NAME, idempotencyKey,
+                    Instant.now().getEpochSecond() + IDEMPOTENCY_TTL_SECONDS);
+        }
+    }
+
+    /**
+     * Releases the order change of a notification that passed the filter but failed to be processed, so that its
+     * retry is processed again. If the idempotency record cannot be deleted, the retry is processed once its lease
+     * expires.
+     *
+     * @param body The parsed ORDER_CHANGE notification
+     */
+    public static void release(JsonObject body) {
+        String idempotencyKey = getIdempotencyKey(getObject(body, "Payload", "OrderChangeNotification"));
+        if (idempotencyKey == null) {
+            return;
+        }
+
+        forget(idempotencyKey);
+        if (IDEMPOTENCY_TABLE_NAME != null && !IDEMPOTENCY_TABLE_NAME.isEmpty()) {
+            DBUtils.deleteIdempotencyRecord(IDEMPOTENCY_TABLE_NAME, idempotencyKey);
+        }
+    }
+
+    /**
+     * Counts a skipped notification.
+     *
+     * @param reason The reason the notification is skipped
+     * @return The given reason
+     */
+    public static SkipReason recordSkip(SkipReason reason) {
+        skipCounts.get(reason).incrementAndGet();
+        return reason;
+    }
+
+    /**
+     * Returns the number of skipped notifications per reason since the container started.
+     */
+    public static Map<SkipReason, Long> getSkipCounts() {
+        Map<SkipReason, Long> counts = new EnumMap<>(SkipReason.class);
+        skipCounts.forEach((reason, count) -> counts.put(reason, count.get()));
+        return counts;
+    }
+
+    private static List<Rule> buildRules() {
+        List<Rule> rules = new ArrayList<>();
+        addRule(rules, SkipReason.ORDER_STATUS, ORDER_CHANGE_FILTER_ORDER_STATUSES_ENV_VARIABLE, "Summary", "OrderStatus");
+        addRule(rules, SkipReason.MARKETPLACE, ORDER_CHANGE_FILTER_MARKETPLACE_IDS_ENV_VARIABLE, "Summary", "MarketplaceId");
+        addRule(rules, SkipReason.FULFILLMENT_TYPE, ORDER_CHANGE_FILTER_FULFILLMENT_TYPES_ENV_VARIABLE, "Summary", "FulfillmentType");
+        return Collections.unmodifiableList(rules);
+    }
+
+    private static void addRule(List<Rule> rules, SkipReason reason, String envVariable, String... path) {
+        String value = System.getenv(envVariable);
+        if (value == null || value.isBlank()) {
+            return;
+        }
+
+        Set<String> allowedValues = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(allowedValue -> !allowedValue.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        rules.add(new Rule(reason, path, allowedValues));
+    }
+
+    private static String getIdempotencyKey(JsonObject orderChange) {
+        String amazonOrderId = getString(orderChange, "AmazonOrderId");
+        String timeOfOrderChange = getString(orderChange, "OrderChangeTrigger", "TimeOfOrderChange");
+        String changeReason = getString(orderChange, "OrderChangeTrigger", "ChangeReason");
+        String orderStatus = getString(orderChange, "Summary", "OrderStatus");
+        if (amazonOrderId == null || timeOfOrderChange == null || orderStatus == null) {
+            return null;
+        }
+
+        return String.join("#", amazonOrderId, timeOfOrderChange, changeReason != null ? changeReason : "", orderStatus);
+    }
+
+    private static void forget(String idempotencyKey) {
+        synchronized (recentlySeen) {
+            recentlySeen.remove(idempotencyKey);
+        }
+    }
+
+    private static JsonObject getObject(JsonObject object, String... path) {
+        JsonElement element = getElement(object, path);
+        return element != null && element.isJsonObject() ? element.getAsJsonObject() : null;
+    }
+
+    private static String getString(JsonObject object, String... path) {
+        JsonElement element = getElement(object, path);
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    private static JsonElement getElement(JsonObject object, String... path) {
+        JsonElement element = object;
+        for (String name : path) {
+            if (element == null || !element.isJsonObject()) {
+                return null;
+            }
+            element = element.getAsJsonObject().get(name);
+        }
+
+        return element;
+    }
+
+    private static final class Rule {
+        private final SkipReason reason;
+        private final String[] path;
+        private final Set<String> allowedValues;
+
+        private Rule(SkipReason reason, String[] path, Set<String> allowedValues) {
+            this.reason = reason;
+            this.path = path;
+            this.allowedValues = allowedValues;
+        }
+    }
+}
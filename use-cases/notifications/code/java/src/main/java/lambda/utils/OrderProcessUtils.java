@@ -9,11 +9,17 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import lambda.common.AppCredentials;
 import lambda.common.ClientCredentials;
+import lambda.common.NotificationEnvelope;
 import software.amazon.spapi.ApiException;
 import software.amazon.spapi.api.orders.v0.OrdersV0Api;
 import software.amazon.spapi.models.orders.v0.GetOrderItemsResponse;
 import software.amazon.spapi.models.orders.v0.GetOrderResponse;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static lambda.common.Constants.*;
 import static lambda.utils.DBUtils.getClientCredentialsFromDynamoDB;
@@ -22,6 +28,12 @@ public class OrderProcessUtils {
 
     private static final Gson gson = new Gson();
 
+    private static final ExecutorService orderFetchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "order-fetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
 
     /**
      * Determines whether the given SP-API ORDER_CHANGE notification should be processed,
@@ -45,6 +57,7 @@ public class OrderProcessUtils {
         String notificationType = body.get("NotificationType").getAsString();
         if (!NOTIFICATION_TYPE_ORDER_CHANGE.equals(notificationType)) {
             logger.log(String.format("Notification type %s skipped", notificationType));
+            OrderChangeFilter.recordSkip(OrderChangeFilter.SkipReason.NOTIFICATION_TYPE);
             return false;
         }
 
@@ -54,6 +67,7 @@ public class OrderProcessUtils {
                 .get("NotificationLevel").getAsString();
         if (!NOTIFICATION_LEVEL_ORDER_LEVEL.equals(notificationLevel)) {
             logger.log(String.format("Notification level %s skipped", notificationLevel));
+            OrderChangeFilter.recordSkip(OrderChangeFilter.SkipReason.NOTIFICATION_LEVEL);
             return false;
         }
 
@@ -64,6 +78,40 @@ public class OrderProcessUtils {
                 .get("OrderStatus").getAsString();
         if (NOTIFICATION_IGNORE_ORDER_STATUS.equals(orderStatus)) {
             logger.log("Skip sending notification because orderStatus is still Pending... ");
+            OrderChangeFilter.recordSkip(OrderChangeFilter.SkipReason.PENDING_STATUS);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Same as {@link #shouldProcessOrderNotification(JsonObject, LambdaLogger)}, applied to the routing fields read
+     * by {@link NotificationEnvelopeReader}.
+     *
+     * @param envelope The routing fields of the SP-API notification.
+     * @param logger   The Lambda logger used to output diagnostic messages.
+     * @return {@code true} if the notification meets all processing criteria; {@code false} otherwise.
+     */
+    public static boolean shouldProcessOrderNotification(NotificationEnvelope envelope, LambdaLogger logger) {
+        // Only process the notification if it is of type 'ORDER_CHANGE'
+        if (!NOTIFICATION_TYPE_ORDER_CHANGE.equals(envelope.getNotificationType())) {
+            logger.log(String.format("Notification type %s skipped", envelope.getNotificationType()));
+            OrderChangeFilter.recordSkip(OrderChangeFilter.SkipReason.NOTIFICATION_TYPE);
+            return false;
+        }
+
+        // Only process the notification is OrderLevel
+        if (!NOTIFICATION_LEVEL_ORDER_LEVEL.equals(envelope.getNotificationLevel())) {
+            logger.log(String.format("Notification level %s skipped", envelope.getNotificationLevel()));
+            OrderChangeFilter.recordSkip(OrderChangeFilter.SkipReason.NOTIFICATION_LEVEL);
+            return false;
+        }
+
+        // Skip if orderStatus is Pending
+        if (NOTIFICATION_IGNORE_ORDER_STATUS.equals(envelope.getOrderStatus())) {
+            logger.log("Skip sending notification because orderStatus is still Pending... ");
+            OrderChangeFilter.recordSkip(OrderChangeFilter.SkipReason.PENDING_STATUS);
             return false;
         }
 
@@ -92,18 +140,48 @@ public class OrderProcessUtils {
      */
     public static String buildOrderNotificationMessage(String amazonOrderId, OrdersV0Api orderApi, LambdaLogger logger) throws LWAException, ApiException {
         // Retrieve Order/OrderItem Information by amazonOrderId via OrderAPI
-        // API calls to retrieve order and order items
-        GetOrderResponse orderResponse = orderApi.getOrder(amazonOrderId);
-        logger.log("Order Response : " + new Gson().toJson(orderResponse));
+        // Order items are retrieved concurrently with the order
+        CompletableFuture<GetOrderItemsResponse> orderItemsFuture = CompletableFuture.supplyAsync(() -> {
+            try {
+                return orderApi.getOrderItems(amazonOrderId, null);
+            } catch (LWAException | ApiException e) {
+                throw new CompletionException(e);
+            }
+        }, orderFetchExecutor);
+
+        GetOrderResponse orderResponse;
+        try {
+            orderResponse = orderApi.getOrder(amazonOrderId);
+        } catch (LWAException | ApiException e) {
+            orderItemsFuture.cancel(false);
+            throw e;
+        }
 
-        GetOrderItemsResponse orderItemsResponse = orderApi.getOrderItems(amazonOrderId, null);
-        logger.log("Order Items Response : " + new Gson().toJson(orderItemsResponse));
+        GetOrderItemsResponse orderItemsResponse;
+        try {
+            orderItemsResponse = orderItemsFuture.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof LWAException) {
+                throw (LWAException) e.getCause();
+            }
+            if (e.getCause() instanceof ApiException) {
+                throw (ApiException) e.getCause();
+            }
+            throw e;
+        }
 
         Map<String, Object> combinedData = new HashMap<>();
         combinedData.put(COMBINED_ORDER_JSON_KEY_ORDER, orderResponse);
         combinedData.put(COMBINED_ORDER_JSON_KEY_ORDER_ITEM, orderItemsResponse);
 
-        return gson.toJson(combinedData);
+        String combinedJson = gson.toJson(combinedData);
+        if (isDebugEnabled()) {
+            logger.log("Order and Order Items Response : " + combinedJson);
+        } else {
+            logger.log("Retrieved order " + amazonOrderId);
+        }
+
+        return combinedJson;
     }
 
     /**
@@ -125,31 +203,26 @@ public class OrderProcessUtils {
      * @throws Exception If any parsing, credential retrieval, or SP-API call fails
      */
     public static String prepareNotificationPayload(SQSEvent.SQSMessage message, LambdaLogger logger) throws Exception {
-        JsonElement parsed = JsonParser.parseString(message.getBody());
-        if (parsed.isJsonPrimitive()) {
-            parsed = JsonParser.parseString(parsed.getAsString());
-        }
-        JsonObject body = parsed.getAsJsonObject();
+        // Only the routing fields are needed, so the body is read in a single streaming pass
+        NotificationEnvelope envelope = NotificationEnvelopeReader.read(message.getBody());
 
         // Check the condition of ORDER_CHANGE notification
-        if (!shouldProcessOrderNotification(body, logger)) {
+        if (!shouldProcessOrderNotification(envelope, logger)) {
             return null;
         }
 
-        // Get AmazonOrderId
-        String amazonOrderId = body
-                .getAsJsonObject("Payload")
-                .getAsJsonObject("OrderChangeNotification")
-                .get("AmazonOrderId")
-                .getAsString();
-
-        String subscriptionId = body
-                .getAsJsonObject("NotificationMetadata")
-                .get("SubscriptionId")
-                .getAsString();
+        String amazonOrderId = envelope.getAmazonOrderId();
+        String subscriptionId = envelope.getSubscriptionId();
+        String timeOfOrderChange = envelope.getTimeOfOrderChange();
 
         // Build the notification content using retrieved credentials and order data
-        return buildPayloadWithCredentialsAndOrder(subscriptionId, amazonOrderId, logger);
+        // Redeliveries of the same order change share one fetch when the order cache is enabled; a later change of the
+        // order, even with the same status, is fetched again
+        if (timeOfOrderChange == null) {
+            return buildPayloadWithCredentialsAndOrder(subscriptionId, amazonOrderId, logger);
+        }
+        String cacheKey = String.join("#", subscriptionId, amazonOrderId, timeOfOrderChange);
+        return OrderCache.get(cacheKey, () -> buildPayloadWithCredentialsAndOrder(subscriptionId, amazonOrderId, logger));
     }
 
     /**
@@ -163,6 +236,40 @@ public class OrderProcessUtils {
     public static String buildPayloadWithCredentialsAndOrder(String subscriptionId, String amazonOrderId, LambdaLogger logger) throws Exception {
         // Retrieve ClientCredentials from DynamoDB (ARN) -> Secret Manager by subscriptionId
         ClientCredentials credentials = getClientCredentialsFromDynamoDB(subscriptionId);
+        try {
+            return buildPayloadWithCredentialsAndOrder(credentials, amazonOrderId, logger);
+        } catch (LWAException e) {
+            invalidateRejectedCredentials(subscriptionId, e, logger);
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the cached credentials of a subscription if LWA rejected them, e.g. after the client secret was rotated,
+     * so that the retry of the notification reads the current secret instead of waiting for the cache TTL.
+     *
+     * @param subscriptionId The subscription ID the credentials were retrieved for.
+     * @param e              The exception thrown by the LWA token request.
+     * @param logger         LambdaLogger for logging context.
+     */
+    public static void invalidateRejectedCredentials(String subscriptionId, LWAException e, LambdaLogger logger) {
+        if (SecretManagerUtils.isRejectedCredentials(e)) {
+            logger.log("LWA rejected the credentials of subscription " + subscriptionId + " with error "
+                    + e.getErrorCode() + ", cached secret invalidated");
+            DBUtils.invalidateClientCredentials(subscriptionId);
+        }
+    }
+
+    /**
+     * Builds a detailed order notification payload with already resolved client credentials.
+     *
+     * @param credentials   The seller's client credentials.
+     * @param amazonOrderId The Amazon order ID to retrieve.
+     * @param logger        LambdaLogger for logging context.
+     * @return A JSON string representing the enriched order notification.
+     * @throws Exception if the API call fails.
+     */
+    public static String buildPayloadWithCredentialsAndOrder(ClientCredentials credentials, String amazonOrderId, LambdaLogger logger) throws Exception {
         AppCredentials appCredentials = new AppCredentials(credentials.getClientId(), credentials.getClientSecret());
 
         // Get order information to append to the message
@@ -179,40 +286,30 @@ public class OrderProcessUtils {
     /**
      * Evaluates whether a given order notification should trigger further processing.
      * <p>
-     * This method is intended to implement business logic for filtering notifications based on:
+     * The notification is filtered by {@link OrderChangeFilter} based on:
      * <ul>
-     *   <li>Duplicate detection (e.g., checking if the AmazonOrderId has already been processed)</li>
-     *   <li>Order status filtering (e.g., only proceed if the status is "Shipped")</li>
-     *   <li>Other custom rules (e.g., region, flags, or seller-specific policies)</li>
+     *   <li>Order status, marketplace and fulfillment type allowlists</li>
+     *   <li>Duplicate detection, through a per-container recently seen set and a DynamoDB idempotency record</li>
      * </ul>
+     * Once a notification that passed the filter is processed, the caller completes it with
+     * {@link OrderChangeFilter#complete(JsonObject)}. If its processing fails, the caller must release it with
+     * {@link OrderChangeFilter#release(JsonObject)} so that its retry is not skipped as a duplicate.
      *
      * @param body   The parsed JSON object representing the notification message payload.
      * @param logger The LambdaLogger for writing diagnostic logs.
      * @return {@code true} if the message should be processed; {@code false} if it should be skipped.
+     * @throws software.amazon.awssdk.core.exception.SdkException If the idempotency record cannot be written.
+     * @throws IllegalStateException If the order change is being processed by another invocation.
      */
     public static boolean shouldTriggerProcessing(JsonObject body, LambdaLogger logger) {
-        try {
-
-            /*
-             Extracts AmazonOrderId and OrderStatus from the message payload.
-
-             This method should implement processing criteria such as:
-             - Skipping duplicate orders (e.g., by checking DynamoDB or cache)
-             - Filtering by OrderStatus (e.g., only process if status is "Shipped")
-             - Any other business-specific rules (e.g., region, priority flags)
-
-             Return true to trigger further processing (e.g., start Step Functions),
-             or false to skip this notification.
-
-             This ensures only new and relevant order notifications are processed.
-            */
-
-            return true;
-
-        } catch (Exception e) {
-            logger.log("Failed to evaluate processing criteria: " + e.getMessage());
+        // Allowlists, recently seen order changes and idempotency records, see OrderChangeFilter
+        OrderChangeFilter.SkipReason skipReason = OrderChangeFilter.evaluate(body);
+        if (skipReason != null) {
+            logger.log("Notification skipped by order change filter. Reason: " + skipReason);
             return false;
         }
+
+        return true;
     }
 
     /**
@@ -234,6 +331,21 @@ public class OrderProcessUtils {
         return parsed.getAsJsonObject();
     }
 
+    /**
+     * Returns the AmazonOrderId of an ORDER_CHANGE notification, used as the ordering key when the records of
+     * an SQS batch are processed concurrently.
+     *
+     * @param message The SQS message containing the raw SP-API notification
+     * @return The AmazonOrderId, or {@code null} if the message is not a parsable ORDER_CHANGE notification
+     */
+    public static String getAmazonOrderId(SQSEvent.SQSMessage message) {
+        try {
+            return NotificationEnvelopeReader.read(message.getBody()).getAmazonOrderId();
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
     /**
      * Extracts required fields from a custom SP-API OrderChangeNotification message payload
      * and builds a map suitable for use as Step Functions input.
@@ -273,4 +385,10 @@ public class OrderProcessUtils {
 
         return inputForStepFunction;
     }
+
+    //Full API responses are only logged when the Lambda log level is DEBUG or TRACE
+    private static boolean isDebugEnabled() {
+        String logLevel = System.getenv(LAMBDA_LOG_LEVEL_ENV_VARIABLE);
+        return "DEBUG".equalsIgnoreCase(logLevel) || "TRACE".equalsIgnoreCase(logLevel);
+    }
 }
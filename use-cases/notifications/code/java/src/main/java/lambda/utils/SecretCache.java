@@ -0,0 +1,144 @@
+package lambda.utils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * In-memory, per-container cache of secret values loaded from AWS Secrets Manager.
+ *
+ * <p>Lambda containers are reused across invocations, so keeping secret values in a static cache removes a
+ * Secrets Manager round-trip from the hot path of every notification. The cache provides:</p>
+ * <ul>
+ *   <li><b>TTL</b>: entries older than {@code ttl} are never returned; the next caller reloads them synchronously.</li>
+ *   <li><b>Refresh-ahead</b>: once an entry is older than {@code ttl - refreshAhead}, callers still receive the cached
+ *       value while a single background reload is started, so warm containers rarely block on Secrets Manager.</li>
+ *   <li><b>Single-flight loading</b>: concurrent misses for the same secret ID share one in-flight load.</li>
+ *   <li><b>Explicit invalidation</b>: {@link #invalidate(String)} drops an entry, e.g. after LWA rejected the cached
+ *       credentials because the client secret was rotated.</li>
+ * </ul>
+ */
+public class SecretCache {
+
+    private final Duration ttl;
+    private final Duration refreshAhead;
+    private final Function<String, String> loader;
+
+    private final Map<String, CachedSecret> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "secret-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a new secret cache.
+     *
+     * @param ttl          Maximum age of a cached value before it must be reloaded
+     * @param refreshAhead Window before expiry in which a background reload is triggered; {@code Duration.ZERO} disables it
+     * @param loader       Function that loads the secret value for a given secret ID (name or ARN)
+     */
+    public SecretCache(Duration ttl, Duration refreshAhead, Function<String, String> loader) {
+        this.ttl = ttl;
+        this.refreshAhead = refreshAhead.compareTo(ttl) > 0 ? ttl : refreshAhead;
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the secret value for the given ID, loading it through the configured loader when it is missing or expired.
+     *
+     * @param secretId The identifier (name or ARN) of the secret
+     * @return The secret value
+     * @throws RuntimeException if the secret cannot be loaded
+     */
+    public String get(String secretId) {
+        long now = System.nanoTime();
+        CachedSecret cached = entries.get(secretId);
+
+        if (cached != null && now < cached.expiresAt) {
+            if (now >= cached.refreshAt) {
+                refreshInBackground(secretId);
+            }
+            return cached.value;
+        }
+
+        return join(load(secretId));
+    }
+
+    /**
+     * Removes the cached value for the given secret ID. The next {@link #get(String)} reloads it.
+     *
+     * @param secretId The identifier (name or ARN) of the secret to invalidate
+     */
+    public void invalidate(String secretId) {
+        entries.remove(secretId);
+    }
+
+    private void refreshInBackground(String secretId) {
+        // The in-flight slot is claimed before the task is queued, so concurrent readers queue a single refresh
+        CompletableFuture<String> created = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(secretId, created) != null) {
+            return;
+        }
+        // Failures are ignored here; the stale value is served until it expires and a synchronous load surfaces the error
+        refreshExecutor.execute(() -> load(secretId, created));
+    }
+
+    private CompletableFuture<String> load(String secretId) {
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(secretId, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        return load(secretId, created);
+    }
+
+    //Loads the secret into the future that claimed its in-flight slot, and releases the slot
+    private CompletableFuture<String> load(String secretId, CompletableFuture<String> created) {
+        try {
+            String value = loader.apply(secretId);
+            long loadedAt = System.nanoTime();
+            entries.put(secretId, new CachedSecret(
+                    value,
+                    loadedAt + ttl.minus(refreshAhead).toNanos(),
+                    loadedAt + ttl.toNanos()));
+            created.complete(value);
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+        } finally {
+            inFlight.remove(secretId, created);
+        }
+
+        return created;
+    }
+
+    private static String join(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class CachedSecret {
+        private final String value;
+        private final long refreshAt;
+        private final long expiresAt;
+
+        private CachedSecret(String value, long refreshAt, long expiresAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package lambda.utils;
 
+import com.amazon.SellingPartnerAPIAA.LWAException;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.gson.Gson;
@@ -8,6 +9,7 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
@@ -16,18 +18,31 @@ import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import static lambda.common.Constants.*;
+import static lambda.common.EnvironmentUtils.getLongEnv;
+
 public class SecretManagerUtils {
 
     private static final SecretsManagerClient secretsClient = SecretsManagerClient.create();
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private static final Gson gson = new Gson();
 
+    //LWA error codes returned for invalid client credentials or refresh tokens
+    private static final Set<String> LWA_REJECTED_CREDENTIALS_ERROR_CODES =
+            Set.of("invalid_client", "unauthorized_client", "invalid_grant");
+
+    private static final SecretCache secretCache = new SecretCache(
+            Duration.ofSeconds(getLongEnv(SECRET_CACHE_TTL_SECONDS_ENV_VARIABLE, SECRET_CACHE_DEFAULT_TTL_SECONDS)),
+            Duration.ofSeconds(getLongEnv(SECRET_CACHE_REFRESH_AHEAD_SECONDS_ENV_VARIABLE, SECRET_CACHE_DEFAULT_REFRESH_AHEAD_SECONDS)),
+            SecretManagerUtils::fetchSecretString);
+
     /**
-     * Retrieves the plaintext secret value from AWS Secrets Manager for the given secret ID.
+     * Retrieves the plaintext secret value for the given secret ID, served from the per-container {@link SecretCache}.
      *
-     * <p>This method initializes a {@link SecretsManagerClient}, sends a request to fetch the secret value,
-     * and returns the secret's string content. It is assumed that the secret value is stored as a string
-     * and not as binary data.</p>
+     * <p>The value is loaded from AWS Secrets Manager on the first call and then reused until the configured TTL
+     * ({@code SECRET_CACHE_TTL_SECONDS}, default 300 seconds) expires. Shortly before expiry
+     * ({@code SECRET_CACHE_REFRESH_AHEAD_SECONDS}, default 60 seconds) the value is refreshed in the background.
+     * It is assumed that the secret value is stored as a string and not as binary data.</p>
      *
      * @param secretId The identifier (name or ARN) of the secret to retrieve
      * @return The secret value as a plain text string
@@ -35,6 +50,39 @@ public class SecretManagerUtils {
      *         if the secret cannot be retrieved
      */
     public static String getSecretString(String secretId) {
+        return secretCache.get(secretId);
+    }
+
+    /**
+     * Drops the cached value of the given secret so that the next read goes to AWS Secrets Manager.
+     *
+     * <p>Call this after the secret has been updated, e.g. when LWA rejects the cached credentials because the
+     * client secret was rotated (see {@link #isRejectedCredentials(LWAException)}).</p>
+     *
+     * @param secretId The identifier (name or ARN) of the secret to invalidate
+     */
+    public static void invalidateSecret(String secretId) {
+        secretCache.invalidate(secretId);
+    }
+
+    /**
+     * Returns whether LWA rejected the client credentials or the refresh token of a token request, as it does for a
+     * rotated client secret, as opposed to a transient failure.
+     *
+     * @param e The exception thrown by the LWA token request
+     * @return {@code true} if the cached credentials should be reloaded before the request is retried
+     */
+    public static boolean isRejectedCredentials(LWAException e) {
+        return LWA_REJECTED_CREDENTIALS_ERROR_CODES.contains(e.getErrorCode());
+    }
+
+    /**
+     * Loads the plaintext secret value from AWS Secrets Manager, bypassing the cache.
+     *
+     * @param secretId The identifier (name or ARN) of the secret to retrieve
+     * @return The secret value as a plain text string
+     */
+    private static String fetchSecretString(String secretId) {
         return secretsClient.getSecretValue(
                 GetSecretValueRequest.builder().secretId(secretId).build()
         ).secretString();
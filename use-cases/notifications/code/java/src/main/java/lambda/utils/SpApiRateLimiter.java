@@ -0,0 +1,123 @@
+package lambda.utils;
+
+import com.amazon.SellingPartnerAPIAA.LWAException;
+import software.amazon.spapi.ApiException;
+import software.amazon.spapi.ApiResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static lambda.common.Constants.*;
+
+/**
+ * Per-container registry of {@link TokenBucket}s for SP-API operations, keyed by rate limit scope and operation.
+ *
+ * <p>SP-API rate limits apply per selling partner and application, so every seller gets its own buckets and calls
+ * for different sellers do not wait for each other. Grantless operations (e.g. destinations) are limited per
+ * application and region, which callers express through the scope. Calls made through
+ * {@link #call(String, String, SpApiCall)}:</p>
+ * <ul>
+ *   <li>Wait for a token of the bucket of their scope and operation. Buckets start with the default usage plan of
+ *       the operation.</li>
+ *   <li>Adapt the bucket to the {@code x-amzn-RateLimit-Limit} header of every response.</li>
+ *   <li>Retry {@code 429} and {@code 5xx} responses up to {@code SP_API_MAX_ATTEMPTS} attempts with full-jitter
+ *       exponential backoff. A {@code 429} also pauses the bucket, so that concurrent calls of the same scope back
+ *       off as well.</li>
+ * </ul>
+ */
+public class SpApiRateLimiter {
+
+    //Default usage plans (rate per second, burst) of the operations called by this application
+    private static final Map<String, double[]> DEFAULT_USAGE_PLANS = Map.of(
+            "createDestination", new double[]{1, 5},
+            "getDestinations", new double[]{1, 5},
+            "createSubscription", new double[]{1, 5},
+            "getSubscription", new double[]{1, 5},
+            "deleteSubscriptionById", new double[]{1, 5});
+
+    private static final double[] FALLBACK_USAGE_PLAN = new double[]{1, 1};
+
+    private static final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * An SP-API call returning the full HTTP response, e.g. {@code () -> api.getSubscriptionWithHttpInfo(type, null)}.
+     */
+    @FunctionalInterface
+    public interface SpApiCall<T> {
+        ApiResponse<T> call() throws ApiException, LWAException;
+    }
+
+    /**
+     * Invokes the SP-API call within the rate limit of the given scope and operation, retrying throttled and
+     * transient failures.
+     *
+     * @param scope     The rate limit scope, e.g. the seller ID, or the application and region for grantless calls
+     * @param operation The SP-API operation name, e.g. {@code createSubscription}
+     * @param call      The SP-API call
+     * @return The response payload
+     * @throws ApiException If the call fails with a non-retryable error or after all attempts
+     * @throws LWAException If Login With Amazon (LWA) authentication fails
+     * @throws InterruptedException If the thread is interrupted while waiting for the rate limit
+     */
+    public static <T> T call(String scope, String operation, SpApiCall<T> call)
+            throws ApiException, LWAException, InterruptedException {
+        TokenBucket bucket = getBucket(scope, operation);
+
+        for (int attempt = 1; ; attempt++) {
+            bucket.acquire();
+            try {
+                ApiResponse<T> response = call.call();
+                adaptRate(bucket, response.getHeaders());
+                return response.getData();
+            } catch (ApiException e) {
+                adaptRate(bucket, e.getResponseHeaders());
+
+                boolean retryable = e.getCode() == 429 || e.getCode() >= 500;
+                if (!retryable || attempt >= SP_API_MAX_ATTEMPTS) {
+                    throw e;
+                }
+
+                long backoffMillis = getBackoffMillis(attempt);
+                if (e.getCode() == 429) {
+                    bucket.pause(backoffMillis);
+                } else {
+                    Thread.sleep(backoffMillis);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the bucket of the given scope and operation, creating it with the default usage plan of the operation.
+     */
+    public static TokenBucket getBucket(String scope, String operation) {
+        return buckets.computeIfAbsent(scope + "#" + operation, key -> {
+            double[] usagePlan = DEFAULT_USAGE_PLANS.getOrDefault(operation, FALLBACK_USAGE_PLAN);
+            return new TokenBucket(usagePlan[0], usagePlan[1]);
+        });
+    }
+
+    private static void adaptRate(TokenBucket bucket, Map<String, List<String>> headers) {
+        if (headers == null) {
+            return;
+        }
+
+        // Header names are case-insensitive
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (SP_API_RATE_LIMIT_HEADER.equalsIgnoreCase(header.getKey())
+                    && header.getValue() != null && !header.getValue().isEmpty()) {
+                try {
+                    bucket.setRate(Double.parseDouble(header.getValue().get(0)));
+                } catch (NumberFormatException ignored) {
+                    // Keep the current rate
+                }
+                return;
+            }
+        }
+    }
+
+    private static long getBackoffMillis(int attempt) {
+        return Backoff.fullJitterMillis(attempt, SP_API_BASE_BACKOFF_MILLIS, SP_API_MAX_BACKOFF_MILLIS);
+    }
+}
@@ -0,0 +1,133 @@
+package lambda.utils;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import static lambda.common.Constants.*;
+import static lambda.common.EnvironmentUtils.getLongEnv;
+
+/**
+ * Processes the records of an SQS batch concurrently and reports failures per record.
+ *
+ * <p>Records are grouped by an ordering key (e.g. the {@code AmazonOrderId} of an ORDER_CHANGE notification). The
+ * records of a group are processed sequentially in the order of the batch, while different groups are processed
+ * concurrently, at most {@code SQS_BATCH_PROCESSOR_CONCURRENCY} (default 4) at a time. Once a record of a group fails,
+ * the remaining records of the group are reported as failed without being processed, so that they are redelivered
+ * after the failed record and keep their relative order.</p>
+ *
+ * <p>The executor is shared by all invocations of the Lambda container. On Java 21 or later runtimes it starts a
+ * virtual thread per group; otherwise it is a fixed pool sized to the concurrency limit.</p>
+ */
+public class SqsBatchProcessor {
+
+    private static final int CONCURRENCY = (int) getLongEnv(
+            SQS_BATCH_PROCESSOR_CONCURRENCY_ENV_VARIABLE, SQS_BATCH_PROCESSOR_DEFAULT_CONCURRENCY);
+    private static final Semaphore permits = new Semaphore(Math.max(CONCURRENCY, 1));
+    private static final ExecutorService executor = createExecutor();
+
+    /**
+     * Processes a single SQS record.
+     */
+    @FunctionalInterface
+    public interface RecordProcessor {
+
+        /**
+         * @param message The SQS record to process
+         * @throws Exception If processing failed; the record is reported as a batch item failure
+         */
+        void process(SQSEvent.SQSMessage message) throws Exception;
+    }
+
+    /**
+     * Processes all records of the SQS event.
+     *
+     * @param input       The SQS event received by the Lambda handler
+     * @param orderingKey Function that returns the ordering key of a record, or {@code null} if the record has no
+     *                    ordering constraint
+     * @param processor   The processor invoked for every record, possibly from several threads concurrently
+     * @param logger      The Lambda logger for logging messages and errors
+     * @return The batch response listing the failed records in the order of the batch
+     */
+    public static SQSBatchResponse process(SQSEvent input, Function<SQSEvent.SQSMessage, String> orderingKey,
+                                           RecordProcessor processor, LambdaLogger logger) {
+        Map<String, List<SQSEvent.SQSMessage>> groups = new LinkedHashMap<>();
+        for (SQSEvent.SQSMessage message : input.getRecords()) {
+            String key = orderingKey.apply(message);
+            groups.computeIfAbsent(key != null ? key : message.getMessageId(), k -> new ArrayList<>()).add(message);
+        }
+
+        Set<String> failedMessageIds = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (List<SQSEvent.SQSMessage> group : groups.values()) {
+            futures.add(CompletableFuture.runAsync(() -> processGroup(group, processor, failedMessageIds, logger), executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        List<SQSBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
+        for (SQSEvent.SQSMessage message : input.getRecords()) {
+            if (failedMessageIds.contains(message.getMessageId())) {
+                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+            }
+        }
+
+        return new SQSBatchResponse(batchItemFailures);
+    }
+
+    private static void processGroup(List<SQSEvent.SQSMessage> group, RecordProcessor processor,
+                                     Set<String> failedMessageIds, LambdaLogger logger) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            group.forEach(message -> failedMessageIds.add(message.getMessageId()));
+            return;
+        }
+
+        try {
+            boolean groupFailed = false;
+            for (SQSEvent.SQSMessage message : group) {
+                if (groupFailed) {
+                    logger.log("Skipping MessageId: " + message.getMessageId() + " after a failure of an earlier record with the same ordering key");
+                    failedMessageIds.add(message.getMessageId());
+                    continue;
+                }
+
+                try {
+                    processor.process(message);
+                } catch (Exception e) {
+                    logger.log("Failed to process MessageId: " + message.getMessageId() + ". Error: " + e.getMessage());
+                    failedMessageIds.add(message.getMessageId());
+                    groupFailed = true;
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    //Virtual threads are only available on Java 21 or later runtimes, so they are looked up reflectively
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(CONCURRENCY, 1), runnable -> {
+                Thread thread = new Thread(runnable, "sqs-batch-processor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -2,16 +2,12 @@ package lambda.utils;
 
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import lambda.common.NotificationEnvelope;
 import software.amazon.awssdk.services.sqs.model.Message;
 
-import java.util.Map;
-
 
 public class SqsMessageAdapter {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
     /**
      * Converts an AWS SDK v2 {@link software.amazon.awssdk.services.sqs.model.Message}
      * into a Lambda-compatible {@link com.amazonaws.services.lambda.runtime.events.SQSEvent.SQSMessage}.
@@ -46,12 +42,11 @@ public class SqsMessageAdapter {
      */
     public static String extractDetailIfEventBridge(String body, LambdaLogger logger) {
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> parsed = objectMapper.readValue(body, Map.class);
-            if (parsed.containsKey("detail")) {
+            // The detail span is located by a streaming pass and forwarded as-is, without re-serialization
+            NotificationEnvelope envelope = NotificationEnvelopeReader.read(body);
+            if (envelope.isEventBridge()) {
                 logger.log("Detected EventBridge format, extracting 'detail' field.");
-                Object detail = parsed.get("detail");
-                return objectMapper.writeValueAsString(detail);
+                return envelope.getNotificationBody();
             } else {
                 logger.log("Not EventBridge format, sending body as-is.");
                 return body;
@@ -0,0 +1,131 @@
+package lambda.utils;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import lambda.common.SubscriptionRecord;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static lambda.common.Constants.*;
+import static lambda.common.EnvironmentUtils.getLongEnv;
+
+/**
+ * Read-through, per-container cache of the subscription table (SubscriptionId -> SellerId, DestinationId, SecretArn).
+ *
+ * <p>An ORDER_CHANGE notification resolves the same subscription several times along its processing path
+ * (payload enrichment, Step Functions credentials, reprocessing). This cache serves those lookups from memory:</p>
+ * <ul>
+ *   <li>Entries expire after {@code SUBSCRIPTION_CACHE_TTL_SECONDS} (default 900 seconds).</li>
+ *   <li>Unknown subscription IDs are cached as misses for {@code SUBSCRIPTION_CACHE_NEGATIVE_TTL_SECONDS}
+ *       (default 60 seconds) so that notifications for deleted subscriptions do not hit DynamoDB repeatedly.</li>
+ *   <li>The cache holds at most {@code SUBSCRIPTION_CACHE_MAX_SIZE} entries (default 10000) and evicts the least
+ *       recently used one.</li>
+ *   <li>{@link #warm(int, LambdaLogger)} preloads the whole table with a parallel scan so cold containers start hot.</li>
+ * </ul>
+ */
+public class SubscriptionCache {
+
+    private static final long TTL_MILLIS = getLongEnv(
+            SUBSCRIPTION_CACHE_TTL_SECONDS_ENV_VARIABLE, SUBSCRIPTION_CACHE_DEFAULT_TTL_SECONDS) * 1000;
+    private static final long NEGATIVE_TTL_MILLIS = getLongEnv(
+            SUBSCRIPTION_CACHE_NEGATIVE_TTL_SECONDS_ENV_VARIABLE, SUBSCRIPTION_CACHE_DEFAULT_NEGATIVE_TTL_SECONDS) * 1000;
+    private static final int MAX_SIZE = (int) getLongEnv(
+            SUBSCRIPTION_CACHE_MAX_SIZE_ENV_VARIABLE, SUBSCRIPTION_CACHE_DEFAULT_MAX_SIZE);
+
+    private static final AtomicBoolean warmed = new AtomicBoolean(false);
+
+    // Access-ordered map, the eldest entry is the least recently used subscription
+    private static final Map<String, CachedSubscription> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedSubscription> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    /**
+     * Returns the subscription record for the given subscription ID, reading it from DynamoDB on a cache miss.
+     *
+     * @param subscriptionId The subscription ID from the notification metadata
+     * @return The subscription record, or {@code null} if the subscription does not exist in the table
+     */
+    public static SubscriptionRecord getSubscription(String subscriptionId) {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CachedSubscription cached = cache.get(subscriptionId);
+            if (cached != null && now < cached.expiresAt) {
+                return cached.record;
+            }
+        }
+
+        SubscriptionRecord record = DBUtils.getSubscriptionRecord(subscriptionId);
+        put(subscriptionId, record, System.currentTimeMillis());
+        return record;
+    }
+
+    /**
+     * Preloads the cache with every record of the subscription table using
+     * {@link DBUtils#scanAllSubscriptions(int, java.util.function.Consumer, LambdaLogger)}.
+     *
+     * @param threadCount Number of parallel scan segments
+     * @param logger      AWS Lambda logger
+     * @return The number of subscriptions loaded into the cache
+     */
+    public static int warm(int threadCount, LambdaLogger logger) {
+        long now = System.currentTimeMillis();
+        long count = DBUtils.scanAllSubscriptions(threadCount, subscription -> {
+            SubscriptionRecord record = DBUtils.toSubscriptionRecord(subscription);
+            put(record.getSubscriptionId(), record, now);
+        }, logger);
+
+        logger.log("Subscription cache warmed with " + count + " records");
+        return (int) count;
+    }
+
+    /**
+     * Warms the cache on the first invocation of a container when {@code SUBSCRIPTION_CACHE_WARM_ON_INIT} is
+     * {@code true}. Subsequent calls are no-ops. A failed warm-up is logged and lookups fall back to read-through.
+     *
+     * @param logger AWS Lambda logger
+     */
+    public static void warmOnce(LambdaLogger logger) {
+        if (!Boolean.parseBoolean(System.getenv(SUBSCRIPTION_CACHE_WARM_ON_INIT_ENV_VARIABLE))
+                || !warmed.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            warm(SUBSCRIPTION_CACHE_WARM_THREAD_COUNT, logger);
+        } catch (Exception e) {
+            logger.log("Failed to warm subscription cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the given subscription from the cache, e.g. after it has been created or deleted.
+     *
+     * @param subscriptionId The subscription ID to invalidate
+     */
+    public static void invalidate(String subscriptionId) {
+        synchronized (cache) {
+            cache.remove(subscriptionId);
+        }
+    }
+
+    private static void put(String subscriptionId, SubscriptionRecord record, long now) {
+        long expiresAt = now + (record != null ? TTL_MILLIS : NEGATIVE_TTL_MILLIS);
+        synchronized (cache) {
+            cache.put(subscriptionId, new CachedSubscription(record, expiresAt));
+        }
+    }
+
+    private static final class CachedSubscription {
+        private final SubscriptionRecord record;
+        private final long expiresAt;
+
+        private CachedSubscription(SubscriptionRecord record, long expiresAt) {
+            this.record = record;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package lambda.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket matching the SP-API usage plan model: requests are allowed up to {@code burst} at once, and tokens
+ * are replenished at {@code ratePerSecond}.
+ *
+ * <p>The rate can be adjusted while the bucket is in use, e.g. to the rate returned by SP-API in the
+ * {@code x-amzn-RateLimit-Limit} header, and the bucket can be paused after a throttled request.</p>
+ */
+public class TokenBucket {
+
+    private final double burst;
+    private double ratePerSecond;
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+
+    public TokenBucket(double ratePerSecond, double burst) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.pausedUntilNanos = lastRefillNanos;
+    }
+
+    /**
+     * Takes a token, waiting until one is available and the bucket is not paused.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                if (now - pausedUntilNanos >= 0 && tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+
+                long refillNanos = (long) ((1 - tokens) / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+                waitNanos = Math.max(pausedUntilNanos - now, refillNanos);
+            }
+
+            // Sleep outside the lock so that other threads can adjust the bucket
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    /**
+     * Sets the rate at which tokens are replenished. Tokens accrued at the previous rate are kept.
+     *
+     * @param ratePerSecond The new rate, ignored if not positive
+     */
+    public synchronized void setRate(double ratePerSecond) {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+
+        refill(System.nanoTime());
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public synchronized double getRate() {
+        return ratePerSecond;
+    }
+
+    /**
+     * Drains the bucket and blocks {@link #acquire()} for the given time, e.g. after a throttled request.
+     *
+     * @param millis The pause in milliseconds
+     */
+    public synchronized void pause(long millis) {
+        long now = System.nanoTime();
+        refill(now);
+        tokens = 0;
+        long pausedUntil = now + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (pausedUntil - pausedUntilNanos > 0) {
+            pausedUntilNanos = pausedUntil;
+        }
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(burst, tokens + elapsedSeconds * ratePerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,199 @@
+package lambda.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+import static lambda.common.Constants.*;
+import static lambda.common.EnvironmentUtils.getLongEnv;
+
+/**
+ * Client that delivers notification payloads to a webhook endpoint with an HTTP POST.
+ *
+ * <p>All clients share a single {@link HttpClient}, which negotiates HTTP/2 where the endpoint supports it and keeps a
+ * pool of connections that are reused across deliveries and Lambda invocations. Each delivery:</p>
+ * <ul>
+ *   <li><b>Times out</b> after {@code WEB_HOOK_CONNECT_TIMEOUT_SECONDS} to connect and {@code requestTimeout} to
+ *       receive the response. The response body is always consumed so the connection can be reused.</li>
+ *   <li><b>Retries</b> connection errors, {@code 429} and {@code 5xx} responses up to {@code maxAttempts} attempts,
+ *       with full-jitter exponential backoff. A {@code Retry-After} header replaces the backoff, and a delivery whose
+ *       {@code Retry-After} exceeds {@code WEB_HOOK_MAX_RETRY_AFTER_MILLIS} fails immediately so that the caller can
+ *       retry it later (e.g. through SQS redelivery).</li>
+ *   <li><b>Is limited</b> to {@code maxConcurrency} in-flight requests per endpoint (scheme, host and port) across all
+ *       clients of the container. The permit is released while waiting for a retry.</li>
+ *   <li><b>Is optionally gzip-compressed</b>, with a {@code Content-Encoding: gzip} header.</li>
+ * </ul>
+ */
+public class WebHookClient {
+
+    private static final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(WEB_HOOK_CONNECT_TIMEOUT_SECONDS))
+            .build();
+
+    private static final Map<String, Semaphore> endpointPermits = new ConcurrentHashMap<>();
+
+    private final URI uri;
+    private final String authToken;
+    private final String authHeader;
+    private final int maxAttempts;
+    private final Duration requestTimeout;
+    private final boolean gzipEnabled;
+    private final Semaphore permits;
+
+    /**
+     * Creates a new webhook client.
+     *
+     * @param webhookUrl     the destination webhook URL
+     * @param authToken      optional authentication token to include in the request
+     * @param authHeader     optional name of the header to use for the auth token (defaults to "Authorization: Bearer ...")
+     * @param maxAttempts    maximum number of attempts per delivery, including the first one
+     * @param maxConcurrency maximum number of concurrent requests to the endpoint; the first client of an endpoint sets it
+     * @param requestTimeout maximum time to wait for the response of an attempt
+     * @param gzipEnabled    whether the payload is sent gzip-compressed
+     */
+    public WebHookClient(String webhookUrl, String authToken, String authHeader, int maxAttempts, int maxConcurrency,
+                         Duration requestTimeout, boolean gzipEnabled) {
+        this.uri = URI.create(webhookUrl);
+        this.authToken = authToken;
+        this.authHeader = authHeader;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.requestTimeout = requestTimeout;
+        this.gzipEnabled = gzipEnabled;
+        this.permits = endpointPermits.computeIfAbsent(uri.getScheme() + "://" + uri.getAuthority(),
+                endpoint -> new Semaphore(Math.max(maxConcurrency, 1)));
+    }
+
+    /**
+     * Creates a webhook client configured by the {@code WEB_HOOK_*} environment variables of the Lambda function.
+     *
+     * @return a webhook client for the endpoint defined by {@code WEB_HOOK_URL}
+     */
+    public static WebHookClient fromEnvironment() {
+        return new WebHookClient(
+                System.getenv(WEB_HOOK_URL_ENV_VARIABLE),
+                System.getenv(WEB_HOOK_AUTH_TOKEN_ENV_VARIABLE),
+                System.getenv(WEB_HOOK_AUTH_HEADER_NAME_ENV_VARIABLE),
+                (int) getLongEnv(WEB_HOOK_MAX_ATTEMPTS_ENV_VARIABLE, WEB_HOOK_DEFAULT_MAX_ATTEMPTS),
+                (int) getLongEnv(WEB_HOOK_MAX_CONCURRENCY_ENV_VARIABLE, WEB_HOOK_DEFAULT_MAX_CONCURRENCY),
+                Duration.ofSeconds(getLongEnv(WEB_HOOK_REQUEST_TIMEOUT_SECONDS_ENV_VARIABLE, WEB_HOOK_DEFAULT_REQUEST_TIMEOUT_SECONDS)),
+                Boolean.parseBoolean(System.getenv(WEB_HOOK_GZIP_ENABLED_ENV_VARIABLE)));
+    }
+
+    /**
+     * Delivers the payload to the webhook endpoint, retrying transient failures.
+     *
+     * @param payload the JSON payload to send
+     * @throws Exception if the delivery fails after all attempts or with a non-retryable (e.g. 4xx) response
+     */
+    public void send(String payload) throws Exception {
+        HttpRequest request = buildRequest(payload);
+
+        for (int attempt = 1; ; attempt++) {
+            HttpResponse<String> response = null;
+            IOException connectionError = null;
+            permits.acquire();
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                connectionError = e;
+            } finally {
+                permits.release();
+            }
+
+            if (connectionError != null) {
+                if (attempt >= maxAttempts) {
+                    throw connectionError;
+                }
+                Thread.sleep(getBackoffMillis(attempt));
+                continue;
+            }
+
+            int responseCode = response.statusCode();
+            if (responseCode < 300) {
+                return;
+            }
+
+            boolean retryable = responseCode == 429 || responseCode >= 500;
+            if (!retryable || attempt >= maxAttempts) {
+                throw new RuntimeException("Failed with HTTP error code : " + responseCode);
+            }
+
+            Optional<Long> retryAfterMillis = getRetryAfterMillis(response);
+            if (retryAfterMillis.isPresent() && retryAfterMillis.get() > WEB_HOOK_MAX_RETRY_AFTER_MILLIS) {
+                throw new RuntimeException("Failed with HTTP error code : " + responseCode +
+                        ", retry after " + retryAfterMillis.get() + " ms");
+            }
+
+            Thread.sleep(retryAfterMillis.isPresent() ? retryAfterMillis.get() : getBackoffMillis(attempt));
+        }
+    }
+
+    private HttpRequest buildRequest(String payload) throws IOException {
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json");
+
+        if (authToken != null && !authToken.isEmpty()) {
+            if (authHeader != null && !authHeader.isEmpty()) {
+                requestBuilder.header(authHeader, authToken);
+            } else {
+                requestBuilder.header("Authorization", "Bearer " + authToken);
+            }
+        }
+
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        if (gzipEnabled) {
+            requestBuilder.header("Content-Encoding", "gzip");
+            body = gzip(body);
+        }
+
+        return requestBuilder.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+    }
+
+    private static long getBackoffMillis(int attempt) {
+        return Backoff.fullJitterMillis(attempt, WEB_HOOK_BASE_BACKOFF_MILLIS, WEB_HOOK_MAX_BACKOFF_MILLIS);
+    }
+
+    //Retry-After is either a number of seconds or an HTTP date
+    private static Optional<Long> getRetryAfterMillis(HttpResponse<?> response) {
+        Optional<String> retryAfter = response.headers().firstValue("Retry-After");
+        if (retryAfter.isEmpty()) {
+            return Optional.empty();
+        }
+
+        String value = retryAfter.get().trim();
+        try {
+            return Optional.of(Math.max(Long.parseLong(value), 0) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime retryTime = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Optional.of(Math.max(Duration.between(ZonedDateTime.now(), retryTime).toMillis(), 0));
+            } catch (DateTimeParseException ignored) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length / 2 + 32);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(body);
+        }
+        return outputStream.toByteArray();
+    }
+}
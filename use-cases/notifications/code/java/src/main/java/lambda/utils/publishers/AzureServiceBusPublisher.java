@@ -0,0 +1,108 @@
+package lambda.utils.publishers;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.azure.messaging.servicebus.ServiceBusClientBuilder;
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusMessageBatch;
+import com.azure.messaging.servicebus.ServiceBusSenderClient;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static lambda.common.Constants.*;
+import static lambda.utils.SecretManagerUtils.getSecretString;
+
+/**
+ * Publishes messages to the Azure Service Bus queue defined by the {@code AZURE_SB_QUEUE_NAME} environment variable.
+ *
+ * <p>The connection string is retrieved once from AWS Secrets Manager using the secret ARN in
+ * {@code AZURE_SB_CONNECTION_STRING_ARN}, and the resulting {@link ServiceBusSenderClient} keeps its AMQP connection
+ * open for the lifetime of the Lambda container. Messages are grouped into {@link ServiceBusMessageBatch} instances,
+ * and a new batch is started whenever the current one reaches its maximum size.</p>
+ */
+public class AzureServiceBusPublisher implements Publisher {
+
+    private final ServiceBusSenderClient senderClient;
+    private final String queueName = System.getenv(AZURE_SB_QUEUE_NAME_ENV_VARIABLE);
+
+    /**
+     * Creates the publisher and its {@link ServiceBusSenderClient}.
+     *
+     * @throws RuntimeException If the connection string is not found
+     */
+    public AzureServiceBusPublisher() {
+        String connStr = getSecretString(System.getenv(AZURE_SB_CONNECTION_STRING_ARN_ENV_VARIABLE));
+        if (connStr == null || connStr.isEmpty()) {
+            throw new RuntimeException("Azure Service Bus connection string not found");
+        }
+
+        senderClient = new ServiceBusClientBuilder()
+                .connectionString(connStr)
+                .sender()
+                .queueName(queueName)
+                .buildClient();
+    }
+
+    @Override
+    public Set<String> publishBatch(Map<String, String> messages, LambdaLogger logger) {
+        Set<String> failedIds = new HashSet<>();
+        Set<String> completedIds = new HashSet<>();
+        List<String> batchIds = new ArrayList<>();
+
+        try {
+            ServiceBusMessageBatch messageBatch = senderClient.createMessageBatch();
+
+            for (Map.Entry<String, String> message : messages.entrySet()) {
+                ServiceBusMessage serviceBusMessage = new ServiceBusMessage(message.getValue());
+                if (messageBatch.tryAddMessage(serviceBusMessage)) {
+                    batchIds.add(message.getKey());
+                    continue;
+                }
+
+                // The current batch is full, send it and start a new one
+                sendMessageBatch(messageBatch, batchIds, failedIds, logger);
+                completedIds.addAll(batchIds);
+                batchIds = new ArrayList<>();
+                messageBatch = senderClient.createMessageBatch();
+
+                if (messageBatch.tryAddMessage(serviceBusMessage)) {
+                    batchIds.add(message.getKey());
+                } else {
+                    logger.log("Message " + message.getKey() + " exceeds the maximum Azure Service Bus batch size");
+                    failedIds.add(message.getKey());
+                    completedIds.add(message.getKey());
+                }
+            }
+
+            sendMessageBatch(messageBatch, batchIds, failedIds, logger);
+        } catch (Exception e) {
+            // A message batch could not be created, every message that was not sent yet is failed
+            logger.log("Failed to create Azure Service Bus message batch: " + e.getMessage());
+            for (String messageId : messages.keySet()) {
+                if (!completedIds.contains(messageId)) {
+                    failedIds.add(messageId);
+                }
+            }
+        }
+
+        return failedIds;
+    }
+
+    private void sendMessageBatch(ServiceBusMessageBatch messageBatch, List<String> batchIds, Set<String> failedIds,
+                                  LambdaLogger logger) {
+        if (messageBatch.getCount() == 0) {
+            return;
+        }
+
+        try {
+            senderClient.sendMessages(messageBatch);
+            logger.log(messageBatch.getCount() + " messages sent to Azure Service Bus Queue: " + queueName);
+        } catch (Exception e) {
+            logger.log("Failed to send message batch to Azure Service Bus: " + e.getMessage());
+            failedIds.addAll(batchIds);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package lambda.utils.publishers;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.azure.storage.queue.QueueClient;
+import com.azure.storage.queue.QueueClientBuilder;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static lambda.common.Constants.*;
+import static lambda.utils.SecretManagerUtils.getSecretString;
+
+/**
+ * Publishes messages to the Azure Storage Queue defined by the {@code AZURE_QUEUE_NAME} environment variable.
+ *
+ * <p>The connection string is retrieved once from AWS Secrets Manager using the secret ARN in
+ * {@code AZURE_QUEUE_CONNECTION_STRING_ARN}, and the resulting {@link QueueClient} is reused for every message.
+ * Azure Storage Queues do not provide a batch send API, so the messages of a batch are sent one by one over the
+ * shared client.</p>
+ */
+public class AzureStorageQueuePublisher implements Publisher {
+
+    private final QueueClient queueClient;
+    private final String queueName = System.getenv(AZURE_QUEUE_NAME_ENV_VARIABLE);
+
+    /**
+     * Creates the publisher and its {@link QueueClient}.
+     *
+     * @throws RuntimeException If the connection string is not found
+     */
+    public AzureStorageQueuePublisher() {
+        String connStr = getSecretString(System.getenv(AZURE_QUEUE_CONNECTION_STRING_ARN_ENV_VARIABLE));
+        if (connStr == null || connStr.isEmpty()) {
+            throw new RuntimeException("Azure Storage connection string not found");
+        }
+
+        queueClient = new QueueClientBuilder()
+                .connectionString(connStr)
+                .queueName(queueName)
+                .buildClient();
+    }
+
+    @Override
+    public Set<String> publishBatch(Map<String, String> messages, LambdaLogger logger) {
+        Set<String> failedIds = new HashSet<>();
+
+        for (Map.Entry<String, String> message : messages.entrySet()) {
+            try {
+                queueClient.sendMessage(message.getValue());
+            } catch (Exception e) {
+                logger.log("Failed to send message " + message.getKey() + " to Azure Storage Queue: " + e.getMessage());
+                failedIds.add(message.getKey());
+            }
+        }
+
+        logger.log((messages.size() - failedIds.size()) + " messages sent to Azure Storage Queue: " + queueName);
+        return failedIds;
+    }
+}
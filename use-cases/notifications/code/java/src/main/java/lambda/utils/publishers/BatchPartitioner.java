@@ -0,0 +1,57 @@
+package lambda.utils.publishers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Splits the messages of a batch into the requests of a destination batch API.
+ *
+ * <p>Batch APIs such as SQS {@code SendMessageBatch} and EventBridge {@code PutEvents} limit both the number of entries
+ * and the total payload size of a request. A chunk is closed when adding the next message would exceed either limit,
+ * so large payloads are spread over more requests instead of failing the whole request. A message larger than the size
+ * limit is sent alone, and only that message is reported as failed by the destination.</p>
+ */
+public class BatchPartitioner {
+
+    private BatchPartitioner() {
+    }
+
+    /**
+     * Partitions the messages by count and cumulative size.
+     *
+     * @param messages   The messages to publish, keyed by an identifier unique within the batch
+     * @param maxEntries The maximum number of entries per request
+     * @param maxBytes   The maximum total size of the entries of a request, in bytes
+     * @param entrySize  The size in bytes of the request entry of a message body
+     * @return The chunks, in the iteration order of the messages
+     */
+    public static List<List<Map.Entry<String, String>>> partition(Collection<Map.Entry<String, String>> messages,
+                                                                 int maxEntries,
+                                                                 long maxBytes,
+                                                                 ToLongFunction<String> entrySize) {
+        List<List<Map.Entry<String, String>>> chunks = new ArrayList<>();
+        List<Map.Entry<String, String>> chunk = new ArrayList<>();
+        long chunkBytes = 0;
+
+        for (Map.Entry<String, String> message : messages) {
+            long messageBytes = entrySize.applyAsLong(message.getValue());
+            if (!chunk.isEmpty() && (chunk.size() == maxEntries || chunkBytes + messageBytes > maxBytes)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkBytes = 0;
+            }
+
+            chunk.add(message);
+            chunkBytes += messageBytes;
+        }
+
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+}
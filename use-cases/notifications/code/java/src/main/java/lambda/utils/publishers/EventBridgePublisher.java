@@ -0,0 +1,84 @@
+package lambda.utils.publishers;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResponse;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResultEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static lambda.common.Constants.*;
+
+/**
+ * Publishes SP-API notification payloads to the Amazon EventBridge event bus defined by the
+ * {@code TARGET_EVENT_BUS_ARN} environment variable, using {@code PutEvents} with up to 10 entries and 256 KB of entries
+ * per request.
+ *
+ * <p>The {@code detailType} of every event is {@code SP-API::<NOTIFICATION_TYPE>} (e.g. {@code SP-API::ORDER_CHANGE}),
+ * which allows downstream services to filter events by notification type.</p>
+ */
+public class EventBridgePublisher implements Publisher {
+
+    private static final String EVENT_SOURCE = "custom.spapi.notifications";
+
+    private final EventBridgeClient eventBridgeClient = EventBridgeClient.create();
+    private final String eventBusName = System.getenv(TARGET_EVENT_BUS_ARN_ENV_VARIABLE);
+    private final String detailType = "SP-API::" + System.getenv(NOTIFICATION_TYPE_ENV_VARIABLE);
+
+    @Override
+    public Set<String> publishBatch(Map<String, String> messages, LambdaLogger logger) {
+        Set<String> failedIds = new HashSet<>();
+
+        for (List<Map.Entry<String, String>> chunk : BatchPartitioner.partition(messages.entrySet(),
+                EVENT_BRIDGE_PUT_EVENTS_MAX_ENTRIES,
+                EVENT_BRIDGE_PUT_EVENTS_MAX_BYTES,
+                this::getEntrySize)) {
+            List<PutEventsRequestEntry> entries = new ArrayList<>();
+            for (Map.Entry<String, String> message : chunk) {
+                entries.add(PutEventsRequestEntry.builder()
+                        .detailType(detailType)
+                        .detail(message.getValue())
+                        .eventBusName(eventBusName)
+                        .source(EVENT_SOURCE)
+                        .build());
+            }
+
+            try {
+                PutEventsResponse response = eventBridgeClient.putEvents(PutEventsRequest.builder()
+                        .entries(entries)
+                        .build());
+
+                // Result entries are returned in the order of the request entries
+                List<PutEventsResultEntry> resultEntries = response.entries();
+                for (int i = 0; i < chunk.size(); i++) {
+                    PutEventsResultEntry resultEntry = resultEntries.get(i);
+                    if (resultEntry.eventId() != null) {
+                        logger.log("Event sent with ID: " + resultEntry.eventId());
+                    } else {
+                        logger.log("Failed to send event: " + resultEntry.errorMessage());
+                        failedIds.add(chunk.get(i).getKey());
+                    }
+                }
+            } catch (Exception e) {
+                logger.log("Error sending to EventBridge: " + e.getMessage());
+                chunk.forEach(entry -> failedIds.add(entry.getKey()));
+            }
+        }
+
+        return failedIds;
+    }
+
+    //Size of a PutEvents entry as calculated by EventBridge: the UTF-8 bytes of its source, detail type and detail
+    private long getEntrySize(String detail) {
+        return EVENT_SOURCE.getBytes(StandardCharsets.UTF_8).length
+                + detailType.getBytes(StandardCharsets.UTF_8).length
+                + detail.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,180 @@
+package lambda.utils.publishers;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static lambda.utils.SecretManagerUtils.getSecretString;
+
+/**
+ * Per-container provider of Google OAuth2 access tokens for a service account.
+ *
+ * <p>The service account key is loaded from AWS Secrets Manager and parsed into {@link GoogleCredentials} once, and
+ * the resulting access token is reused until shortly before it expires. The provider offers:</p>
+ * <ul>
+ *   <li><b>Background refresh</b>: after every refresh, a daemon thread is scheduled to refresh the token
+ *       {@code refreshAhead} before its expiry, so callers rarely block on the OAuth2 token exchange.</li>
+ *   <li><b>Synchronous fallback</b>: Lambda freezes the container between invocations, which can delay the scheduled
+ *       refresh. Callers that find the token missing or within {@code minValidity} of its expiry refresh it
+ *       themselves.</li>
+ *   <li><b>Metrics</b>: the number of refresh attempts, failed refreshes, their latency and the error of the last
+ *       failed background refresh, e.g. for logging per invocation.</li>
+ * </ul>
+ */
+public class GcpAccessTokenProvider {
+
+    private static final String PUBSUB_SCOPE = "https://www.googleapis.com/auth/pubsub";
+
+    private final String keySecretArn;
+    private final Duration refreshAhead;
+    private final Duration minValidity;
+
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+    private final AtomicLong totalRefreshLatencyMillis = new AtomicLong();
+    private final AtomicLong lastRefreshLatencyMillis = new AtomicLong();
+    private final AtomicReference<String> lastBackgroundRefreshError = new AtomicReference<>();
+
+    private final ScheduledExecutorService refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gcp-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private GoogleCredentials credentials;
+    private volatile AccessToken accessToken;
+
+    /**
+     * Creates a new access token provider. The service account key is loaded on first use.
+     *
+     * @param keySecretArn The ARN of the secret storing the service account key.json
+     * @param refreshAhead Time before expiry at which the token is refreshed in the background
+     * @param minValidity  Minimum remaining validity of a token returned to callers
+     */
+    public GcpAccessTokenProvider(String keySecretArn, Duration refreshAhead, Duration minValidity) {
+        this.keySecretArn = keySecretArn;
+        this.refreshAhead = refreshAhead;
+        this.minValidity = minValidity;
+    }
+
+    /**
+     * Returns a valid access token with the Pub/Sub scope, refreshing it synchronously if needed.
+     *
+     * @return The access token value
+     * @throws UncheckedIOException if the service account key cannot be parsed or the token cannot be refreshed
+     */
+    public String getAccessToken() {
+        AccessToken token = accessToken;
+        if (!isValid(token, minValidity)) {
+            token = refresh(minValidity);
+        }
+
+        return token.getTokenValue();
+    }
+
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
+    public long getLastRefreshLatencyMillis() {
+        return lastRefreshLatencyMillis.get();
+    }
+
+    public long getAverageRefreshLatencyMillis() {
+        long count = refreshCount.get();
+        return count == 0 ? 0 : totalRefreshLatencyMillis.get() / count;
+    }
+
+    /**
+     * Returns the error of the last background refresh that failed, or {@code null} if the last one succeeded.
+     * Background refreshes run outside of any invocation, so their failures are reported through this metric.
+     */
+    public String getLastBackgroundRefreshError() {
+        return lastBackgroundRefreshError.get();
+    }
+
+    /**
+     * Refreshes the token unless another thread already refreshed it to the required validity.
+     */
+    private synchronized AccessToken refresh(Duration requiredValidity) {
+        if (isValid(accessToken, requiredValidity)) {
+            return accessToken;
+        }
+
+        long start = System.nanoTime();
+        boolean refreshed = false;
+        try {
+            if (credentials == null) {
+                String keyJson = getSecretString(keySecretArn);
+                credentials = GoogleCredentials.fromStream(
+                        new ByteArrayInputStream(keyJson.getBytes(StandardCharsets.UTF_8))
+                ).createScoped(Collections.singleton(PUBSUB_SCOPE));
+            }
+
+            credentials.refresh();
+            accessToken = credentials.getAccessToken();
+            refreshed = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to refresh GCP access token", e);
+        } finally {
+            if (!refreshed) {
+                refreshFailureCount.incrementAndGet();
+            }
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            lastRefreshLatencyMillis.set(latencyMillis);
+            totalRefreshLatencyMillis.addAndGet(latencyMillis);
+            refreshCount.incrementAndGet();
+        }
+
+        scheduleRefresh(accessToken);
+        return accessToken;
+    }
+
+    private void scheduleRefresh(AccessToken token) {
+        if (token.getExpirationTime() == null) {
+            return;
+        }
+
+        long delayMillis = token.getExpirationTime().getTime() - refreshAhead.toMillis() - System.currentTimeMillis();
+        if (delayMillis <= 0) {
+            // Tokens shorter-lived than the refresh-ahead window are only refreshed on demand
+            return;
+        }
+
+        refreshExecutor.schedule(() -> {
+            try {
+                refresh(refreshAhead);
+                lastBackgroundRefreshError.set(null);
+            } catch (RuntimeException e) {
+                // The next caller refreshes the token synchronously
+                lastBackgroundRefreshError.set(e.getMessage());
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean isValid(AccessToken token, Duration requiredValidity) {
+        if (token == null) {
+            return false;
+        }
+        if (token.getExpirationTime() == null) {
+            return true;
+        }
+
+        return token.getExpirationTime().getTime() - System.currentTimeMillis() > requiredValidity.toMillis();
+    }
+}
@@ -0,0 +1,116 @@
+package lambda.utils.publishers;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.google.common.collect.Iterables;
+import com.google.gson.Gson;
+import lambda.common.PubSubPublishRequest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static lambda.common.Constants.*;
+import static lambda.common.EnvironmentUtils.getLongEnv;
+
+/**
+ * Publishes messages to a Google Cloud Pub/Sub topic using the REST API.
+ *
+ * <p>All messages of a batch are sent in a single {@code topics.publish} request (up to 1000 messages per request).
+ * The HTTP/2 {@link HttpClient} and the {@link GcpAccessTokenProvider} are shared by every invocation of the Lambda
+ * container, so the service account key is parsed once and the OAuth2 access token is refreshed in the background
+ * before it expires instead of on the publish path.</p>
+ *
+ * <p>Environment variables required:
+ * <ul>
+ *   <li>{@code GCP_PROJECT_ID}: the GCP project ID.</li>
+ *   <li>{@code GCP_TOPIC_ID}: the target Pub/Sub topic ID.</li>
+ *   <li>{@code GCP_SPAPI_PUBSUB_KEY_ARN}: the ARN of the secret storing the service account key.json.</li>
+ * </ul>
+ *
+ * <p>Optional environment variables:
+ * <ul>
+ *   <li>{@code GCP_TOKEN_REFRESH_AHEAD_SECONDS}: time before expiry at which the access token is refreshed
+ *       (default 300).</li>
+ * </ul>
+ */
+public class GcpPubSubPublisher implements Publisher {
+
+    private static final Gson gson = new Gson();
+
+    private static final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(GCP_HTTP_CONNECT_TIMEOUT_SECONDS))
+            .build();
+
+    private final GcpAccessTokenProvider tokenProvider = new GcpAccessTokenProvider(
+            System.getenv(GCP_SPAPI_PUBSUB_KEY_ARN_ENV_VARIABLE),
+            Duration.ofSeconds(getLongEnv(GCP_TOKEN_REFRESH_AHEAD_SECONDS_ENV_VARIABLE, GCP_TOKEN_DEFAULT_REFRESH_AHEAD_SECONDS)),
+            Duration.ofSeconds(GCP_TOKEN_MIN_VALIDITY_SECONDS));
+    private final String publishUrl = String.format(
+            "https://pubsub.googleapis.com/v1/projects/%s/topics/%s:publish",
+            System.getenv(GCP_PROJECT_ID_ENV_VARIABLE), System.getenv(GCP_TOPIC_ID_ENV_VARIABLE));
+
+    @Override
+    public Set<String> publishBatch(Map<String, String> messages, LambdaLogger logger) {
+        Set<String> failedIds = new HashSet<>();
+
+        String accessToken;
+        try {
+            accessToken = tokenProvider.getAccessToken();
+        } catch (Exception e) {
+            logger.log("Failed to obtain GCP access token: " + e.getMessage());
+            return new HashSet<>(messages.keySet());
+        } finally {
+            logger.log(String.format("GCP token refreshes: %d, failures: %d, last latency: %d ms, average latency: %d ms",
+                    tokenProvider.getRefreshCount(),
+                    tokenProvider.getRefreshFailureCount(),
+                    tokenProvider.getLastRefreshLatencyMillis(),
+                    tokenProvider.getAverageRefreshLatencyMillis()));
+            String backgroundRefreshError = tokenProvider.getLastBackgroundRefreshError();
+            if (backgroundRefreshError != null) {
+                logger.log("Background refresh of GCP access token failed: " + backgroundRefreshError);
+            }
+        }
+
+        for (List<Map.Entry<String, String>> chunk : Iterables.partition(messages.entrySet(), GCP_PUBSUB_PUBLISH_MAX_MESSAGES)) {
+            List<PubSubPublishRequest.Message> pubSubMessages = new ArrayList<>();
+            for (Map.Entry<String, String> message : chunk) {
+                String encodedMessage = Base64.getEncoder().encodeToString(message.getValue().getBytes(StandardCharsets.UTF_8));
+                pubSubMessages.add(new PubSubPublishRequest.Message(encodedMessage));
+            }
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(publishUrl))
+                    .header("Authorization", "Bearer " + accessToken)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(10))
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new PubSubPublishRequest(pubSubMessages))))
+                    .build();
+
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                logger.log("Response code: " + response.statusCode());
+
+                // Pub/Sub publishes all messages of a request or none of them
+                if (response.statusCode() / 100 != 2) {
+                    logger.log("Failed to publish messages to GCP Pub/Sub: " + response.body());
+                    chunk.forEach(entry -> failedIds.add(entry.getKey()));
+                }
+            } catch (Exception e) {
+                logger.log("Error publishing messages to GCP Pub/Sub: " + e.getMessage());
+                chunk.forEach(entry -> failedIds.add(entry.getKey()));
+            }
+        }
+
+        return failedIds;
+    }
+}
@@ -0,0 +1,38 @@
+package lambda.utils.publishers;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Publishes notification messages to one cross-platform destination.
+ *
+ * <p>Implementations hold long-lived destination clients that are created once per Lambda container and reused by
+ * every invocation. Messages of an SQS batch are sent with the batch API of the destination, and failures are
+ * reported per message so that the handler can map them to {@code SQSBatchResponse} item failures.</p>
+ */
+public interface Publisher {
+
+    /**
+     * Publishes a batch of messages.
+     *
+     * @param messages The messages to publish, keyed by an identifier unique within the batch (e.g. the SQS message ID)
+     * @param logger   The Lambda logger for logging messages and errors
+     * @return The identifiers of the messages that could not be published
+     */
+    Set<String> publishBatch(Map<String, String> messages, LambdaLogger logger);
+
+    /**
+     * Publishes a single message.
+     *
+     * @param message The message body to publish (typically a JSON string)
+     * @param logger  The Lambda logger for logging messages and errors
+     * @throws RuntimeException If the message could not be published
+     */
+    default void publish(String message, LambdaLogger logger) {
+        if (!publishBatch(Map.of("0", message), logger).isEmpty()) {
+            throw new RuntimeException("Failed to publish message");
+        }
+    }
+}
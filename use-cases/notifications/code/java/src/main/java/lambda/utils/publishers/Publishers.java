@@ -0,0 +1,50 @@
+package lambda.utils.publishers;
+
+import lambda.common.NotificationDestinationType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Container-scoped registry of cross-platform {@link Publisher} instances.
+ *
+ * <p>Each publisher is created on first use and kept for the lifetime of the Lambda container, so destination clients,
+ * connections and connection strings are reused by every subsequent invocation. A publisher whose creation fails
+ * (e.g. missing connection string) is not registered, and its creation is retried on the next call.</p>
+ */
+public class Publishers {
+
+    private static final Map<NotificationDestinationType, Publisher> PUBLISHERS =
+            new EnumMap<>(NotificationDestinationType.class);
+
+    private Publishers() {
+    }
+
+    /**
+     * Returns the publisher of the given destination type, creating it if needed.
+     *
+     * @param destinationType The destination type enum indicating where messages should be published
+     * @return The publisher of the destination type
+     * @throws IllegalArgumentException If the destination type is not supported
+     */
+    public static synchronized Publisher get(NotificationDestinationType destinationType) {
+        return PUBLISHERS.computeIfAbsent(destinationType, Publishers::create);
+    }
+
+    private static Publisher create(NotificationDestinationType destinationType) {
+        switch (destinationType) {
+            case AWS_SQS:
+                return new SqsPublisher();
+            case AWS_EVENTBRIDGE:
+                return new EventBridgePublisher();
+            case GCP_PUBSUB:
+                return new GcpPubSubPublisher();
+            case AZURE_STORAGE_QUEUE:
+                return new AzureStorageQueuePublisher();
+            case AZURE_SERVICE_BUS:
+                return new AzureServiceBusPublisher();
+            default:
+                throw new IllegalArgumentException("Unsupported destination type: " + destinationType);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package lambda.utils.publishers;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static lambda.common.Constants.*;
+
+/**
+ * Publishes messages to the Amazon SQS queue defined by the {@code TARGET_SQS_URL} environment variable,
+ * using {@code SendMessageBatch} with up to 10 messages and 256 KiB of message bodies per request.
+ */
+public class SqsPublisher implements Publisher {
+
+    private final SqsClient sqsClient = SqsClient.create();
+    private final String queueUrl = System.getenv(TARGET_SQS_URL_ENV_VARIABLE);
+
+    @Override
+    public Set<String> publishBatch(Map<String, String> messages, LambdaLogger logger) {
+        Set<String> failedIds = new HashSet<>();
+
+        for (List<Map.Entry<String, String>> chunk : BatchPartitioner.partition(messages.entrySet(),
+                SQS_SEND_BATCH_MAX_ENTRIES,
+                SQS_SEND_BATCH_MAX_BYTES,
+                body -> body.getBytes(StandardCharsets.UTF_8).length)) {
+            // Batch entry IDs only allow alphanumeric characters, hyphens and underscores, so the chunk index is used
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                entries.add(SendMessageBatchRequestEntry.builder()
+                        .id(String.valueOf(i))
+                        .messageBody(chunk.get(i).getValue())
+                        .build());
+            }
+
+            try {
+                SendMessageBatchResponse response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                        .queueUrl(queueUrl)
+                        .entries(entries)
+                        .build());
+
+                for (BatchResultErrorEntry error : response.failed()) {
+                    String messageId = chunk.get(Integer.parseInt(error.id())).getKey();
+                    logger.log("Failed to send message " + messageId + " to SQS: " + error.message());
+                    failedIds.add(messageId);
+                }
+                logger.log(response.successful().size() + " messages were successfully sent to SQS.");
+            } catch (Exception e) {
+                logger.log("Error sending message batch to SQS: " + e.getMessage());
+                chunk.forEach(entry -> failedIds.add(entry.getKey()));
+            }
+        }
+
+        return failedIds;
+    }
+}
@@ -0,0 +1,134 @@
+package lambda.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lambda.common.NotificationEnvelope;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Local benchmark of {@link NotificationEnvelopeReader} against tree parsing of the same notifications.
+ *
+ * <p>Compares, per message:</p>
+ * <ul>
+ *   <li>ORDER_CHANGE routing: Gson tree parsing and field lookup vs. the streaming reader.</li>
+ *   <li>EventBridge ANY_OFFER_CHANGED forwarding: Jackson {@code Map} parsing and re-serialization of {@code detail}
+ *       vs. the streaming reader and a substring of the {@code detail} span.</li>
+ * </ul>
+ *
+ * <p>Usage: {@code mvn -q test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=lambda.utils.NotificationEnvelopeBenchmark -Dexec.args="[iterations]"}</p>
+ */
+public class NotificationEnvelopeBenchmark {
+
+    private static final String ORDER_CHANGE = "{\"NotificationVersion\":\"1.0\",\"NotificationType\":\"ORDER_CHANGE\"," +
+            "\"PayloadVersion\":\"1.0\",\"EventTime\":\"2024-01-01T00:00:00.000Z\",\"Payload\":{\"OrderChangeNotification\":" +
+            "{\"NotificationLevel\":\"OrderLevel\",\"SellerId\":\"A3TH9S8BH6GOGM\",\"AmazonOrderId\":\"903-1671087-0812628\"," +
+            "\"OrderChangeType\":\"OrderStatusChange\",\"OrderChangeTrigger\":{\"TimeOfOrderChange\":\"2024-01-01T00:00:00.000Z\"," +
+            "\"ChangeReason\":\"OrderStatusChange\"},\"Summary\":{\"MarketplaceId\":\"ATVPDKIKX0DER\",\"OrderStatus\":\"Unshipped\"," +
+            "\"PurchaseDate\":\"2024-01-01T00:00:00.000Z\",\"DestinationPostalCode\":\"98101\",\"SupplySourceId\":\"ssid\"," +
+            "\"OrderType\":\"StandardOrder\",\"EarliestDeliveryDate\":\"2024-01-05T07:00:00.000Z\"," +
+            "\"LatestDeliveryDate\":\"2024-01-08T06:59:59.000Z\",\"FulfillmentType\":\"MFN\",\"OrderPrograms\":[\"Prime\"]," +
+            "\"ShippingPrograms\":[\"TwoDay\"],\"OrderItems\":[" + orderItems(5) + "]}}},\"NotificationMetadata\":" +
+            "{\"ApplicationId\":\"amzn1.sellerapps.app.f1234566-aaec-55a6-b123-bcb752069ec5\"," +
+            "\"SubscriptionId\":\"93b098e1-c42-2f45-93a1-78910a6a8369\",\"PublishTime\":\"2024-01-01T00:00:01.000Z\"," +
+            "\"NotificationId\":\"d0e9e693-c3ad-4373-979f-ed4ec98dd746\"}}";
+
+    private static final String ANY_OFFER_CHANGED_EVENT = "{\"version\":\"0\",\"id\":\"0b5b1b1a-1234-5678-9abc-def012345678\"," +
+            "\"detail-type\":\"AnyOfferChanged\",\"source\":\"aws.partner/sellingpartnerapi.amazon.com\"," +
+            "\"account\":\"123456789012\",\"time\":\"2024-01-01T00:00:00Z\",\"region\":\"us-east-1\",\"resources\":[]," +
+            "\"detail\":{\"NotificationVersion\":\"1.0\",\"NotificationType\":\"ANY_OFFER_CHANGED\",\"PayloadVersion\":\"1.0\"," +
+            "\"EventTime\":\"2024-01-01T00:00:00.000Z\",\"Payload\":{\"AnyOfferChangedNotification\":{\"SellerId\":\"A3TH9S8BH6GOGM\"," +
+            "\"OfferChangeTrigger\":{\"MarketplaceId\":\"ATVPDKIKX0DER\",\"ASIN\":\"B07K3PRRLZ\",\"ItemCondition\":\"new\"," +
+            "\"TimeOfOfferChange\":\"2024-01-01T00:00:00.000Z\",\"OfferChangeType\":\"Internal\"},\"Summary\":{\"NumberOfOffers\":" +
+            "[{\"Condition\":\"new\",\"FulfillmentChannel\":\"Merchant\",\"OfferCount\":20}],\"BuyBoxEligibleOffers\":" +
+            "[{\"Condition\":\"new\",\"FulfillmentChannel\":\"Merchant\",\"OfferCount\":20}],\"LowestPrices\":" +
+            "[{\"Condition\":\"new\",\"FulfillmentChannel\":\"Merchant\",\"LandedPrice\":{\"Amount\":10.0,\"CurrencyCode\":\"USD\"}," +
+            "\"ListingPrice\":{\"Amount\":10.0,\"CurrencyCode\":\"USD\"},\"Shipping\":{\"Amount\":0.0,\"CurrencyCode\":\"USD\"}}]}," +
+            "\"Offers\":[" + offers(20) + "],\"OfferChangeReason\":\"Internal\"}},\"NotificationMetadata\":" +
+            "{\"ApplicationId\":\"amzn1.sellerapps.app.f1234566-aaec-55a6-b123-bcb752069ec5\"," +
+            "\"SubscriptionId\":\"93b098e1-c42-2f45-93a1-78910a6a8369\",\"PublishTime\":\"2024-01-01T00:00:01.000Z\"," +
+            "\"NotificationId\":\"d0e9e693-c3ad-4373-979f-ed4ec98dd746\"}}}";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    //Keeps the results reachable so the JIT cannot eliminate the measured work
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        run("ORDER_CHANGE routing, Gson tree", iterations, () -> {
+            JsonElement parsed = JsonParser.parseString(ORDER_CHANGE);
+            JsonObject body = parsed.getAsJsonObject();
+            JsonObject orderChange = body.getAsJsonObject("Payload").getAsJsonObject("OrderChangeNotification");
+            return body.get("NotificationType").getAsString().length()
+                    + orderChange.get("AmazonOrderId").getAsString().length()
+                    + orderChange.getAsJsonObject("Summary").get("OrderStatus").getAsString().length();
+        });
+        run("ORDER_CHANGE routing, streaming reader", iterations, () -> {
+            NotificationEnvelope envelope = NotificationEnvelopeReader.read(ORDER_CHANGE);
+            return envelope.getNotificationType().length()
+                    + envelope.getAmazonOrderId().length()
+                    + envelope.getOrderStatus().length();
+        });
+
+        run("ANY_OFFER_CHANGED detail, Jackson Map", iterations, () -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> parsed = objectMapper.readValue(ANY_OFFER_CHANGED_EVENT, Map.class);
+            return objectMapper.writeValueAsString(parsed.get("detail")).length();
+        });
+        run("ANY_OFFER_CHANGED detail, streaming reader", iterations, () ->
+                NotificationEnvelopeReader.read(ANY_OFFER_CHANGED_EVENT).getNotificationBody().length());
+
+        System.out.println("Checksum: " + sink);
+    }
+
+    private static void run(String name, int iterations, Callable<Integer> operation) throws Exception {
+        // Warm up the JIT
+        for (int i = 0; i < Math.min(iterations, 50000); i++) {
+            sink += operation.call();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += operation.call();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        System.out.println(String.format("%-45s %8.0f ns/op, %10.0f ops/s",
+                name, (double) elapsedNanos / iterations, iterations * 1e9 / elapsedNanos));
+    }
+
+    private static String orderItems(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"SellerSKU\":\"SKU-").append(i).append("\",\"OrderItemId\":\"OIID").append(i)
+                    .append("\",\"SupplySourceId\":\"ssid\",\"Quantity\":1}");
+        }
+        return builder.toString();
+    }
+
+    private static String offers(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"SellerId\":\"SELLER").append(i).append("\",\"SubCondition\":\"new\",")
+                    .append("\"SellerFeedbackRating\":{\"FeedbackCount\":").append(100 + i)
+                    .append(",\"SellerPositiveFeedbackRating\":98.0},\"ShippingTime\":{\"MinimumHours\":24,")
+                    .append("\"MaximumHours\":48,\"AvailabilityType\":\"NOW\"},\"ListingPrice\":{\"Amount\":")
+                    .append(10 + i).append(".0,\"CurrencyCode\":\"USD\"},\"Shipping\":{\"Amount\":0.0,")
+                    .append("\"CurrencyCode\":\"USD\"},\"IsFulfilledByAmazon\":false,\"IsBuyBoxWinner\":")
+                    .append(i == 0).append(",\"IsFeaturedMerchant\":true}");
+        }
+        return builder.toString();
+    }
+}
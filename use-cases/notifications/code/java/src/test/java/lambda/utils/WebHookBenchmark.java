@@ -0,0 +1,89 @@
+package lambda.utils;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local benchmark of {@link WebHookClient} against a stub webhook server.
+ *
+ * <p>The stub server listens on a random local port, answers every request with {@code 200}, and answers every
+ * {@code failureRate}-th request with {@code 503} and {@code Retry-After: 0} to exercise the retry path.</p>
+ *
+ * <p>Usage: {@code mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=lambda.utils.WebHookBenchmark
+ * -Dexec.args="[deliveries] [threads] [failureRate] [gzip]"}</p>
+ */
+public class WebHookBenchmark {
+
+    private static final String PAYLOAD = "{\"NotificationType\":\"ORDER_CHANGE\",\"Payload\":{\"OrderChangeNotification\":" +
+            "{\"AmazonOrderId\":\"123-1234567-1234567\",\"Summary\":{\"OrderStatus\":\"Unshipped\"}}}}";
+
+    public static void main(String[] args) throws Exception {
+        int deliveries = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int failureRate = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        boolean gzipEnabled = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        AtomicInteger requestCount = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (failureRate > 0 && requestCount.incrementAndGet() % failureRate == 0) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                exchange.sendResponseHeaders(200, -1);
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        server.start();
+
+        WebHookClient client = new WebHookClient("http://127.0.0.1:" + server.getAddress().getPort() + "/webhook",
+                "token", null, 3, threads, Duration.ofSeconds(10), gzipEnabled);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            // Warm up the connection pool and the JIT
+            runDeliveries(client, executor, Math.min(deliveries, 200));
+
+            long start = System.nanoTime();
+            int failures = runDeliveries(client, executor, deliveries);
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            System.out.println(String.format("Deliveries: %d, Threads: %d, Failures: %d, Elapsed: %d ms, Throughput: %.1f/s",
+                    deliveries, threads, failures, elapsedMillis, deliveries * 1000.0 / Math.max(elapsedMillis, 1)));
+        } finally {
+            executor.shutdownNow();
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdownNow();
+        }
+    }
+
+    private static int runDeliveries(WebHookClient client, ExecutorService executor, int deliveries) throws InterruptedException {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < deliveries; i++) {
+            futures.add(executor.submit(() -> {
+                client.send(PAYLOAD);
+                return null;
+            }));
+        }
+
+        int failures = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+}
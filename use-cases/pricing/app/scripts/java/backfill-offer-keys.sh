@@ -0,0 +1,53 @@
+#!/bin/bash
+
+# Migration script for seller items tables created before the OfferKey attribute was introduced.
+# The Java app looks up the SKUs of an offer through the OfferKeyIndex only, so items without OfferKey are not repriced.
+# The script sets OfferKey (ASIN#MarketplaceId#SellerId#condition, with a lowercase condition) on every item without it.
+# Usage: bash backfill-offer-keys.sh -t <seller items table name>
+
+# Get the table name from the input arguments
+table_name=""
+while getopts 't:' flag; do
+  case "${flag}" in
+    t) table_name="${OPTARG}";;
+  esac
+done
+
+if [ -z "${table_name}" ]
+then
+  echo "Usage: bash backfill-offer-keys.sh -t <seller items table name>"
+  exit -1
+fi
+
+# Scan the items without OfferKey (the AWS CLI reads all the scan pages) and set their OfferKey
+migrated_items=0
+skipped_items=0
+while IFS=$'\t' read -r asin sku marketplace_id seller_id condition
+do
+  if [ "${marketplace_id}" == "None" ] || [ "${seller_id}" == "None" ] || [ "${condition}" == "None" ]
+  then
+    echo "Item ${asin} ${sku} is missing MarketplaceId, SellerId or Condition. Skipping"
+    skipped_items=$((skipped_items + 1))
+    continue
+  fi
+
+  offer_key="${asin}#${marketplace_id}#${seller_id}#$(echo "${condition}" | tr '[:upper:]' '[:lower:]')"
+  aws dynamodb update-item \
+    --table-name "${table_name}" \
+    --key "{\"ASIN\":{\"S\":\"${asin}\"},\"SKU\":{\"S\":\"${sku}\"}}" \
+    --update-expression "SET OfferKey = :offer_key" \
+    --expression-attribute-values "{\":offer_key\":{\"S\":\"${offer_key}\"}}" > /dev/null
+  if [ $? -ne 0 ]
+  then
+    echo "Updating item ${asin} ${sku} failed"
+    echo "Aborting"
+    exit -1
+  fi
+  migrated_items=$((migrated_items + 1))
+done < <(aws dynamodb scan \
+  --table-name "${table_name}" \
+  --filter-expression "attribute_not_exists(OfferKey)" \
+  --query "Items[].[ASIN.S, SKU.S, MarketplaceId.S, SellerId.S, Condition.S]" \
+  --output text)
+
+echo "Migrated ${migrated_items} seller items, skipped ${skipped_items} items"
@@ -132,6 +132,10 @@ export class SpApiAppCdkStack extends cdk.Stack {
               attributeName: 'SKU',
               attributeType: 'S',
             },
+            {
+              attributeName: 'OfferKey',
+              attributeType: 'S',
+            },
           ],
           keySchema: [
             {
@@ -143,6 +147,49 @@ export class SpApiAppCdkStack extends cdk.Stack {
               keyType: 'RANGE',
             },
           ],
+          // OfferKey is the composite ASIN#MarketplaceId#SellerId#Condition used to look up the SKUs of an offer
+          globalSecondaryIndexes: [
+            {
+              indexName: 'OfferKeyIndex',
+              keySchema: [
+                {
+                  attributeName: 'OfferKey',
+                  keyType: 'HASH',
+                },
+                {
+                  attributeName: 'SKU',
+                  keyType: 'RANGE',
+                },
+              ],
+              projection: {
+                projectionType: 'ALL',
+              },
+            },
+          ],
+          billingMode: 'PAY_PER_REQUEST',
+        });
+
+        const spapiNotificationsDedupeTable = new dynamodb.CfnTable(this, 'SPAPINotificationsDedupeTable', {
+          tableName: [
+            'SPAPINotificationsDedupeTable',
+            props.randomSuffix!,
+          ].join('-'),
+          attributeDefinitions: [
+            {
+              attributeName: 'NotificationKey',
+              attributeType: 'S',
+            },
+          ],
+          keySchema: [
+            {
+              attributeName: 'NotificationKey',
+              keyType: 'HASH',
+            },
+          ],
+          timeToLiveSpecification: {
+            attributeName: 'ExpiresAt',
+            enabled: true,
+          },
           billingMode: 'PAY_PER_REQUEST',
         });
 
@@ -179,7 +226,10 @@ export class SpApiAppCdkStack extends cdk.Stack {
                   {
                     Effect: 'Allow',
                     Action: 'dynamodb:Query',
-                    Resource: spapiSellerItemsTable.attrArn,
+                    Resource: [
+                      spapiSellerItemsTable.attrArn,
+                      `${spapiSellerItemsTable.attrArn}/index/*`,
+                    ],
                   },
                 ],
               },
@@ -492,6 +542,42 @@ export class SpApiAppCdkStack extends cdk.Stack {
                 ],
               },
             },
+            {
+              policyName: 'DynamoDBWriterPolicy',
+              policyDocument: {
+                Version: '2012-10-17',
+                Statement: [
+                  {
+                    Effect: 'Allow',
+                    Action: 'dynamodb:PutItem',
+                    Resource: spapiNotificationsDedupeTable.attrArn,
+                  },
+                ],
+              },
+            },
+            {
+              policyName: 'FastPathRepricingPolicy',
+              policyDocument: {
+                Version: '2012-10-17',
+                Statement: [
+                  {
+                    Effect: 'Allow',
+                    Action: 'dynamodb:Query',
+                    Resource: [
+                      spapiSellerItemsTable.attrArn,
+                      `${spapiSellerItemsTable.attrArn}/index/*`,
+                    ],
+                  },
+                  {
+                    Effect: 'Allow',
+                    Action: 'secretsmanager:GetSecretValue',
+                    Resource: [
+                      spapiAppCredentials.ref,
+                    ],
+                  },
+                ],
+              },
+            },
           ],
         });
 
@@ -515,12 +601,23 @@ export class SpApiAppCdkStack extends cdk.Stack {
               'STATE_MACHINE_ARN': spapiStateMachine.ref,
               'REFRESH_TOKEN': refreshToken.valueAsString!,
               'REGION_CODE': regionCode.valueAsString!,
+              'DEDUPE_TABLE_NAME': spapiNotificationsDedupeTable.ref,
+              'DEDUPE_WINDOW_SECONDS': '10',
+              'PRICING_FAST_PATH_ENABLED': 'false',
+              'SP_API_APP_CREDENTIALS_SECRET_ARN': spapiAppCredentials.ref,
+              'SELLER_ITEMS_TABLE_NAME': spapiSellerItemsTable.ref,
             },
           },
         });
 
+        // The Java handler processes SQS batches and reports failed messages individually (ReportBatchItemFailures)
+        const isJavaRuntime = new cdk.CfnCondition(this, 'IsJavaRuntimeCondition', {
+          expression: cdk.Fn.conditionNot(cdk.Fn.conditionEquals(cdk.Fn.select(0, cdk.Fn.split('python', programmingLanguage.valueAsString)), '')),
+        });
+
         const spapiNotificationsEventSourceMapping = new lambda.CfnEventSourceMapping(this, 'SPAPINotificationsEventSourceMapping', {
-          batchSize: 1,
+          batchSize: cdk.Token.asNumber(cdk.Fn.conditionIf(isJavaRuntime.logicalId, 10, 1)),
+          functionResponseTypes: cdk.Token.asList(cdk.Fn.conditionIf(isJavaRuntime.logicalId, ['ReportBatchItemFailures'], cdk.Aws.NO_VALUE)),
           enabled: true,
           eventSourceArn: spapiNotificationsQueue.attrArn,
           functionName: spapiProcessNotificationLambdaFunction.attrArn,
@@ -5,14 +5,19 @@ import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.google.gson.Gson;
 import lambda.utils.Amount;
+import lambda.utils.CompetitorSummary;
 import lambda.utils.Offer;
 import lambda.utils.PriceChangeRule;
+import lambda.utils.PriceRule;
+import lambda.utils.PriceRules;
+import lambda.utils.PriceSnapshot;
+import lambda.utils.PricingHealth.MoneyType;
 import lambda.utils.PricingLambdaInput;
 
-import java.math.BigDecimal;
+import java.util.OptionalLong;
 
-import static lambda.utils.Constants.PRICE_CHANGE_RULE_FIXED;
-import static lambda.utils.Constants.PRICE_CHANGE_RULE_PERCENTAGE;
+import static lambda.utils.PriceMath.toAmount;
+import static lambda.utils.PriceMath.toMinorUnits;
 
 public class CalculateNewPriceHandler implements RequestHandler<PricingLambdaInput, PricingLambdaInput> {
 
@@ -20,113 +25,133 @@ public class CalculateNewPriceHandler implements RequestHandler<PricingLambdaInp
         LambdaLogger logger = context.getLogger();
         logger.log("CalculateNewPrice Lambda input: " + new Gson().toJson(input));
 
+        return calculateNewPrice(input, logger);
+    }
+
+    //Apply the price change rules to the seller offer and return the new listing price, or -1 to skip the update
+    //Prices are compared and calculated in minor units of the offer currency (e.g. cents)
+    public PricingLambdaInput calculateNewPrice(PricingLambdaInput input, LambdaLogger logger) {
         try {
-            //Calculate the landed price by summing listing price and shipping price
             Offer sellerOffer = input.getSellerOffer();
-            float landedPrice = sellerOffer.getListingPrice().getAmount() + sellerOffer.getShippingPrice().getAmount();
+            String offerCurrency = sellerOffer.getListingPrice().getCurrencyCode();
 
-            float buyBoxPrice = input.getBuyBox().getPrice().getAmount();
+            //Calculate the landed price by summing listing price and shipping price
+            long listingPrice = toMinorUnits(sellerOffer.getListingPrice().getAmount(), offerCurrency);
+            long shippingPrice = toMinorUnits(sellerOffer.getShippingPrice().getAmount(), offerCurrency);
+            long landedPrice = listingPrice + shippingPrice;
+
+            long buyBoxPrice = toMinorUnits(input.getBuyBox().getPrice().getAmount(), offerCurrency);
+            long minThreshold = toMinorUnits(input.getMinThreshold(), offerCurrency);
 
             //Check conditions to determine whether to skip new price calculation
 
             //Pricing Health Workflow - Check whether competitivePriceThreshold is present
             if (sellerOffer.getReferencePrice() != null && input.isUseCompetitivePrice()) {
-                float newItemPrice = sellerOffer.getReferencePrice().getCompetitivePriceThreshold().getAmount().floatValue();
-                return createNewPrice(newItemPrice, input.getMinThreshold(), buyBoxPrice, sellerOffer.getReferencePrice().getCompetitivePriceThreshold().getCurrencyCode(), logger);
+                MoneyType competitivePriceThreshold = sellerOffer.getReferencePrice().getCompetitivePriceThreshold();
+                String thresholdCurrency = competitivePriceThreshold.getCurrencyCode();
+                long newItemPrice = toMinorUnits(competitivePriceThreshold.getAmount(), thresholdCurrency);
+                return createNewPrice(newItemPrice,
+                        toMinorUnits(input.getMinThreshold(), thresholdCurrency),
+                        toMinorUnits(input.getBuyBox().getPrice().getAmount(), thresholdCurrency),
+                        thresholdCurrency,
+                        logger);
             }
 
             //Check if buy box price is less than the minimum threshold
-            if (buyBoxPrice < input.getMinThreshold()) {
+            if (buyBoxPrice < minThreshold) {
                 //Log and return indicating skipping new price calculation
                 logger.log(String.format("Buy Box Price: %f is less than threshold: %f. Skipping new price calculation.",
-                        buyBoxPrice,
-                        input.getMinThreshold()));
+                        toAmount(buyBoxPrice, offerCurrency),
+                        toAmount(minThreshold, offerCurrency)));
 
                 return PricingLambdaInput.builder()
                         .newListingPrice(Amount.builder()
                                 .amount(-1)
                                 .build())
-                        .issues(String.format("Buy Box Price: %s is less than threshold", buyBoxPrice))
+                        .issues(String.format("Buy Box Price: %s is less than threshold", toAmount(buyBoxPrice, offerCurrency)))
                         .build();
             }
 
             //Check if buy box price is greater than landed price
             if (buyBoxPrice > landedPrice) {
                 logger.log(String.format("Landed Price: %f is already less than Buy Box Price: %f. Skipping new price calculation.",
-                        landedPrice,
-                        buyBoxPrice));
+                        toAmount(landedPrice, offerCurrency),
+                        toAmount(buyBoxPrice, offerCurrency)));
 
                 return PricingLambdaInput.builder()
                         .newListingPrice(Amount.builder()
                                 .amount(-1)
                                 .build())
-                        .issues(String.format("Landed Price: %f is already less than Buy Box Price", landedPrice))
+                        .issues(String.format("Landed Price: %f is already less than Buy Box Price", toAmount(landedPrice, offerCurrency)))
                         .build();
             }
 
-            //Calculate the new item price based on different price change rules (percentage or fixed)
+            //Calculate the new item price with the compiled price change rule of the SKU
             PriceChangeRule priceChangeRule = input.getPriceChangeRule();
-            float newItemPrice;
-            float buyBoxPriceExcludingShipping = buyBoxPrice - sellerOffer.getShippingPrice().getAmount();
-            if (PRICE_CHANGE_RULE_PERCENTAGE.equals(priceChangeRule.getRule())) {
-                newItemPrice = subtractPercentage(buyBoxPriceExcludingShipping, priceChangeRule.getValue());
-            } else if (PRICE_CHANGE_RULE_FIXED.equals(priceChangeRule.getRule())) {
-                newItemPrice = subtractFixed(buyBoxPriceExcludingShipping, priceChangeRule.getValue());
-            } else {
-                newItemPrice = -1;
+            PriceRule priceRule = PriceRules.getOrCompile(priceChangeRule, offerCurrency);
+            if (priceRule == null) {
                 logger.log(String.format("Price Change Rule: %s is Invalid. Skipping new price calculation." +
-                                "Please change rule to match one of [PERCENTAGE, FIXED]",
+                                "Please change rule to match one of [PERCENTAGE, FIXED, MATCH_BUY_BOX, BEAT_LOWEST_FBA]",
                         priceChangeRule.getRule()));
 
                 return PricingLambdaInput.builder()
                         .newListingPrice(Amount.builder()
-                                .amount(newItemPrice)
+                                .amount(-1)
                                 .build())
                         .issues(String.format("Price Change Rule: %s is Invalid.", priceChangeRule.getRule()))
                         .build();
             }
 
+            CompetitorSummary competitorSummary = input.getCompetitorSummary();
+            OptionalLong newItemPrice = priceRule.apply(new PriceSnapshot(listingPrice,
+                    shippingPrice,
+                    buyBoxPrice,
+                    toOptionalMinorUnits(competitorSummary != null ? competitorSummary.getLowestFbaPrice() : null, offerCurrency),
+                    toOptionalMinorUnits(competitorSummary != null ? competitorSummary.getLowestMfnPrice() : null, offerCurrency)));
+            if (!newItemPrice.isPresent()) {
+                logger.log(String.format("Price Change Rule: %s is not active or has no competitor price. Skipping new price calculation.",
+                        priceChangeRule.getRule()));
+
+                return PricingLambdaInput.builder()
+                        .newListingPrice(Amount.builder()
+                                .amount(-1)
+                                .build())
+                        .issues(String.format("Price Change Rule: %s is not active or has no competitor price.", priceChangeRule.getRule()))
+                        .build();
+            }
+
             //Calculate the new listing price by subtracting shipping price from the new item price
-            float newListingPrice = newItemPrice;
-            return createNewPrice(newListingPrice, input.getMinThreshold(), buyBoxPrice, input.getSellerOffer().getListingPrice().getCurrencyCode(), logger);
+            long newListingPrice = newItemPrice.getAsLong();
+            return createNewPrice(newListingPrice, minThreshold, buyBoxPrice, offerCurrency, logger);
         } catch (Exception e) {
             throw new InternalError("CalculateNewPrice Lambda failed", e);
         }
     }
 
-    private PricingLambdaInput createNewPrice(float newListingPrice, float minThreshold, float buyBoxPrice, String offerCurrency, LambdaLogger logger) {
+    private OptionalLong toOptionalMinorUnits(Amount amount, String offerCurrency) {
+        return amount != null ? OptionalLong.of(toMinorUnits(amount.getAmount(), offerCurrency)) : OptionalLong.empty();
+    }
+
+    private PricingLambdaInput createNewPrice(long newListingPrice, long minThreshold, long buyBoxPrice, String offerCurrency, LambdaLogger logger) {
         //Check if the new listing price is less than the minimum threshold
         PricingLambdaInput.PricingLambdaInputBuilder pricingLambdaBuilder = PricingLambdaInput.builder();
         if (newListingPrice < minThreshold) {
             logger.log(String.format("New Listings Price: %f is less than threshold: %f. Skipping new price calculation.",
-                    newListingPrice,
-                    minThreshold));
+                    toAmount(newListingPrice, offerCurrency),
+                    toAmount(minThreshold, offerCurrency)));
 
             pricingLambdaBuilder
                     .newListingPrice(Amount.builder()
                             .amount(-1)
                             .build())
-                    .issues(String.format("Buy Box Price: %f is less than threshold", buyBoxPrice));
+                    .issues(String.format("Buy Box Price: %f is less than threshold", toAmount(buyBoxPrice, offerCurrency)));
         } else {
             pricingLambdaBuilder.newListingPrice(Amount.builder()
                             .currencyCode(offerCurrency)
-                            .amount(newListingPrice)
+                            .amount(toAmount(newListingPrice, offerCurrency))
                             .build())
                     .build();
         }
         return pricingLambdaBuilder.build();
     }
-
-    private float subtractPercentage(float n1, float percentage) {
-        return BigDecimal.valueOf(n1)
-                .subtract(BigDecimal.valueOf(n1)
-                        .multiply(BigDecimal.valueOf(percentage / 100)))
-                .floatValue();
-    }
-
-    private float subtractFixed(float n1, float n2) {
-        return BigDecimal.valueOf(n1)
-                .subtract(BigDecimal.valueOf(n2))
-                .floatValue();
-    }
 }
@@ -3,32 +3,28 @@ package lambda;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.gson.Gson;
+import lambda.utils.CompetitorSummary;
 import lambda.utils.Offer;
 import lambda.utils.PriceChangeRule;
+import lambda.utils.PriceRules;
 import lambda.utils.PricingLambdaInput;
 import lambda.utils.PricingOffers;
+import lambda.utils.SellerItemsTable;
 import lambda.utils.StateMachineInput;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
-import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
 
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import static lambda.utils.Constants.SELLER_ITEMS_TABLE_CONDITION_KEY_NAME;
-import static lambda.utils.Constants.SELLER_ITEMS_TABLE_HASH_KEY_NAME;
+import static lambda.utils.Constants.SELLER_ITEMS_TABLE_ACTIVE_HOURS_KEY_NAME;
 import static lambda.utils.Constants.SELLER_ITEMS_TABLE_IS_FULFILLED_BY_AMAZON_KEY_NAME;
-import static lambda.utils.Constants.SELLER_ITEMS_TABLE_MARKETPLACE_ID_KEY_NAME;
+import static lambda.utils.Constants.SELLER_ITEMS_TABLE_MAX_PRICE_KEY_NAME;
 import static lambda.utils.Constants.SELLER_ITEMS_TABLE_MIN_THRESHOLD_KEY_NAME;
-import static lambda.utils.Constants.SELLER_ITEMS_TABLE_NAME_ENV_VARIABLE;
 import static lambda.utils.Constants.SELLER_ITEMS_TABLE_PRICE_CHANGE_RULE_AMOUNT_KEY_NAME;
 import static lambda.utils.Constants.SELLER_ITEMS_TABLE_PRICE_CHANGE_RULE_KEY_NAME;
-import static lambda.utils.Constants.SELLER_ITEMS_TABLE_SELLER_ID_KEY_NAME;
 import static lambda.utils.Constants.SELLER_ITEMS_TABLE_SKU_KEY_NAME;
 import static lambda.utils.Constants.SELLER_ITEMS_TABLE_USE_COMPETITIVE_PRICE;
 
@@ -38,17 +34,42 @@ public class CheckSkuHandler implements RequestHandler<StateMachineInput, Pricin
         LambdaLogger logger = context.getLogger();
         logger.log("CheckSku Lambda input: " + new Gson().toJson(input));
 
+        return getPricingOffers(input, logger);
+    }
+
+    //Build one pricing input per seller SKU matching the notification item
+    //SKUs with an invalid price change rule definition are skipped
+    public PricingOffers getPricingOffers(StateMachineInput input, LambdaLogger logger) {
         List<PricingLambdaInput> sellerOffers = Lists.newArrayList();
 
         //Retrieve the items from DynamoDB by ASIN, seller ID, condition, and marketplace ID
         //Update this section to match your product's logic
-        List<Map<String, AttributeValue>> skus = retrieveSKUs(
+        List<Map<String, AttributeValue>> skus = SellerItemsTable.retrieveSKUs(
                 input.getAsin(),
                 input.getSeller().getSellerId(),
                 input.getBuyBox().getCondition(),
                 input.getCredentials().getMarketplaceId());
 
+        CompetitorSummary competitorSummary = input.getCompetitorSummary() != null
+                ? input.getCompetitorSummary()
+                : CompetitorSummary.builder().build();
+
         for (Map<String, AttributeValue> sku : skus) {
+            String activeHours = sku.containsKey(SELLER_ITEMS_TABLE_ACTIVE_HOURS_KEY_NAME)
+                    ? sku.get(SELLER_ITEMS_TABLE_ACTIVE_HOURS_KEY_NAME).s()
+                    : null;
+            if (activeHours != null && !activeHours.isEmpty()) {
+                try {
+                    PriceRules.parseActiveHours(activeHours);
+                } catch (IllegalArgumentException e) {
+                    logger.log(String.format("%s of SKU %s is invalid, SKU skipped: %s",
+                            SELLER_ITEMS_TABLE_ACTIVE_HOURS_KEY_NAME,
+                            sku.get(SELLER_ITEMS_TABLE_SKU_KEY_NAME).s(),
+                            e.getMessage()));
+                    continue;
+                }
+            }
+
             try {
                 PricingLambdaInput pricingOffer = PricingLambdaInput.builder()
                         .isFulfilledByAmazon(sku.get(SELLER_ITEMS_TABLE_IS_FULFILLED_BY_AMAZON_KEY_NAME).bool())
@@ -57,10 +78,15 @@ public class CheckSkuHandler implements RequestHandler<StateMachineInput, Pricin
                         .priceChangeRule(PriceChangeRule.builder()
                                 .value(Float.parseFloat(sku.get(SELLER_ITEMS_TABLE_PRICE_CHANGE_RULE_AMOUNT_KEY_NAME).n()))
                                 .rule(sku.get(SELLER_ITEMS_TABLE_PRICE_CHANGE_RULE_KEY_NAME).s())
+                                .maxPrice(sku.containsKey(SELLER_ITEMS_TABLE_MAX_PRICE_KEY_NAME)
+                                        ? Float.parseFloat(sku.get(SELLER_ITEMS_TABLE_MAX_PRICE_KEY_NAME).n())
+                                        : null)
+                                .activeHours(activeHours)
                                 .build())
 
                         .useCompetitivePrice(sku.get(SELLER_ITEMS_TABLE_USE_COMPETITIVE_PRICE).bool())
                         .buyBox(input.getBuyBox())
+                        .competitorSummary(competitorSummary)
                         .sellerId(input.getSeller().getSellerId())
                         .asin(input.getAsin())
                         .credentials(input.getCredentials())
@@ -88,28 +114,4 @@ public class CheckSkuHandler implements RequestHandler<StateMachineInput, Pricin
                 .offers(sellerOffers)
                 .build();
     }
-
-    List<Map<String, AttributeValue>> retrieveSKUs(String asin, String sellerId, String condition, String marketplaceId) {
-        QueryRequest queryRequest = QueryRequest.builder()
-                .tableName(System.getenv(SELLER_ITEMS_TABLE_NAME_ENV_VARIABLE))
-                .keyConditionExpression("#p_key = :asin")
-                .filterExpression("#seller_key = :sid and #condition_key = :cond and #marketplace_id_key = :mid")
-                .expressionAttributeNames(ImmutableMap.of(
-                        "#p_key", SELLER_ITEMS_TABLE_HASH_KEY_NAME,
-                        "#seller_key", SELLER_ITEMS_TABLE_SELLER_ID_KEY_NAME,
-                        "#condition_key", SELLER_ITEMS_TABLE_CONDITION_KEY_NAME,
-                        "#marketplace_id_key", SELLER_ITEMS_TABLE_MARKETPLACE_ID_KEY_NAME
-                ))
-                .expressionAttributeValues(ImmutableMap.of(
-                        ":asin", AttributeValue.fromS(asin),
-                        ":sid", AttributeValue.fromS(sellerId),
-                        ":cond", AttributeValue.fromS(condition.toLowerCase()),
-                        ":mid", AttributeValue.fromS(marketplaceId)
-                ))
-                .build();
-
-        DynamoDbClient dynamoDB = DynamoDbClient.builder().build();
-        QueryResponse queryResponse = dynamoDB.query(queryRequest);
-        return queryResponse.items();
-    }
 }
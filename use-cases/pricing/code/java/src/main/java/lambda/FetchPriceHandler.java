@@ -5,15 +5,31 @@ import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.google.common.collect.Lists;
 import com.google.gson.Gson;
+import com.amazon.SellingPartnerAPIAA.LWAException;
+import io.swagger.client.ApiException;
 import io.swagger.client.api.ProductPricingApi;
 import io.swagger.client.model.pricing.GetPricingResponse;
+import io.swagger.client.model.pricing.Price;
 import io.swagger.client.model.pricing.PriceType;
 import lambda.utils.Amount;
+import lambda.utils.ApiClientCache;
+import lambda.utils.ApiCredentials;
+import lambda.utils.Offer;
 import lambda.utils.PricingLambdaInput;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static lambda.utils.ApiUtils.getProductPricingApi;
+import static lambda.utils.ApiUtils.invalidateCachedClients;
+import static lambda.utils.ApiUtils.isRejectedCredentials;
+import static lambda.utils.Constants.GET_PRICING_BASE_BACKOFF_MILLIS;
+import static lambda.utils.Constants.GET_PRICING_MAX_ATTEMPTS;
+import static lambda.utils.Constants.GET_PRICING_MAX_SKUS_PER_REQUEST;
 import static lambda.utils.Constants.REGION_CODE_ENV_VARIABLE;
 
 public class FetchPriceHandler implements RequestHandler<PricingLambdaInput, PricingLambdaInput> {
@@ -22,46 +38,158 @@ public class FetchPriceHandler implements RequestHandler<PricingLambdaInput, Pri
         LambdaLogger logger = context.getLogger();
         logger.log("FetchPrice Lambda input: " + new Gson().toJson(input));
 
+        //Fetch Prices state: the offers of all SKUs of the notification
+        if (input.getOffers() != null) {
+            return PricingLambdaInput.builder()
+                    .offers(prefetchPrices(input.getOffers(), logger))
+                    .build();
+        }
+
+        //Fetch Price Data state: a single SKU
+        return fetchPrice(input, logger);
+    }
+
+    //Set the seller offer of every SKU without an offer in the notification, using batched getPricing calls
+    //SKUs with a client error are removed, as the state machine ends their processing anyway
+    //SKUs of a chunk that failed after all attempts keep no seller offer, so the state machine fetches them one by one
+    public List<PricingLambdaInput> prefetchPrices(List<PricingLambdaInput> offers, LambdaLogger logger) {
+        List<PricingLambdaInput> offersWithoutPrices = offers.stream()
+                .filter(offer -> offer.getSellerOffer() == null)
+                .collect(Collectors.toList());
+        if (!offersWithoutPrices.isEmpty()) {
+            fetchPrices(offersWithoutPrices, logger);
+        }
+
+        List<PricingLambdaInput> pricedOffers = new ArrayList<>();
+        for (PricingLambdaInput offer : offers) {
+            if (offer.getSellerOffer() == null && offer.getListingPrice() != null) {
+                if (offer.getListingPrice().getAmount() < 0) {
+                    continue;
+                }
+
+                offer.setSellerOffer(Offer.builder()
+                        .listingPrice(offer.getListingPrice())
+                        .shippingPrice(offer.getShippingPrice())
+                        .build());
+            }
+            pricedOffers.add(offer);
+        }
+
+        return pricedOffers;
+    }
+
+    //Retrieve the current listing and shipping price of the SKU from the Product Pricing API
+    public PricingLambdaInput fetchPrice(PricingLambdaInput input, LambdaLogger logger) {
+        PricingLambdaInput offer = fetchPrices(Lists.newArrayList(input), logger).get(0);
+        if (offer.getListingPrice() == null) {
+            throw new InternalError(String.format("FetchPrice Lambda failed for SKU %s", input.getItemSku()));
+        }
+
+        return PricingLambdaInput.builder()
+                .listingPrice(offer.getListingPrice())
+                .shippingPrice(offer.getShippingPrice())
+                .build();
+    }
+
+    //Retrieve the current listing and shipping prices of many SKUs, with up to 20 SKUs per getPricing call
+    //The listing and shipping prices of every offer are set in place; SKUs with a client error get -1 placeholders
+    //Throttled and failed calls are retried per chunk; the offers of a chunk that still fails keep no prices,
+    //and the other chunks are priced
+    public List<PricingLambdaInput> fetchPrices(List<PricingLambdaInput> offers, LambdaLogger logger) {
         String regionCode = System.getenv(REGION_CODE_ENV_VARIABLE);
-        List<String> skus = Lists.newArrayList(input.getItemSku());
+
+        //getPricing accepts a single marketplace, and clients are bound to a refresh token
+        Map<List<String>, List<PricingLambdaInput>> offersByCredentials = offers.stream()
+                .collect(Collectors.groupingBy(
+                        o -> Arrays.asList(o.getCredentials().getMarketplaceId(), o.getCredentials().getRefreshToken()),
+                        LinkedHashMap::new,
+                        Collectors.toList()));
 
         try {
-            ProductPricingApi pricingApi = getProductPricingApi(regionCode, input.getCredentials().getRefreshToken());
-            GetPricingResponse getPricingResponse = pricingApi.getPricing(
-                    input.getCredentials().getMarketplaceId(),
-                    "Sku",
-                    null,
-                    skus,
-                    null,
-                    null);
-
-            logger.log("GetPricing Response: " + new Gson().toJson(getPricingResponse));
-
-            //Check for a client error response from the pricing API
-            if ("ClientError".equals(getPricingResponse.getPayload().get(0).getStatus())) {
-                //Return placeholders for listing and shipping price
-                logger.log("ClientError received from Product Pricing API");
-                return PricingLambdaInput.builder()
-                        .listingPrice(Amount.builder().amount(-1).build())
-                        .shippingPrice(Amount.builder().amount(-1).build())
-                        .build();
-            }
+            for (List<PricingLambdaInput> credentialsOffers : offersByCredentials.values()) {
+                ApiCredentials credentials = credentialsOffers.get(0).getCredentials();
+                ProductPricingApi pricingApi = getProductPricingApi(regionCode, credentials.getRefreshToken());
+                logger.log(ApiClientCache.getStats());
 
-            PriceType skuPrices = getPricingResponse.getPayload().get(0).getProduct().getOffers().get(0).getBuyingPrice();
+                Map<String, List<PricingLambdaInput>> offersBySku = credentialsOffers.stream()
+                        .collect(Collectors.groupingBy(PricingLambdaInput::getItemSku, LinkedHashMap::new, Collectors.toList()));
 
-            return PricingLambdaInput.builder()
-                    .listingPrice(Amount.builder()
-                            .currencyCode(skuPrices.getLandedPrice().getCurrencyCode())
-                            .amount(skuPrices.getLandedPrice().getAmount().floatValue())
-                            .build())
-                    .shippingPrice(Amount.builder()
-                            .currencyCode(skuPrices.getShipping().getCurrencyCode())
-                            .amount(skuPrices.getShipping().getAmount().floatValue())
-                            .build())
-                    .build();
+                for (List<String> skus : Lists.partition(new ArrayList<>(offersBySku.keySet()), GET_PRICING_MAX_SKUS_PER_REQUEST)) {
+                    GetPricingResponse getPricingResponse;
+                    try {
+                        getPricingResponse = getPricing(pricingApi, credentials.getMarketplaceId(), skus);
+                    } catch (ApiException e) {
+                        logger.log(String.format("GetPricing failed for SKUs %s with code %d: %s",
+                                skus, e.getCode(), e.getMessage()));
+                        continue;
+                    }
+
+                    logger.log("GetPricing Response: " + new Gson().toJson(getPricingResponse));
+
+                    Map<String, Price> pricesBySku = getPricingResponse.getPayload().stream()
+                            .filter(price -> price.getSellerSKU() != null)
+                            .collect(Collectors.toMap(Price::getSellerSKU, price -> price, (first, second) -> first));
 
+                    for (String sku : skus) {
+                        Price price = pricesBySku.get(sku);
+                        for (PricingLambdaInput offer : offersBySku.get(sku)) {
+                            setPrices(offer, price, logger);
+                        }
+                    }
+                }
+            }
+        } catch (LWAException e) {
+            //Rebuild the clients with the current app credentials on retry, e.g. after the client secret was rotated
+            if (isRejectedCredentials(e)) {
+                invalidateCachedClients();
+            }
+            throw new InternalError("FetchPrice Lambda failed", e);
         } catch (Exception e) {
             throw new InternalError("FetchPrice Lambda failed", e);
         }
+
+        return offers;
+    }
+
+    //Call getPricing, retrying throttled and server errors with exponential backoff
+    private GetPricingResponse getPricing(ProductPricingApi pricingApi, String marketplaceId, List<String> skus)
+            throws ApiException, LWAException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return pricingApi.getPricing(marketplaceId, "Sku", null, skus, null, null);
+            } catch (ApiException e) {
+                boolean retryable = e.getCode() == 429 || e.getCode() >= 500;
+                if (!retryable || attempt == GET_PRICING_MAX_ATTEMPTS) {
+                    throw e;
+                }
+                Thread.sleep(GET_PRICING_BASE_BACKOFF_MILLIS << (attempt - 1));
+            }
+        }
+    }
+
+    private void setPrices(PricingLambdaInput offer, Price price, LambdaLogger logger) {
+        //Check for a client error response from the pricing API
+        if (price == null
+                || "ClientError".equals(price.getStatus())
+                || price.getProduct() == null
+                || price.getProduct().getOffers() == null
+                || price.getProduct().getOffers().isEmpty()) {
+            //Set placeholders for listing and shipping price
+            logger.log(String.format("ClientError received from Product Pricing API for SKU %s", offer.getItemSku()));
+            offer.setListingPrice(Amount.builder().amount(-1).build());
+            offer.setShippingPrice(Amount.builder().amount(-1).build());
+            return;
+        }
+
+        PriceType skuPrices = price.getProduct().getOffers().get(0).getBuyingPrice();
+
+        offer.setListingPrice(Amount.builder()
+                .currencyCode(skuPrices.getLandedPrice().getCurrencyCode())
+                .amount(skuPrices.getLandedPrice().getAmount().floatValue())
+                .build());
+        offer.setShippingPrice(Amount.builder()
+                .currencyCode(skuPrices.getShipping().getCurrencyCode())
+                .amount(skuPrices.getShipping().getAmount().floatValue())
+                .build());
     }
 }
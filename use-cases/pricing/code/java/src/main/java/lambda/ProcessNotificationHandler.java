@@ -3,21 +3,26 @@ package lambda;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import lambda.utils.AnyOfferChanged.AnyOfferChangedNotification;
 import lambda.utils.AnyOfferChanged.AnyOfferChangedNotificationPayload;
+import lambda.utils.NotificationCoalescer;
+import lambda.utils.NotificationDedupeWindow;
 import lambda.utils.PricingHealth.PricingHealthNotification;
 import lambda.utils.PricingNotification;
 import lambda.utils.SPAPINotification;
-import software.amazon.awssdk.services.sfn.SfnClient;
+import lambda.utils.StepFunctionsDispatcher;
 import software.amazon.awssdk.services.sfn.model.StartExecutionRequest;
-import software.amazon.awssdk.services.sfn.model.StartExecutionResponse;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import static lambda.utils.Constants.NOTIFICATION_TYPE_ANY_OFFER_CHANGED;
@@ -25,81 +30,114 @@ import static lambda.utils.Constants.NOTIFICATION_TYPE_PRICING_HEALTH;
 import static lambda.utils.Constants.PRICE_CHANGE_OFFER_CHANGE_TYPES;
 import static lambda.utils.Constants.STATE_MACHINE_ARN_ENV_VARIABLE;
 
-public class ProcessNotificationHandler implements RequestHandler<SQSEvent, String> {
+public class ProcessNotificationHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
 
-    public String handleRequest(SQSEvent input, Context context) {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    //schemas differ from one notification to another. E.g NotificationType in AnyOfferChange vs notificationType in PricingHealth.
+    //we accept case-insensitive properties to identify the notification type.
+    private static final ObjectMapper CASE_INSENSITIVE_MAPPER = new ObjectMapper()
+            .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES, true);
+
+    public SQSBatchResponse handleRequest(SQSEvent input, Context context) {
         LambdaLogger logger = context.getLogger();
         logger.log("ProcessNotification Lambda input: " + new Gson().toJson(input));
 
-        //Iterate over SQS messages
-        //Start a Step Functions workflow execution for every Any Offer Changed notifications
+        //Parse every notification of the batch and keep only the newest one per seller, marketplace and ASIN
+        NotificationCoalescer coalescer = new NotificationCoalescer();
+        Map<String, Exception> parsingErrors = new HashMap<>();
         for (SQSEvent.SQSMessage message : input.getRecords()) {
             logger.log(String.format("Notification body: %s", message.getBody()));
-
             try {
-                SPAPINotification notification = mapNotification(message.getBody());
-
-                switch (notification.getNotificationType()) {
-                    case NOTIFICATION_TYPE_ANY_OFFER_CHANGED:
-                        AnyOfferChangedNotification anyOfferChangedNotification = parseAnyOfferChangedNotification(message.getBody());
-                        processNotification(anyOfferChangedNotification.getPayload().getAnyOfferChangedNotificationPayload(), logger);
-                        break;
-                    case NOTIFICATION_TYPE_PRICING_HEALTH:
-                        PricingHealthNotification pricingHealthNotification = parsePricingHealthNotification(message.getBody());
-                        processNotification(pricingHealthNotification.getPricingHealthNotificationPayload(), logger);
-                        break;
-                    default:
-                        logger.log(String.format("Notification type %s skipped", notification.getNotificationType()));
+                PricingNotification pricingNotification = parsePricingNotification(message.getBody(), logger);
+                if (pricingNotification != null) {
+                    coalescer.add(message.getMessageId(), pricingNotification, getSentTimestamp(message));
                 }
-
             } catch (Exception e) {
-                throw new InternalError("ProcessNotification Lambda failed", e);
+                parsingErrors.put(message.getMessageId(), e);
             }
         }
 
-        return "Finished processing incoming notifications";
-    }
-
-    private void processNotification(PricingNotification pricingNotification, LambdaLogger logger) throws JsonProcessingException {
-        if (pricingNotification instanceof AnyOfferChangedNotificationPayload) {
-            AnyOfferChangedNotificationPayload payload = (AnyOfferChangedNotificationPayload) pricingNotification;
-            // Only process the AOC notification if it is of type 'Internal' or 'FeaturedOffer'
-            if (!PRICE_CHANGE_OFFER_CHANGE_TYPES.contains(payload.getOfferChangeTrigger().getOfferChangeType())) {
-                logger.log(String.format("Offer change type %s skipped", payload.getOfferChangeTrigger().getOfferChangeType()));
-                return;
+        Map<String, PricingNotification> newestNotifications = coalescer.getNewestNotifications();
+        logger.log(String.format("Coalesced %d notifications of the batch into %d workflows",
+                coalescer.getCoalescedCount(),
+                newestNotifications.size()));
+
+        //Reprice every remaining Any Offer Changed and Pricing Health notification, either in-process
+        //or by starting a Step Functions workflow execution
+        //Executions of the batch are started concurrently and failures are reported per message
+        return StepFunctionsDispatcher.dispatch(input, message -> {
+            if (parsingErrors.containsKey(message.getMessageId())) {
+                throw parsingErrors.get(message.getMessageId());
             }
-        }
 
-        logger.log("Starting state machine execution");
-        String executionArn = startStepFunctionsExecution(pricingNotification);
+            PricingNotification pricingNotification = newestNotifications.get(message.getMessageId());
+            if (pricingNotification == null) {
+                return null;
+            }
 
-        logger.log(String.format("State machine successfully started. Execution arn: %s", executionArn));
-    }
+            long offerChangeTime = NotificationCoalescer.getOfferChangeTime(pricingNotification, getSentTimestamp(message));
+            if (!NotificationDedupeWindow.tryAcquire(message.getMessageId(), pricingNotification, offerChangeTime)) {
+                logger.log(String.format("Notification %s skipped, a workflow for %s with the same or a newer offer change was started within the dedupe window",
+                        message.getMessageId(),
+                        NotificationCoalescer.getCoalescingKey(pricingNotification)));
+                return null;
+            }
 
-    private SPAPINotification mapNotification(String notificationBody) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        //schemas differ from one notification to another. E.g NotificationType in AnyOfferChange vs notificationType in PricingHealth.
-        //we accept case-insensitive properties to identify the notification type.
-        mapper.configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES, true);
+            //Fast path: reprice in-process, falling back to the state machine if the engine fails
+            if (RepricingEngine.isEnabled()) {
+                try {
+                    RepricingEngine.reprice(pricingNotification.mapToStateMachineInput(), logger);
+                    return null;
+                } catch (RuntimeException | InternalError e) {
+                    logger.log(String.format("Repricing engine failed for notification %s, starting the state machine: %s",
+                            message.getMessageId(),
+                            e.getMessage()));
+                }
+            }
 
-        return mapper.readValue(notificationBody, SPAPINotification.class);
+            return buildExecutionRequest(pricingNotification);
+        }, logger);
     }
 
-    private AnyOfferChangedNotification parseAnyOfferChangedNotification(String notificationBody) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.readValue(notificationBody, AnyOfferChangedNotification.class);
+    //Parse the notification body once and map it to the pricing notification it contains
+    //Returns null if the notification must not start a workflow
+    private PricingNotification parsePricingNotification(String notificationBody, LambdaLogger logger) throws IOException {
+        JsonNode notificationTree = MAPPER.readTree(notificationBody);
+        SPAPINotification notification = CASE_INSENSITIVE_MAPPER.treeToValue(notificationTree, SPAPINotification.class);
+
+        switch (String.valueOf(notification.getNotificationType())) {
+            case NOTIFICATION_TYPE_ANY_OFFER_CHANGED:
+                AnyOfferChangedNotification anyOfferChangedNotification =
+                        MAPPER.treeToValue(notificationTree, AnyOfferChangedNotification.class);
+                AnyOfferChangedNotificationPayload payload =
+                        anyOfferChangedNotification.getPayload().getAnyOfferChangedNotificationPayload();
+
+                // Only process the AOC notification if it is of type 'Internal' or 'FeaturedOffer'
+                if (!PRICE_CHANGE_OFFER_CHANGE_TYPES.contains(payload.getOfferChangeTrigger().getOfferChangeType())) {
+                    logger.log(String.format("Offer change type %s skipped", payload.getOfferChangeTrigger().getOfferChangeType()));
+                    return null;
+                }
+                return payload;
+            case NOTIFICATION_TYPE_PRICING_HEALTH:
+                PricingHealthNotification pricingHealthNotification =
+                        MAPPER.treeToValue(notificationTree, PricingHealthNotification.class);
+                return pricingHealthNotification.getPricingHealthNotificationPayload();
+            default:
+                logger.log(String.format("Notification type %s skipped", notification.getNotificationType()));
+                return null;
+        }
     }
 
-    private PricingHealthNotification parsePricingHealthNotification(String notificationBody) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.readValue(notificationBody, PricingHealthNotification.class);
+    private static long getSentTimestamp(SQSEvent.SQSMessage message) {
+        String sentTimestamp = message.getAttributes() != null ? message.getAttributes().get("SentTimestamp") : null;
+        return sentTimestamp != null ? Long.parseLong(sentTimestamp) : 0L;
     }
 
-    private String startStepFunctionsExecution(PricingNotification pricingNotification) throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
+    private StartExecutionRequest buildExecutionRequest(PricingNotification pricingNotification) throws JsonProcessingException {
         String inputStr = pricingNotification.mapToPricingStateMachineInput();
 
-        StartExecutionRequest request = StartExecutionRequest.builder()
+        return StartExecutionRequest.builder()
                 .stateMachineArn(System.getenv(STATE_MACHINE_ARN_ENV_VARIABLE))
                 .name(String.format("%s-%s-%s",
                         pricingNotification.getSellerId(),
@@ -107,10 +145,5 @@ public class ProcessNotificationHandler implements RequestHandler<SQSEvent, Stri
                         UUID.randomUUID()))
                 .input(inputStr)
                 .build();
-
-        SfnClient stepFunctions = SfnClient.builder().build();
-        StartExecutionResponse result = stepFunctions.startExecution(request);
-
-        return result.executionArn();
     }
 }
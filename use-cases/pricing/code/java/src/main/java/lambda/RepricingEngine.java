@@ -0,0 +1,121 @@
+package lambda;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import lambda.utils.Offer;
+import lambda.utils.PricingLambdaInput;
+import lambda.utils.PricingOffers;
+import lambda.utils.StateMachineInput;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static lambda.utils.Constants.PRICING_FAST_PATH_DEFAULT_MAX_CONCURRENCY;
+import static lambda.utils.Constants.PRICING_FAST_PATH_ENABLED_ENV_VARIABLE;
+import static lambda.utils.Constants.PRICING_FAST_PATH_MAX_CONCURRENCY_ENV_VARIABLE;
+
+/**
+ * In-process implementation of the pricing state machine.
+ * Runs Check Sku, Fetch Price Data, Calculate New Price and Submit Price Update for every SKU of a notification
+ * within a single Lambda invocation, without a Step Functions transition and a payload serialization per step.
+ * SKUs are processed concurrently, bounded by PRICING_FAST_PATH_MAX_CONCURRENCY.
+ * The choices mirror the state machine definition, which is kept as the fallback path.
+ */
+public class RepricingEngine {
+
+    private static final int MAX_CONCURRENCY = getMaxConcurrency();
+    private static final ExecutorService SKU_EXECUTOR = Executors.newFixedThreadPool(MAX_CONCURRENCY, runnable -> {
+        Thread thread = new Thread(runnable, "repricing-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final CheckSkuHandler CHECK_SKU = new CheckSkuHandler();
+    private static final FetchPriceHandler FETCH_PRICE = new FetchPriceHandler();
+    private static final CalculateNewPriceHandler CALCULATE_NEW_PRICE = new CalculateNewPriceHandler();
+    private static final SubmitPriceHandler SUBMIT_PRICE = new SubmitPriceHandler();
+
+    private RepricingEngine() {
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getenv(PRICING_FAST_PATH_ENABLED_ENV_VARIABLE));
+    }
+
+    //Reprice every SKU of the notification and return the number of submitted price updates
+    public static int reprice(StateMachineInput input, LambdaLogger logger) {
+        PricingOffers pricingOffers = CHECK_SKU.getPricingOffers(input, logger);
+
+        //Fetch Prices for all SKUs without an offer in the notification, using batched getPricing calls
+        List<PricingLambdaInput> offers = FETCH_PRICE.prefetchPrices(pricingOffers.getOffers(), logger);
+
+        List<CompletableFuture<Boolean>> skuResults = offers.stream()
+                .map(offer -> CompletableFuture.supplyAsync(() -> repriceSku(offer, logger), SKU_EXECUTOR))
+                .collect(Collectors.toList());
+
+        int submittedPrices = 0;
+        try {
+            for (CompletableFuture<Boolean> skuResult : skuResults) {
+                if (skuResult.join()) {
+                    submittedPrices++;
+                }
+            }
+        } catch (CompletionException e) {
+            throw new InternalError("Repricing engine failed", e.getCause());
+        }
+
+        logger.log(String.format("Repricing engine processed %d SKUs for ASIN %s. Submitted prices: %d",
+                skuResults.size(),
+                input.getAsin(),
+                submittedPrices));
+
+        return submittedPrices;
+    }
+
+    //Return true if a new price was submitted for the SKU
+    private static boolean repriceSku(PricingLambdaInput offer, LambdaLogger logger) {
+        //Fetch Price Data: the batched getPricing call of this SKU failed, so only this SKU is skipped if it fails again
+        if (offer.getSellerOffer() == null) {
+            PricingLambdaInput price;
+            try {
+                price = FETCH_PRICE.fetchPrice(offer, logger);
+            } catch (InternalError e) {
+                logger.log(String.format("Price of SKU %s unavailable, SKU skipped: %s", offer.getItemSku(), e.getMessage()));
+                return false;
+            }
+
+            //Check Fetch Price Results
+            if (price.getListingPrice().getAmount() < 0) {
+                return false;
+            }
+
+            offer.setSellerOffer(Offer.builder()
+                    .listingPrice(price.getListingPrice())
+                    .shippingPrice(price.getShippingPrice())
+                    .build());
+        }
+
+        //Calculate New Price: a negative amount means that the price must not be updated
+        PricingLambdaInput newPrice = CALCULATE_NEW_PRICE.calculateNewPrice(offer, logger);
+        if (newPrice.getNewListingPrice().getAmount() < 0) {
+            return false;
+        }
+
+        //Submit Price Update
+        offer.setNewListingPrice(newPrice.getNewListingPrice());
+        logger.log(SUBMIT_PRICE.submitPrice(offer, logger));
+        return true;
+    }
+
+    private static int getMaxConcurrency() {
+        String maxConcurrency = System.getenv(PRICING_FAST_PATH_MAX_CONCURRENCY_ENV_VARIABLE);
+        if (maxConcurrency == null || maxConcurrency.isEmpty()) {
+            return PRICING_FAST_PATH_DEFAULT_MAX_CONCURRENCY;
+        }
+
+        return Math.max(1, Integer.parseInt(maxConcurrency));
+    }
+}
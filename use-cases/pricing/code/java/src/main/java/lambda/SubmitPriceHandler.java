@@ -1,5 +1,6 @@
 package lambda;
 
+import com.amazon.SellingPartnerAPIAA.LWAException;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
@@ -13,11 +14,14 @@ import io.swagger.client.model.listings.ListingsItemPatchRequest;
 import io.swagger.client.model.listings.ListingsItemSubmissionResponse;
 import io.swagger.client.model.listings.PatchOperation;
 import lambda.utils.Amount;
+import lambda.utils.ApiClientCache;
 import lambda.utils.PricingLambdaInput;
 
 import java.util.List;
 
 import static lambda.utils.ApiUtils.getListingsApi;
+import static lambda.utils.ApiUtils.invalidateCachedClients;
+import static lambda.utils.ApiUtils.isRejectedCredentials;
 import static lambda.utils.Constants.REGION_CODE_ENV_VARIABLE;
 
 public class SubmitPriceHandler implements RequestHandler<PricingLambdaInput, String> {
@@ -28,6 +32,11 @@ public class SubmitPriceHandler implements RequestHandler<PricingLambdaInput, St
         LambdaLogger logger = context.getLogger();
         logger.log("SubmitPrice Lambda input: " + new Gson().toJson(input));
 
+        return submitPrice(input, logger);
+    }
+
+    //Patch the listing item of the SKU with the new listing price
+    public String submitPrice(PricingLambdaInput input, LambdaLogger logger) {
         String regionCode = System.getenv(REGION_CODE_ENV_VARIABLE);
         try {
             String sellerId = input.getSellerId();
@@ -37,6 +46,7 @@ public class SubmitPriceHandler implements RequestHandler<PricingLambdaInput, St
             List<String> includedData = Lists.newArrayList("attributes");
 
             ListingsApi listingsApi = getListingsApi(regionCode, input.getCredentials().getRefreshToken());
+            logger.log(ApiClientCache.getStats());
 
             Item listingsItem = listingsApi.getListingsItem(sellerId, itemSku, marketplaceIds, issueLocale, includedData);
 
@@ -49,6 +59,12 @@ public class SubmitPriceHandler implements RequestHandler<PricingLambdaInput, St
             ListingsItemSubmissionResponse response = listingsApi.patchListingsItem(sellerId, itemSku, marketplaceIds, patchRequestBody, issueLocale);
 
             logger.log("Patch Listings Item response: " + new Gson().toJson(response));
+        } catch (LWAException e) {
+            //Rebuild the clients with the current app credentials on retry, e.g. after the client secret was rotated
+            if (isRejectedCredentials(e)) {
+                invalidateCachedClients();
+            }
+            throw new InternalError("SubmitPrice Lambda failed", e);
         } catch (Exception e) {
             throw new InternalError("SubmitPrice Lambda failed", e);
         }
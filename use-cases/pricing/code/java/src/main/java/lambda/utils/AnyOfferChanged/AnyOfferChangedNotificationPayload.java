@@ -16,6 +16,8 @@ import static lambda.utils.Constants.REFRESH_TOKEN_ARN_ENV_VARIABLE;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class AnyOfferChangedNotificationPayload implements PricingNotification {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     @JsonProperty("SellerId")
     public String sellerId;
 
@@ -33,10 +35,24 @@ public class AnyOfferChangedNotificationPayload implements PricingNotification {
         return offerChangeTrigger.getAsin();
     }
 
+    @Override
+    public String getMarketplaceId() {
+        return offerChangeTrigger.getMarketplaceId();
+    }
+
+    @Override
+    public String getTimeOfOfferChange() {
+        return offerChangeTrigger.getTimeOfOfferChange();
+    }
+
     @Override
     public String mapToPricingStateMachineInput() throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        StateMachineInput input = StateMachineInput.builder()
+        return MAPPER.writeValueAsString(mapToStateMachineInput());
+    }
+
+    @Override
+    public StateMachineInput mapToStateMachineInput() {
+        return StateMachineInput.builder()
                 .asin(offerChangeTrigger.getAsin())
                 .credentials(ApiCredentials.builder()
                         .marketplaceId(offerChangeTrigger.getMarketplaceId())
@@ -44,8 +60,8 @@ public class AnyOfferChangedNotificationPayload implements PricingNotification {
                         .build())
                 .buyBox(getBuyBoxOffer(summary.getBuyBoxPrices().get(0)))
                 .seller(getSellerWithOffers())
+                .competitorSummary(getCompetitorSummary())
                 .build();
-        return mapper.writeValueAsString(input);
     }
 
     private BuyBoxOffer getBuyBoxOffer(NotificationPrice buyBoxPrice) {
@@ -58,6 +74,33 @@ public class AnyOfferChangedNotificationPayload implements PricingNotification {
                 .build();
     }
 
+    //Lowest landed prices of the other sellers' offers, by fulfillment channel
+    private CompetitorSummary getCompetitorSummary() {
+        CompetitorSummary competitorSummary = CompetitorSummary.builder().build();
+        for (NotificationOffer offer : offers) {
+            if (offer.getSellerId().equals(sellerId)) {
+                continue;
+            }
+
+            Amount landedPrice = Amount.builder()
+                    .currencyCode(offer.getListingPrice().getCurrencyCode())
+                    .amount(offer.getListingPrice().getAmount() + offer.getShippingPrice().getAmount())
+                    .build();
+
+            if (offer.isFulfilledByAmazon()) {
+                if (competitorSummary.getLowestFbaPrice() == null
+                        || landedPrice.getAmount() < competitorSummary.getLowestFbaPrice().getAmount()) {
+                    competitorSummary.setLowestFbaPrice(landedPrice);
+                }
+            } else if (competitorSummary.getLowestMfnPrice() == null
+                    || landedPrice.getAmount() < competitorSummary.getLowestMfnPrice().getAmount()) {
+                competitorSummary.setLowestMfnPrice(landedPrice);
+            }
+        }
+
+        return competitorSummary;
+    }
+
     private Seller getSellerWithOffers() {
         List<Offer> sellerOffers = offers.stream()
                 .filter(o -> o.getSellerId().equals(sellerId))
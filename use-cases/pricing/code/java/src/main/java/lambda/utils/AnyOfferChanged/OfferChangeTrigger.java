@@ -16,4 +16,7 @@ public class OfferChangeTrigger {
 
     @JsonProperty("OfferChangeType")
     public String offerChangeType;
+
+    @JsonProperty("TimeOfOfferChange")
+    public String timeOfOfferChange;
 }
@@ -0,0 +1,148 @@
+package lambda.utils;
+
+import lombok.Value;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static lambda.utils.Constants.API_CLIENT_CACHE_DEFAULT_MAX_SIZE;
+import static lambda.utils.Constants.API_CLIENT_CACHE_MAX_SIZE_ENV_VARIABLE;
+
+/**
+ * Container-lifetime registry of SP-API clients.
+ * Lambda keeps static state between warm invocations, so reusing the generated API objects keeps their
+ * OkHttp connection pool and LWA access token alive instead of rebuilding them on every call.
+ * The registry is bounded and evicts the least recently used client, which keeps memory predictable
+ * when the same container serves many selling partners.
+ * Clients are built outside of the registry lock, so a miss that reads Secrets Manager does not block the lookups
+ * of other clients. Concurrent misses for the same key share one build.
+ */
+public class ApiClientCache {
+
+    public enum ApiType {
+        PRODUCT_PRICING,
+        LISTINGS,
+        NOTIFICATIONS,
+        NOTIFICATIONS_GRANTLESS
+    }
+
+    private static final int MAX_SIZE = getMaxSize();
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    //Access-ordered map, the eldest entry is the least recently used client
+    //Entries are futures so that the lock is only held to find or register a client, not to build it
+    private static final Map<ApiClientKey, CompletableFuture<Object>> CLIENTS =
+            new LinkedHashMap<ApiClientKey, CompletableFuture<Object>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ApiClientKey, CompletableFuture<Object>> eldest) {
+            if (size() > MAX_SIZE) {
+                EVICTIONS.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private ApiClientCache() {
+    }
+
+    //Return the cached client for the given key, or build and cache a new one
+    @SuppressWarnings("unchecked")
+    public static <T> T getOrCreate(String regionCode, String refreshToken, ApiType apiType, Callable<T> factory)
+            throws Exception {
+        ApiClientKey key = new ApiClientKey(regionCode, refreshToken, apiType);
+
+        CompletableFuture<Object> client;
+        CompletableFuture<Object> created = null;
+        synchronized (CLIENTS) {
+            client = CLIENTS.get(key);
+            if (client != null) {
+                HITS.incrementAndGet();
+            } else {
+                MISSES.incrementAndGet();
+                created = new CompletableFuture<>();
+                CLIENTS.put(key, created);
+                client = created;
+            }
+        }
+
+        if (created != null) {
+            try {
+                created.complete(factory.call());
+            } catch (Exception e) {
+                //Failed builds are not cached, the next lookup builds the client again
+                synchronized (CLIENTS) {
+                    CLIENTS.remove(key, created);
+                }
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return (T) client.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    //Drop every cached client, e.g. after the app credentials have been rotated
+    public static void invalidateAll() {
+        synchronized (CLIENTS) {
+            CLIENTS.clear();
+        }
+    }
+
+    public static long getHitCount() {
+        return HITS.get();
+    }
+
+    public static long getMissCount() {
+        return MISSES.get();
+    }
+
+    public static long getEvictionCount() {
+        return EVICTIONS.get();
+    }
+
+    public static int size() {
+        synchronized (CLIENTS) {
+            return CLIENTS.size();
+        }
+    }
+
+    public static String getStats() {
+        return String.format("API client cache - size: %d/%d, hits: %d, misses: %d, evictions: %d",
+                size(),
+                MAX_SIZE,
+                getHitCount(),
+                getMissCount(),
+                getEvictionCount());
+    }
+
+    private static int getMaxSize() {
+        String maxSize = System.getenv(API_CLIENT_CACHE_MAX_SIZE_ENV_VARIABLE);
+        if (maxSize == null || maxSize.isEmpty()) {
+            return API_CLIENT_CACHE_DEFAULT_MAX_SIZE;
+        }
+
+        return Math.max(1, Integer.parseInt(maxSize));
+    }
+
+    @Value
+    private static class ApiClientKey {
+        String regionCode;
+        String refreshToken;
+        ApiType apiType;
+    }
+}
@@ -1,12 +1,16 @@
 package lambda.utils;
 
+import com.amazon.SellingPartnerAPIAA.LWAAccessTokenCache;
+import com.amazon.SellingPartnerAPIAA.LWAAccessTokenCacheImpl;
 import com.amazon.SellingPartnerAPIAA.LWAAuthorizationCredentials;
 import com.amazon.SellingPartnerAPIAA.LWAClientScopes;
+import com.amazon.SellingPartnerAPIAA.LWAException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.client.ApiClient;
 import io.swagger.client.api.ListingsApi;
 import io.swagger.client.api.NotificationsApi;
 import io.swagger.client.api.ProductPricingApi;
+import lambda.utils.ApiClientCache.ApiType;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
@@ -23,70 +27,115 @@ public class ApiUtils {
     // Set OPT_OUT = true to disable User-Agent tracking
     public static final boolean OPT_OUT = false;
 
+    //Clients and credentials below live for the lifetime of the Lambda container and are reused across invocations
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final SecretsManagerClient SECRETS_MANAGER_CLIENT = SecretsManagerClient.builder().build();
+    private static final LWAAccessTokenCache LWA_ACCESS_TOKEN_CACHE = new LWAAccessTokenCacheImpl();
+
+    //LWA error codes returned for invalid client credentials or refresh tokens
+    private static final Set<String> LWA_REJECTED_CREDENTIALS_ERROR_CODES =
+            Set.of("invalid_client", "unauthorized_client", "invalid_grant");
+
+    private static volatile AppCredentials appCredentials;
+
     //Generate Product Pricing API client
     public static ProductPricingApi getProductPricingApi(String regionCode, String refreshToken)
             throws Exception{
-        ObjectMapper mapper = new ObjectMapper();
+        return ApiClientCache.getOrCreate(regionCode, refreshToken, ApiType.PRODUCT_PRICING, () -> {
+            LWAAuthorizationCredentials lwaAuthorizationCredentials =
+                    getLWAAuthorizationCredentials(getAppCredentials(), refreshToken);
 
-        String appCredentialsSecret = getSecretString(System.getenv(SP_API_APP_CREDENTIALS_SECRET_ARN_ENV_VARIABLE));
-        AppCredentials appCredentials = mapper.readValue(appCredentialsSecret, AppCredentials.class);
-        LWAAuthorizationCredentials lwaAuthorizationCredentials = getLWAAuthorizationCredentials(appCredentials, refreshToken);
+            String spApiEndpoint = getSpApiEndpoint(regionCode);
 
-        String spApiEndpoint = getSpApiEndpoint(regionCode);
+            ProductPricingApi productPricingApi = new ProductPricingApi.Builder()
+                    .lwaAuthorizationCredentials(lwaAuthorizationCredentials)
+                    .lwaAccessTokenCache(LWA_ACCESS_TOKEN_CACHE)
+                    .endpoint(spApiEndpoint)
+                    .build();
+            setUserAgent(productPricingApi.getApiClient());
 
-        ProductPricingApi productPricingApi = new ProductPricingApi.Builder()
-                .lwaAuthorizationCredentials(lwaAuthorizationCredentials)
-                .endpoint(spApiEndpoint)
-                .build();
-        setUserAgent(productPricingApi.getApiClient());
-
-        return productPricingApi;
+            return productPricingApi;
+        });
     }
 
     //Generate Listings Items API client
     public static ListingsApi getListingsApi(String regionCode, String refreshToken)
             throws Exception{
-        ObjectMapper mapper = new ObjectMapper();
-
-        String appCredentialsSecret = getSecretString(System.getenv(SP_API_APP_CREDENTIALS_SECRET_ARN_ENV_VARIABLE));
-        AppCredentials appCredentials = mapper.readValue(appCredentialsSecret, AppCredentials.class);
-        LWAAuthorizationCredentials lwaAuthorizationCredentials = getLWAAuthorizationCredentials(appCredentials, refreshToken);
+        return ApiClientCache.getOrCreate(regionCode, refreshToken, ApiType.LISTINGS, () -> {
+            LWAAuthorizationCredentials lwaAuthorizationCredentials =
+                    getLWAAuthorizationCredentials(getAppCredentials(), refreshToken);
 
-        String spApiEndpoint = getSpApiEndpoint(regionCode);
+            String spApiEndpoint = getSpApiEndpoint(regionCode);
 
-        ListingsApi listingsApi = new ListingsApi.Builder()
-            .lwaAuthorizationCredentials(lwaAuthorizationCredentials)
-            .endpoint(spApiEndpoint)
-            .build();
-        setUserAgent(listingsApi.getApiClient());
+            ListingsApi listingsApi = new ListingsApi.Builder()
+                    .lwaAuthorizationCredentials(lwaAuthorizationCredentials)
+                    .lwaAccessTokenCache(LWA_ACCESS_TOKEN_CACHE)
+                    .endpoint(spApiEndpoint)
+                    .build();
+            setUserAgent(listingsApi.getApiClient());
 
-        return listingsApi;
+            return listingsApi;
+        });
     }
 
     //Generate Notifications API client
     public static NotificationsApi getNotificationsApi(String regionCode, String refreshToken, boolean isGrantlessOperation)
             throws Exception{
-        ObjectMapper mapper = new ObjectMapper();
-
-        String appCredentialsSecret = getSecretString(System.getenv(SP_API_APP_CREDENTIALS_SECRET_ARN_ENV_VARIABLE));
-        AppCredentials appCredentials = mapper.readValue(appCredentialsSecret, AppCredentials.class);
+        ApiType apiType = isGrantlessOperation ? ApiType.NOTIFICATIONS_GRANTLESS : ApiType.NOTIFICATIONS;
+        //Grantless clients do not depend on the refresh token, so they share a single cache entry per region
+        String cacheRefreshToken = isGrantlessOperation ? "" : refreshToken;
+
+        return ApiClientCache.getOrCreate(regionCode, cacheRefreshToken, apiType, () -> {
+            AppCredentials appCredentials = getAppCredentials();
+
+            LWAAuthorizationCredentials lwaAuthorizationCredentials;
+            if (isGrantlessOperation) {
+                lwaAuthorizationCredentials = getGrantlessLWAAuthorizationCredentials(appCredentials);
+            } else {
+                lwaAuthorizationCredentials = getLWAAuthorizationCredentials(appCredentials, refreshToken);
+            }
+
+            String spApiEndpoint = getSpApiEndpoint(regionCode);
+
+            NotificationsApi notificationsApi = new NotificationsApi.Builder()
+                    .lwaAuthorizationCredentials(lwaAuthorizationCredentials)
+                    .lwaAccessTokenCache(LWA_ACCESS_TOKEN_CACHE)
+                    .endpoint(spApiEndpoint)
+                    .build();
+            setUserAgent(notificationsApi.getApiClient());
+
+            return notificationsApi;
+        });
+    }
 
-        LWAAuthorizationCredentials lwaAuthorizationCredentials;
-        if (isGrantlessOperation) {
-            lwaAuthorizationCredentials = getGrantlessLWAAuthorizationCredentials(appCredentials);
-        } else {
-            lwaAuthorizationCredentials = getLWAAuthorizationCredentials(appCredentials, refreshToken);
+    //Read and parse the app credentials secret once per container
+    private static AppCredentials getAppCredentials() throws Exception {
+        AppCredentials credentials = appCredentials;
+        if (credentials == null) {
+            synchronized (ApiUtils.class) {
+                credentials = appCredentials;
+                if (credentials == null) {
+                    String appCredentialsSecret = getSecretString(System.getenv(SP_API_APP_CREDENTIALS_SECRET_ARN_ENV_VARIABLE));
+                    credentials = OBJECT_MAPPER.readValue(appCredentialsSecret, AppCredentials.class);
+                    appCredentials = credentials;
+                }
+            }
         }
 
-        String spApiEndpoint = getSpApiEndpoint(regionCode);
+        return credentials;
+    }
 
-        NotificationsApi notificationsApi = new NotificationsApi.Builder()
-                .lwaAuthorizationCredentials(lwaAuthorizationCredentials)
-                .endpoint(spApiEndpoint)
-                .build();
-        setUserAgent(notificationsApi.getApiClient());
+    //Discard cached app credentials and clients so that they are rebuilt on next use (e.g. after secret rotation)
+    public static void invalidateCachedClients() {
+        synchronized (ApiUtils.class) {
+            appCredentials = null;
+        }
+        ApiClientCache.invalidateAll();
+    }
 
-        return notificationsApi;
+    //Check whether LWA rejected the credentials of a token request, as it does after the client secret was rotated
+    public static boolean isRejectedCredentials(LWAException e) {
+        return LWA_REJECTED_CREDENTIALS_ERROR_CODES.contains(e.getErrorCode());
     }
 
     private static LWAAuthorizationCredentials getLWAAuthorizationCredentials(AppCredentials appCredentials, String refreshToken) {
@@ -125,13 +174,11 @@ public class ApiUtils {
 
     //Get secret from AWS Secrets Manager
     private static String getSecretString(String secretId) {
-        SecretsManagerClient client = SecretsManagerClient.builder()
-                .build();
         GetSecretValueRequest request = GetSecretValueRequest.builder()
                 .secretId(secretId)
                 .build();
 
-        GetSecretValueResponse response = client.getSecretValue(request);
+        GetSecretValueResponse response = SECRETS_MANAGER_CLIENT.getSecretValue(request);
         return response.secretString();
     }
      //Set user agent
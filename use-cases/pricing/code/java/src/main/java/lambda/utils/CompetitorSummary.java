@@ -0,0 +1,25 @@
+package lambda.utils;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//Lowest landed prices of the other sellers' offers in the notification, null when no such offer is present
+@Builder
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CompetitorSummary {
+
+    @JsonProperty("lowestFbaPrice")
+    public Amount lowestFbaPrice;
+
+    @JsonProperty("lowestMfnPrice")
+    public Amount lowestMfnPrice;
+}
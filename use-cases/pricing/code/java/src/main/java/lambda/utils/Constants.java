@@ -51,12 +51,28 @@ public class Constants {
     public static final String STATE_MACHINE_ARN_ENV_VARIABLE = "STATE_MACHINE_ARN";
     public static final String REGION_CODE_ENV_VARIABLE = "REGION_CODE";
     public static final String SELLER_ITEMS_TABLE_NAME_ENV_VARIABLE = "SELLER_ITEMS_TABLE_NAME";
+    public static final String API_CLIENT_CACHE_MAX_SIZE_ENV_VARIABLE = "API_CLIENT_CACHE_MAX_SIZE";
+    public static final String SFN_MAX_CONCURRENT_EXECUTIONS_ENV_VARIABLE = "SFN_MAX_CONCURRENT_EXECUTIONS";
+    public static final String DEDUPE_TABLE_NAME_ENV_VARIABLE = "DEDUPE_TABLE_NAME";
+    public static final String DEDUPE_WINDOW_SECONDS_ENV_VARIABLE = "DEDUPE_WINDOW_SECONDS";
+    public static final String PRICING_FAST_PATH_ENABLED_ENV_VARIABLE = "PRICING_FAST_PATH_ENABLED";
+    public static final String PRICING_FAST_PATH_MAX_CONCURRENCY_ENV_VARIABLE = "PRICING_FAST_PATH_MAX_CONCURRENCY";
 
     //Lambda Utils
     public static final String LWA_NOTIFICATIONS_SCOPE = "sellingpartnerapi::notifications";
+    public static final int API_CLIENT_CACHE_DEFAULT_MAX_SIZE = 100;
+    public static final int SFN_DEFAULT_MAX_CONCURRENT_EXECUTIONS = 10;
+    public static final long DEDUPE_DEFAULT_WINDOW_SECONDS = 0;
+    public static final int PRICING_FAST_PATH_DEFAULT_MAX_CONCURRENCY = 4;
+    public static final int GET_PRICING_MAX_SKUS_PER_REQUEST = 20;
+    public static final int GET_PRICING_MAX_ATTEMPTS = 3;
+    public static final long GET_PRICING_BASE_BACKOFF_MILLIS = 500;
 
     public static final String PRICE_CHANGE_RULE_PERCENTAGE = "PERCENTAGE";
     public static final String PRICE_CHANGE_RULE_FIXED = "FIXED";
+    public static final String PRICE_CHANGE_RULE_MATCH_BUY_BOX = "MATCH_BUY_BOX";
+    public static final String PRICE_CHANGE_RULE_BEAT_LOWEST_FBA = "BEAT_LOWEST_FBA";
+    public static final int PRICE_RULE_CACHE_MAX_SIZE = 1000;
 
     //Generic Lambda Input Parameters
     public static final String REGION_CODE_KEY_NAME = "RegionCode";
@@ -74,4 +90,13 @@ public class Constants {
     public static final String SELLER_ITEMS_TABLE_PRICE_CHANGE_RULE_AMOUNT_KEY_NAME = "PriceChangeRuleAmount";
     public static final String SELLER_ITEMS_TABLE_MIN_THRESHOLD_KEY_NAME = "MinThreshold";
     public static final String SELLER_ITEMS_TABLE_USE_COMPETITIVE_PRICE = "UseCompetitivePrice";
+    public static final String SELLER_ITEMS_TABLE_MAX_PRICE_KEY_NAME = "MaxPrice";
+    public static final String SELLER_ITEMS_TABLE_ACTIVE_HOURS_KEY_NAME = "ActiveHours";
+    public static final String SELLER_ITEMS_TABLE_OFFER_KEY_NAME = "OfferKey";
+    public static final String SELLER_ITEMS_TABLE_OFFER_INDEX_NAME = "OfferKeyIndex";
+
+    public static final String DEDUPE_TABLE_HASH_KEY_NAME = "NotificationKey";
+    public static final String DEDUPE_TABLE_MESSAGE_ID_KEY_NAME = "MessageId";
+    public static final String DEDUPE_TABLE_OFFER_CHANGE_TIME_KEY_NAME = "TimeOfOfferChange";
+    public static final String DEDUPE_TABLE_EXPIRES_AT_KEY_NAME = "ExpiresAt";
 }
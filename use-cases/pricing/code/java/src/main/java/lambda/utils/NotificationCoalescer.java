@@ -0,0 +1,72 @@
+package lambda.utils;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps only the newest pricing notification per seller, marketplace and ASIN of an SQS batch.
+ * Offer snapshots are superseded by newer ones, so starting a workflow for an older notification of the same
+ * item only repeats getPricing and patchListingsItem calls with stale data.
+ * Notifications are ordered by their time of offer change, falling back to the time the message was sent to SQS.
+ */
+public class NotificationCoalescer {
+
+    private final Map<String, CoalescedNotification> newestByItem = new HashMap<>();
+    private int notificationCount = 0;
+
+    public static String getCoalescingKey(PricingNotification notification) {
+        return String.join("#", notification.getSellerId(), notification.getMarketplaceId(), notification.getAsin());
+    }
+
+    //Register a notification, replacing the current one of the same item if this one is newer
+    public void add(String messageId, PricingNotification notification, long sentTimestamp) {
+        notificationCount++;
+
+        long offerChangeTime = getOfferChangeTime(notification, sentTimestamp);
+        CoalescedNotification candidate = new CoalescedNotification(messageId, notification, offerChangeTime);
+
+        newestByItem.merge(getCoalescingKey(notification), candidate,
+                (current, added) -> added.offerChangeTime >= current.offerChangeTime ? added : current);
+    }
+
+    //Notifications that must start a workflow, keyed by SQS message ID
+    public Map<String, PricingNotification> getNewestNotifications() {
+        Map<String, PricingNotification> newestNotifications = new HashMap<>();
+        for (CoalescedNotification coalescedNotification : newestByItem.values()) {
+            newestNotifications.put(coalescedNotification.messageId, coalescedNotification.notification);
+        }
+
+        return newestNotifications;
+    }
+
+    public int getCoalescedCount() {
+        return notificationCount - newestByItem.size();
+    }
+
+    public static long getOfferChangeTime(PricingNotification notification, long sentTimestamp) {
+        String timeOfOfferChange = notification.getTimeOfOfferChange();
+        if (timeOfOfferChange == null || timeOfOfferChange.isEmpty()) {
+            return sentTimestamp;
+        }
+
+        try {
+            return Instant.parse(timeOfOfferChange).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return sentTimestamp;
+        }
+    }
+
+    private static class CoalescedNotification {
+        private final String messageId;
+        private final PricingNotification notification;
+        private final long offerChangeTime;
+
+        private CoalescedNotification(String messageId, PricingNotification notification, long offerChangeTime) {
+            this.messageId = messageId;
+            this.notification = notification;
+            this.offerChangeTime = offerChangeTime;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package lambda.utils;
+
+import com.google.common.collect.ImmutableMap;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import static lambda.utils.Constants.DEDUPE_DEFAULT_WINDOW_SECONDS;
+import static lambda.utils.Constants.DEDUPE_TABLE_EXPIRES_AT_KEY_NAME;
+import static lambda.utils.Constants.DEDUPE_TABLE_HASH_KEY_NAME;
+import static lambda.utils.Constants.DEDUPE_TABLE_MESSAGE_ID_KEY_NAME;
+import static lambda.utils.Constants.DEDUPE_TABLE_NAME_ENV_VARIABLE;
+import static lambda.utils.Constants.DEDUPE_TABLE_OFFER_CHANGE_TIME_KEY_NAME;
+import static lambda.utils.Constants.DEDUPE_WINDOW_SECONDS_ENV_VARIABLE;
+
+/**
+ * Cross-batch dedupe window for pricing notifications.
+ * The first notification of a seller, marketplace and ASIN claims the item for DEDUPE_WINDOW_SECONDS through a
+ * conditional DynamoDB write; notifications of the same item received by other batches within the window are skipped,
+ * unless their offer change is newer than the one of the claim: the latest snapshot then replaces the claim.
+ * Redeliveries of the claiming message pass the condition, so a failed execution start can still be retried.
+ * The window is disabled when DEDUPE_TABLE_NAME is not set or DEDUPE_WINDOW_SECONDS is 0.
+ */
+public class NotificationDedupeWindow {
+
+    private static final DynamoDbClient DYNAMO_DB_CLIENT = DynamoDbClient.builder().build();
+
+    private static final String TABLE_NAME = System.getenv(DEDUPE_TABLE_NAME_ENV_VARIABLE);
+    private static final long WINDOW_SECONDS = getWindowSeconds();
+
+    private NotificationDedupeWindow() {
+    }
+
+    public static boolean isEnabled() {
+        return TABLE_NAME != null && !TABLE_NAME.isEmpty() && WINDOW_SECONDS > 0;
+    }
+
+    //Return true if the notification may start a workflow, false if its item was claimed within the window
+    //by a notification with the same or a newer offer change
+    public static boolean tryAcquire(String messageId, PricingNotification notification, long offerChangeTime) {
+        if (!isEnabled()) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis() / 1000;
+
+        PutItemRequest putItemRequest = PutItemRequest.builder()
+                .tableName(TABLE_NAME)
+                .item(ImmutableMap.of(
+                        DEDUPE_TABLE_HASH_KEY_NAME, AttributeValue.fromS(NotificationCoalescer.getCoalescingKey(notification)),
+                        DEDUPE_TABLE_MESSAGE_ID_KEY_NAME, AttributeValue.fromS(messageId),
+                        DEDUPE_TABLE_OFFER_CHANGE_TIME_KEY_NAME, AttributeValue.fromN(String.valueOf(offerChangeTime)),
+                        DEDUPE_TABLE_EXPIRES_AT_KEY_NAME, AttributeValue.fromN(String.valueOf(now + WINDOW_SECONDS))
+                ))
+                .conditionExpression("attribute_not_exists(#p_key) or #expires_at_key <= :now or #message_id_key = :mid or #toc_key < :toc")
+                .expressionAttributeNames(ImmutableMap.of(
+                        "#p_key", DEDUPE_TABLE_HASH_KEY_NAME,
+                        "#expires_at_key", DEDUPE_TABLE_EXPIRES_AT_KEY_NAME,
+                        "#message_id_key", DEDUPE_TABLE_MESSAGE_ID_KEY_NAME,
+                        "#toc_key", DEDUPE_TABLE_OFFER_CHANGE_TIME_KEY_NAME
+                ))
+                .expressionAttributeValues(ImmutableMap.of(
+                        ":now", AttributeValue.fromN(String.valueOf(now)),
+                        ":mid", AttributeValue.fromS(messageId),
+                        ":toc", AttributeValue.fromN(String.valueOf(offerChangeTime))
+                ))
+                .build();
+
+        try {
+            DYNAMO_DB_CLIENT.putItem(putItemRequest);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private static long getWindowSeconds() {
+        String windowSeconds = System.getenv(DEDUPE_WINDOW_SECONDS_ENV_VARIABLE);
+        if (windowSeconds == null || windowSeconds.isEmpty()) {
+            return DEDUPE_DEFAULT_WINDOW_SECONDS;
+        }
+
+        return Math.max(0, Long.parseLong(windowSeconds));
+    }
+}
@@ -19,4 +19,12 @@ public class PriceChangeRule {
 
     @JsonProperty("value")
     public float value;
+
+    //Optional ceiling of the new price
+    @JsonProperty("maxPrice")
+    public Float maxPrice;
+
+    //Optional hours of the day (UTC) in which the rule is active, e.g. "8-20"
+    @JsonProperty("activeHours")
+    public String activeHours;
 }
@@ -0,0 +1,63 @@
+package lambda.utils;
+
+import java.util.Currency;
+
+/**
+ * Price arithmetic on integer minor units of a currency (e.g. cents for USD, yen for JPY).
+ * Amounts are converted once from the float/double values of the notification and pricing models, the price
+ * change rules are evaluated on longs without BigDecimal allocations, and the result is rounded to the currency's
+ * smallest unit, so no float rounding error leaks into the submitted price.
+ */
+public class PriceMath {
+
+    private static final int DEFAULT_FRACTION_DIGITS = 2;
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L};
+    private static final long BASIS_POINTS_PER_UNIT = 10_000L;
+
+    private PriceMath() {
+    }
+
+    //Number of decimal digits of the currency, defaulting to 2 for missing or unknown currency codes
+    public static int getFractionDigits(String currencyCode) {
+        if (currencyCode == null || currencyCode.isEmpty()) {
+            return DEFAULT_FRACTION_DIGITS;
+        }
+
+        try {
+            int fractionDigits = Currency.getInstance(currencyCode).getDefaultFractionDigits();
+            return fractionDigits >= 0 && fractionDigits < POWERS_OF_TEN.length ? fractionDigits : DEFAULT_FRACTION_DIGITS;
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_FRACTION_DIGITS;
+        }
+    }
+
+    //Convert an amount to minor units, rounding half up to the smallest unit of the currency
+    public static long toMinorUnits(double amount, String currencyCode) {
+        return Math.round(amount * POWERS_OF_TEN[getFractionDigits(currencyCode)]);
+    }
+
+    public static float toAmount(long minorUnits, String currencyCode) {
+        return (float) ((double) minorUnits / POWERS_OF_TEN[getFractionDigits(currencyCode)]);
+    }
+
+    //Subtract a percentage (e.g. 5.0 for 5%) of the price, rounding the discount half up to the smallest unit
+    public static long subtractPercentage(long minorUnits, float percentage) {
+        long basisPoints = Math.round((double) percentage * 100);
+        return minorUnits - divideRoundHalfUp(minorUnits * basisPoints, BASIS_POINTS_PER_UNIT);
+    }
+
+    public static long subtractFixed(long minorUnits, long fixedMinorUnits) {
+        return minorUnits - fixedMinorUnits;
+    }
+
+    //Integer division rounding half away from zero
+    private static long divideRoundHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+
+        return quotient;
+    }
+}
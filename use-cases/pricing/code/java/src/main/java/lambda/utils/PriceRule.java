@@ -0,0 +1,11 @@
+package lambda.utils;
+
+import java.util.OptionalLong;
+
+//Compiled price change rule, evaluated against the price snapshot of a SKU
+@FunctionalInterface
+public interface PriceRule {
+
+    //Return the new item price in minor units, or an empty result if the price must not be changed
+    OptionalLong apply(PriceSnapshot snapshot);
+}
@@ -0,0 +1,168 @@
+package lambda.utils;
+
+import lombok.Value;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static lambda.utils.Constants.PRICE_CHANGE_RULE_BEAT_LOWEST_FBA;
+import static lambda.utils.Constants.PRICE_CHANGE_RULE_FIXED;
+import static lambda.utils.Constants.PRICE_CHANGE_RULE_MATCH_BUY_BOX;
+import static lambda.utils.Constants.PRICE_CHANGE_RULE_PERCENTAGE;
+import static lambda.utils.Constants.PRICE_RULE_CACHE_MAX_SIZE;
+import static lambda.utils.PriceMath.subtractFixed;
+import static lambda.utils.PriceMath.subtractPercentage;
+import static lambda.utils.PriceMath.toMinorUnits;
+
+/**
+ * Registry and compiler of price change rules.
+ * A rule definition of the seller items table (rule name, value, optional max price and active hours) is compiled once
+ * into a PriceRule whose parameters are already converted to minor units of the offer currency, and cached for the
+ * lifetime of the container. Evaluating a compiled rule only runs primitive arithmetic on the price snapshot.
+ * New strategies are added with register() and do not change the cost of evaluating existing ones.
+ */
+public class PriceRules {
+
+    //Builds the base rule of a strategy from its definition
+    public interface PriceRuleFactory {
+        PriceRule compile(PriceChangeRule definition, String currencyCode);
+    }
+
+    private static final Map<String, PriceRuleFactory> FACTORIES = new ConcurrentHashMap<>();
+
+    //Access-ordered map, the eldest entry is the least recently used rule
+    private static final Map<PriceRuleKey, PriceRule> COMPILED_RULES = new LinkedHashMap<PriceRuleKey, PriceRule>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PriceRuleKey, PriceRule> eldest) {
+            return size() > PRICE_RULE_CACHE_MAX_SIZE;
+        }
+    };
+
+    static {
+        register(PRICE_CHANGE_RULE_PERCENTAGE, (definition, currencyCode) -> {
+            float percentage = definition.getValue();
+            return snapshot -> OptionalLong.of(subtractPercentage(snapshot.getBuyBoxPriceExcludingShipping(), percentage));
+        });
+        register(PRICE_CHANGE_RULE_FIXED, (definition, currencyCode) -> {
+            long fixedAmount = toMinorUnits(definition.getValue(), currencyCode);
+            return snapshot -> OptionalLong.of(subtractFixed(snapshot.getBuyBoxPriceExcludingShipping(), fixedAmount));
+        });
+        register(PRICE_CHANGE_RULE_MATCH_BUY_BOX, (definition, currencyCode) ->
+                snapshot -> OptionalLong.of(snapshot.getBuyBoxPriceExcludingShipping()));
+        //Undercut the lowest competitor offer fulfilled by Amazon by a fixed amount, skip if there is none
+        register(PRICE_CHANGE_RULE_BEAT_LOWEST_FBA, (definition, currencyCode) -> {
+            long fixedAmount = toMinorUnits(definition.getValue(), currencyCode);
+            return snapshot -> {
+                OptionalLong lowestFbaPrice = snapshot.getLowestFbaPrice();
+                return lowestFbaPrice.isPresent()
+                        ? OptionalLong.of(subtractFixed(lowestFbaPrice.getAsLong() - snapshot.getShippingPrice(), fixedAmount))
+                        : OptionalLong.empty();
+            };
+        });
+    }
+
+    private PriceRules() {
+    }
+
+    public static void register(String ruleName, PriceRuleFactory factory) {
+        FACTORIES.put(ruleName, factory);
+    }
+
+    //Return the compiled rule for the definition, or null if the rule name is not registered
+    public static PriceRule getOrCompile(PriceChangeRule definition, String currencyCode) {
+        PriceRuleKey key = new PriceRuleKey(
+                definition.getRule(),
+                definition.getValue(),
+                definition.getMaxPrice(),
+                definition.getActiveHours(),
+                currencyCode);
+
+        synchronized (COMPILED_RULES) {
+            PriceRule priceRule = COMPILED_RULES.get(key);
+            if (priceRule == null) {
+                priceRule = compile(definition, currencyCode);
+                if (priceRule != null) {
+                    COMPILED_RULES.put(key, priceRule);
+                }
+            }
+            return priceRule;
+        }
+    }
+
+    private static PriceRule compile(PriceChangeRule definition, String currencyCode) {
+        PriceRuleFactory factory = definition.getRule() != null ? FACTORIES.get(definition.getRule()) : null;
+        if (factory == null) {
+            return null;
+        }
+
+        PriceRule priceRule = factory.compile(definition, currencyCode);
+
+        //Ceiling band: never set a price above the max price of the SKU
+        if (definition.getMaxPrice() != null) {
+            priceRule = withMaxPrice(priceRule, toMinorUnits(definition.getMaxPrice(), currencyCode));
+        }
+
+        //Time of day: only change the price within the active hours (UTC) of the SKU
+        if (definition.getActiveHours() != null && !definition.getActiveHours().isEmpty()) {
+            priceRule = withActiveHours(priceRule, definition.getActiveHours());
+        }
+
+        return priceRule;
+    }
+
+    private static PriceRule withMaxPrice(PriceRule priceRule, long maxPrice) {
+        return snapshot -> {
+            OptionalLong newPrice = priceRule.apply(snapshot);
+            return newPrice.isPresent() ? OptionalLong.of(Math.min(newPrice.getAsLong(), maxPrice)) : newPrice;
+        };
+    }
+
+    private static PriceRule withActiveHours(PriceRule priceRule, String activeHours) {
+        int[] hours = parseActiveHours(activeHours);
+        int startHour = hours[0];
+        int endHour = hours[1];
+
+        return snapshot -> {
+            int currentHour = (int) ((System.currentTimeMillis() / 3_600_000L) % 24);
+            boolean isActive = startHour < endHour
+                    ? currentHour >= startHour && currentHour < endHour
+                    : currentHour >= startHour || currentHour < endHour;
+            return isActive ? priceRule.apply(snapshot) : OptionalLong.empty();
+        };
+    }
+
+    //Active hours are defined as "<start hour>-<end hour>" in UTC, the end hour is excluded, e.g. "22-6"
+    //Return the start and end hours, or throw IllegalArgumentException if the definition is invalid
+    public static int[] parseActiveHours(String activeHours) {
+        String[] hours = activeHours.split("-");
+        if (hours.length != 2) {
+            throw new IllegalArgumentException(String.format("Invalid active hours: %s", activeHours));
+        }
+
+        int startHour;
+        int endHour;
+        try {
+            startHour = Integer.parseInt(hours[0].trim());
+            endHour = Integer.parseInt(hours[1].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid active hours: %s", activeHours), e);
+        }
+
+        if (startHour < 0 || startHour > 23 || endHour < 0 || endHour > 23 || startHour == endHour) {
+            throw new IllegalArgumentException(String.format("Invalid active hours: %s", activeHours));
+        }
+
+        return new int[]{startHour, endHour};
+    }
+
+    @Value
+    private static class PriceRuleKey {
+        String rule;
+        float value;
+        Float maxPrice;
+        String activeHours;
+        String currencyCode;
+    }
+}
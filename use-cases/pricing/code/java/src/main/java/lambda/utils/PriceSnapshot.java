@@ -0,0 +1,32 @@
+package lambda.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.OptionalLong;
+
+//Prices of a SKU in minor units of the offer currency, as seen by the price rules
+@Getter
+@AllArgsConstructor
+public class PriceSnapshot {
+
+    private final long listingPrice;
+
+    private final long shippingPrice;
+
+    private final long buyBoxPrice;
+
+    //Lowest landed price of the competitor offers fulfilled by Amazon, empty if there is none
+    private final OptionalLong lowestFbaPrice;
+
+    //Lowest landed price of the competitor offers fulfilled by the merchant, empty if there is none
+    private final OptionalLong lowestMfnPrice;
+
+    public long getLandedPrice() {
+        return listingPrice + shippingPrice;
+    }
+
+    public long getBuyBoxPriceExcludingShipping() {
+        return buyBoxPrice - shippingPrice;
+    }
+}
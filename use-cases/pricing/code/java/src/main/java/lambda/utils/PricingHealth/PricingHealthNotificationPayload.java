@@ -19,6 +19,8 @@ import static lambda.utils.Constants.REFRESH_TOKEN_ARN_ENV_VARIABLE;
 @Generated("jsonschema2pojo")
 public class PricingHealthNotificationPayload implements PricingNotification {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     /**
      * The seller identifier for the offer
      * (Required)
@@ -58,10 +60,24 @@ public class PricingHealthNotificationPayload implements PricingNotification {
         return offerChangeTrigger.getAsin();
     }
 
+    @Override
+    public String getMarketplaceId() {
+        return offerChangeTrigger.getMarketplaceId();
+    }
+
+    @Override
+    public String getTimeOfOfferChange() {
+        return offerChangeTrigger.getTimeOfOfferChange();
+    }
+
     @Override
     public String mapToPricingStateMachineInput() throws JsonProcessingException {
-        ObjectMapper mapper = new ObjectMapper();
-        StateMachineInput input = StateMachineInput.builder()
+        return MAPPER.writeValueAsString(mapToStateMachineInput());
+    }
+
+    @Override
+    public StateMachineInput mapToStateMachineInput() {
+        return StateMachineInput.builder()
                 .asin(offerChangeTrigger.getAsin())
                 .credentials(ApiCredentials.builder()
                         .marketplaceId(offerChangeTrigger.getMarketplaceId())
@@ -69,8 +85,9 @@ public class PricingHealthNotificationPayload implements PricingNotification {
                         .build())
                 .buyBox(getBuyBoxOffer(summary.getBuyBoxPrices().get(0)))
                 .seller(getSellerWithOffers())
+                //PRICING_HEALTH notifications do not include the offers of other sellers
+                .competitorSummary(CompetitorSummary.builder().build())
                 .build();
-        return mapper.writeValueAsString(input);
     }
 
     private BuyBoxOffer getBuyBoxOffer(BuyBoxPrice buyBoxPrice) {
@@ -8,6 +8,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.List;
+
 @Getter
 @Setter
 @Builder
@@ -40,6 +42,9 @@ public class PricingLambdaInput {
     @JsonProperty("buyBox")
     public BuyBoxOffer buyBox;
 
+    @JsonProperty("competitorSummary")
+    public CompetitorSummary competitorSummary;
+
     @JsonProperty("priceChangeRule")
     public PriceChangeRule priceChangeRule;
 
@@ -63,4 +68,7 @@ public class PricingLambdaInput {
 
     @JsonProperty("useCompetitivePrice")
     public boolean useCompetitivePrice;
+
+    @JsonProperty("offers")
+    public List<PricingLambdaInput> offers;
 }
@@ -8,5 +8,12 @@ public interface PricingNotification {
 
     String getAsin();
 
+    String getMarketplaceId();
+
+    //ISO-8601 time of the offer change that triggered the notification
+    String getTimeOfOfferChange();
+
+    StateMachineInput mapToStateMachineInput();
+
     String mapToPricingStateMachineInput() throws JsonProcessingException;
 }
@@ -0,0 +1,68 @@
+package lambda.utils;
+
+import com.google.common.collect.ImmutableMap;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static lambda.utils.Constants.SELLER_ITEMS_TABLE_NAME_ENV_VARIABLE;
+import static lambda.utils.Constants.SELLER_ITEMS_TABLE_OFFER_INDEX_NAME;
+import static lambda.utils.Constants.SELLER_ITEMS_TABLE_OFFER_KEY_NAME;
+
+/**
+ * Access to the seller items table.
+ * SKUs are looked up through the offer index, whose partition key OfferKey is the composite
+ * ASIN#MarketplaceId#SellerId#Condition, so a lookup only reads the rows of the matching offer instead of every
+ * row of the ASIN. OfferKey is mandatory: items without it are not found, tables created before it was introduced
+ * are migrated with app/scripts/java/backfill-offer-keys.sh.
+ */
+public class SellerItemsTable {
+
+    private static final DynamoDbClient DYNAMO_DB_CLIENT = DynamoDbClient.builder().build();
+
+    private SellerItemsTable() {
+    }
+
+    public static String getOfferKey(String asin, String marketplaceId, String sellerId, String condition) {
+        return String.join("#", asin, marketplaceId, sellerId, condition.toLowerCase());
+    }
+
+    //Retrieve the items of the seller offer by ASIN, seller ID, condition, and marketplace ID
+    public static List<Map<String, AttributeValue>> retrieveSKUs(String asin, String sellerId, String condition, String marketplaceId) {
+        String offerKey = getOfferKey(asin, marketplaceId, sellerId, condition);
+
+        QueryRequest indexQueryRequest = QueryRequest.builder()
+                .tableName(getTableName())
+                .indexName(SELLER_ITEMS_TABLE_OFFER_INDEX_NAME)
+                .keyConditionExpression("#offer_key = :offer_key")
+                .expressionAttributeNames(ImmutableMap.of("#offer_key", SELLER_ITEMS_TABLE_OFFER_KEY_NAME))
+                .expressionAttributeValues(ImmutableMap.of(":offer_key", AttributeValue.fromS(offerKey)))
+                .build();
+
+        return queryAllPages(indexQueryRequest);
+    }
+
+    private static List<Map<String, AttributeValue>> queryAllPages(QueryRequest queryRequest) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+
+        do {
+            QueryResponse queryResponse = DYNAMO_DB_CLIENT.query(queryRequest.toBuilder()
+                    .exclusiveStartKey(exclusiveStartKey)
+                    .build());
+            items.addAll(queryResponse.items());
+            exclusiveStartKey = queryResponse.hasLastEvaluatedKey() ? queryResponse.lastEvaluatedKey() : null;
+        } while (exclusiveStartKey != null);
+
+        return items;
+    }
+
+    private static String getTableName() {
+        return System.getenv(SELLER_ITEMS_TABLE_NAME_ENV_VARIABLE);
+    }
+}
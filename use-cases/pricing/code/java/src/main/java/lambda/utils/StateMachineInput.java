@@ -25,4 +25,7 @@ public class StateMachineInput {
 
     @JsonProperty("credentials")
     public ApiCredentials credentials;
+
+    @JsonProperty("competitorSummary")
+    public CompetitorSummary competitorSummary;
 }
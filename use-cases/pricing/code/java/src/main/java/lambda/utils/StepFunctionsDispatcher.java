@@ -0,0 +1,102 @@
+package lambda.utils;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import software.amazon.awssdk.services.sfn.SfnAsyncClient;
+import software.amazon.awssdk.services.sfn.model.StartExecutionRequest;
+import software.amazon.awssdk.services.sfn.model.StartExecutionResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+import static lambda.utils.Constants.SFN_DEFAULT_MAX_CONCURRENT_EXECUTIONS;
+import static lambda.utils.Constants.SFN_MAX_CONCURRENT_EXECUTIONS_ENV_VARIABLE;
+
+/**
+ * Starts one Step Functions execution per SQS message of a batch.
+ * Executions are started concurrently over a single, container-lifetime async client, bounded by
+ * SFN_MAX_CONCURRENT_EXECUTIONS. Failures are reported per message through SQSBatchResponse so that
+ * only the failed messages are redelivered.
+ */
+public class StepFunctionsDispatcher {
+
+    private static final SfnAsyncClient SFN_CLIENT = SfnAsyncClient.builder().build();
+    private static final int MAX_CONCURRENT_EXECUTIONS = getMaxConcurrentExecutions();
+
+    //Maps an SQS message to the execution request to start, or returns null when the message must be skipped
+    public interface ExecutionRequestMapper {
+        StartExecutionRequest map(SQSEvent.SQSMessage message) throws Exception;
+    }
+
+    private StepFunctionsDispatcher() {
+    }
+
+    public static SQSBatchResponse dispatch(SQSEvent event, ExecutionRequestMapper mapper, LambdaLogger logger) {
+        List<SQSBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
+        Map<String, CompletableFuture<StartExecutionResponse>> executions = new LinkedHashMap<>();
+        Semaphore permits = new Semaphore(MAX_CONCURRENT_EXECUTIONS);
+
+        for (SQSEvent.SQSMessage message : event.getRecords()) {
+            StartExecutionRequest request;
+            try {
+                request = mapper.map(message);
+            } catch (Exception e) {
+                logger.log(String.format("Message %s could not be processed: %s", message.getMessageId(), e.getMessage()));
+                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+                continue;
+            }
+
+            if (request == null) {
+                continue;
+            }
+
+            //Wait for a free slot before starting the next execution
+            permits.acquireUninterruptibly();
+            try {
+                CompletableFuture<StartExecutionResponse> execution = SFN_CLIENT.startExecution(request);
+                execution.whenComplete((response, error) -> permits.release());
+                executions.put(message.getMessageId(), execution);
+            } catch (RuntimeException e) {
+                permits.release();
+                logger.log(String.format("State machine execution for message %s could not be started: %s",
+                        message.getMessageId(), e.getMessage()));
+                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+            }
+        }
+
+        int startedExecutions = 0;
+        for (Map.Entry<String, CompletableFuture<StartExecutionResponse>> execution : executions.entrySet()) {
+            try {
+                String executionArn = execution.getValue().join().executionArn();
+                startedExecutions++;
+                logger.log(String.format("State machine successfully started. Execution arn: %s", executionArn));
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                logger.log(String.format("State machine execution for message %s failed to start: %s",
+                        execution.getKey(), cause.getMessage()));
+                batchItemFailures.add(new SQSBatchResponse.BatchItemFailure(execution.getKey()));
+            }
+        }
+
+        logger.log(String.format("Started %d state machine executions. Total messages: %d, Failures: %d",
+                startedExecutions,
+                event.getRecords().size(),
+                batchItemFailures.size()));
+
+        return new SQSBatchResponse(batchItemFailures);
+    }
+
+    private static int getMaxConcurrentExecutions() {
+        String maxConcurrentExecutions = System.getenv(SFN_MAX_CONCURRENT_EXECUTIONS_ENV_VARIABLE);
+        if (maxConcurrentExecutions == null || maxConcurrentExecutions.isEmpty()) {
+            return SFN_DEFAULT_MAX_CONCURRENT_EXECUTIONS;
+        }
+
+        return Math.max(1, Integer.parseInt(maxConcurrentExecutions));
+    }
+}
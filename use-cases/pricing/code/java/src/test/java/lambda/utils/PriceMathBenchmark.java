@@ -0,0 +1,104 @@
+package lambda.utils;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Local benchmark of the price change rules calculated with {@link PriceMath} against the previous float and
+ * {@code BigDecimal} arithmetic of CalculateNewPriceHandler, across a million synthetic offers.
+ *
+ * <p>Every pass applies the PERCENTAGE and FIXED rules to the buy box price of every offer, excluding shipping.
+ * The offers are generated from a fixed seed, so runs are comparable. The benchmark also counts the offers whose
+ * float result differs from the exact minor-unit result.</p>
+ *
+ * <p>Usage: {@code mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=lambda.utils.PriceMathBenchmark
+ * -Dexec.args="[passes] [offers]"}</p>
+ */
+public class PriceMathBenchmark {
+
+    private static final String CURRENCY_CODE = "USD";
+    private static final int DEFAULT_OFFER_COUNT = 1000000;
+    private static final int WARM_UP_PASSES = 3;
+    private static final float PERCENTAGE = 5.0f;
+    private static final float FIXED_AMOUNT = 0.01f;
+
+    //Keeps the results reachable so the JIT cannot eliminate the measured work
+    private static double sink;
+
+    public static void main(String[] args) {
+        int passes = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int offerCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_OFFER_COUNT;
+
+        // Prices between 1.00 and 500.00 with cent precision, and shipping between 0.00 and 9.99
+        Random random = new Random(42);
+        float[] buyBoxPrices = new float[offerCount];
+        float[] shippingPrices = new float[offerCount];
+        for (int i = 0; i < offerCount; i++) {
+            buyBoxPrices[i] = (100 + random.nextInt(49901)) / 100f;
+            shippingPrices[i] = random.nextInt(1000) / 100f;
+        }
+        long fixedAmount = PriceMath.toMinorUnits(FIXED_AMOUNT, CURRENCY_CODE);
+
+        run("Float and BigDecimal", passes, offerCount, i -> {
+            float buyBoxPriceExcludingShipping = buyBoxPrices[i] - shippingPrices[i];
+            return (double) subtractPercentage(buyBoxPriceExcludingShipping, PERCENTAGE)
+                    + subtractFixed(buyBoxPriceExcludingShipping, FIXED_AMOUNT);
+        });
+        run("PriceMath minor units", passes, offerCount, i -> {
+            long buyBoxPriceExcludingShipping = PriceMath.toMinorUnits(buyBoxPrices[i], CURRENCY_CODE)
+                    - PriceMath.toMinorUnits(shippingPrices[i], CURRENCY_CODE);
+            return (double) PriceMath.subtractPercentage(buyBoxPriceExcludingShipping, PERCENTAGE)
+                    + PriceMath.subtractFixed(buyBoxPriceExcludingShipping, fixedAmount);
+        });
+
+        int mismatches = 0;
+        for (int i = 0; i < offerCount; i++) {
+            float buyBoxPriceExcludingShipping = buyBoxPrices[i] - shippingPrices[i];
+            long exact = PriceMath.subtractPercentage(PriceMath.toMinorUnits(buyBoxPrices[i], CURRENCY_CODE)
+                    - PriceMath.toMinorUnits(shippingPrices[i], CURRENCY_CODE), PERCENTAGE);
+            if (PriceMath.toAmount(exact, CURRENCY_CODE) != subtractPercentage(buyBoxPriceExcludingShipping, PERCENTAGE)) {
+                mismatches++;
+            }
+        }
+
+        System.out.println(String.format("PERCENTAGE results with floats that differ from the minor-unit result: %d of %d offers",
+                mismatches, offerCount));
+        System.out.println("Checksum: " + sink);
+    }
+
+    private static void run(String name, int passes, int offerCount, IntToDoubleFunction operation) {
+        // Warm up the JIT
+        for (int pass = 0; pass < WARM_UP_PASSES; pass++) {
+            for (int i = 0; i < offerCount; i++) {
+                sink += operation.applyAsDouble(i);
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            for (int i = 0; i < offerCount; i++) {
+                sink += operation.applyAsDouble(i);
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long operations = (long) passes * offerCount;
+
+        System.out.println(String.format("%-25s %8.1f ns/offer, %8.1f ms/pass over %d offers",
+                name, (double) elapsedNanos / operations, elapsedNanos / 1e6 / passes, offerCount));
+    }
+
+    //Previous implementation of CalculateNewPriceHandler
+    private static float subtractPercentage(float n1, float percentage) {
+        return BigDecimal.valueOf(n1)
+                .subtract(BigDecimal.valueOf(n1)
+                        .multiply(BigDecimal.valueOf(percentage / 100)))
+                .floatValue();
+    }
+
+    private static float subtractFixed(float n1, float n2) {
+        return BigDecimal.valueOf(n1)
+                .subtract(BigDecimal.valueOf(n2))
+                .floatValue();
+    }
+}
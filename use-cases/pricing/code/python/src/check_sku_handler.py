@@ -47,6 +47,7 @@ def lambda_handler(event, context):
         pricing_offer.sellerId = lambda_input.seller.sellerId
         pricing_offer.asin = lambda_input.asin
         pricing_offer.credentials = lambda_input.credentials
+        pricing_offer.competitorSummary = lambda_input.competitorSummary
 
         # Matching Notification Offers from notification based on isFBA Attribute
         matching_notification_offer = next((offer for offer in lambda_input.seller.offers
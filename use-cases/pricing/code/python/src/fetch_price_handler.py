@@ -1,6 +1,8 @@
 import logging
 import os
+import time
 
+from src.api_models.pricing_api.swagger_client.rest import ApiException
 from src.utils import constants
 from src.utils.api_utils import ApiUtils
 from src.utils.pricing_utils import PricingOfferLambdaInput, camel_to_snake_case_dict
@@ -16,6 +18,11 @@ def lambda_handler(event, context):
 
     region_code = os.environ.get(constants.REGION_CODE_ARN_ENV_VARIABLE)
 
+    # The Fetch Prices state sends all the offers of the notification to price them in batches
+    if constants.STATE_MACHINE_KEY_OFFERS in event:
+        return {constants.STATE_MACHINE_KEY_OFFERS: prefetch_prices(event[constants.STATE_MACHINE_KEY_OFFERS],
+                                                                    region_code)}
+
     try:
         # Instantiate PricingOfferLambdaInput object from the input event
         pricing_offer_input = PricingOfferLambdaInput(**event)
@@ -67,4 +74,71 @@ def lambda_handler(event, context):
         return result
     except Exception as e:
         # Raise an exception if there's an error during the process
-        raise Exception("Calling Pricing API failed", e)
\ No newline at end of file
+        raise Exception("Calling Pricing API failed", e)
+
+
+def prefetch_prices(offers, region_code):
+    # Sets the seller offer of the offers without one, calling getPricing with up to 20 SKUs per request
+    # Offers with a client error are removed, as their processing ends anyway
+    # Offers of a request that failed after all attempts keep no seller offer, so the state machine fetches them one by one
+    prices = {}
+    offers_by_credentials = {}
+    for offer in offers:
+        if offer.get(constants.STATE_MACHINE_KEY_SELLER_OFFER):
+            continue
+        credentials = offer[constants.STATE_MACHINE_KEY_CREDENTIALS]
+        credentials_key = (credentials[constants.STATE_MACHINE_KEY_REFRESH_TOKEN],
+                           credentials[constants.STATE_MACHINE_KEY_MARKETPLACE_ID])
+        offers_by_credentials.setdefault(credentials_key, []).append(offer)
+
+    for (refresh_token, marketplace_id), credentials_offers in offers_by_credentials.items():
+        api_utils = ApiUtils(refresh_token, region_code, constants.PRICING_API_TYPE)
+        skus = list(dict.fromkeys(offer["itemSku"] for offer in credentials_offers))
+
+        for start in range(0, len(skus), constants.GET_PRICING_MAX_SKUS_PER_REQUEST):
+            sku_chunk = skus[start:start + constants.GET_PRICING_MAX_SKUS_PER_REQUEST]
+            try:
+                get_pricing_response = get_pricing(api_utils, marketplace_id, sku_chunk)
+            except Exception as e:
+                logger.info(f"GetPricing failed for SKUs {sku_chunk}: {e}")
+                continue
+
+            # SKUs missing from the response are handled as client errors
+            for sku in sku_chunk:
+                prices[(refresh_token, marketplace_id, sku)] = None
+            for pricing_payload in get_pricing_response.payload:
+                prices[(refresh_token, marketplace_id, pricing_payload.get("SellerSKU"))] = pricing_payload
+
+    priced_offers = []
+    for offer in offers:
+        credentials = offer[constants.STATE_MACHINE_KEY_CREDENTIALS]
+        price_key = (credentials[constants.STATE_MACHINE_KEY_REFRESH_TOKEN],
+                     credentials[constants.STATE_MACHINE_KEY_MARKETPLACE_ID],
+                     offer["itemSku"])
+        if not offer.get(constants.STATE_MACHINE_KEY_SELLER_OFFER) and price_key in prices:
+            pricing_payload = prices[price_key]
+            if pricing_payload is None or pricing_payload["status"] == "ClientError":
+                logger.info(f"ClientError received from Pricing API for SKU {offer['itemSku']}, SKU skipped")
+                continue
+
+            offer_data = pricing_payload['Product']['Offers'][0]['BuyingPrice']
+            offer[constants.STATE_MACHINE_KEY_SELLER_OFFER] = {
+                constants.STATE_MACHINE_KEY_LISTING_PRICE: camel_to_snake_case_dict(offer_data['LandedPrice']),
+                constants.STATE_MACHINE_KEY_SHIPPING_PRICE: camel_to_snake_case_dict(offer_data['Shipping'])
+            }
+        priced_offers.append(offer)
+
+    return priced_offers
+
+
+def get_pricing(api_utils, marketplace_id, skus):
+    # Retries throttled and server errors with exponential backoff
+    for attempt in range(1, constants.GET_PRICING_MAX_ATTEMPTS + 1):
+        try:
+            return api_utils.call_pricing_api(method='get_pricing', marketplace_id=marketplace_id,
+                                              item_type="Sku", skus=skus)
+        except ApiException as e:
+            retryable = e.status == 429 or (e.status is not None and e.status >= 500)
+            if not retryable or attempt == constants.GET_PRICING_MAX_ATTEMPTS:
+                raise
+            time.sleep(constants.GET_PRICING_BASE_BACKOFF_SECONDS * 2 ** (attempt - 1))
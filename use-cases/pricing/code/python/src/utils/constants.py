@@ -129,6 +129,12 @@ PRICING_API_TYPE = "pricing"
 NOTIFICATIONS_API_TYPE = "notifications"
 
 
+# getPricing Configurations
+GET_PRICING_MAX_SKUS_PER_REQUEST = 20
+GET_PRICING_MAX_ATTEMPTS = 3
+GET_PRICING_BASE_BACKOFF_SECONDS = 0.5
+
+
 # DynamoDB Attributes
 SELLER_TABLE_HASH_KEY_NAME = "SKU"
 AWS_DYNAMO_DB_CLIENT_KEY_NAME = "dynamodb"
@@ -148,6 +148,7 @@ class PricingOfferLambdaInput:
     fulfillmentType: Optional[str] = None
     useCompetitivePrice: Optional[bool] = None
     newListingPrice: Optional[Money] = None
+    competitorSummary: Optional[dict] = None
 
     def __post_init__(self):
         if isinstance(self.buyBox, dict):